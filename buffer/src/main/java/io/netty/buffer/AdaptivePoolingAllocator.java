@@ -0,0 +1,692 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.NettyRuntime;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import io.netty.util.internal.MathUtil;
+import io.netty.util.internal.ObjectPool;
+import io.netty.util.internal.ObjectPool.Handle;
+import io.netty.util.internal.ObjectPool.ObjectCreator;
+import io.netty.util.internal.SystemPropertyUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The pooling engine behind {@link AdaptiveByteBufAllocator}, for either heap or direct memory.
+ * <p>
+ * Buffers are carved out of large chunks with a simple bump pointer. A chunk is owned by a {@link Magazine} until it
+ * is exhausted, and its memory is reused (or freed) once every buffer that was carved out of it has been released.
+ * This works well as long as buffers allocated together are also released at roughly the same time, which is the
+ * common case for network applications.
+ * <p>
+ * Each magazine keeps a histogram of the sizes it was asked for and uses it to pick the size of the next chunk, so
+ * the allocator adapts to the buffer sizes that are actually used instead of relying on fixed size classes.
+ * Threads that clean up their {@link FastThreadLocal}s (e.g. event loop threads) get a magazine of their own, all
+ * other threads share a set of striped magazines.
+ */
+final class AdaptivePoolingAllocator {
+
+    private static final int MIN_CHUNK_SIZE = 128 * 1024;
+    private static final int MAX_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int BUFS_PER_CHUNK = 10;
+    /**
+     * Buffers larger than this are not pooled, and are instead backed by a dedicated chunk.
+     */
+    private static final int MAX_POOLED_BUF_SIZE = MAX_CHUNK_SIZE / BUFS_PER_CHUNK;
+    /**
+     * A chunk with less than this many bytes left is retired from its magazine right away.
+     */
+    private static final int RETIRE_CAPACITY = 256;
+    private static final int CENTRAL_QUEUE_CAPACITY;
+    private static final int MAGAZINE_COUNT;
+
+    private static final int HISTO_MIN_BUCKET_SHIFT = 5;
+    private static final int HISTO_MAX_BUCKET_SHIFT = 20;
+    private static final int HISTO_BUCKET_COUNT = HISTO_MAX_BUCKET_SHIFT - HISTO_MIN_BUCKET_SHIFT + 1;
+    private static final int HISTO_WINDOW = 1024;
+
+    static {
+        CENTRAL_QUEUE_CAPACITY = Math.max(2, SystemPropertyUtil.getInt(
+                "io.netty.allocator.adaptive.centralQueueCapacity", NettyRuntime.availableProcessors()));
+        MAGAZINE_COUNT = MathUtil.findNextPositivePowerOfTwo(Math.max(1, SystemPropertyUtil.getInt(
+                "io.netty.allocator.adaptive.magazines", NettyRuntime.availableProcessors() * 2)));
+    }
+
+    private final AdaptiveByteBufAllocator parent;
+    private final ChunkAllocator chunkAllocator;
+    private final Queue<Chunk> centralQueue;
+    private final Magazine[] magazines;
+    private final FastThreadLocal<Magazine> threadLocalMagazine;
+
+    AdaptivePoolingAllocator(AdaptiveByteBufAllocator parent, ChunkAllocator chunkAllocator) {
+        this.parent = parent;
+        this.chunkAllocator = chunkAllocator;
+        centralQueue = new ArrayBlockingQueue<Chunk>(CENTRAL_QUEUE_CAPACITY);
+        magazines = new Magazine[MAGAZINE_COUNT];
+        for (int i = 0; i < magazines.length; i++) {
+            magazines[i] = new Magazine(this);
+        }
+        threadLocalMagazine = new FastThreadLocal<Magazine>() {
+            @Override
+            protected Magazine initialValue() {
+                return new Magazine(AdaptivePoolingAllocator.this);
+            }
+
+            @Override
+            protected void onRemoval(Magazine value) {
+                value.free();
+            }
+        };
+    }
+
+    ByteBuf allocate(int size, int maxCapacity) {
+        AdaptiveByteBuf buf = AdaptiveByteBuf.newInstance();
+        allocate(size, maxCapacity, buf);
+        return buf;
+    }
+
+    private void allocate(int size, int maxCapacity, AdaptiveByteBuf into) {
+        if (size <= MAX_POOLED_BUF_SIZE) {
+            Thread currentThread = Thread.currentThread();
+            if (FastThreadLocalThread.willCleanupFastThreadLocals(currentThread)) {
+                // Only ever touched by its own thread, so no locking is needed.
+                threadLocalMagazine.get().allocate(size, maxCapacity, into);
+                return;
+            }
+            int mask = magazines.length - 1;
+            int index = (int) (currentThread.getId() & mask);
+            for (int i = 0; i < magazines.length; i++) {
+                Magazine magazine = magazines[index + i & mask];
+                if (magazine.lock.tryLock()) {
+                    try {
+                        magazine.allocate(size, maxCapacity, into);
+                        return;
+                    } finally {
+                        magazine.lock.unlock();
+                    }
+                }
+            }
+        }
+        // Too large to pool, or every magazine is contended.
+        allocateUnpooled(size, maxCapacity, into);
+    }
+
+    private void allocateUnpooled(int size, int maxCapacity, AdaptiveByteBuf into) {
+        Chunk chunk = new Chunk(chunkAllocator.allocate(size), this, false);
+        chunk.readInitInto(into, size, maxCapacity);
+        // The buffer now holds the only reference.
+        chunk.release();
+    }
+
+    void reallocate(int size, int maxCapacity, AdaptiveByteBuf into) {
+        allocate(size, maxCapacity, into);
+    }
+
+    long usedMemory() {
+        return chunkAllocator.usedMemory();
+    }
+
+    private boolean offerToQueue(Chunk chunk) {
+        return centralQueue.offer(chunk);
+    }
+
+    private static int sizeBucket(int size) {
+        if (size <= 1 << HISTO_MIN_BUCKET_SHIFT) {
+            return 0;
+        }
+        int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return Math.min(shift, HISTO_MAX_BUCKET_SHIFT) - HISTO_MIN_BUCKET_SHIFT;
+    }
+
+    /**
+     * Provides the memory that backs a {@link Chunk}.
+     */
+    interface ChunkAllocator {
+        /**
+         * Allocates a buffer with both capacity and max capacity set to {@code capacity}.
+         */
+        AbstractByteBuf allocate(int capacity);
+
+        /**
+         * Returns the number of bytes currently allocated through this {@link ChunkAllocator}.
+         */
+        long usedMemory();
+    }
+
+    private static final class Magazine {
+        final ReentrantLock lock = new ReentrantLock();
+        private final AdaptivePoolingAllocator parent;
+        private final int[] histo = new int[HISTO_BUCKET_COUNT];
+        private int histoCount;
+        private int preferredChunkSize = MIN_CHUNK_SIZE;
+        private Chunk current;
+
+        Magazine(AdaptivePoolingAllocator parent) {
+            this.parent = parent;
+        }
+
+        void allocate(int size, int maxCapacity, AdaptiveByteBuf into) {
+            recordAllocationSize(size);
+            Chunk curr = current;
+            if (curr != null) {
+                if (curr.remainingCapacity() >= size) {
+                    curr.readInitInto(into, size, maxCapacity);
+                    if (curr.remainingCapacity() < RETIRE_CAPACITY) {
+                        current = null;
+                        curr.release();
+                    }
+                    return;
+                }
+                // Not enough room left, retire the chunk. It is reused once all of its buffers are released.
+                current = null;
+                curr.release();
+            }
+            curr = newChunk(size);
+            curr.readInitInto(into, size, maxCapacity);
+            if (curr.remainingCapacity() < RETIRE_CAPACITY) {
+                curr.release();
+            } else {
+                current = curr;
+            }
+        }
+
+        private Chunk newChunk(int size) {
+            Chunk chunk = parent.centralQueue.poll();
+            if (chunk != null) {
+                if (chunk.capacity() >= size) {
+                    return chunk;
+                }
+                chunk.releaseMemory();
+            }
+            return new Chunk(parent.chunkAllocator.allocate(Math.max(preferredChunkSize, size)), parent, true);
+        }
+
+        private void recordAllocationSize(int size) {
+            histo[sizeBucket(size)]++;
+            if (++histoCount == HISTO_WINDOW) {
+                rotateHistogram();
+            }
+        }
+
+        private void rotateHistogram() {
+            // Size the next chunks so that the 99th percentile allocation fits BUFS_PER_CHUNK times.
+            int target = histoCount - histoCount / 100;
+            int sum = 0;
+            int bucket = 0;
+            for (; bucket < histo.length - 1; bucket++) {
+                sum += histo[bucket];
+                if (sum >= target) {
+                    break;
+                }
+            }
+            int percentileSize = 1 << bucket + HISTO_MIN_BUCKET_SHIFT;
+            preferredChunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, percentileSize * BUFS_PER_CHUNK));
+
+            // Halve the counts, so older allocations gradually lose their influence.
+            int count = 0;
+            for (int i = 0; i < histo.length; i++) {
+                count += histo[i] >>>= 1;
+            }
+            histoCount = count;
+        }
+
+        void free() {
+            Chunk curr = current;
+            if (curr != null) {
+                current = null;
+                curr.release();
+            }
+            Arrays.fill(histo, 0);
+            histoCount = 0;
+        }
+    }
+
+    private static final class Chunk extends AbstractReferenceCounted {
+        private final AbstractByteBuf delegate;
+        private final AdaptivePoolingAllocator allocator;
+        private final boolean pooled;
+        private final int capacity;
+        private int allocatedBytes;
+
+        Chunk(AbstractByteBuf delegate, AdaptivePoolingAllocator allocator, boolean pooled) {
+            this.delegate = delegate;
+            this.allocator = allocator;
+            this.pooled = pooled;
+            capacity = delegate.capacity();
+        }
+
+        int capacity() {
+            return capacity;
+        }
+
+        int remainingCapacity() {
+            return capacity - allocatedBytes;
+        }
+
+        void readInitInto(AdaptiveByteBuf buf, int size, int maxCapacity) {
+            int startIndex = allocatedBytes;
+            allocatedBytes = startIndex + size;
+            retain();
+            buf.init(delegate, this, startIndex, size, maxCapacity);
+        }
+
+        @Override
+        protected void deallocate() {
+            if (pooled) {
+                allocatedBytes = 0;
+                setRefCnt(1);
+                if (allocator.offerToQueue(this)) {
+                    return;
+                }
+            }
+            releaseMemory();
+        }
+
+        void releaseMemory() {
+            delegate.release();
+        }
+
+        @Override
+        public Chunk touch(Object hint) {
+            return this;
+        }
+    }
+
+    static final class AdaptiveByteBuf extends AbstractReferenceCountedByteBuf {
+        private static final ObjectPool<AdaptiveByteBuf> RECYCLER = ObjectPool.newPool(
+                new ObjectCreator<AdaptiveByteBuf>() {
+                    @Override
+                    public AdaptiveByteBuf newObject(Handle<AdaptiveByteBuf> handle) {
+                        return new AdaptiveByteBuf(handle);
+                    }
+                });
+
+        static AdaptiveByteBuf newInstance() {
+            AdaptiveByteBuf buf = RECYCLER.get();
+            buf.resetRefCnt();
+            buf.setIndex0(0, 0);
+            buf.discardMarks();
+            return buf;
+        }
+
+        private final Handle<AdaptiveByteBuf> handle;
+
+        private AbstractByteBuf rootParent;
+        private Chunk chunk;
+        private ByteBufAllocator allocator;
+        private int adjustment;
+        private int length;
+        private int maxFastCapacity;
+        private ByteBuffer tmpNioBuf;
+        private boolean direct;
+        private boolean hasArray;
+        private boolean hasMemoryAddress;
+
+        private AdaptiveByteBuf(Handle<AdaptiveByteBuf> recyclerHandle) {
+            super(0);
+            handle = recyclerHandle;
+        }
+
+        void init(AbstractByteBuf rootParent, Chunk chunk, int adjustment, int capacity, int maxCapacity) {
+            this.rootParent = rootParent;
+            this.chunk = chunk;
+            allocator = chunk.allocator.parent;
+            this.adjustment = adjustment;
+            length = capacity;
+            maxFastCapacity = capacity;
+            tmpNioBuf = null;
+            direct = rootParent.isDirect();
+            hasArray = rootParent.hasArray();
+            hasMemoryAddress = rootParent.hasMemoryAddress();
+            maxCapacity(maxCapacity);
+        }
+
+        @Override
+        public int capacity() {
+            return length;
+        }
+
+        @Override
+        public int maxFastWritableBytes() {
+            return Math.min(maxFastCapacity, maxCapacity()) - writerIndex;
+        }
+
+        @Override
+        public ByteBuf capacity(int newCapacity) {
+            if (length <= newCapacity && newCapacity <= maxFastCapacity) {
+                ensureAccessible();
+                length = newCapacity;
+                return this;
+            }
+            checkNewCapacity(newCapacity);
+            if (newCapacity < length) {
+                length = newCapacity;
+                trimIndicesToCapacity(newCapacity);
+                return this;
+            }
+
+            // Reallocation required.
+            Chunk oldChunk = chunk;
+            AbstractByteBuf oldRoot = rootParent;
+            int oldAdjustment = adjustment;
+            int oldLength = length;
+            int readerIndex = readerIndex();
+            int writerIndex = writerIndex();
+            oldChunk.allocator.reallocate(newCapacity, maxCapacity(), this);
+            oldRoot.getBytes(oldAdjustment, this, 0, oldLength);
+            setIndex0(readerIndex, writerIndex);
+            oldChunk.release();
+            return this;
+        }
+
+        @Override
+        public ByteBufAllocator alloc() {
+            return allocator;
+        }
+
+        @Override
+        public ByteOrder order() {
+            return ByteOrder.BIG_ENDIAN;
+        }
+
+        @Override
+        public ByteBuf unwrap() {
+            return null;
+        }
+
+        @Override
+        public boolean isDirect() {
+            return direct;
+        }
+
+        @Override
+        public boolean isContiguous() {
+            return true;
+        }
+
+        @Override
+        public boolean hasArray() {
+            return hasArray;
+        }
+
+        @Override
+        public byte[] array() {
+            ensureAccessible();
+            return rootParent.array();
+        }
+
+        @Override
+        public int arrayOffset() {
+            return idx(rootParent.arrayOffset());
+        }
+
+        @Override
+        public boolean hasMemoryAddress() {
+            return hasMemoryAddress;
+        }
+
+        @Override
+        public long memoryAddress() {
+            ensureAccessible();
+            return rootParent.memoryAddress() + adjustment;
+        }
+
+        @Override
+        public int nioBufferCount() {
+            return 1;
+        }
+
+        @Override
+        public ByteBuffer nioBuffer(int index, int length) {
+            checkIndex(index, length);
+            return rootParent.nioBuffer(idx(index), length);
+        }
+
+        @Override
+        public ByteBuffer internalNioBuffer(int index, int length) {
+            checkIndex(index, length);
+            return (ByteBuffer) internalNioBuffer().limit(index + length).position(index);
+        }
+
+        private ByteBuffer internalNioBuffer() {
+            ByteBuffer tmpNioBuf = this.tmpNioBuf;
+            if (tmpNioBuf == null) {
+                this.tmpNioBuf = tmpNioBuf = rootParent.nioBuffer(adjustment, maxFastCapacity);
+            } else {
+                tmpNioBuf.clear();
+            }
+            return tmpNioBuf;
+        }
+
+        @Override
+        public ByteBuffer[] nioBuffers(int index, int length) {
+            return new ByteBuffer[] { nioBuffer(index, length) };
+        }
+
+        @Override
+        public ByteBuf copy(int index, int length) {
+            checkIndex(index, length);
+            ByteBufAllocator alloc = alloc();
+            ByteBuf copy = isDirect() ? alloc.directBuffer(length, maxCapacity())
+                    : alloc.heapBuffer(length, maxCapacity());
+            return copy.writeBytes(this, index, length);
+        }
+
+        @Override
+        protected byte _getByte(int index) {
+            return rootParent._getByte(idx(index));
+        }
+
+        @Override
+        protected short _getShort(int index) {
+            return rootParent._getShort(idx(index));
+        }
+
+        @Override
+        protected short _getShortLE(int index) {
+            return rootParent._getShortLE(idx(index));
+        }
+
+        @Override
+        protected int _getUnsignedMedium(int index) {
+            return rootParent._getUnsignedMedium(idx(index));
+        }
+
+        @Override
+        protected int _getUnsignedMediumLE(int index) {
+            return rootParent._getUnsignedMediumLE(idx(index));
+        }
+
+        @Override
+        protected int _getInt(int index) {
+            return rootParent._getInt(idx(index));
+        }
+
+        @Override
+        protected int _getIntLE(int index) {
+            return rootParent._getIntLE(idx(index));
+        }
+
+        @Override
+        protected long _getLong(int index) {
+            return rootParent._getLong(idx(index));
+        }
+
+        @Override
+        protected long _getLongLE(int index) {
+            return rootParent._getLongLE(idx(index));
+        }
+
+        @Override
+        protected void _setByte(int index, int value) {
+            rootParent._setByte(idx(index), value);
+        }
+
+        @Override
+        protected void _setShort(int index, int value) {
+            rootParent._setShort(idx(index), value);
+        }
+
+        @Override
+        protected void _setShortLE(int index, int value) {
+            rootParent._setShortLE(idx(index), value);
+        }
+
+        @Override
+        protected void _setMedium(int index, int value) {
+            rootParent._setMedium(idx(index), value);
+        }
+
+        @Override
+        protected void _setMediumLE(int index, int value) {
+            rootParent._setMediumLE(idx(index), value);
+        }
+
+        @Override
+        protected void _setInt(int index, int value) {
+            rootParent._setInt(idx(index), value);
+        }
+
+        @Override
+        protected void _setIntLE(int index, int value) {
+            rootParent._setIntLE(idx(index), value);
+        }
+
+        @Override
+        protected void _setLong(int index, long value) {
+            rootParent._setLong(idx(index), value);
+        }
+
+        @Override
+        protected void _setLongLE(int index, long value) {
+            rootParent._setLongLE(idx(index), value);
+        }
+
+        @Override
+        public ByteBuf getBytes(int index, ByteBuf dst, int dstIndex, int length) {
+            checkIndex(index, length);
+            rootParent.getBytes(idx(index), dst, dstIndex, length);
+            return this;
+        }
+
+        @Override
+        public ByteBuf getBytes(int index, byte[] dst, int dstIndex, int length) {
+            checkIndex(index, length);
+            rootParent.getBytes(idx(index), dst, dstIndex, length);
+            return this;
+        }
+
+        @Override
+        public ByteBuf getBytes(int index, ByteBuffer dst) {
+            checkIndex(index, dst.remaining());
+            rootParent.getBytes(idx(index), dst);
+            return this;
+        }
+
+        @Override
+        public ByteBuf getBytes(int index, OutputStream out, int length) throws IOException {
+            checkIndex(index, length);
+            rootParent.getBytes(idx(index), out, length);
+            return this;
+        }
+
+        @Override
+        public int getBytes(int index, GatheringByteChannel out, int length) throws IOException {
+            return out.write(nioBuffer(index, length));
+        }
+
+        @Override
+        public int getBytes(int index, FileChannel out, long position, int length) throws IOException {
+            return out.write(nioBuffer(index, length), position);
+        }
+
+        @Override
+        public ByteBuf setBytes(int index, ByteBuf src, int srcIndex, int length) {
+            checkIndex(index, length);
+            rootParent.setBytes(idx(index), src, srcIndex, length);
+            return this;
+        }
+
+        @Override
+        public ByteBuf setBytes(int index, byte[] src, int srcIndex, int length) {
+            checkIndex(index, length);
+            rootParent.setBytes(idx(index), src, srcIndex, length);
+            return this;
+        }
+
+        @Override
+        public ByteBuf setBytes(int index, ByteBuffer src) {
+            checkIndex(index, src.remaining());
+            rootParent.setBytes(idx(index), src);
+            return this;
+        }
+
+        @Override
+        public int setBytes(int index, InputStream in, int length) throws IOException {
+            checkIndex(index, length);
+            return rootParent.setBytes(idx(index), in, length);
+        }
+
+        @Override
+        public int setBytes(int index, ScatteringByteChannel in, int length) throws IOException {
+            try {
+                return in.read(internalNioBuffer(index, length));
+            } catch (ClosedChannelException ignored) {
+                return -1;
+            }
+        }
+
+        @Override
+        public int setBytes(int index, FileChannel in, long position, int length) throws IOException {
+            try {
+                return in.read(internalNioBuffer(index, length), position);
+            } catch (ClosedChannelException ignored) {
+                return -1;
+            }
+        }
+
+        private int idx(int index) {
+            return index + adjustment;
+        }
+
+        @Override
+        protected void deallocate() {
+            Chunk chunk = this.chunk;
+            this.chunk = null;
+            rootParent = null;
+            tmpNioBuf = null;
+            if (chunk != null) {
+                chunk.release();
+            }
+            handle.recycle(this);
+        }
+    }
+}
@@ -85,6 +85,9 @@ public final class ByteBufUtil {
         } else if ("pooled".equals(allocType)) {
             alloc = PooledByteBufAllocator.DEFAULT;
             logger.debug("-Dio.netty.allocator.type: {}", allocType);
+        } else if ("adaptive".equals(allocType)) {
+            alloc = AdaptiveByteBufAllocator.DEFAULT;
+            logger.debug("-Dio.netty.allocator.type: {}", allocType);
         } else {
             alloc = PooledByteBufAllocator.DEFAULT;
             logger.debug("-Dio.netty.allocator.type: pooled (unknown: {})", allocType);
@@ -624,6 +627,34 @@ public final class ByteBufUtil {
         return -1;
     }
 
+    /**
+     * Returns the index of the first occurrence of the readable bytes of {@code needle} in {@code haystack}, searching
+     * from {@code fromIndex} (inclusive) to {@code toIndex} (exclusive), or {@code -1} if there is none.
+     * Candidates are found with {@link ByteBuf#indexOf(int, int, byte)}, which scans multiple bytes at once, so this is
+     * the fastest when the first byte of {@code needle} is rare in {@code haystack}, like for protocol delimiters.
+     */
+    public static int indexOf(ByteBuf haystack, int fromIndex, int toIndex, ByteBuf needle) {
+        final int needleIndex = needle.readerIndex();
+        final int needleLength = needle.readableBytes();
+        if (needleLength == 0) {
+            return fromIndex <= toIndex ? fromIndex : -1;
+        }
+        final byte first = needle.getByte(needleIndex);
+        final int lastIndex = toIndex - needleLength;
+        int i = fromIndex;
+        while (i <= lastIndex) {
+            i = haystack.indexOf(i, lastIndex + 1, first);
+            if (i == -1) {
+                return -1;
+            }
+            if (equals(haystack, i + 1, needle, needleIndex + 1, needleLength - 1)) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
     /**
      * The default implementation of {@link ByteBuf#indexOf(int, int, byte)}.
      * This method is useful when implementing a new buffer type.
@@ -1747,7 +1778,27 @@ public final class ByteBufUtil {
      * @param length The length of the specified buffer.
      */
     private static boolean isAscii(ByteBuf buf, int index, int length) {
-        return buf.forEachByte(index, length, FIND_NON_ASCII) == -1;
+        if (!(buf instanceof AbstractByteBuf) || !PlatformDependent.isUnaligned()) {
+            return buf.forEachByte(index, length, FIND_NON_ASCII) == -1;
+        }
+        AbstractByteBuf buffer = (AbstractByteBuf) buf;
+        buffer.checkIndex(index, length);
+        // Check 8 bytes at once using SWAR, the byte order does not matter as all high bits must be zero.
+        final int longCount = length >>> 3;
+        int offset = index;
+        for (int i = 0; i < longCount; i++) {
+            if ((buffer._getLong(offset) & 0x8080808080808080L) != 0) {
+                return false;
+            }
+            offset += Long.BYTES;
+        }
+        final int endIndex = index + length;
+        for (; offset < endIndex; offset++) {
+            if (buffer._getByte(offset) < 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -64,6 +64,7 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
 
     // We need to use the LongCounter here as this is not guarded via synchronized block.
     private final LongCounter deallocationsHuge = PlatformDependent.newLongCounter();
+    private final LongCounter reclaimedBytes = PlatformDependent.newLongCounter();
 
     // Number of thread caches backed by this arena.
     final AtomicInteger numThreadCaches = new AtomicInteger();
@@ -263,6 +264,34 @@ abstract class PoolArena<T> extends SizeClasses implements PoolArenaMetric {
         }
     }
 
+    /**
+     * Destroys all {@link PoolChunk}s which have been empty for at least {@code idleNanos}, and so gives their memory
+     * back. Returns the number of bytes that were given back. A chunk which holds the last subpage of a size class is
+     * never empty, as that subpage is kept in {@link #smallSubpagePools} for the next allocation of this size.
+     */
+    long trimIdleChunks(long idleNanos) {
+        List<PoolChunk<T>> trimmed = new ArrayList<PoolChunk<T>>();
+        synchronized (this) {
+            // Chunks only stay around while being empty if they are in qInit, q000 destroys them right away.
+            qInit.trim(idleNanos, trimmed);
+        }
+        long bytes = 0;
+        for (PoolChunk<T> chunk : trimmed) {
+            bytes += chunk.chunkSize();
+            // destroyChunk not need to be called while holding the synchronized lock.
+            destroyChunk(chunk);
+        }
+        reclaimedBytes.add(bytes);
+        return bytes;
+    }
+
+    /**
+     * Return the number of bytes which were given back by {@link #trimIdleChunks(long)}.
+     */
+    long numReclaimedBytes() {
+        return reclaimedBytes.value();
+    }
+
     PoolSubpage<T> findSubpagePoolHead(int sizeIdx) {
         return smallSubpagePools[sizeIdx];
     }
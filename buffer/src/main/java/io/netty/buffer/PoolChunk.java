@@ -173,6 +173,8 @@ final class PoolChunk<T> implements PoolChunkMetric {
 
     int freeBytes;
     int pinnedBytes;
+    // The last time all memory of this chunk was freed, guarded by the lock of the arena.
+    long emptySinceNanos;
 
     PoolChunkList<T> parent;
     PoolChunk<T> prev;
@@ -118,6 +118,9 @@ final class PoolChunkList<T> implements PoolChunkListMetric {
 
     boolean free(PoolChunk<T> chunk, long handle, int normCapacity, ByteBuffer nioBuffer) {
         chunk.free(handle, normCapacity, nioBuffer);
+        if (chunk.freeBytes == chunk.chunkSize()) {
+            chunk.emptySinceNanos = System.nanoTime();
+        }
         if (chunk.freeBytes > freeMaxThreshold) {
             remove(chunk);
             // Move the PoolChunk down the PoolChunkList linked-list.
@@ -193,6 +196,22 @@ final class PoolChunkList<T> implements PoolChunkListMetric {
         }
     }
 
+    /**
+     * Removes all {@link PoolChunk}s from this {@link PoolChunkList} which have been empty for at least
+     * {@code idleNanos} and adds them to {@code trimmed}, so they can be destroyed.
+     */
+    void trim(long idleNanos, List<PoolChunk<T>> trimmed) {
+        long nanoTime = System.nanoTime();
+        for (PoolChunk<T> cur = head; cur != null;) {
+            PoolChunk<T> next = cur.next;
+            if (cur.freeBytes == cur.chunkSize() && nanoTime - cur.emptySinceNanos >= idleNanos) {
+                remove(cur);
+                trimmed.add(cur);
+            }
+            cur = next;
+        }
+    }
+
     @Override
     public int minUsage() {
         return minUsage0(minUsage);
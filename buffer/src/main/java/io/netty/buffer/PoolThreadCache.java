@@ -59,6 +59,7 @@ final class PoolThreadCache {
     private final AtomicBoolean freed = new AtomicBoolean();
 
     private int allocations;
+    private boolean allocatedSinceIdleCheck;
 
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
@@ -165,6 +166,7 @@ final class PoolThreadCache {
             return false;
         }
         boolean allocated = cache.allocate(buf, reqCapacity, this);
+        allocatedSinceIdleCheck = true;
         if (++ allocations >= freeSweepAllocationThreshold) {
             allocations = 0;
             trim();
@@ -254,6 +256,26 @@ final class PoolThreadCache {
         return cache.free(finalizer);
     }
 
+    /**
+     * Frees all cached buffers if nothing was allocated out of this cache since the last call of this method, so
+     * an idle thread does not keep memory of the arenas. Returns {@code true} if the cache was idle.
+     */
+    boolean freeIfIdle() {
+        if (allocatedSinceIdleCheck) {
+            allocatedSinceIdleCheck = false;
+            return false;
+        }
+        int numFreed = free(smallSubPageDirectCaches, false) +
+                free(normalDirectCaches, false) +
+                free(smallSubPageHeapCaches, false) +
+                free(normalHeapCaches, false);
+        if (numFreed > 0 && logger.isDebugEnabled()) {
+            logger.debug("Freed {} thread-local buffer(s) from idle thread: {}", numFreed,
+                    Thread.currentThread().getName());
+        }
+        return true;
+    }
+
     void trim() {
         trim(smallSubPageDirectCaches);
         trim(normalDirectCaches);
@@ -48,6 +48,7 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
     static final int DEFAULT_MAX_CACHED_BUFFER_CAPACITY;
     private static final int DEFAULT_CACHE_TRIM_INTERVAL;
     private static final long DEFAULT_CACHE_TRIM_INTERVAL_MILLIS;
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS;
     private static final boolean DEFAULT_USE_CACHE_FOR_ALL_THREADS;
     private static final int DEFAULT_DIRECT_MEMORY_CACHE_ALIGNMENT;
     static final int DEFAULT_MAX_CACHED_BYTEBUFFERS_PER_CHUNK;
@@ -62,6 +63,13 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
         }
     };
 
+    private final Runnable idleTrimTask = new Runnable() {
+        @Override
+        public void run() {
+            PooledByteBufAllocator.this.trimIdle();
+        }
+    };
+
     static {
         int defaultAlignment = SystemPropertyUtil.getInt(
                 "io.netty.allocator.directMemoryCacheAlignment", 0);
@@ -143,6 +151,9 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
                     "io.netty.allocator.cacheTrimIntervalMillis", 0);
         }
 
+        // the time after which memory is given back if it was not used, 0 disables giving back memory.
+        DEFAULT_IDLE_TIMEOUT_MILLIS = SystemPropertyUtil.getLong("io.netty.allocator.idleTimeoutMillis", 0);
+
         DEFAULT_USE_CACHE_FOR_ALL_THREADS = SystemPropertyUtil.getBoolean(
                 "io.netty.allocator.useCacheForAllThreads", true);
 
@@ -170,6 +181,7 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
             logger.debug("-Dio.netty.allocator.maxCachedBufferCapacity: {}", DEFAULT_MAX_CACHED_BUFFER_CAPACITY);
             logger.debug("-Dio.netty.allocator.cacheTrimInterval: {}", DEFAULT_CACHE_TRIM_INTERVAL);
             logger.debug("-Dio.netty.allocator.cacheTrimIntervalMillis: {}", DEFAULT_CACHE_TRIM_INTERVAL_MILLIS);
+            logger.debug("-Dio.netty.allocator.idleTimeoutMillis: {}", DEFAULT_IDLE_TIMEOUT_MILLIS);
             logger.debug("-Dio.netty.allocator.useCacheForAllThreads: {}", DEFAULT_USE_CACHE_FOR_ALL_THREADS);
             logger.debug("-Dio.netty.allocator.maxCachedByteBuffersPerChunk: {}",
                     DEFAULT_MAX_CACHED_BYTEBUFFERS_PER_CHUNK);
@@ -522,6 +534,13 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
                                 DEFAULT_CACHE_TRIM_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
                     }
                 }
+                if (DEFAULT_IDLE_TIMEOUT_MILLIS > 0) {
+                    final EventExecutor executor = ThreadExecutorMap.currentExecutor();
+                    if (executor != null) {
+                        executor.scheduleAtFixedRate(idleTrimTask, DEFAULT_IDLE_TIMEOUT_MILLIS,
+                                DEFAULT_IDLE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                }
                 return cache;
             }
             // No caching so just use 0 as sizes.
@@ -732,6 +751,70 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
         return false;
     }
 
+    /**
+     * Frees the thread local cache of the current {@link Thread} if nothing was allocated out of it since the last
+     * call, and gives back the chunks of its arenas which were empty for at least
+     * {@code -Dio.netty.allocator.idleTimeoutMillis}.
+     */
+    private void trimIdle() {
+        PoolThreadCache cache = threadCache.getIfExists();
+        if (cache != null) {
+            cache.freeIfIdle();
+            long idleNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_IDLE_TIMEOUT_MILLIS);
+            if (cache.heapArena != null) {
+                cache.heapArena.trimIdleChunks(idleNanos);
+            }
+            if (cache.directArena != null) {
+                cache.directArena.trimIdleChunks(idleNanos);
+            }
+        }
+    }
+
+    /**
+     * Gives back the memory of all chunks which had no buffers allocated out of them for at least {@code idleTime}.
+     * Direct memory is released right away, heap memory once it was garbage collected.
+     * <p>
+     * This is done periodically on every {@link EventExecutor} which uses this allocator if
+     * {@code -Dio.netty.allocator.idleTimeoutMillis} is set, which also frees the thread local caches of idle
+     * {@link EventExecutor}s. Other applications may call this method themselves.
+     *
+     * Returns the number of bytes that were given back.
+     */
+    public long trimIdleChunks(long idleTime, TimeUnit unit) {
+        long idleNanos = unit.toNanos(checkPositiveOrZero(idleTime, "idleTime"));
+        return trimIdleChunks(heapArenas, idleNanos) + trimIdleChunks(directArenas, idleNanos);
+    }
+
+    private static long trimIdleChunks(PoolArena<?>[] arenas, long idleNanos) {
+        if (arenas == null) {
+            return 0;
+        }
+        long trimmed = 0;
+        for (PoolArena<?> arena : arenas) {
+            trimmed += arena.trimIdleChunks(idleNanos);
+        }
+        return trimmed;
+    }
+
+    final long reclaimedHeapMemory() {
+        return reclaimedMemory(heapArenas);
+    }
+
+    final long reclaimedDirectMemory() {
+        return reclaimedMemory(directArenas);
+    }
+
+    private static long reclaimedMemory(PoolArena<?>[] arenas) {
+        if (arenas == null) {
+            return 0;
+        }
+        long reclaimed = 0;
+        for (PoolArena<?> arena : arenas) {
+            reclaimed += arena.numReclaimedBytes();
+        }
+        return reclaimed;
+    }
+
     /**
      * Returns the status of the allocator (which contains all metrics) as string. Be aware this may be expensive
      * and so should not called too frequently.
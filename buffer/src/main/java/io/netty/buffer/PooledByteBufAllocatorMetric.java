@@ -107,12 +107,30 @@ public final class PooledByteBufAllocatorMetric implements ByteBufAllocatorMetri
         return allocator.usedDirectMemory();
     }
 
+    /**
+     * Return the number of bytes of heap memory which were given back because chunks were idle, see
+     * {@link PooledByteBufAllocator#trimIdleChunks(long, java.util.concurrent.TimeUnit)}.
+     */
+    public long reclaimedHeapMemory() {
+        return allocator.reclaimedHeapMemory();
+    }
+
+    /**
+     * Return the number of bytes of direct memory which were given back because chunks were idle, see
+     * {@link PooledByteBufAllocator#trimIdleChunks(long, java.util.concurrent.TimeUnit)}.
+     */
+    public long reclaimedDirectMemory() {
+        return allocator.reclaimedDirectMemory();
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder(256);
         sb.append(StringUtil.simpleClassName(this))
                 .append("(usedHeapMemory: ").append(usedHeapMemory())
                 .append("; usedDirectMemory: ").append(usedDirectMemory())
+                .append("; reclaimedHeapMemory: ").append(reclaimedHeapMemory())
+                .append("; reclaimedDirectMemory: ").append(reclaimedDirectMemory())
                 .append("; numHeapArenas: ").append(numHeapArenas())
                 .append("; numDirectArenas: ").append(numDirectArenas())
                 .append("; smallCacheSize: ").append(smallCacheSize())
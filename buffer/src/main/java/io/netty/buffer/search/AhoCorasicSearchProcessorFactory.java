@@ -14,12 +14,11 @@
  */
 package io.netty.buffer.search;
 
+import io.netty.util.collection.IntArrayDeque;
 import io.netty.util.internal.PlatformDependent;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Queue;
 
 /**
  * Implements <a href="https://en.wikipedia.org/wiki/Aho%E2%80%93Corasick_algorithm">Aho–Corasick</a>
@@ -146,15 +145,15 @@ public class AhoCorasicSearchProcessorFactory extends AbstractMultiSearchProcess
 
     private void linkSuffixes() {
 
-        Queue<Integer> queue = new ArrayDeque<Integer>();
-        queue.add(0);
+        IntArrayDeque queue = new IntArrayDeque();
+        queue.addLast(0);
 
         int[] suffixLinks = new int[matchForNeedleId.length];
         Arrays.fill(suffixLinks, -1);
 
         while (!queue.isEmpty()) {
 
-            final int v = queue.remove();
+            final int v = queue.removeFirst();
             int vPosition = v >> BITS_PER_SYMBOL;
             final int u = suffixLinks[vPosition] == -1 ? 0 : suffixLinks[vPosition];
 
@@ -172,7 +171,7 @@ public class AhoCorasicSearchProcessorFactory extends AbstractMultiSearchProcess
 
                 if (jumpV != -1) {
                     suffixLinks[jumpV >> BITS_PER_SYMBOL] = v > 0 && jumpU != -1 ? jumpU : 0;
-                    queue.add(jumpV);
+                    queue.addLast(jumpV);
                 } else {
                     jumpTable[vIndex] = jumpU != -1 ? jumpU : 0;
                 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveByteBufAllocatorTest extends AbstractByteBufAllocatorTest<AdaptiveByteBufAllocator> {
+
+    private static final int MIN_CHUNK_SIZE = 128 * 1024;
+
+    @Override
+    protected AdaptiveByteBufAllocator newAllocator(boolean preferDirect) {
+        return new AdaptiveByteBufAllocator(preferDirect);
+    }
+
+    @Override
+    protected AdaptiveByteBufAllocator newUnpooledAllocator() {
+        return newAllocator(false);
+    }
+
+    @Override
+    public void testUnsafeHeapBufferAndUnsafeDirectBuffer() {
+        // Buffers are slices of larger chunks, so they are never instances of the unpooled buffer types.
+    }
+
+    @Override
+    protected long expectedUsedMemory(AdaptiveByteBufAllocator allocator, int capacity) {
+        return MIN_CHUNK_SIZE;
+    }
+
+    @Override
+    protected long expectedUsedMemoryAfterRelease(AdaptiveByteBufAllocator allocator, int capacity) {
+        return MIN_CHUNK_SIZE;
+    }
+
+    @Test
+    public void testBuffersDoNotOverlap() {
+        AdaptiveByteBufAllocator allocator = newAllocator(true);
+        ByteBuf a = allocator.directBuffer(1024);
+        ByteBuf b = allocator.directBuffer(1024);
+        try {
+            a.writerIndex(a.capacity());
+            b.writerIndex(b.capacity());
+            for (int i = 0; i < a.capacity(); i++) {
+                a.setByte(i, 1);
+                b.setByte(i, 2);
+            }
+            for (int i = 0; i < a.capacity(); i++) {
+                assertEquals(1, a.getByte(i));
+                assertEquals(2, b.getByte(i));
+            }
+        } finally {
+            a.release();
+            b.release();
+        }
+    }
+
+    @Test
+    public void testReallocationKeepsContent() {
+        AdaptiveByteBufAllocator allocator = newAllocator(false);
+        ByteBuf buf = allocator.heapBuffer(8);
+        try {
+            buf.writeLong(42);
+            buf.readByte();
+            buf.writeBytes(new byte[4096]);
+            assertEquals(1, buf.readerIndex());
+            assertEquals(8 + 4096, buf.writerIndex());
+            buf.readerIndex(0);
+            assertEquals(42, buf.readLong());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testLargeBufferIsNotPooled() {
+        AdaptiveByteBufAllocator allocator = newAllocator(true);
+        int size = 4 * 1024 * 1024;
+        ByteBuf buf = allocator.directBuffer(size);
+        assertEquals(size, allocator.metric().usedDirectMemory());
+        assertTrue(buf.release());
+        assertEquals(0, allocator.metric().usedDirectMemory());
+    }
+
+    @Test
+    public void testChunkIsReused() {
+        AdaptiveByteBufAllocator allocator = newAllocator(false);
+        // Fill up more than one chunk, so the first one is retired from its magazine.
+        ByteBuf[] buffers = new ByteBuf[MIN_CHUNK_SIZE / 1024 + 1];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = allocator.heapBuffer(1024, 1024);
+        }
+        assertEquals(2 * MIN_CHUNK_SIZE, allocator.metric().usedHeapMemory());
+        for (ByteBuf buffer : buffers) {
+            assertTrue(buffer.release());
+        }
+        // The retired chunk is kept around for reuse.
+        assertEquals(2 * MIN_CHUNK_SIZE, allocator.metric().usedHeapMemory());
+        ByteBuf buf = allocator.heapBuffer(MIN_CHUNK_SIZE);
+        assertEquals(2 * MIN_CHUNK_SIZE, allocator.metric().usedHeapMemory());
+        assertFalse(buf.isDirect());
+        buf.release();
+    }
+}
@@ -153,6 +153,33 @@ public class ByteBufUtilTest {
         needle.release();
     }
 
+    @Test
+    public void testIndexOfWithinRange() {
+        ByteBuf haystack = Unpooled.copiedBuffer("xaab\r\nabcdefghij\r\naab", CharsetUtil.US_ASCII);
+        ByteBuf needle = Unpooled.copiedBuffer("aab", CharsetUtil.US_ASCII);
+        ByteBuf crlf = Unpooled.copiedBuffer("\r\n", CharsetUtil.US_ASCII);
+        ByteBuf longNeedle = Unpooled.copiedBuffer("abcdefghij\r\n", CharsetUtil.US_ASCII);
+        try {
+            assertEquals(1, ByteBufUtil.indexOf(haystack, 0, haystack.writerIndex(), needle));
+            assertEquals(18, ByteBufUtil.indexOf(haystack, 2, haystack.writerIndex(), needle));
+            assertEquals(-1, ByteBufUtil.indexOf(haystack, 2, haystack.writerIndex() - 1, needle));
+            assertEquals(4, ByteBufUtil.indexOf(haystack, 0, haystack.writerIndex(), crlf));
+            assertEquals(16, ByteBufUtil.indexOf(haystack, 5, haystack.writerIndex(), crlf));
+            assertEquals(6, ByteBufUtil.indexOf(haystack, 0, haystack.writerIndex(), longNeedle));
+            assertEquals(-1, ByteBufUtil.indexOf(haystack, 7, haystack.writerIndex(), longNeedle));
+
+            needle.readerIndex(1);
+            assertEquals(2, ByteBufUtil.indexOf(haystack, 0, haystack.writerIndex(), needle));
+            needle.readerIndex(3);
+            assertEquals(5, ByteBufUtil.indexOf(haystack, 5, haystack.writerIndex(), needle));
+        } finally {
+            haystack.release();
+            needle.release();
+            crlf.release();
+            longNeedle.release();
+        }
+    }
+
     @Test
     public void equalsBufferSubsections() {
         byte[] b1 = new byte[128];
@@ -817,6 +844,19 @@ public class ByteBufUtilTest {
         assertIsText(bufferType, invalidBytes, false, CharsetUtil.US_ASCII);
     }
 
+    @ParameterizedTest(name = PARAMETERIZED_NAME)
+    @MethodSource("noUnsafe")
+    public void testIsTextWithAsciiEveryPosition(BufferType bufferType) {
+        byte[] bytes = new byte[19];
+        Arrays.fill(bytes, (byte) 'a');
+        assertIsText(bufferType, bytes, true, CharsetUtil.US_ASCII);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) 0x80;
+            assertIsText(bufferType, bytes, false, CharsetUtil.US_ASCII);
+            bytes[i] = (byte) 'a';
+        }
+    }
+
     @ParameterizedTest(name = PARAMETERIZED_NAME)
     @MethodSource("noUnsafe")
     public void testIsTextWithInvalidIndexAndLength(BufferType bufferType) {
@@ -697,6 +697,45 @@ public class PooledByteBufAllocatorTest extends AbstractByteBufAllocatorTest<Poo
         assertTrue(beforeFreeBytes < afterFreeBytes);
     }
 
+    @Test
+    public void testTrimIdleChunks() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 1, 1, 8192, 11, 0, 0, false);
+        ByteBuf buffer = allocator.directBuffer(64 * 1024);
+        ByteBuf buffer2 = allocator.heapBuffer(64 * 1024);
+
+        // Chunks which are in use are never given back.
+        assertEquals(0, allocator.trimIdleChunks(0, MILLISECONDS));
+        assertTrue(buffer.release());
+        // The chunk was not idle for long enough.
+        assertEquals(0, allocator.trimIdleChunks(60000, MILLISECONDS));
+
+        int chunkSize = allocator.metric().chunkSize();
+        assertEquals(chunkSize, allocator.trimIdleChunks(0, MILLISECONDS));
+        assertEquals(0, allocator.metric().usedDirectMemory());
+        assertEquals(chunkSize, allocator.metric().reclaimedDirectMemory());
+        assertEquals(chunkSize, allocator.metric().usedHeapMemory());
+        assertEquals(0, allocator.metric().reclaimedHeapMemory());
+
+        // A new chunk is created if needed.
+        buffer = allocator.directBuffer(64 * 1024);
+        assertEquals(chunkSize, allocator.metric().usedDirectMemory());
+        assertTrue(buffer.release());
+        assertTrue(buffer2.release());
+    }
+
+    @Test
+    public void testFreeIdleThreadCache() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 1, 1, 8192, 11, 128, 128, true);
+        assertTrue(allocator.directBuffer(32 * 1024).release());
+        // The buffer is cached by the thread, so the chunk is not empty.
+        assertEquals(0, allocator.trimIdleChunks(0, MILLISECONDS));
+
+        PoolThreadCache cache = allocator.threadCache();
+        assertFalse(cache.freeIfIdle());
+        assertTrue(cache.freeIfIdle());
+        assertEquals(allocator.metric().chunkSize(), allocator.trimIdleChunks(0, MILLISECONDS));
+    }
+
     @Override
     @Test
     public void testUsedDirectMemory() {
@@ -365,6 +365,40 @@ public class DefaultHttpHeaders extends HttpHeaders {
         return new DefaultHttpHeaders(headers.copy());
     }
 
+    /**
+     * Validates the header name in {@code bytes[start, end)} like {@link #HttpNameValidator}.
+     */
+    static void validateHeaderName(byte[] bytes, int start, int end) {
+        if (start == end) {
+            throw new IllegalArgumentException("empty headers are not allowed []");
+        }
+        for (int i = start; i < end; i++) {
+            validateHeaderNameElement(bytes[i]);
+        }
+    }
+
+    /**
+     * Validates the header value in {@code bytes[start, end)} which was decoded from a single line, so it can not
+     * contain a {@code '\n'} and any {@code '\r'} would not be followed by one.
+     */
+    static void validateHeaderValue(byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if ((b & HIGHEST_INVALID_VALUE_CHAR_MASK) == 0) {
+                switch (b) {
+                case 0x0: // NULL
+                case 0x0b: // Vertical tab
+                case '\f':
+                case '\r':
+                    throw new IllegalArgumentException("a header value contains a prohibited character 0x" +
+                            Integer.toHexString(b) + ": " + new AsciiString(bytes, start, end - start, false));
+                default:
+                    break;
+                }
+            }
+        }
+    }
+
     private static void validateHeaderNameElement(byte value) {
         switch (value) {
         case 0x1c:
@@ -137,6 +137,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     public static final boolean DEFAULT_VALIDATE_HEADERS = true;
     public static final int DEFAULT_INITIAL_BUFFER_SIZE = 128;
     public static final boolean DEFAULT_ALLOW_DUPLICATE_CONTENT_LENGTHS = false;
+    public static final boolean DEFAULT_LAZY_HEADERS = false;
 
     private static final String EMPTY_VALUE = "";
 
@@ -145,6 +146,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     private final boolean allowPartialChunks;
     protected final boolean validateHeaders;
     private final boolean allowDuplicateContentLengths;
+    private final boolean lazyHeaders;
     private final HeaderParser headerParser;
     private final LineParser lineParser;
 
@@ -159,6 +161,11 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
 
     private LastHttpContent trailer;
 
+    // These will be updated by readLazyHeaders(...) while it waits for the end of the header block.
+    private int lazyHeaderScanned;
+    private int lazyHeaderLines;
+    private boolean lazyHeaderFolded;
+
     /**
      * The internal state of {@link HttpObjectDecoder}.
      * <em>Internal use only</em>.
@@ -235,6 +242,22 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
             int maxInitialLineLength, int maxHeaderSize, int maxChunkSize,
             boolean chunkedSupported, boolean validateHeaders, int initialBufferSize,
             boolean allowDuplicateContentLengths, boolean allowPartialChunks) {
+        this(maxInitialLineLength, maxHeaderSize, maxChunkSize, chunkedSupported, validateHeaders, initialBufferSize,
+            allowDuplicateContentLengths, allowPartialChunks, DEFAULT_LAZY_HEADERS);
+    }
+
+    /**
+     * Creates a new instance with the specified parameters.
+     *
+     * @param lazyHeaders {@code true} to keep the decoded header block as is and only materialize the names and
+     *                    values of the headers which are accessed. This saves most of the per-message garbage if
+     *                    handlers only look at a few headers, but modifying the headers becomes more expensive.
+     *                    Only has an effect if {@link #createMessage(String[])} uses {@link #newHeaders()}.
+     */
+    protected HttpObjectDecoder(
+            int maxInitialLineLength, int maxHeaderSize, int maxChunkSize,
+            boolean chunkedSupported, boolean validateHeaders, int initialBufferSize,
+            boolean allowDuplicateContentLengths, boolean allowPartialChunks, boolean lazyHeaders) {
         checkPositive(maxInitialLineLength, "maxInitialLineLength");
         checkPositive(maxHeaderSize, "maxHeaderSize");
         checkPositive(maxChunkSize, "maxChunkSize");
@@ -247,6 +270,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         this.validateHeaders = validateHeaders;
         this.allowDuplicateContentLengths = allowDuplicateContentLengths;
         this.allowPartialChunks = allowPartialChunks;
+        this.lazyHeaders = lazyHeaders;
     }
 
     @Override
@@ -576,6 +600,9 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         lineParser.reset();
         headerParser.reset();
         trailer = null;
+        lazyHeaderScanned = 0;
+        lazyHeaderLines = 0;
+        lazyHeaderFolded = false;
         if (!isDecodingRequest()) {
             HttpResponse res = (HttpResponse) message;
             if (res != null && isSwitchingToNonHttp1Protocol(res)) {
@@ -623,9 +650,58 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         final HttpMessage message = this.message;
         final HttpHeaders headers = message.headers();
 
+        if (headers instanceof LazyHttpHeaders) {
+            if (!readLazyHeaders(buffer, (LazyHttpHeaders) headers)) {
+                return null;
+            }
+        } else if (!parseHeaders(buffer, headers)) {
+            return null;
+        }
+
+        // Done parsing initial line and headers. Set decoder result.
+        HttpMessageDecoderResult decoderResult = new HttpMessageDecoderResult(lineParser.size, headerParser.size);
+        message.setDecoderResult(decoderResult);
+
+        List<String> contentLengthFields = headers.getAll(HttpHeaderNames.CONTENT_LENGTH);
+        if (!contentLengthFields.isEmpty()) {
+            HttpVersion version = message.protocolVersion();
+            boolean isHttp10OrEarlier = version.majorVersion() < 1 || (version.majorVersion() == 1
+                    && version.minorVersion() == 0);
+            // Guard against multiple Content-Length headers as stated in
+            // https://tools.ietf.org/html/rfc7230#section-3.3.2:
+            contentLength = HttpUtil.normalizeAndGetContentLength(contentLengthFields,
+                    isHttp10OrEarlier, allowDuplicateContentLengths);
+            // Only touch the headers if the value changed, as modifying LazyHttpHeaders copies them.
+            if (contentLength != -1 && (contentLengthFields.size() != 1 ||
+                    !contentLengthFields.get(0).equals(Long.toString(contentLength)))) {
+                headers.set(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+            }
+        }
+
+        if (isContentAlwaysEmpty(message)) {
+            HttpUtil.setTransferEncodingChunked(message, false);
+            return State.SKIP_CONTROL_CHARS;
+        } else if (HttpUtil.isTransferEncodingChunked(message)) {
+            if (!contentLengthFields.isEmpty() && message.protocolVersion() == HttpVersion.HTTP_1_1) {
+                handleTransferEncodingChunkedWithContentLength(message);
+            }
+            return State.READ_CHUNK_SIZE;
+        } else if (contentLength() >= 0) {
+            return State.READ_FIXED_LENGTH_CONTENT;
+        } else {
+            return State.READ_VARIABLE_LENGTH_CONTENT;
+        }
+    }
+
+    /**
+     * Parses the headers line by line and adds them to the given {@link HttpHeaders}.
+     *
+     * @return {@code false} if more data is needed.
+     */
+    private boolean parseHeaders(ByteBuf buffer, HttpHeaders headers) {
         AppendableCharSequence line = headerParser.parse(buffer);
         if (line == null) {
-            return null;
+            return false;
         }
         if (line.length() > 0) {
             do {
@@ -645,7 +721,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
 
                 line = headerParser.parse(buffer);
                 if (line == null) {
-                    return null;
+                    return false;
                 }
             } while (line.length() > 0);
         }
@@ -658,38 +734,81 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         // reset name and value fields
         name = null;
         value = null;
+        return true;
+    }
 
-        // Done parsing initial line and headers. Set decoder result.
-        HttpMessageDecoderResult decoderResult = new HttpMessageDecoderResult(lineParser.size, headerParser.size);
-        message.setDecoderResult(decoderResult);
-
-        List<String> contentLengthFields = headers.getAll(HttpHeaderNames.CONTENT_LENGTH);
-        if (!contentLengthFields.isEmpty()) {
-            HttpVersion version = message.protocolVersion();
-            boolean isHttp10OrEarlier = version.majorVersion() < 1 || (version.majorVersion() == 1
-                    && version.minorVersion() == 0);
-            // Guard against multiple Content-Length headers as stated in
-            // https://tools.ietf.org/html/rfc7230#section-3.3.2:
-            contentLength = HttpUtil.normalizeAndGetContentLength(contentLengthFields,
-                    isHttp10OrEarlier, allowDuplicateContentLengths);
-            if (contentLength != -1) {
-                headers.set(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+    /**
+     * Waits until the whole header block was received without consuming it, and then copies it into a single array
+     * and only records where the names and values are.
+     *
+     * @return {@code false} if more data is needed.
+     */
+    private boolean readLazyHeaders(ByteBuf buffer, LazyHttpHeaders headers) {
+        final int startIndex = buffer.readerIndex();
+        final int writerIndex = buffer.writerIndex();
+        // The offset is relative as the cumulation buffer may be replaced until the block is complete.
+        int lineStart = startIndex + lazyHeaderScanned;
+        int lf;
+        for (;;) {
+            lf = buffer.indexOf(lineStart, writerIndex, HttpConstants.LF);
+            if (lf == -1) {
+                // Only check the size of the partial line, it is counted once the line is complete.
+                final int partial = writerIndex - lineStart;
+                headerParser.increaseCount(partial);
+                headerParser.size -= partial;
+                lazyHeaderScanned = lineStart - startIndex;
+                return false;
             }
+            headerParser.increaseCount(lf - lineStart);
+            if (lf > lineStart && buffer.getByte(lf - 1) == HttpConstants.CR) {
+                -- headerParser.size;
+                if (lf - 1 == lineStart) {
+                    break;
+                }
+            } else if (lf == lineStart) {
+                break;
+            }
+            byte firstByte = buffer.getByte(lineStart);
+            if (lazyHeaderLines > 0 && (firstByte == ' ' || firstByte == '\t')) {
+                lazyHeaderFolded = true;
+            } else {
+                lazyHeaderLines++;
+            }
+            lineStart = lf + 1;
         }
 
-        if (isContentAlwaysEmpty(message)) {
-            HttpUtil.setTransferEncodingChunked(message, false);
-            return State.SKIP_CONTROL_CHARS;
-        } else if (HttpUtil.isTransferEncodingChunked(message)) {
-            if (!contentLengthFields.isEmpty() && message.protocolVersion() == HttpVersion.HTTP_1_1) {
-                handleTransferEncodingChunkedWithContentLength(message);
+        final int lines = lazyHeaderLines;
+        final boolean folded = lazyHeaderFolded;
+        lazyHeaderScanned = 0;
+        lazyHeaderLines = 0;
+        lazyHeaderFolded = false;
+        if (folded) {
+            // Folded values do not fit into the offset table, so parse the now complete block line by line.
+            headerParser.size = 0;
+            boolean done = parseHeaders(buffer, headers);
+            assert done;
+            return true;
+        }
+
+        byte[] bytes = new byte[lineStart - startIndex];
+        buffer.getBytes(startIndex, bytes);
+        int[] offsets = new int[lines << 2];
+        int start = 0;
+        for (int i = 0; i < lines; i++) {
+            int end = start;
+            while (bytes[end] != HttpConstants.LF) {
+                end++;
             }
-            return State.READ_CHUNK_SIZE;
-        } else if (contentLength() >= 0) {
-            return State.READ_FIXED_LENGTH_CONTENT;
-        } else {
-            return State.READ_VARIABLE_LENGTH_CONTENT;
+            int next = end + 1;
+            if (end > start && bytes[end - 1] == HttpConstants.CR) {
+                end--;
+            }
+            splitHeader(bytes, start, end, offsets, i << 2);
+            start = next;
         }
+        headers.init(bytes, offsets, lines);
+        buffer.readerIndex(lf + 1);
+        return true;
     }
 
     /**
@@ -780,6 +899,14 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     protected abstract HttpMessage createMessage(String[] initialLine) throws Exception;
     protected abstract HttpMessage createInvalidMessage();
 
+    /**
+     * Returns new {@link HttpHeaders} for a message which is created by {@link #createMessage(String[])}, which
+     * are decoded lazily if this decoder was constructed with {@code lazyHeaders}.
+     */
+    protected HttpHeaders newHeaders() {
+        return lazyHeaders ? new LazyHttpHeaders(validateHeaders) : new DefaultHttpHeaders(validateHeaders);
+    }
+
     private static int getChunkSize(String hex) {
         hex = hex.trim();
         for (int i = 0; i < hex.length(); i ++) {
@@ -868,6 +995,54 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         }
     }
 
+    /**
+     * Same as {@link #splitHeader(AppendableCharSequence)}, but only stores the offsets of the name and the value of
+     * the header in {@code bytes[start, end)} into {@code offsets}, starting at {@code offset}.
+     */
+    private void splitHeader(byte[] bytes, int start, int end, int[] offsets, int offset) {
+        int nameStart;
+        int nameEnd;
+        int colonEnd;
+        int valueStart;
+        int valueEnd;
+
+        nameStart = findNonWhitespace(bytes, start, end);
+        for (nameEnd = nameStart; nameEnd < end; nameEnd ++) {
+            char ch = (char) (bytes[nameEnd] & 0xFF);
+            // See splitHeader(AppendableCharSequence) for why whitespace is only skipped in responses.
+            if (ch == ':' || (!isDecodingRequest() && isOWS(ch))) {
+                break;
+            }
+        }
+
+        if (nameEnd == end) {
+            // There was no colon present at all.
+            throw new IllegalArgumentException("No colon found");
+        }
+
+        for (colonEnd = nameEnd; colonEnd < end; colonEnd ++) {
+            if (bytes[colonEnd] == ':') {
+                colonEnd ++;
+                break;
+            }
+        }
+
+        valueStart = findNonWhitespace(bytes, colonEnd, end);
+        valueEnd = end;
+        while (valueEnd > valueStart && Character.isWhitespace((char) (bytes[valueEnd - 1] & 0xFF))) {
+            valueEnd --;
+        }
+
+        if (validateHeaders) {
+            DefaultHttpHeaders.validateHeaderName(bytes, nameStart, nameEnd);
+            DefaultHttpHeaders.validateHeaderValue(bytes, valueStart, valueEnd);
+        }
+        offsets[offset] = nameStart;
+        offsets[offset + 1] = nameEnd;
+        offsets[offset + 2] = valueStart;
+        offsets[offset + 3] = valueEnd;
+    }
+
     private static int findNonSPLenient(AppendableCharSequence sb, int offset) {
         for (int result = offset; result < sb.length(); ++result) {
             char c = sb.charAtUnsafe(result);
@@ -912,6 +1087,20 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         return sb.length();
     }
 
+    private static int findNonWhitespace(byte[] bytes, int offset, int end) {
+        for (int result = offset; result < end; ++result) {
+            char c = (char) (bytes[result] & 0xFF);
+            if (!Character.isWhitespace(c)) {
+                return result;
+            } else if (!isOWS(c)) {
+                // Only OWS is supported for whitespace
+                throw new IllegalArgumentException("Invalid separator, only a single space or horizontal tab allowed," +
+                        " but received a '" + c + "' (0x" + Integer.toHexString(c) + ")");
+            }
+        }
+        return end;
+    }
+
     private static int findEndOfString(AppendableCharSequence sb) {
         for (int result = sb.length() - 1; result > 0; --result) {
             if (!Character.isWhitespace(sb.charAtUnsafe(result))) {
@@ -938,40 +1127,54 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         public AppendableCharSequence parse(ByteBuf buffer) {
             final int oldSize = size;
             seq.reset();
-            int i = buffer.forEachByte(this);
+            int startIndex = skip(buffer);
+            if (startIndex == -1) {
+                size = oldSize;
+                return null;
+            }
+            final int writerIndex = buffer.writerIndex();
+            // Use ByteBuf.indexOf(...) to find the end of the line as it scans multiple bytes at once.
+            int i = buffer.indexOf(startIndex, writerIndex, HttpConstants.LF);
+            int length = (i == -1 ? writerIndex : i) - startIndex;
+            increaseCount(length);
             if (i == -1) {
                 size = oldSize;
                 return null;
             }
+            buffer.forEachByte(startIndex, length, this);
+            int len = seq.length();
+            // Drop CR if we had a CRLF pair
+            if (len >= 1 && seq.charAtUnsafe(len - 1) == HttpConstants.CR) {
+                -- size;
+                seq.setLength(len - 1);
+            }
             buffer.readerIndex(i + 1);
             return seq;
         }
 
+        /**
+         * Returns the index of the first byte of the line or {@code -1} if more data is needed.
+         */
+        protected int skip(ByteBuf buffer) {
+            return buffer.readerIndex();
+        }
+
         public void reset() {
             size = 0;
         }
 
         @Override
         public boolean process(byte value) throws Exception {
-            char nextByte = (char) (value & 0xFF);
-            if (nextByte == HttpConstants.LF) {
-                int len = seq.length();
-                // Drop CR if we had a CRLF pair
-                if (len >= 1 && seq.charAtUnsafe(len - 1) == HttpConstants.CR) {
-                    -- size;
-                    seq.setLength(len - 1);
-                }
-                return false;
-            }
-
-            increaseCount();
-
-            seq.append(nextByte);
+            seq.append((char) (value & 0xFF));
             return true;
         }
 
         protected final void increaseCount() {
-            if (++ size > maxLength) {
+            increaseCount(1);
+        }
+
+        private void increaseCount(int count) {
+            if ((size += count) > maxLength) {
                 // TODO: Respond with Bad Request and discard the traffic
                 //    or close the connection.
                 //       No need to notify the upstream handlers - just log.
@@ -999,16 +1202,21 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         }
 
         @Override
-        public boolean process(byte value) throws Exception {
+        protected int skip(ByteBuf buffer) {
+            int i = buffer.readerIndex();
             if (currentState == State.SKIP_CONTROL_CHARS) {
-                char c = (char) (value & 0xFF);
-                if (Character.isISOControl(c) || Character.isWhitespace(c)) {
+                final int writerIndex = buffer.writerIndex();
+                for (; i < writerIndex; i++) {
+                    char c = (char) (buffer.getByte(i) & 0xFF);
+                    if (!Character.isISOControl(c) && !Character.isWhitespace(c)) {
+                        currentState = State.READ_INITIAL;
+                        return i;
+                    }
                     increaseCount();
-                    return true;
                 }
-                currentState = State.READ_INITIAL;
+                return -1;
             }
-            return super.process(value);
+            return i;
         }
 
         @Override
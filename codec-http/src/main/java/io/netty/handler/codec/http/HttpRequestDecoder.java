@@ -120,11 +120,27 @@ public class HttpRequestDecoder extends HttpObjectDecoder {
               initialBufferSize, allowDuplicateContentLengths, allowPartialChunks);
     }
 
+    /**
+     * Creates a new instance with the specified parameters.
+     *
+     * @param lazyHeaders {@code true} to keep the header block of each request as is and only materialize the names
+     *                    and values of the headers which are accessed, see
+     *                    {@link HttpObjectDecoder#HttpObjectDecoder(int, int, int, boolean, boolean, int, boolean,
+     *                    boolean, boolean)}.
+     */
+    public HttpRequestDecoder(
+            int maxInitialLineLength, int maxHeaderSize, int maxChunkSize, boolean validateHeaders,
+            int initialBufferSize, boolean allowDuplicateContentLengths, boolean allowPartialChunks,
+            boolean lazyHeaders) {
+        super(maxInitialLineLength, maxHeaderSize, maxChunkSize, DEFAULT_CHUNKED_SUPPORTED, validateHeaders,
+              initialBufferSize, allowDuplicateContentLengths, allowPartialChunks, lazyHeaders);
+    }
+
     @Override
     protected HttpMessage createMessage(String[] initialLine) throws Exception {
         return new DefaultHttpRequest(
                 HttpVersion.valueOf(initialLine[2]),
-                HttpMethod.valueOf(initialLine[0]), initialLine[1], validateHeaders);
+                HttpMethod.valueOf(initialLine[0]), initialLine[1], newHeaders());
     }
 
     @Override
@@ -0,0 +1,492 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.util.AsciiString;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static io.netty.handler.codec.CharSequenceValueConverter.INSTANCE;
+
+/**
+ * {@link HttpHeaders} which are backed by the raw header block of a decoded message and an offset table which
+ * marks the name and value of every header in it. Names and values are only materialized when they are accessed,
+ * as {@link AsciiString}s which share the raw bytes, so a handler that only looks at a few headers does not pay for
+ * the others.
+ * <p>
+ * The first modification copies all headers into a {@link DefaultHttpHeaders}, which is used from then on.
+ *
+ * @see HttpObjectDecoder
+ */
+final class LazyHttpHeaders extends HttpHeaders {
+    private static final byte[] EMPTY_BYTES = new byte[0];
+    private static final int[] EMPTY_OFFSETS = new int[0];
+
+    private final boolean validate;
+    private byte[] bytes = EMPTY_BYTES;
+    // [nameStart, nameEnd, valueStart, valueEnd] of every header, in the order of the header block.
+    private int[] offsets = EMPTY_OFFSETS;
+    private int size;
+    private HttpHeaders inflated;
+
+    LazyHttpHeaders(boolean validate) {
+        this.validate = validate;
+    }
+
+    /**
+     * Sets the decoded header block. The arrays are used directly and must not be modified afterwards.
+     */
+    void init(byte[] bytes, int[] offsets, int size) {
+        assert inflated == null && this.size == 0;
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    private HttpHeaders inflate() {
+        HttpHeaders inflated = this.inflated;
+        if (inflated == null) {
+            inflated = new DefaultHttpHeaders(validate);
+            for (int i = 0; i < size; i++) {
+                inflated.add(name(i), value(i));
+            }
+            this.inflated = inflated;
+            bytes = EMPTY_BYTES;
+            offsets = EMPTY_OFFSETS;
+            size = 0;
+        }
+        return inflated;
+    }
+
+    private AsciiString name(int index) {
+        int start = offsets[index << 2];
+        return new AsciiString(bytes, start, offsets[(index << 2) + 1] - start, false);
+    }
+
+    private AsciiString value(int index) {
+        int start = offsets[(index << 2) + 2];
+        return new AsciiString(bytes, start, offsets[(index << 2) + 3] - start, false);
+    }
+
+    @SuppressWarnings("deprecation")
+    private String valueAsString(int index) {
+        int start = offsets[(index << 2) + 2];
+        return new String(bytes, 0, start, offsets[(index << 2) + 3] - start);
+    }
+
+    /**
+     * Returns the index of the first header at or after {@code fromIndex} with the given name, ignoring case, or
+     * {@code -1} if there is none.
+     */
+    private int indexOf(CharSequence name, int fromIndex) {
+        final int length = name.length();
+        for (int i = fromIndex; i < size; i++) {
+            int start = offsets[i << 2];
+            if (offsets[(i << 2) + 1] - start == length && nameEquals(start, name, length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean nameEquals(int start, CharSequence name, int length) {
+        for (int i = 0; i < length; i++) {
+            char a = (char) (bytes[start + i] & 0xFF);
+            char b = name.charAt(i);
+            if (a != b && AsciiString.toLowerCase(a) != AsciiString.toLowerCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private AsciiString get0(CharSequence name) {
+        int index = indexOf(name, 0);
+        return index == -1 ? null : value(index);
+    }
+
+    @Override
+    public String get(String name) {
+        return get((CharSequence) name);
+    }
+
+    @Override
+    public String get(CharSequence name) {
+        if (inflated != null) {
+            return inflated.get(name);
+        }
+        int index = indexOf(name, 0);
+        return index == -1 ? null : valueAsString(index);
+    }
+
+    @Override
+    public Integer getInt(CharSequence name) {
+        if (inflated != null) {
+            return inflated.getInt(name);
+        }
+        AsciiString value = get0(name);
+        if (value != null) {
+            try {
+                return INSTANCE.convertToInt(value);
+            } catch (RuntimeException ignore) {
+                // Same as DefaultHttpHeaders.
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int getInt(CharSequence name, int defaultValue) {
+        Integer value = getInt(name);
+        return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public Short getShort(CharSequence name) {
+        if (inflated != null) {
+            return inflated.getShort(name);
+        }
+        AsciiString value = get0(name);
+        if (value != null) {
+            try {
+                return INSTANCE.convertToShort(value);
+            } catch (RuntimeException ignore) {
+                // Same as DefaultHttpHeaders.
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public short getShort(CharSequence name, short defaultValue) {
+        Short value = getShort(name);
+        return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public Long getTimeMillis(CharSequence name) {
+        if (inflated != null) {
+            return inflated.getTimeMillis(name);
+        }
+        AsciiString value = get0(name);
+        if (value != null) {
+            try {
+                return INSTANCE.convertToTimeMillis(value);
+            } catch (RuntimeException ignore) {
+                // Same as DefaultHttpHeaders.
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public long getTimeMillis(CharSequence name, long defaultValue) {
+        Long value = getTimeMillis(name);
+        return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public List<String> getAll(String name) {
+        return getAll((CharSequence) name);
+    }
+
+    @Override
+    public List<String> getAll(CharSequence name) {
+        if (inflated != null) {
+            return inflated.getAll(name);
+        }
+        int index = indexOf(name, 0);
+        if (index == -1) {
+            return Collections.emptyList();
+        }
+        List<String> values = new ArrayList<String>(4);
+        do {
+            values.add(valueAsString(index));
+            index = indexOf(name, index + 1);
+        } while (index != -1);
+        return values;
+    }
+
+    @Override
+    public List<Entry<String, String>> entries() {
+        if (inflated != null) {
+            return inflated.entries();
+        }
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        List<Entry<String, String>> entries = new ArrayList<Entry<String, String>>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new SimpleImmutableEntry<String, String>(name(i).toString(), valueAsString(i)));
+        }
+        return entries;
+    }
+
+    @Override
+    public boolean contains(String name) {
+        return contains((CharSequence) name);
+    }
+
+    @Override
+    public boolean contains(CharSequence name) {
+        if (inflated != null) {
+            return inflated.contains(name);
+        }
+        return indexOf(name, 0) != -1;
+    }
+
+    @Override
+    public boolean contains(String name, String value, boolean ignoreCase) {
+        return contains((CharSequence) name, value, ignoreCase);
+    }
+
+    @Override
+    public boolean contains(CharSequence name, CharSequence value, boolean ignoreCase) {
+        if (inflated != null) {
+            return inflated.contains(name, value, ignoreCase);
+        }
+        for (int i = indexOf(name, 0); i != -1; i = indexOf(name, i + 1)) {
+            AsciiString v = value(i);
+            if (ignoreCase ? v.contentEqualsIgnoreCase(value) : v.contentEquals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<String> valueStringIterator(CharSequence name) {
+        if (inflated != null) {
+            return inflated.valueStringIterator(name);
+        }
+        final Iterator<AsciiString> itr = new ValueIterator(name);
+        return new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return itr.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return itr.next().toString();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public Iterator<? extends CharSequence> valueCharSequenceIterator(CharSequence name) {
+        if (inflated != null) {
+            return inflated.valueCharSequenceIterator(name);
+        }
+        return new ValueIterator(name);
+    }
+
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+        if (inflated != null) {
+            return inflated.iterator();
+        }
+        return entries().iterator();
+    }
+
+    @Override
+    public Iterator<Entry<CharSequence, CharSequence>> iteratorCharSequence() {
+        if (inflated != null) {
+            return inflated.iteratorCharSequence();
+        }
+        return new EntryIterator();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return inflated != null ? inflated.isEmpty() : size == 0;
+    }
+
+    @Override
+    public int size() {
+        return inflated != null ? inflated.size() : size;
+    }
+
+    @Override
+    public Set<String> names() {
+        return inflate().names();
+    }
+
+    @Override
+    public HttpHeaders add(String name, Object value) {
+        inflate().add(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(CharSequence name, Object value) {
+        inflate().add(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(String name, Iterable<?> values) {
+        inflate().add(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(CharSequence name, Iterable<?> values) {
+        inflate().add(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders addInt(CharSequence name, int value) {
+        inflate().addInt(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders addShort(CharSequence name, short value) {
+        inflate().addShort(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(String name, Object value) {
+        inflate().set(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(CharSequence name, Object value) {
+        inflate().set(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(String name, Iterable<?> values) {
+        inflate().set(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(CharSequence name, Iterable<?> values) {
+        inflate().set(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders setInt(CharSequence name, int value) {
+        inflate().setInt(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders setShort(CharSequence name, short value) {
+        inflate().setShort(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders remove(String name) {
+        return remove((CharSequence) name);
+    }
+
+    @Override
+    public HttpHeaders remove(CharSequence name) {
+        if (inflated != null || indexOf(name, 0) != -1) {
+            inflate().remove(name);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders clear() {
+        if (inflated != null) {
+            inflated.clear();
+        } else {
+            inflated = new DefaultHttpHeaders(validate);
+            bytes = EMPTY_BYTES;
+            offsets = EMPTY_OFFSETS;
+            size = 0;
+        }
+        return this;
+    }
+
+    private final class ValueIterator implements Iterator<AsciiString> {
+        private final CharSequence name;
+        private int index;
+
+        ValueIterator(CharSequence name) {
+            this.name = name;
+            index = indexOf(name, 0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index != -1;
+        }
+
+        @Override
+        public AsciiString next() {
+            if (index == -1) {
+                throw new NoSuchElementException();
+            }
+            AsciiString value = value(index);
+            index = indexOf(name, index + 1);
+            return value;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Entry<CharSequence, CharSequence>> {
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public Entry<CharSequence, CharSequence> next() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+            Entry<CharSequence, CharSequence> entry =
+                    new SimpleImmutableEntry<CharSequence, CharSequence>(name(index), value(index));
+            index++;
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
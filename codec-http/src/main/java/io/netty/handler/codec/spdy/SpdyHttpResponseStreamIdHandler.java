@@ -20,10 +20,9 @@ import io.netty.handler.codec.MessageToMessageCodec;
 import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.spdy.SpdyHttpHeaders.Names;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.collection.IntArrayDeque;
 
-import java.util.ArrayDeque;
 import java.util.List;
-import java.util.Queue;
 
 /**
  * {@link MessageToMessageCodec} that takes care of adding the right {@link SpdyHttpHeaders.Names#STREAM_ID} to the
@@ -32,8 +31,8 @@ import java.util.Queue;
  */
 public class SpdyHttpResponseStreamIdHandler extends
         MessageToMessageCodec<Object, HttpMessage> {
-    private static final Integer NO_ID = -1;
-    private final Queue<Integer> ids = new ArrayDeque<Integer>();
+    private static final int NO_ID = -1;
+    private final IntArrayDeque ids = new IntArrayDeque();
 
     @Override
     public boolean acceptInboundMessage(Object msg) throws Exception {
@@ -42,8 +41,8 @@ public class SpdyHttpResponseStreamIdHandler extends
 
     @Override
     protected void encode(ChannelHandlerContext ctx, HttpMessage msg, List<Object> out) throws Exception {
-        Integer id = ids.poll();
-        if (id != null && id.intValue() != NO_ID && !msg.headers().contains(SpdyHttpHeaders.Names.STREAM_ID)) {
+        int id = ids.isEmpty() ? NO_ID : ids.removeFirst();
+        if (id != NO_ID && !msg.headers().contains(SpdyHttpHeaders.Names.STREAM_ID)) {
             msg.headers().setInt(Names.STREAM_ID, id);
         }
 
@@ -55,12 +54,12 @@ public class SpdyHttpResponseStreamIdHandler extends
         if (msg instanceof HttpMessage) {
             boolean contains = ((HttpMessage) msg).headers().contains(SpdyHttpHeaders.Names.STREAM_ID);
             if (!contains) {
-                ids.add(NO_ID);
+                ids.addLast(NO_ID);
             } else {
-                ids.add(((HttpMessage) msg).headers().getInt(Names.STREAM_ID));
+                ids.addLast(((HttpMessage) msg).headers().getInt(Names.STREAM_ID));
             }
         } else if (msg instanceof SpdyRstStreamFrame) {
-            ids.remove(((SpdyRstStreamFrame) msg).streamId());
+            ids.removeFirstOccurrence(((SpdyRstStreamFrame) msg).streamId());
         }
 
         out.add(ReferenceCountUtil.retain(msg));
@@ -80,8 +80,19 @@ public class HttpRequestDecoderTest {
         testDecodeWholeRequestAtOnce(CONTENT_MIXED_DELIMITERS);
     }
 
+    @Test
+    public void testDecodeWholeRequestAtOnceLazyHeaders() {
+        testDecodeWholeRequestAtOnce(CONTENT_CRLF_DELIMITERS, true);
+        testDecodeWholeRequestAtOnce(CONTENT_LF_DELIMITERS, true);
+        testDecodeWholeRequestAtOnce(CONTENT_MIXED_DELIMITERS, true);
+    }
+
     private static void testDecodeWholeRequestAtOnce(byte[] content) {
-        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        testDecodeWholeRequestAtOnce(content, false);
+    }
+
+    private static void testDecodeWholeRequestAtOnce(byte[] content, boolean lazyHeaders) {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(lazyHeaders));
         assertTrue(channel.writeInbound(Unpooled.copiedBuffer(content)));
         HttpRequest req = channel.readInbound();
         assertNotNull(req);
@@ -129,14 +140,25 @@ public class HttpRequestDecoderTest {
         testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS);
     }
 
+    @Test
+    public void testDecodeWholeRequestInMultipleStepsLazyHeaders() {
+        testDecodeWholeRequestInMultipleSteps(CONTENT_CRLF_DELIMITERS, true);
+        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, true);
+    }
+
     private static void testDecodeWholeRequestInMultipleSteps(byte[] content) {
+        testDecodeWholeRequestInMultipleSteps(content, false);
+    }
+
+    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, boolean lazyHeaders) {
         for (int i = 1; i < content.length; i++) {
-            testDecodeWholeRequestInMultipleSteps(content, i);
+            testDecodeWholeRequestInMultipleSteps(content, i, lazyHeaders);
         }
     }
 
-    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize) {
-        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize,
+                                                              boolean lazyHeaders) {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(lazyHeaders));
         int headerLength = content.length - CONTENT_LENGTH;
 
         // split up the header
@@ -176,9 +198,26 @@ public class HttpRequestDecoderTest {
         assertNull(channel.readInbound());
     }
 
+    private static HttpRequestDecoder newDecoder(boolean lazyHeaders) {
+        return new HttpRequestDecoder(HttpObjectDecoder.DEFAULT_MAX_INITIAL_LINE_LENGTH,
+                HttpObjectDecoder.DEFAULT_MAX_HEADER_SIZE, HttpObjectDecoder.DEFAULT_MAX_CHUNK_SIZE,
+                HttpObjectDecoder.DEFAULT_VALIDATE_HEADERS, HttpObjectDecoder.DEFAULT_INITIAL_BUFFER_SIZE,
+                HttpObjectDecoder.DEFAULT_ALLOW_DUPLICATE_CONTENT_LENGTHS,
+                HttpObjectDecoder.DEFAULT_ALLOW_PARTIAL_CHUNKS, lazyHeaders);
+    }
+
     @Test
     public void testMultiLineHeader() {
-        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        testMultiLineHeader(false);
+    }
+
+    @Test
+    public void testMultiLineHeaderLazyHeaders() {
+        testMultiLineHeader(true);
+    }
+
+    private static void testMultiLineHeader(boolean lazyHeaders) {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(lazyHeaders));
         String crlf = "\r\n";
         String request =  "GET /some/path HTTP/1.1" + crlf +
                 "Host: localhost" + crlf +
@@ -551,11 +590,20 @@ public class HttpRequestDecoderTest {
 
     @Test
     public void testHttpMessageDecoderResult() {
+        testHttpMessageDecoderResult(false);
+    }
+
+    @Test
+    public void testHttpMessageDecoderResultLazyHeaders() {
+        testHttpMessageDecoderResult(true);
+    }
+
+    private static void testHttpMessageDecoderResult(boolean lazyHeaders) {
         String requestStr = "PUT /some/path HTTP/1.1\r\n" +
                 "Content-Length: 11\r\n" +
                 "Connection: close\r\n\r\n" +
                 "Lorem ipsum";
-        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(lazyHeaders));
         assertTrue(channel.writeInbound(Unpooled.copiedBuffer(requestStr, CharsetUtil.US_ASCII)));
         HttpRequest request = channel.readInbound();
         assertTrue(request.decoderResult().isSuccess());
@@ -569,6 +617,68 @@ public class HttpRequestDecoderTest {
         assertFalse(channel.finish());
     }
 
+    @Test
+    public void testLazyHeaders() {
+        String requestStr = "POST /some/path HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Accept: text/html \r\n" +
+                "accept: text/plain\r\n" +
+                "Empty:\r\n" +
+                "Content-Length: 2\r\n\r\n" +
+                "ok";
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(true));
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(requestStr, CharsetUtil.US_ASCII)));
+        HttpRequest request = channel.readInbound();
+        assertTrue(request.decoderResult().isSuccess());
+        HttpHeaders headers = request.headers();
+        assertThat(headers, instanceOf(LazyHttpHeaders.class));
+        assertEquals(5, headers.size());
+        assertEquals("localhost", headers.get(HOST));
+        assertEquals("text/html", headers.get("ACCEPT"));
+        assertEquals(2, headers.getAll(ACCEPT).size());
+        assertEquals("", headers.get("Empty"));
+        assertEquals(2, headers.getInt(HttpHeaderNames.CONTENT_LENGTH).intValue());
+        assertTrue(headers.contains(ACCEPT, "TEXT/PLAIN", true));
+        assertFalse(headers.contains(ACCEPT, "TEXT/PLAIN", false));
+        assertNull(headers.get(CONNECTION));
+
+        // Modifications copy the headers, which must not change them.
+        headers.remove(ACCEPT);
+        headers.add(CONNECTION, "close");
+        assertEquals(4, headers.size());
+        assertEquals("localhost", headers.get(HOST));
+        assertEquals("close", headers.get(CONNECTION));
+        assertFalse(headers.contains(ACCEPT));
+
+        LastHttpContent c = channel.readInbound();
+        assertEquals("ok", c.content().toString(CharsetUtil.US_ASCII));
+        c.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testLazyHeadersInvalidHeader() {
+        String requestStr = "GET /some/path HTTP/1.1\r\n" +
+                "Host : localhost\r\n\r\n";
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(true));
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(requestStr, CharsetUtil.US_ASCII)));
+        HttpRequest request = channel.readInbound();
+        assertThat(request.decoderResult().cause(), instanceOf(IllegalArgumentException.class));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testLazyHeadersTooLarge() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder(
+                HttpObjectDecoder.DEFAULT_MAX_INITIAL_LINE_LENGTH, 16, HttpObjectDecoder.DEFAULT_MAX_CHUNK_SIZE,
+                true, HttpObjectDecoder.DEFAULT_INITIAL_BUFFER_SIZE, false, true, true));
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(
+                "GET /some/path HTTP/1.1\r\nHost: localhost\r\nX-Header: value", CharsetUtil.US_ASCII)));
+        HttpRequest request = channel.readInbound();
+        assertThat(request.decoderResult().cause(), instanceOf(TooLongFrameException.class));
+        assertFalse(channel.finish());
+    }
+
     private static void testInvalidHeaders0(String requestStr) {
         testInvalidHeaders0(Unpooled.copiedBuffer(requestStr, CharsetUtil.US_ASCII));
     }
@@ -22,7 +22,9 @@ import io.netty.util.internal.UnstableApi;
 
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_LIST_SIZE;
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_RESERVED_STREAMS;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_INITIAL_WINDOW_SIZE;
 import static io.netty.handler.codec.http2.Http2PromisedRequestVerifier.ALWAYS_VERIFY;
+import static io.netty.util.internal.ObjectUtil.checkInRange;
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
 import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 
@@ -106,8 +108,11 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
     private Http2PromisedRequestVerifier promisedRequestVerifier = ALWAYS_VERIFY;
     private boolean autoAckSettingsFrame = true;
     private boolean autoAckPingFrame = true;
+    private boolean decodeHeadersLazily;
     private int maxQueuedControlFrames = Http2CodecUtil.DEFAULT_MAX_QUEUED_CONTROL_FRAMES;
     private int maxConsecutiveEmptyFrames = 2;
+    private boolean autoTuneFlowControlWindows;
+    private int maxAutoTunedWindowSize = DefaultHttp2LocalFlowController.DEFAULT_MAX_AUTO_TUNED_WINDOW_SIZE;
 
     /**
      * Sets the {@link Http2Settings} to use for the initial connection settings exchange.
@@ -468,6 +473,71 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
         return autoAckPingFrame;
     }
 
+    /**
+     * Determine if Huffman encoded header values should only be decoded when they are accessed. Values which were
+     * never accessed are written in their received form if the headers are forwarded to another HTTP/2 connection,
+     * which saves decoding and encoding them again in proxies.
+     * @param decodeHeadersLazily {@code true} to decode header values lazily.
+     * @return {@code this}.
+     * @see DefaultHttp2HeadersDecoder#DefaultHttp2HeadersDecoder(boolean, long, boolean)
+     */
+    protected B decodeHeadersLazily(boolean decodeHeadersLazily) {
+        enforceNonCodecConstraints("decodeHeadersLazily");
+        this.decodeHeadersLazily = decodeHeadersLazily;
+        return self();
+    }
+
+    /**
+     * Determine if Huffman encoded header values should only be decoded when they are accessed.
+     * @return {@code true} if header values are decoded lazily.
+     */
+    protected boolean isDecodeHeadersLazily() {
+        return decodeHeadersLazily;
+    }
+
+    /**
+     * Determine if the connection and stream flow control windows should grow automatically, based on estimates of the
+     * bandwidth-delay product of the connection. This lets transfers over links with a high bandwidth-delay product
+     * use all of the bandwidth, without a large {@link Http2Settings#initialWindowSize()} for every connection.
+     * @param autoTuneFlowControlWindows {@code true} to grow the windows automatically.
+     * @return {@code this}.
+     * @see DefaultHttp2LocalFlowController#maxAutoTunedWindowSize(int)
+     */
+    protected B autoTuneFlowControlWindows(boolean autoTuneFlowControlWindows) {
+        enforceNonCodecConstraints("autoTuneFlowControlWindows");
+        this.autoTuneFlowControlWindows = autoTuneFlowControlWindows;
+        return self();
+    }
+
+    /**
+     * Determine if the connection and stream flow control windows should grow automatically.
+     * @return {@code true} if the windows grow automatically.
+     */
+    protected boolean isAutoTuneFlowControlWindows() {
+        return autoTuneFlowControlWindows;
+    }
+
+    /**
+     * Sets the maximum size up to which the connection and stream flow control windows grow, if
+     * {@link #autoTuneFlowControlWindows(boolean)} is enabled.
+     * @param maxAutoTunedWindowSize the maximum size of the windows.
+     * @return {@code this}.
+     */
+    protected B maxAutoTunedWindowSize(int maxAutoTunedWindowSize) {
+        enforceNonCodecConstraints("maxAutoTunedWindowSize");
+        this.maxAutoTunedWindowSize = checkInRange(maxAutoTunedWindowSize, 1, MAX_INITIAL_WINDOW_SIZE,
+                                                   "maxAutoTunedWindowSize");
+        return self();
+    }
+
+    /**
+     * Returns the maximum size up to which the connection and stream flow control windows grow, if
+     * {@link #autoTuneFlowControlWindows(boolean)} is enabled.
+     */
+    protected int maxAutoTunedWindowSize() {
+        return maxAutoTunedWindowSize;
+    }
+
     /**
      * Determine if the {@link Channel#close()} should be coupled with goaway and graceful close.
      * @param decoupleCloseAndGoAway {@code true} to make {@link Channel#close()} directly close the underlying
@@ -504,10 +574,21 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
     }
 
     private T buildFromConnection(Http2Connection connection) {
+        if (autoTuneFlowControlWindows) {
+            Http2LocalFlowController flowController = connection.local().flowController();
+            if (flowController == null) {
+                flowController = new DefaultHttp2LocalFlowController(connection);
+                connection.local().flowController(flowController);
+            } else if (!(flowController instanceof DefaultHttp2LocalFlowController)) {
+                throw new IllegalStateException("autoTuneFlowControlWindows() is only supported with a " +
+                        DefaultHttp2LocalFlowController.class.getSimpleName() + ": " + flowController);
+            }
+            ((DefaultHttp2LocalFlowController) flowController).maxAutoTunedWindowSize(maxAutoTunedWindowSize);
+        }
+
         Long maxHeaderListSize = initialSettings.maxHeaderListSize();
         Http2FrameReader reader = new DefaultHttp2FrameReader(new DefaultHttp2HeadersDecoder(isValidateHeaders(),
-                maxHeaderListSize == null ? DEFAULT_HEADER_LIST_SIZE : maxHeaderListSize,
-                /* initialHuffmanDecodeCapacity= */ -1));
+                maxHeaderListSize == null ? DEFAULT_HEADER_LIST_SIZE : maxHeaderListSize, isDecodeHeadersLazily()));
         Http2FrameWriter writer = encoderIgnoreMaxHeaderListSize == null ?
                 new DefaultHttp2FrameWriter(headerSensitivityDetector()) :
                 new DefaultHttp2FrameWriter(headerSensitivityDetector(), encoderIgnoreMaxHeaderListSize);
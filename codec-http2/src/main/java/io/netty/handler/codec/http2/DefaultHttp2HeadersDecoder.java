@@ -31,6 +31,7 @@ public class DefaultHttp2HeadersDecoder implements Http2HeadersDecoder, Http2Hea
 
     private final HpackDecoder hpackDecoder;
     private final boolean validateHeaders;
+    private final boolean lazyHeaders;
     private long maxHeaderListSizeGoAway;
 
     /**
@@ -73,13 +74,39 @@ public class DefaultHttp2HeadersDecoder implements Http2HeadersDecoder, Http2Hea
         this(validateHeaders, new HpackDecoder(maxHeaderListSize));
     }
 
+    /**
+     * Create a new instance.
+     * @param validateHeaders {@code true} to validate headers are valid according to the RFC.
+     * @param maxHeaderListSize This is the only setting that can be configured before notifying the peer.
+     *  This is because <a href="https://tools.ietf.org/html/rfc7540#section-6.5.1">SETTINGS_MAX_HEADER_LIST_SIZE</a>
+     *  allows a lower than advertised limit from being enforced, and the default limit is unlimited
+     *  (which is dangerous).
+     * @param lazyHeaders {@code true} to back the decoded headers by a single copy of the header block and to only
+     *  decode Huffman encoded values of regular headers when they are first accessed. Pseudo-headers and values which
+     *  are added to the dynamic table are always decoded eagerly. This is useful for proxies which only route on a
+     *  few headers. The deferred values are still validated while decoding, so malformed Huffman codes are reported
+     *  as a {@link Http2Error#COMPRESSION_ERROR} and their decoded length counts against {@code maxHeaderListSize}.
+     */
+    public DefaultHttp2HeadersDecoder(boolean validateHeaders, long maxHeaderListSize, boolean lazyHeaders) {
+        this(validateHeaders, new HpackDecoder(maxHeaderListSize), lazyHeaders);
+    }
+
     /**
      * Exposed Used for testing only! Default values used in the initial settings frame are overridden intentionally
      * for testing but violate the RFC if used outside the scope of testing.
      */
     DefaultHttp2HeadersDecoder(boolean validateHeaders, HpackDecoder hpackDecoder) {
+        this(validateHeaders, hpackDecoder, false);
+    }
+
+    /**
+     * Exposed Used for testing only! Default values used in the initial settings frame are overridden intentionally
+     * for testing but violate the RFC if used outside the scope of testing.
+     */
+    DefaultHttp2HeadersDecoder(boolean validateHeaders, HpackDecoder hpackDecoder, boolean lazyHeaders) {
         this.hpackDecoder = ObjectUtil.checkNotNull(hpackDecoder, "hpackDecoder");
         this.validateHeaders = validateHeaders;
+        this.lazyHeaders = lazyHeaders;
         maxHeaderListSizeGoAway =
                 Http2CodecUtil.calculateMaxHeaderListSizeGoAway(hpackDecoder.getMaxHeaderListSize());
     }
@@ -123,7 +150,7 @@ public class DefaultHttp2HeadersDecoder implements Http2HeadersDecoder, Http2Hea
     public Http2Headers decodeHeaders(int streamId, ByteBuf headerBlock) throws Http2Exception {
         try {
             final Http2Headers headers = newHeaders();
-            hpackDecoder.decode(streamId, headerBlock, headers, validateHeaders);
+            hpackDecoder.decode(streamId, headerBlock, headers, validateHeaders, lazyHeaders);
             headerArraySizeAccumulator = HEADERS_COUNT_WEIGHT_NEW * headers.size() +
                                          HEADERS_COUNT_WEIGHT_HISTORICAL * headerArraySizeAccumulator;
             return headers;
@@ -153,6 +180,14 @@ public class DefaultHttp2HeadersDecoder implements Http2HeadersDecoder, Http2Hea
         return validateHeaders;
     }
 
+    /**
+     * Determines if the headers are decoded lazily.
+     * @return {@code true} if Huffman encoded values of regular headers are only decoded when they are accessed.
+     */
+    protected final boolean lazyHeaders() {
+        return lazyHeaders;
+    }
+
     /**
      * Create a new {@link Http2Headers} object which will store the results of the decode operation.
      * @return a new {@link Http2Headers} object which will store the results of the decode operation.
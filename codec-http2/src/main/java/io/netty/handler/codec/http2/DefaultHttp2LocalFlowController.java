@@ -23,6 +23,7 @@ import static io.netty.handler.codec.http2.Http2Error.FLOW_CONTROL_ERROR;
 import static io.netty.handler.codec.http2.Http2Error.INTERNAL_ERROR;
 import static io.netty.handler.codec.http2.Http2Exception.connectionError;
 import static io.netty.handler.codec.http2.Http2Exception.streamError;
+import static io.netty.util.internal.ObjectUtil.checkInRange;
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
 import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 import static java.lang.Math.max;
@@ -34,9 +35,14 @@ import io.netty.handler.codec.http2.Http2Exception.StreamException;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.UnstableApi;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Basic implementation of {@link Http2LocalFlowController}.
  * <p>
+ * The connection and stream windows can be grown automatically on connections with a large bandwidth-delay product,
+ * see {@link #maxAutoTunedWindowSize(int)}.
+ * <p>
  * This class is <strong>NOT</strong> thread safe. The assumption is all methods must be invoked from a single thread.
  * Typically this thread is the event loop thread for the {@link ChannelHandlerContext} managed by this class.
  */
@@ -48,6 +54,22 @@ public class DefaultHttp2LocalFlowController implements Http2LocalFlowController
      */
     public static final float DEFAULT_WINDOW_UPDATE_RATIO = 0.5f;
 
+    /**
+     * The default maximum size up to which the connection and stream windows are grown if
+     * {@link #maxAutoTunedWindowSize(int) auto-tuning} is enabled.
+     */
+    public static final int DEFAULT_MAX_AUTO_TUNED_WINDOW_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * The data of the {@code PING} frames which are sent to estimate the bandwidth-delay product.
+     */
+    static final long BDP_PING_DATA = 0x6264705f70696e67L;
+
+    /**
+     * The maximum time between two samples of the bandwidth-delay product while the windows do not grow.
+     */
+    static final long MAX_BDP_PING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     private final Http2Connection connection;
     private final Http2Connection.PropertyKey stateKey;
     private Http2FrameWriter frameWriter;
@@ -55,6 +77,17 @@ public class DefaultHttp2LocalFlowController implements Http2LocalFlowController
     private float windowUpdateRatio;
     private int initialWindowSize = DEFAULT_WINDOW_SIZE;
 
+    // The state of the window auto-tuning, only used if maxAutoTunedWindowSize > 0.
+    private int maxAutoTunedWindowSize;
+    private int autoTunedWindowSize;
+    private boolean bdpPingInFlight;
+    private long bdpPingSentTime;
+    private long bdpSampleBytes;
+    private int bdpSamplesWithoutGrowth;
+    private long bdpPingInterval;
+    private long nextBdpPingTime;
+    private double maxBandwidth;
+
     public DefaultHttp2LocalFlowController(Http2Connection connection) {
         this(connection, DEFAULT_WINDOW_UPDATE_RATIO, false);
     }
@@ -98,7 +131,11 @@ public class DefaultHttp2LocalFlowController implements Http2LocalFlowController
             public void onStreamActive(Http2Stream stream) {
                 // Need to be sure the stream's initial window is adjusted for SETTINGS
                 // frames which may have been exchanged while it was in IDLE
-                stream.setProperty(stateKey, new DefaultState(stream, initialWindowSize));
+                DefaultState state = new DefaultState(stream, initialWindowSize);
+                // The remote endpoint starts with initialWindowSize, so the auto-tuned window is only granted with
+                // the first WINDOW_UPDATE of the stream.
+                growInitialWindow(state);
+                stream.setProperty(stateKey, state);
             }
 
             @Override
@@ -262,6 +299,129 @@ public class DefaultHttp2LocalFlowController implements Http2LocalFlowController
         return state(stream).windowUpdateRatio();
     }
 
+    /**
+     * Enables the auto-tuning of the connection and stream windows, similar to the bandwidth-delay product (BDP)
+     * estimation of gRPC.
+     * <p>
+     * When {@code DATA} is received a {@code PING} is sent, and the bytes received until its {@code ACK} arrives are
+     * counted. If these exceed what the connection window allows at least per round trip then the window limits the
+     * throughput, so the connection and stream windows are grown to twice the number of bytes, up to
+     * {@code maxWindowSize}. Windows are only grown if the bandwidth grew as well, as otherwise a larger window only
+     * fills up buffers on the way.
+     * <p>
+     * While the windows do not grow the {@code PING} frames are sent less often, down to one per second, and no
+     * {@code PING} frames are sent at all anymore once the windows reached {@code maxWindowSize}.
+     * <p>
+     * The stream windows are grown via {@code WINDOW_UPDATE} frames, so {@code SETTINGS_INITIAL_WINDOW_SIZE} is not
+     * changed. The windows are never shrunk again.
+     * @param maxWindowSize the maximum size of the auto-tuned windows, or {@code 0} to disable auto-tuning.
+     * @throws IllegalArgumentException If {@code maxWindowSize} is out of bounds [0, 2^31 - 1].
+     */
+    public void maxAutoTunedWindowSize(int maxWindowSize) {
+        assert ctx == null || ctx.executor().inEventLoop();
+        maxAutoTunedWindowSize = checkInRange(maxWindowSize, 0, MAX_INITIAL_WINDOW_SIZE, "maxWindowSize");
+    }
+
+    /**
+     * The maximum size of the auto-tuned connection and stream windows, or {@code 0} if auto-tuning is disabled.
+     */
+    public int maxAutoTunedWindowSize() {
+        return maxAutoTunedWindowSize;
+    }
+
+    /**
+     * This method is visible for testing!
+     */
+    long ticksInNanos() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Called when a {@code PING} frame was acknowledged by the remote endpoint.
+     * @return {@code true} if the {@code PING} was sent by this controller, so it must not be passed on.
+     */
+    boolean onPingAckRead(long data) throws Http2Exception {
+        assert ctx != null && ctx.executor().inEventLoop();
+        if (!bdpPingInFlight || data != BDP_PING_DATA) {
+            return false;
+        }
+        bdpPingInFlight = false;
+
+        long now = ticksInNanos();
+        long rtt = max(now - bdpPingSentTime, 1);
+        if (autoTuneWindows((double) bdpSampleBytes / rtt)) {
+            bdpSamplesWithoutGrowth = 0;
+            bdpPingInterval = 0;
+        } else if (++bdpSamplesWithoutGrowth > 1) {
+            // Back off while the windows do not need to grow, so a busy connection is not kept busy with PINGs. The
+            // first sample after the windows grew is not counted, as the remote endpoint may not have used the larger
+            // windows yet.
+            bdpPingInterval = min(max(bdpPingInterval * 2, rtt), MAX_BDP_PING_INTERVAL_NANOS);
+        }
+        nextBdpPingTime = now + bdpPingInterval;
+        return true;
+    }
+
+    /**
+     * Grows the connection and stream windows if the last sample shows that these limit the throughput.
+     * @return {@code true} if the windows were grown.
+     */
+    private boolean autoTuneWindows(double bandwidth) throws Http2Exception {
+        if (bandwidth <= maxBandwidth) {
+            return false;
+        }
+        maxBandwidth = bandwidth;
+        FlowState connectionState = connectionState();
+        int window = connectionState.initialWindowSize();
+        // As the window is only updated once the ratio is reached, the remote endpoint can always send at least
+        // (1 - ratio) * window per round trip. If it did not send more then the window did not limit the throughput.
+        if (bdpSampleBytes < (long) (window * (1 - connectionState.windowUpdateRatio()))) {
+            return false;
+        }
+        int newWindow = (int) min(bdpSampleBytes * 2, maxAutoTunedWindowSize);
+        boolean grown = false;
+        if (newWindow > window) {
+            connectionState.incrementInitialStreamWindow(newWindow - window);
+            connectionState.writeWindowUpdateIfNeeded();
+            grown = true;
+        }
+        if (newWindow > autoTunedWindowSize) {
+            autoTunedWindowSize = newWindow;
+            connection.forEachActiveStream(new Http2StreamVisitor() {
+                @Override
+                public boolean visit(Http2Stream stream) throws Http2Exception {
+                    FlowState state = state(stream);
+                    growInitialWindow(state);
+                    state.writeWindowUpdateIfNeeded();
+                    return true;
+                }
+            });
+            grown = true;
+        }
+        return grown;
+    }
+
+    private void growInitialWindow(FlowState state) {
+        int delta = autoTunedWindowSize - state.initialWindowSize();
+        if (delta > 0) {
+            state.incrementInitialStreamWindow(delta);
+        }
+    }
+
+    private void sampleBandwidthDelayProduct(int dataLength) {
+        if (!bdpPingInFlight) {
+            long now = ticksInNanos();
+            if (bdpPingInterval > 0 && now - nextBdpPingTime < 0) {
+                return;
+            }
+            bdpPingInFlight = true;
+            bdpSampleBytes = 0;
+            bdpPingSentTime = now;
+            frameWriter.writePing(ctx, false, BDP_PING_DATA, ctx.newPromise());
+        }
+        bdpSampleBytes += dataLength;
+    }
+
     @Override
     public void receiveFlowControlledFrame(Http2Stream stream, ByteBuf data, int padding,
             boolean endOfStream) throws Http2Exception {
@@ -271,6 +431,10 @@ public class DefaultHttp2LocalFlowController implements Http2LocalFlowController
         // Apply the connection-level flow control
         FlowState connectionState = connectionState();
         connectionState.receiveFlowControlledFrame(dataLength);
+        // Stop sampling once the windows can not grow anymore.
+        if (autoTunedWindowSize < maxAutoTunedWindowSize && dataLength > 0) {
+            sampleBandwidthDelayProduct(dataLength);
+        }
 
         if (stream != null && !isClosed(stream)) {
             // Apply the stream-level flow control
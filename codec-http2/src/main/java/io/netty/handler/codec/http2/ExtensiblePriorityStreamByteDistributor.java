@@ -0,0 +1,326 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License, version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at:
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MIN_ALLOCATION_CHUNK;
+import static io.netty.handler.codec.http2.Http2CodecUtil.streamableBytes;
+import static io.netty.handler.codec.http2.Http2Error.INTERNAL_ERROR;
+import static io.netty.handler.codec.http2.Http2Exception.connectionError;
+import static io.netty.util.internal.ObjectUtil.checkInRange;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * A {@link StreamByteDistributor} that implements the
+ * <a href="https://www.rfc-editor.org/rfc/rfc9218.html">extensible priorities</a> of RFC 9218, and ignores the
+ * priorities of RFC 7540.
+ * <p>
+ * Each stream has an urgency between {@code 0} and {@code 7}, and may be incremental, see
+ * {@link #updatePriority(int, int, boolean)}. Streams with a lower urgency are always served first. Streams with the
+ * same urgency which are not incremental are served one after another, in the order in which they got data to
+ * write, before the incremental streams share the remaining bytes in a round-robin fashion.
+ * <p>
+ * There is a queue for every combination of urgency and incremental, so scheduling takes constant time no matter how
+ * many streams are active. This makes this class suitable for connections with thousands of concurrent streams,
+ * where the priority tree of the {@link WeightedFairQueueByteDistributor} costs a lot of CPU and memory.
+ */
+@UnstableApi
+public final class ExtensiblePriorityStreamByteDistributor implements StreamByteDistributor {
+    /**
+     * The default urgency of a stream.
+     */
+    public static final int DEFAULT_URGENCY = 3;
+    /**
+     * The urgency with the lowest priority.
+     */
+    public static final int MAX_URGENCY = 7;
+
+    private final Http2Connection connection;
+    private final Http2Connection.PropertyKey stateKey;
+    // The queue of the non-incremental streams of an urgency is at urgency * 2, the one of the incremental streams
+    // right after it. So the lowest non-empty queue is always served first.
+    private final StateQueue[] queues = new StateQueue[(MAX_URGENCY + 1) * 2];
+    // Bit i is set if queues[i] is not empty.
+    private int nonEmptyQueues;
+
+    /**
+     * The minimum number of bytes that we will attempt to allocate to an incremental stream. This is to
+     * help improve goodput on a per-stream basis.
+     */
+    private int minAllocationChunk = DEFAULT_MIN_ALLOCATION_CHUNK;
+    private long totalStreamableBytes;
+
+    public ExtensiblePriorityStreamByteDistributor(Http2Connection connection) {
+        this.connection = connection;
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new StateQueue();
+        }
+
+        // Add a state for the connection.
+        stateKey = connection.newKey();
+        Http2Stream connectionStream = connection.connectionStream();
+        connectionStream.setProperty(stateKey, new State(connectionStream));
+
+        // Register for notification of new streams.
+        connection.addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamAdded(Http2Stream stream) {
+                stream.setProperty(stateKey, new State(stream));
+            }
+
+            @Override
+            public void onStreamClosed(Http2Stream stream) {
+                state(stream).close();
+            }
+        });
+    }
+
+    /**
+     * Sets the minimum allocation chunk that will be allocated to each incremental stream. Defaults to 1KiB.
+     *
+     * @param minAllocationChunk the minimum number of bytes that will be allocated to each incremental stream.
+     * Must be > 0.
+     */
+    public void minAllocationChunk(int minAllocationChunk) {
+        checkPositive(minAllocationChunk, "minAllocationChunk");
+        this.minAllocationChunk = minAllocationChunk;
+    }
+
+    /**
+     * Updates the priority of a stream, as signalled by the {@code priority} header field or a
+     * {@code PRIORITY_UPDATE} frame. Streams which do not exist (anymore) are ignored.
+     *
+     * @param streamId the stream identifier.
+     * @param urgency the urgency of the stream, between {@code 0} and {@link #MAX_URGENCY}. Defaults to
+     * {@link #DEFAULT_URGENCY}.
+     * @param incremental {@code true} if the stream can be served incrementally. Defaults to {@code false}.
+     */
+    public void updatePriority(int streamId, int urgency, boolean incremental) {
+        checkInRange(urgency, 0, MAX_URGENCY, "urgency");
+        Http2Stream stream = connection.stream(streamId);
+        if (stream != null) {
+            state(stream).updatePriority(urgency, incremental);
+        }
+    }
+
+    @Override
+    public void updateStreamableBytes(StreamState streamState) {
+        state(streamState.stream()).updateStreamableBytes(streamableBytes(streamState),
+                                                          streamState.hasFrame(),
+                                                          streamState.windowSize());
+    }
+
+    @Override
+    public void updateDependencyTree(int childStreamId, int parentStreamId, short weight, boolean exclusive) {
+        // This class ignores the priorities of RFC 7540, which are deprecated by RFC 9218.
+    }
+
+    @Override
+    public boolean distribute(int maxBytes, Writer writer) throws Http2Exception {
+        while (nonEmptyQueues != 0) {
+            final int index = Integer.numberOfTrailingZeros(nonEmptyQueues);
+            final StateQueue queue = queues[index];
+            final State state = queue.poll();
+            if (queue.size == 0) {
+                nonEmptyQueues &= ~(1 << index);
+            }
+            if (state.windowNegative) {
+                continue;
+            }
+            if (maxBytes == 0 && state.streamableBytes > 0) {
+                // Stop at the first state that can't send. Add this state back to the head of the queue. Note
+                // that empty frames at the head of the queue will always be written, assuming the stream window
+                // is not negative.
+                state.addToQueue(true);
+                break;
+            }
+
+            // Non-incremental streams get as much data as possible, incremental streams share it.
+            int chunk = state.incremental ? max(minAllocationChunk, maxBytes / (queue.size + 1)) : maxBytes;
+            chunk = min(chunk, min(maxBytes, state.streamableBytes));
+            maxBytes -= chunk;
+
+            // Write the allocated bytes and enqueue as necessary.
+            state.write(chunk, writer);
+        }
+
+        return totalStreamableBytes > 0;
+    }
+
+    private State state(Http2Stream stream) {
+        return checkNotNull(stream, "stream").getProperty(stateKey);
+    }
+
+    /**
+     * The remote flow control state for a single stream.
+     */
+    private final class State {
+        final Http2Stream stream;
+        int streamableBytes;
+        int urgency = DEFAULT_URGENCY;
+        boolean incremental;
+        boolean windowNegative;
+        // If enqueued, the index of the queue and the neighbours in it.
+        int queueIndex;
+        boolean enqueued;
+        State prev;
+        State next;
+        boolean writing;
+
+        State(Http2Stream stream) {
+            this.stream = stream;
+        }
+
+        int queueIndexForPriority() {
+            return urgency * 2 + (incremental ? 1 : 0);
+        }
+
+        void updatePriority(int urgency, boolean incremental) {
+            this.urgency = urgency;
+            this.incremental = incremental;
+            if (enqueued && queueIndex != queueIndexForPriority()) {
+                // Move to the queue of the new priority.
+                removeFromQueue();
+                addToQueue(false);
+            }
+        }
+
+        void updateStreamableBytes(int newStreamableBytes, boolean hasFrame, int windowSize) {
+            assert hasFrame || newStreamableBytes == 0 :
+                "hasFrame: " + hasFrame + " newStreamableBytes: " + newStreamableBytes;
+
+            int delta = newStreamableBytes - streamableBytes;
+            if (delta != 0) {
+                streamableBytes = newStreamableBytes;
+                totalStreamableBytes += delta;
+            }
+            // Same as the UniformStreamByteDistributor: a state with a negative window stays queued but is skipped,
+            // and a state with a zero window which just wrote waits for the next update.
+            windowNegative = windowSize < 0;
+            if (hasFrame && (windowSize > 0 || windowSize == 0 && !writing)) {
+                // A non-incremental stream keeps its place, so it is served until it has nothing to write anymore.
+                addToQueue(writing && !incremental);
+            }
+        }
+
+        /**
+         * Write any allocated bytes for the given stream and updates the streamable bytes,
+         * assuming all of the bytes will be written.
+         */
+        void write(int numBytes, Writer writer) throws Http2Exception {
+            writing = true;
+            try {
+                // Write the allocated bytes.
+                writer.write(stream, numBytes);
+            } catch (Throwable t) {
+                throw connectionError(INTERNAL_ERROR, t, "byte distribution write error");
+            } finally {
+                writing = false;
+            }
+        }
+
+        void addToQueue(boolean first) {
+            if (!enqueued) {
+                queueIndex = queueIndexForPriority();
+                if (first) {
+                    queues[queueIndex].addFirst(this);
+                } else {
+                    queues[queueIndex].addLast(this);
+                }
+                nonEmptyQueues |= 1 << queueIndex;
+            }
+        }
+
+        void removeFromQueue() {
+            if (enqueued) {
+                StateQueue queue = queues[queueIndex];
+                queue.remove(this);
+                if (queue.size == 0) {
+                    nonEmptyQueues &= ~(1 << queueIndex);
+                }
+            }
+        }
+
+        void close() {
+            removeFromQueue();
+
+            // Clear the streamable bytes.
+            updateStreamableBytes(0, false, 0);
+        }
+    }
+
+    /**
+     * A queue of {@link State}s which are linked with each other, so a state can be removed in constant time when
+     * its priority changes or its stream is closed.
+     */
+    private static final class StateQueue {
+        State head;
+        State tail;
+        int size;
+
+        void addFirst(State state) {
+            state.enqueued = true;
+            state.prev = null;
+            state.next = head;
+            if (head == null) {
+                tail = state;
+            } else {
+                head.prev = state;
+            }
+            head = state;
+            size++;
+        }
+
+        void addLast(State state) {
+            state.enqueued = true;
+            state.next = null;
+            state.prev = tail;
+            if (tail == null) {
+                head = state;
+            } else {
+                tail.next = state;
+            }
+            tail = state;
+            size++;
+        }
+
+        State poll() {
+            State state = head;
+            remove(state);
+            return state;
+        }
+
+        void remove(State state) {
+            if (state.prev == null) {
+                head = state.next;
+            } else {
+                state.prev.next = state.next;
+            }
+            if (state.next == null) {
+                tail = state.prev;
+            } else {
+                state.next.prev = state.prev;
+            }
+            state.prev = null;
+            state.next = null;
+            state.enqueued = false;
+            size--;
+        }
+    }
+}
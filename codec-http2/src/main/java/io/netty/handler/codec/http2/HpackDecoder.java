@@ -32,6 +32,8 @@
 package io.netty.handler.codec.http2;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http2.HpackUtil.IndexType;
 import io.netty.util.AsciiString;
 
@@ -124,15 +126,40 @@ final class HpackDecoder {
      * This method assumes the entire header block is contained in {@code in}.
      */
     public void decode(int streamId, ByteBuf in, Http2Headers headers, boolean validateHeaders) throws Http2Exception {
+        decode(streamId, in, headers, validateHeaders, false);
+    }
+
+    /**
+     * Decode the header block into header fields.
+     * <p>
+     * This method assumes the entire header block is contained in {@code in}.
+     * <p>
+     * If {@code lazy} is {@code true} the header block is copied once and literal names and values are backed by this
+     * copy. Huffman encoded values of regular headers which are not added to the dynamic table are only decoded when
+     * they are first accessed, see {@link HpackLazyValue}. They are still validated while decoding the header block,
+     * which also yields their decoded length that counts against the maximum header list size.
+     */
+    void decode(int streamId, ByteBuf in, Http2Headers headers, boolean validateHeaders, boolean lazy)
+            throws Http2Exception {
         Http2HeadersSink sink = new Http2HeadersSink(streamId, headers, maxHeaderListSize, validateHeaders);
-        decode(in, sink);
+        if (lazy) {
+            byte[] block = ByteBufUtil.getBytes(in);
+            in.skipBytes(block.length);
+            decode(Unpooled.wrappedBuffer(block), block, sink);
+        } else {
+            decode(in, null, sink);
+        }
 
         // Now that we've read all of our headers we can perform the validation steps. We must
         // delay throwing until this point to prevent dynamic table corruption.
         sink.finish();
     }
 
-    private void decode(ByteBuf in, Sink sink) throws Http2Exception {
+    /**
+     * @param block the array which backs {@code in} starting at index {@code 0} if the headers should be decoded
+     *              lazily, {@code null} otherwise.
+     */
+    private void decode(ByteBuf in, byte[] block, Sink sink) throws Http2Exception {
         int index = 0;
         int nameLength = 0;
         int valueLength = 0;
@@ -250,7 +277,8 @@ final class HpackDecoder {
                         throw notEnoughDataException(in);
                     }
 
-                    name = readStringLiteral(in, nameLength, huffmanEncoded);
+                    name = readStringLiteral(in, nameLength, huffmanEncoded,
+                            indexType == IndexType.INCREMENTAL ? null : block, false);
 
                     state = READ_LITERAL_HEADER_VALUE_LENGTH_PREFIX;
                     break;
@@ -287,7 +315,12 @@ final class HpackDecoder {
                         throw notEnoughDataException(in);
                     }
 
-                    CharSequence value = readStringLiteral(in, valueLength, huffmanEncoded);
+                    // Entries of the dynamic table must neither pin the header block nor be decoded lazily, as
+                    // their decoded length is needed to keep the table in sync with the encoder. Pseudo-headers are
+                    // decoded eagerly as they are needed to process the headers at all.
+                    boolean shareBlock = block != null && indexType != IndexType.INCREMENTAL;
+                    CharSequence value = readStringLiteral(in, valueLength, huffmanEncoded,
+                            shareBlock ? block : null, shareBlock && !hasPseudoHeaderFormat(name));
                     insertHeader(sink, name, value, indexType);
                     state = READ_HEADER_REPRESENTATION;
                     break;
@@ -443,7 +476,20 @@ final class HpackDecoder {
         }
     }
 
-    private CharSequence readStringLiteral(ByteBuf in, int length, boolean huffmanEncoded) throws Http2Exception {
+    private CharSequence readStringLiteral(ByteBuf in, int length, boolean huffmanEncoded, byte[] block,
+                                           boolean lazyHuffman) throws Http2Exception {
+        if (block != null && (lazyHuffman || !huffmanEncoded)) {
+            // in is backed by block starting at index 0.
+            int offset = in.readerIndex();
+            if (huffmanEncoded) {
+                // Malformed values must fail the header block now, and must never be forwarded as they are.
+                int decodedLength = huffmanDecoder.validate(in, length);
+                in.skipBytes(length);
+                return new HpackLazyValue(block, offset, length, decodedLength);
+            }
+            in.skipBytes(length);
+            return new AsciiString(block, offset, length, false);
+        }
         if (huffmanEncoded) {
             return huffmanDecoder.decode(in, length);
         }
@@ -142,17 +142,25 @@ final class HpackEncoder {
         for (Map.Entry<CharSequence, CharSequence> header : headers) {
             CharSequence name = header.getKey();
             CharSequence value = header.getValue();
-            encodeHeader(out, name, value, sensitivityDetector.isSensitive(name, value),
-                         HpackHeaderField.sizeOf(name, value));
+            encodeHeader(out, name, value, sensitivityDetector.isSensitive(name, value));
         }
     }
 
+    /**
+     * Returns {@code true} if the value is still in the Huffman encoded form it was received in, and so can be
+     * forwarded without decoding and encoding it again. {@link HpackDecoder} only creates a {@link HpackLazyValue}
+     * after validating its Huffman code, so only valid codes are forwarded.
+     */
+    private static boolean isEncodedValue(CharSequence value) {
+        return value instanceof HpackLazyValue && !((HpackLazyValue) value).isDecoded();
+    }
+
     /**
      * Encode the header field into the header block.
      *
      * <strong>The given {@link CharSequence}s must be immutable!</strong>
      */
-    private void encodeHeader(ByteBuf out, CharSequence name, CharSequence value, boolean sensitive, long headerSize) {
+    private void encodeHeader(ByteBuf out, CharSequence name, CharSequence value, boolean sensitive) {
         // If the header value is sensitive then it must never be indexed
         if (sensitive) {
             int nameIndex = getNameIndex(name);
@@ -160,6 +168,15 @@ final class HpackEncoder {
             return;
         }
 
+        // The sender did not index this value either, so forward it as it was received. This keeps us from decoding
+        // the value, which would be needed to compute its size in the dynamic table.
+        if (isEncodedValue(value)) {
+            encodeLiteral(out, name, value, IndexType.NONE, getNameIndex(name));
+            return;
+        }
+
+        long headerSize = HpackHeaderField.sizeOf(name, value);
+
         // If the peer will only use the static table
         if (maxHeaderTableSize == 0) {
             int staticTableIndex = HpackStaticTable.getIndexInsensitive(name, value);
@@ -262,6 +279,12 @@ final class HpackEncoder {
      * Encode string literal according to Section 5.2.
      */
     private void encodeStringLiteral(ByteBuf out, CharSequence string) {
+        if (isEncodedValue(string)) {
+            HpackLazyValue encoded = (HpackLazyValue) string;
+            encodeInteger(out, 0x80, 7, encoded.encodedLength());
+            encoded.writeEncoded(out);
+            return;
+        }
         int huffmanLength;
         if (string.length() >= huffCodeThreshold
                 && (huffmanLength = hpackHuffmanEncoder.getEncodedLength(string)) < string.length()) {
@@ -4668,6 +4668,13 @@ final class HpackHuffmanDecoder implements ByteProcessor {
             Http2Exception.newStatic(COMPRESSION_ERROR, "HPACK - Bad Encoding",
                     Http2Exception.ShutdownHint.HARD_SHUTDOWN, HpackHuffmanDecoder.class, "decode(..)");
 
+    private final ByteProcessor validator = new ByteProcessor() {
+        @Override
+        public boolean process(byte input) {
+            return validateNibble(input >> 4) && validateNibble(input);
+        }
+    };
+
     private byte[] dest;
     private int k;
     private int state;
@@ -4711,6 +4718,40 @@ final class HpackHuffmanDecoder implements ByteProcessor {
         }
     }
 
+    /**
+     * Checks the given Huffman coded string literal like {@link #decode(ByteBuf, int)}, without building the decoded
+     * value. The reader index of {@code buf} is not changed.
+     *
+     * @return the length of the decoded value.
+     * @throws Http2Exception if the string literal is not a valid Huffman code.
+     */
+    int validate(ByteBuf buf, int length) throws Http2Exception {
+        if (length == 0) {
+            return 0;
+        }
+        try {
+            int endIndex = buf.forEachByte(buf.readerIndex(), length, validator);
+            if (endIndex != -1 || (state & HUFFMAN_COMPLETE_SHIFT) != HUFFMAN_COMPLETE_SHIFT) {
+                throw BAD_ENCODING;
+            }
+            return k;
+        } finally {
+            k = 0;
+            state = 0;
+        }
+    }
+
+    private boolean validateNibble(int input) {
+        state = HUFFS[state >> 12 | (input & 0x0F)];
+        if ((state & HUFFMAN_FAIL_SHIFT) != 0) {
+            return false;
+        }
+        if ((state & HUFFMAN_EMIT_SYMBOL_SHIFT) != 0) {
+            k++;
+        }
+        return true;
+    }
+
     /**
      * <strong>This should never be called from anything but this class itself!</strong>
      */
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.AsciiString;
+
+/**
+ * A Huffman encoded header value which is only decoded when its content is first accessed. The encoded bytes are
+ * shared with the copy of the header block that was taken by {@link HpackDecoder}. As long as the value was not
+ * decoded {@link HpackEncoder} forwards these bytes as they are, so a proxy does not need to decode and encode it
+ * again.
+ * <p>
+ * {@link HpackDecoder} validates the Huffman code before it creates the value, so a malformed code fails the whole
+ * header block with a {@link Http2Error#COMPRESSION_ERROR} and is never forwarded. The validation also yields the
+ * decoded length, so {@link #length()} does not need to decode the value.
+ */
+final class HpackLazyValue implements CharSequence {
+    private final byte[] block;
+    private final int offset;
+    private final int length;
+    private final int decodedLength;
+    private AsciiString decoded;
+
+    /**
+     * @param decodedLength the length of the decoded value, as returned by
+     * {@link HpackHuffmanDecoder#validate(ByteBuf, int)}.
+     */
+    HpackLazyValue(byte[] block, int offset, int length, int decodedLength) {
+        this.block = block;
+        this.offset = offset;
+        this.length = length;
+        this.decodedLength = decodedLength;
+    }
+
+    /**
+     * Returns the number of Huffman encoded bytes, without decoding them.
+     */
+    int encodedLength() {
+        return length;
+    }
+
+    /**
+     * Writes the Huffman encoded bytes to {@code out}. These were validated by {@link HpackDecoder}.
+     */
+    void writeEncoded(ByteBuf out) {
+        out.writeBytes(block, offset, length);
+    }
+
+    /**
+     * Returns {@code true} if the value was already decoded.
+     */
+    boolean isDecoded() {
+        return decoded != null;
+    }
+
+    /**
+     * Returns the decoded value, decoding it if this was not done before.
+     */
+    AsciiString decoded() {
+        AsciiString decoded = this.decoded;
+        if (decoded == null) {
+            try {
+                decoded = new HpackHuffmanDecoder().decode(Unpooled.wrappedBuffer(block, offset, length), length);
+            } catch (Http2Exception e) {
+                // Can't happen, as the value was validated when it was created.
+                throw new IllegalStateException("Invalid Huffman encoded header value", e);
+            }
+            this.decoded = decoded;
+        }
+        return decoded;
+    }
+
+    @Override
+    public int length() {
+        return decodedLength;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return decoded().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return decoded().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return decoded().toString();
+    }
+}
@@ -103,6 +103,16 @@ public final class Http2ConnectionHandlerBuilder
         return super.decoupleCloseAndGoAway(decoupleCloseAndGoAway);
     }
 
+    @Override
+    public Http2ConnectionHandlerBuilder autoTuneFlowControlWindows(boolean autoTuneFlowControlWindows) {
+        return super.autoTuneFlowControlWindows(autoTuneFlowControlWindows);
+    }
+
+    @Override
+    public Http2ConnectionHandlerBuilder maxAutoTunedWindowSize(int maxAutoTunedWindowSize) {
+        return super.maxAutoTunedWindowSize(maxAutoTunedWindowSize);
+    }
+
     @Override
     public Http2ConnectionHandler build() {
         return super.build();
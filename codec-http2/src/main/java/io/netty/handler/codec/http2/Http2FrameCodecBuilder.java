@@ -18,6 +18,7 @@ package io.netty.handler.codec.http2;
 
 import io.netty.util.internal.UnstableApi;
 
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_LIST_SIZE;
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
 
 /**
@@ -174,6 +175,16 @@ public class Http2FrameCodecBuilder extends
         return super.autoAckPingFrame(autoAckPingFrame);
     }
 
+    @Override
+    public boolean isDecodeHeadersLazily() {
+        return super.isDecodeHeadersLazily();
+    }
+
+    @Override
+    public Http2FrameCodecBuilder decodeHeadersLazily(boolean decodeHeadersLazily) {
+        return super.decodeHeadersLazily(decodeHeadersLazily);
+    }
+
     @Override
     public Http2FrameCodecBuilder decoupleCloseAndGoAway(boolean decoupleCloseAndGoAway) {
         return super.decoupleCloseAndGoAway(decoupleCloseAndGoAway);
@@ -200,9 +211,9 @@ public class Http2FrameCodecBuilder extends
             // is package-private.
             DefaultHttp2Connection connection = new DefaultHttp2Connection(isServer(), maxReservedStreams());
             Long maxHeaderListSize = initialSettings().maxHeaderListSize();
-            Http2FrameReader frameReader = new DefaultHttp2FrameReader(maxHeaderListSize == null ?
-                    new DefaultHttp2HeadersDecoder(isValidateHeaders()) :
-                    new DefaultHttp2HeadersDecoder(isValidateHeaders(), maxHeaderListSize));
+            Http2FrameReader frameReader = new DefaultHttp2FrameReader(new DefaultHttp2HeadersDecoder(
+                    isValidateHeaders(), maxHeaderListSize == null ? DEFAULT_HEADER_LIST_SIZE : maxHeaderListSize,
+                    isDecodeHeadersLazily()));
 
             if (frameLogger() != null) {
                 frameWriter = new Http2OutboundFrameLogger(frameWriter, frameLogger());
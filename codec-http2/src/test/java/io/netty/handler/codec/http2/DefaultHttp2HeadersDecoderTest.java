@@ -24,12 +24,15 @@ import org.junit.jupiter.api.function.Executable;
 
 import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_LIST_SIZE;
 import static io.netty.handler.codec.http2.Http2CodecUtil.MIN_HEADER_LIST_SIZE;
+import static io.netty.handler.codec.http2.Http2HeadersEncoder.ALWAYS_SENSITIVE;
 import static io.netty.handler.codec.http2.Http2HeadersEncoder.NEVER_SENSITIVE;
 import static io.netty.handler.codec.http2.Http2TestUtil.newTestEncoder;
 import static io.netty.handler.codec.http2.Http2TestUtil.randomBytes;
 import static io.netty.util.CharsetUtil.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Tests for {@link DefaultHttp2HeadersDecoder}.
@@ -127,6 +130,89 @@ public class DefaultHttp2HeadersDecoderTest {
         }
     }
 
+    @Test
+    public void decodeLazily() throws Exception {
+        decoder = new DefaultHttp2HeadersDecoder(true, Http2CodecUtil.DEFAULT_HEADER_LIST_SIZE, true);
+        // Huffman encode every literal and never index "secret", so only its value can be decoded lazily.
+        HpackEncoder hpackEncoder = new HpackEncoder(false, 16, 0);
+        Http2HeadersEncoder.SensitivityDetector detector = new Http2HeadersEncoder.SensitivityDetector() {
+            @Override
+            public boolean isSensitive(CharSequence name, CharSequence value) {
+                return AsciiString.contentEquals("secret", name);
+            }
+        };
+        Http2Headers expected = new DefaultHttp2Headers()
+                .method("GET").path("/some/path").authority("netty.io")
+                .add("secret", "some secret value")
+                .add("indexed", "some indexed value");
+
+        for (int i = 0; i < 2; i++) {
+            ByteBuf buf = Unpooled.buffer();
+            try {
+                hpackEncoder.encodeHeaders(3, buf, expected, detector);
+                Http2Headers headers = decoder.decodeHeaders(3, buf);
+                assertFalse(buf.isReadable());
+
+                assertFalse(headers.path() instanceof HpackLazyValue);
+                assertFalse(headers.authority() instanceof HpackLazyValue);
+                assertFalse(headers.get("indexed") instanceof HpackLazyValue);
+                HpackLazyValue secret = (HpackLazyValue) headers.get("secret");
+                assertFalse(secret.isDecoded());
+
+                assertEquals(expected, headers);
+                assertTrue(secret.isDecoded());
+                assertEquals("some secret value", secret.toString());
+            } finally {
+                buf.release();
+            }
+        }
+    }
+
+    @Test
+    public void decodeLazilyFailsOnMalformedHuffmanValue() throws Exception {
+        decoder = new DefaultHttp2HeadersDecoder(true, Http2CodecUtil.DEFAULT_HEADER_LIST_SIZE, true);
+        // Literal without indexing of "secret" with a Huffman encoded value whose padding is longer than 7 bits.
+        final ByteBuf buf = Unpooled.buffer();
+        buf.writeByte(0).writeByte(6).writeBytes(b("secret")).writeByte(0x81).writeByte(0xFF);
+        try {
+            Http2Exception e = assertThrows(Http2Exception.class, new Executable() {
+                @Override
+                public void execute() throws Throwable {
+                    decoder.decodeHeaders(3, buf);
+                }
+            });
+            assertEquals(Http2Error.COMPRESSION_ERROR, e.error());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void decodeLazilyCountsDecodedLength() throws Exception {
+        HpackEncoder hpackEncoder = new HpackEncoder(false, 16, 0);
+        // 'a' is Huffman encoded with 5 bits, so the 40 characters of the value only take 25 bytes.
+        Http2Headers headers = new DefaultHttp2Headers().add("secret", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+        long size = 6 + 40 + 32;
+
+        final ByteBuf buf = Unpooled.buffer();
+        try {
+            hpackEncoder.encodeHeaders(3, buf, headers, ALWAYS_SENSITIVE);
+
+            decoder = new DefaultHttp2HeadersDecoder(true, size, true);
+            assertTrue(decoder.decodeHeaders(3, buf.duplicate()).get("secret") instanceof HpackLazyValue);
+
+            decoder = new DefaultHttp2HeadersDecoder(true, size - 1, true);
+            assertThrows(Http2Exception.class, new Executable() {
+                @Override
+                public void execute() throws Throwable {
+                    decoder.decodeHeaders(3, buf);
+                }
+            });
+        } finally {
+            buf.release();
+        }
+    }
+
     private static byte[] b(String string) {
         return string.getBytes(UTF_8);
     }
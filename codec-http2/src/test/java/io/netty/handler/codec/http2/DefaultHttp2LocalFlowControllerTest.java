@@ -15,7 +15,9 @@
 
 package io.netty.handler.codec.http2;
 
+import static io.netty.handler.codec.http2.DefaultHttp2LocalFlowController.BDP_PING_DATA;
 import static io.netty.handler.codec.http2.DefaultHttp2LocalFlowController.DEFAULT_WINDOW_UPDATE_RATIO;
+import static io.netty.handler.codec.http2.DefaultHttp2LocalFlowController.MAX_BDP_PING_INTERVAL_NANOS;
 import static io.netty.handler.codec.http2.Http2CodecUtil.CONNECTION_STREAM_ID;
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -24,10 +26,13 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -47,6 +52,8 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Tests for {@link DefaultHttp2LocalFlowController}.
  */
@@ -69,6 +76,8 @@ public class DefaultHttp2LocalFlowControllerTest {
 
     private DefaultHttp2Connection connection;
 
+    private long ticks;
+
     @BeforeEach
     public void setup() throws Http2Exception {
         MockitoAnnotations.initMocks(this);
@@ -392,6 +401,133 @@ public class DefaultHttp2LocalFlowControllerTest {
         }
     }
 
+    @Test
+    public void autoTuningSendsOnePingPerSample() throws Http2Exception {
+        controller.maxAutoTunedWindowSize(1024 * 1024);
+        receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+        receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+        verify(frameWriter).writePing(eq(ctx), eq(false), eq(BDP_PING_DATA), eq(promise));
+
+        assertFalse(controller.onPingAckRead(BDP_PING_DATA + 1));
+        assertTrue(controller.onPingAckRead(BDP_PING_DATA));
+        // Only acknowledged once.
+        assertFalse(controller.onPingAckRead(BDP_PING_DATA));
+
+        receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+        verify(frameWriter, times(2)).writePing(eq(ctx), eq(false), eq(BDP_PING_DATA), eq(promise));
+    }
+
+    @Test
+    public void autoTuningBacksOffWhileWindowsDoNotGrow() throws Http2Exception {
+        controller.maxAutoTunedWindowSize(1024 * 1024);
+        long rtt = TimeUnit.MILLISECONDS.toNanos(10);
+        long interval = 0;
+        for (int i = 1; i <= 10; i++) {
+            receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+            verify(frameWriter, times(i)).writePing(eq(ctx), eq(false), eq(BDP_PING_DATA), eq(promise));
+            ticks += rtt;
+            assertTrue(controller.onPingAckRead(BDP_PING_DATA));
+
+            // The next sample is taken right away after the first sample which did not grow the windows, and then the
+            // interval is doubled for every such sample, up to the maximum.
+            if (i > 1) {
+                interval = Math.min(Math.max(interval * 2, rtt), MAX_BDP_PING_INTERVAL_NANOS);
+                ticks += interval - 1;
+                receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+                verify(frameWriter, times(i)).writePing(eq(ctx), eq(false), eq(BDP_PING_DATA), eq(promise));
+                ticks++;
+            }
+        }
+        assertEquals(MAX_BDP_PING_INTERVAL_NANOS, interval);
+    }
+
+    @Test
+    public void autoTuningStopsAtMaxWindowSize() throws Http2Exception {
+        controller.maxAutoTunedWindowSize(80000);
+        receiveFlowControlledFrame(STREAM_ID, 60000, 0, false);
+        assertTrue(controller.onPingAckRead(BDP_PING_DATA));
+
+        receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+        verify(frameWriter).writePing(any(ChannelHandlerContext.class), anyBoolean(), anyLong(),
+                any(ChannelPromise.class));
+    }
+
+    @Test
+    public void autoTuningGrowsWindowsOfNewStreams() throws Http2Exception {
+        controller.maxAutoTunedWindowSize(1024 * 1024);
+        int dataSize = 50000;
+        receiveFlowControlledFrame(STREAM_ID, dataSize, 0, false);
+        assertTrue(consumeBytes(STREAM_ID, dataSize));
+        assertTrue(controller.onPingAckRead(BDP_PING_DATA));
+        int newWindowSize = dataSize * 2;
+
+        int newStreamId = STREAM_ID + 2;
+        Http2Stream stream = connection.local().createStream(newStreamId, false);
+        try {
+            assertEquals(newWindowSize, controller.initialWindowSize(stream));
+            // The remote endpoint does not know about the larger window until the first WINDOW_UPDATE.
+            assertEquals(DEFAULT_WINDOW_SIZE, window(newStreamId));
+
+            receiveFlowControlledFrame(newStreamId, 20000, 0, false);
+            assertTrue(consumeBytes(newStreamId, 20000));
+            verifyWindowUpdateSent(newStreamId, newWindowSize - DEFAULT_WINDOW_SIZE + 20000);
+            assertEquals(newWindowSize, window(newStreamId));
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void autoTuningDisabledByDefault() throws Http2Exception {
+        receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+        verify(frameWriter, never()).writePing(any(ChannelHandlerContext.class), anyBoolean(), anyLong(),
+                any(ChannelPromise.class));
+        assertFalse(controller.onPingAckRead(BDP_PING_DATA));
+    }
+
+    @Test
+    public void autoTuningGrowsWindowsIfWindowLimited() throws Http2Exception {
+        controller.maxAutoTunedWindowSize(1024 * 1024);
+        int dataSize = 50000;
+        receiveFlowControlledFrame(STREAM_ID, dataSize, 0, false);
+        assertTrue(consumeBytes(STREAM_ID, dataSize));
+        verifyWindowUpdateSent(STREAM_ID, dataSize);
+        verifyWindowUpdateSent(CONNECTION_STREAM_ID, dataSize);
+
+        assertTrue(controller.onPingAckRead(BDP_PING_DATA));
+        int newWindowSize = dataSize * 2;
+        assertEquals(newWindowSize, controller.initialWindowSize(connection.connectionStream()));
+        assertEquals(newWindowSize, controller.initialWindowSize(stream(STREAM_ID)));
+        // SETTINGS_INITIAL_WINDOW_SIZE is not changed.
+        assertEquals(DEFAULT_WINDOW_SIZE, controller.initialWindowSize());
+
+        // The larger windows are sent with the next WINDOW_UPDATE.
+        receiveFlowControlledFrame(STREAM_ID, 20000, 0, false);
+        assertTrue(consumeBytes(STREAM_ID, 20000));
+        int delta = newWindowSize - (DEFAULT_WINDOW_SIZE - 20000);
+        verifyWindowUpdateSent(STREAM_ID, delta);
+        verifyWindowUpdateSent(CONNECTION_STREAM_ID, delta);
+    }
+
+    @Test
+    public void autoTuningKeepsWindowsIfNotWindowLimited() throws Http2Exception {
+        controller.maxAutoTunedWindowSize(1024 * 1024);
+        receiveFlowControlledFrame(STREAM_ID, 1000, 0, false);
+        assertTrue(controller.onPingAckRead(BDP_PING_DATA));
+        assertEquals(DEFAULT_WINDOW_SIZE, controller.initialWindowSize(connection.connectionStream()));
+        assertEquals(DEFAULT_WINDOW_SIZE, controller.initialWindowSize(stream(STREAM_ID)));
+        verifyWindowUpdateNotSent();
+    }
+
+    @Test
+    public void autoTuningRespectsMaxWindowSize() throws Http2Exception {
+        controller.maxAutoTunedWindowSize(80000);
+        receiveFlowControlledFrame(STREAM_ID, 60000, 0, false);
+        assertTrue(controller.onPingAckRead(BDP_PING_DATA));
+        assertEquals(80000, controller.initialWindowSize(connection.connectionStream()));
+        assertEquals(80000, controller.initialWindowSize(stream(STREAM_ID)));
+    }
+
     private static int getWindowDelta(int initialSize, int windowSize, int dataSize) {
         int newWindowSize = windowSize - dataSize;
         return initialSize - newWindowSize;
@@ -446,7 +582,13 @@ public class DefaultHttp2LocalFlowControllerTest {
     private void initController(boolean autoRefillConnectionWindow) throws Http2Exception {
         connection = new DefaultHttp2Connection(false);
         controller = new DefaultHttp2LocalFlowController(connection,
-                DEFAULT_WINDOW_UPDATE_RATIO, autoRefillConnectionWindow).frameWriter(frameWriter);
+                DEFAULT_WINDOW_UPDATE_RATIO, autoRefillConnectionWindow) {
+            @Override
+            long ticksInNanos() {
+                return ticks;
+            }
+        };
+        controller.frameWriter(frameWriter);
         connection.local().flowController(controller);
         connection.local().createStream(STREAM_ID, false);
         controller.channelHandlerContext(ctx);
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License, version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at:
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.handler.codec.http2.Http2TestUtil.TestStreamByteDistributorStreamState;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MIN_ALLOCATION_CHUNK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.same;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Tests for {@link ExtensiblePriorityStreamByteDistributor}.
+ */
+public class ExtensiblePriorityStreamByteDistributorTest {
+    private static final int CHUNK_SIZE = DEFAULT_MIN_ALLOCATION_CHUNK;
+
+    private static final int STREAM_A = 1;
+    private static final int STREAM_B = 3;
+    private static final int STREAM_C = 5;
+    private static final int STREAM_D = 7;
+
+    private Http2Connection connection;
+    private ExtensiblePriorityStreamByteDistributor distributor;
+    private IntObjectMap<TestStreamByteDistributorStreamState> stateMap;
+
+    @Mock
+    private StreamByteDistributor.Writer writer;
+
+    @BeforeEach
+    public void setup() throws Http2Exception {
+        MockitoAnnotations.initMocks(this);
+
+        stateMap = new IntObjectHashMap<TestStreamByteDistributorStreamState>();
+        connection = new DefaultHttp2Connection(false);
+        distributor = new ExtensiblePriorityStreamByteDistributor(connection);
+
+        // Assume we always write all the allocated bytes.
+        resetWriter();
+
+        connection.local().createStream(STREAM_A, false);
+        connection.local().createStream(STREAM_B, false);
+        connection.local().createStream(STREAM_C, false);
+        connection.local().createStream(STREAM_D, false);
+    }
+
+    private Answer<Void> writeAnswer() {
+        return new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock in) throws Throwable {
+                Http2Stream stream = in.getArgument(0);
+                int numBytes = in.getArgument(1);
+                TestStreamByteDistributorStreamState state = stateMap.get(stream.id());
+                state.pendingBytes -= numBytes;
+                state.hasFrame = state.pendingBytes > 0;
+                distributor.updateStreamableBytes(state);
+                return null;
+            }
+        };
+    }
+
+    private void resetWriter() {
+        reset(writer);
+        doAnswer(writeAnswer()).when(writer).write(any(Http2Stream.class), anyInt());
+    }
+
+    @Test
+    public void bytesUnassignedAfterProcessing() throws Http2Exception {
+        initState(STREAM_A, 1, true);
+        initState(STREAM_B, 2, true);
+        initState(STREAM_C, 3, true);
+        initState(STREAM_D, 4, true);
+
+        assertFalse(write(10));
+        verifyWrite(STREAM_A, 1);
+        verifyWrite(STREAM_B, 2);
+        verifyWrite(STREAM_C, 3);
+        verifyWrite(STREAM_D, 4);
+        verifyNoMoreInteractions(writer);
+
+        assertFalse(write(10));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void connectionErrorForWriterException() throws Http2Exception {
+        initState(STREAM_A, 1, true);
+
+        Exception fakeException = new RuntimeException("Fake exception");
+        doThrow(fakeException).when(writer).write(same(stream(STREAM_A)), eq(1));
+
+        Http2Exception e = assertThrows(Http2Exception.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                write(10);
+            }
+        });
+        assertFalse(Http2Exception.isStreamError(e));
+        assertEquals(Http2Error.INTERNAL_ERROR, e.error());
+        assertSame(fakeException, e.getCause());
+    }
+
+    @Test
+    public void lowerUrgencyIsServedFirst() throws Http2Exception {
+        setPriority(STREAM_A, 5, false);
+        setPriority(STREAM_B, 0, true);
+        setPriority(STREAM_C, 2, false);
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 10, true);
+        initState(STREAM_C, 10, true);
+        initState(STREAM_D, 10, true);
+
+        assertTrue(write(25));
+        InOrder inOrder = inOrder(writer);
+        inOrder.verify(writer).write(same(stream(STREAM_B)), eq(10));
+        inOrder.verify(writer).write(same(stream(STREAM_C)), eq(10));
+        // STREAM_D has the default urgency.
+        inOrder.verify(writer).write(same(stream(STREAM_D)), eq(5));
+        verifyNoMoreInteractions(writer);
+
+        resetWriter();
+        assertFalse(write(15));
+        inOrder = inOrder(writer);
+        inOrder.verify(writer).write(same(stream(STREAM_D)), eq(5));
+        inOrder.verify(writer).write(same(stream(STREAM_A)), eq(10));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void nonIncrementalStreamsAreServedOneAfterAnother() throws Http2Exception {
+        initState(STREAM_A, 3 * CHUNK_SIZE, true);
+        initState(STREAM_B, 3 * CHUNK_SIZE, true);
+
+        // STREAM_B is not served before STREAM_A is done.
+        assertTrue(write(2 * CHUNK_SIZE));
+        verifyWrite(STREAM_A, 2 * CHUNK_SIZE);
+        verifyNoMoreInteractions(writer);
+
+        resetWriter();
+        assertTrue(write(2 * CHUNK_SIZE));
+        InOrder inOrder = inOrder(writer);
+        inOrder.verify(writer).write(same(stream(STREAM_A)), eq(CHUNK_SIZE));
+        inOrder.verify(writer).write(same(stream(STREAM_B)), eq(CHUNK_SIZE));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void nonIncrementalStreamsAreServedBeforeIncrementalStreams() throws Http2Exception {
+        setPriority(STREAM_A, ExtensiblePriorityStreamByteDistributor.DEFAULT_URGENCY, true);
+        initState(STREAM_A, CHUNK_SIZE, true);
+        initState(STREAM_B, CHUNK_SIZE, true);
+
+        assertTrue(write(CHUNK_SIZE));
+        verifyWrite(STREAM_B, CHUNK_SIZE);
+        verifyNoMoreInteractions(writer);
+    }
+
+    /**
+     * In this test, we verify that each incremental stream is allocated a minimum chunk size. When bytes
+     * run out, the remaining streams will be next in line for the next iteration.
+     */
+    @Test
+    public void incrementalStreamsShareBytes() throws Http2Exception {
+        setPriority(STREAM_A, 1, true);
+        setPriority(STREAM_B, 1, true);
+        setPriority(STREAM_C, 1, true);
+        initState(STREAM_A, 2 * CHUNK_SIZE, true);
+        initState(STREAM_B, 2 * CHUNK_SIZE, true);
+        initState(STREAM_C, 2 * CHUNK_SIZE, true);
+
+        assertTrue(write(2 * CHUNK_SIZE));
+        verifyWrite(STREAM_A, CHUNK_SIZE);
+        verifyWrite(STREAM_B, CHUNK_SIZE);
+        verifyNoMoreInteractions(writer);
+
+        resetWriter();
+        assertTrue(write(2 * CHUNK_SIZE));
+        InOrder inOrder = inOrder(writer);
+        inOrder.verify(writer).write(same(stream(STREAM_C)), eq(CHUNK_SIZE));
+        inOrder.verify(writer).write(same(stream(STREAM_A)), eq(CHUNK_SIZE));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void priorityUpdateMovesQueuedStream() throws Http2Exception {
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 10, true);
+        setPriority(STREAM_B, 0, false);
+
+        assertTrue(write(10));
+        verifyWrite(STREAM_B, 10);
+        verifyNoMoreInteractions(writer);
+
+        resetWriter();
+        assertFalse(write(10));
+        verifyWrite(STREAM_A, 10);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void priorityUpdateBackAndForthDoesNotDuplicateStream() throws Http2Exception {
+        setPriority(STREAM_A, 1, true);
+        setPriority(STREAM_B, 1, true);
+        initState(STREAM_A, 10 * CHUNK_SIZE, true);
+        initState(STREAM_B, 10 * CHUNK_SIZE, true);
+        setPriority(STREAM_A, 2, true);
+        setPriority(STREAM_A, 1, true);
+
+        for (int i = 0; i < 3; i++) {
+            resetWriter();
+            assertTrue(write(2 * CHUNK_SIZE));
+            verifyWrite(STREAM_A, CHUNK_SIZE);
+            verifyWrite(STREAM_B, CHUNK_SIZE);
+            verifyNoMoreInteractions(writer);
+        }
+    }
+
+    @Test
+    public void priorityUpdateOfUnknownStreamIsIgnored() {
+        distributor.updatePriority(101, 0, true);
+    }
+
+    @Test
+    public void invalidUrgencyIsRejected() {
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                setPriority(STREAM_A, ExtensiblePriorityStreamByteDistributor.MAX_URGENCY + 1, false);
+            }
+        });
+    }
+
+    @Test
+    public void closedStreamIsNotWritten() throws Http2Exception {
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 10, true);
+        stream(STREAM_A).close();
+
+        assertFalse(write(20));
+        verifyWrite(STREAM_B, 10);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void emptyFrameAtHeadIsWritten() throws Http2Exception {
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 0, true);
+        initState(STREAM_C, 0, true);
+        initState(STREAM_D, 10, true);
+
+        assertTrue(write(10));
+        verifyWrite(STREAM_A, 10);
+        verifyWrite(STREAM_B, 0);
+        verifyWrite(STREAM_C, 0);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void streamWindowExhaustedDoesNotWrite() throws Http2Exception {
+        initState(STREAM_A, 0, true, false);
+        initState(STREAM_B, 0, true);
+        initState(STREAM_C, 0, true);
+        initState(STREAM_D, 0, true, false);
+
+        assertFalse(write(10));
+        verifyWrite(STREAM_B, 0);
+        verifyWrite(STREAM_C, 0);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void streamWindowLargerThanIntDoesNotInfiniteLoop() throws Http2Exception {
+        initState(STREAM_A, Integer.MAX_VALUE + 1L, true, true);
+        assertTrue(write(Integer.MAX_VALUE));
+        verifyWrite(STREAM_A, Integer.MAX_VALUE);
+        assertFalse(write(1));
+        verifyWrite(STREAM_A, 1);
+    }
+
+    private Http2Stream stream(int streamId) {
+        return connection.stream(streamId);
+    }
+
+    private void initState(final int streamId, final long streamableBytes, final boolean hasFrame) {
+        initState(streamId, streamableBytes, hasFrame, hasFrame);
+    }
+
+    private void initState(final int streamId, final long pendingBytes, final boolean hasFrame,
+            final boolean isWriteAllowed) {
+        final Http2Stream stream = stream(streamId);
+        TestStreamByteDistributorStreamState state = new TestStreamByteDistributorStreamState(stream, pendingBytes,
+                hasFrame, isWriteAllowed);
+        stateMap.put(streamId, state);
+        distributor.updateStreamableBytes(state);
+    }
+
+    private void setPriority(int streamId, int urgency, boolean incremental) {
+        distributor.updatePriority(streamId, urgency, incremental);
+    }
+
+    private boolean write(int numBytes) throws Http2Exception {
+        return distributor.distribute(numBytes, writer);
+    }
+
+    private void verifyWrite(int streamId, int numBytes) {
+        verify(writer).write(same(stream(streamId)), eq(numBytes));
+    }
+}
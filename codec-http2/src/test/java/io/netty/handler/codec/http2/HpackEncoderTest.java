@@ -17,6 +17,7 @@ package io.netty.handler.codec.http2;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
@@ -24,7 +25,9 @@ import org.junit.jupiter.api.function.Executable;
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_LIST_SIZE;
 import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_TABLE_SIZE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 
 public class HpackEncoderTest {
@@ -110,4 +113,79 @@ public class HpackEncoderTest {
             buf.release();
         }
     }
+
+    @Test
+    public void testForwardLazyValueWithoutReencoding() throws Http2Exception {
+        // Huffman encode everything and never index the value, as a client would do for a cookie.
+        HpackEncoder clientEncoder = new HpackEncoder(false, 16, 0);
+        Http2Headers original = new DefaultHttp2Headers().path("/some/path").add("cookie", "some cookie value");
+        ByteBuf in = Unpooled.buffer();
+        ByteBuf out = Unpooled.buffer();
+        try {
+            clientEncoder.encodeHeaders(3, in, original, Http2HeadersEncoder.ALWAYS_SENSITIVE);
+            Http2Headers forwarded = new DefaultHttp2Headers();
+            hpackDecoder.decode(3, in, forwarded, true, true);
+            HpackLazyValue cookie = (HpackLazyValue) forwarded.get("cookie");
+
+            hpackEncoder.encodeHeaders(3, out, forwarded, Http2HeadersEncoder.NEVER_SENSITIVE);
+            assertFalse(cookie.isDecoded());
+            // The value was not indexed, so the forwarded block can be decoded on its own.
+            Http2Headers decoded = new DefaultHttp2Headers();
+            new HpackDecoder(DEFAULT_HEADER_LIST_SIZE).decode(3, out, decoded, true);
+            assertEquals(original, decoded);
+        } finally {
+            in.release();
+            out.release();
+        }
+    }
+
+    @Test
+    public void testForwardLazyValueEnforcesMaxHeaderListSizeWithoutDecoding() throws Http2Exception {
+        HpackEncoder clientEncoder = new HpackEncoder(false, 16, 0);
+        Http2Headers original = new DefaultHttp2Headers().add("cookie", "some cookie value");
+        ByteBuf in = Unpooled.buffer();
+        final ByteBuf out = Unpooled.buffer();
+        try {
+            clientEncoder.encodeHeaders(3, in, original, Http2HeadersEncoder.ALWAYS_SENSITIVE);
+            final Http2Headers forwarded = new DefaultHttp2Headers();
+            hpackDecoder.decode(3, in, forwarded, true, true);
+            HpackLazyValue cookie = (HpackLazyValue) forwarded.get("cookie");
+            assertTrue(cookie.encodedLength() < cookie.length());
+
+            // The decoded length counts against the limit, even though the encoded bytes would fit.
+            hpackEncoder.setMaxHeaderListSize(HpackHeaderField.sizeOf("cookie", "some cookie value") - 1);
+            assertThrows(Http2Exception.class, new Executable() {
+                @Override
+                public void execute() throws Throwable {
+                    hpackEncoder.encodeHeaders(3, out, forwarded, Http2HeadersEncoder.NEVER_SENSITIVE);
+                }
+            });
+            assertFalse(cookie.isDecoded());
+            assertFalse(out.isReadable());
+        } finally {
+            in.release();
+            out.release();
+        }
+    }
+
+    @Test
+    public void testMalformedLazyValueIsNeverForwarded() {
+        // Literal without indexing of "cookie" with a Huffman encoded value which decodes the EOS symbol.
+        final ByteBuf in = Unpooled.buffer();
+        in.writeByte(0).writeByte(6).writeBytes("cookie".getBytes(CharsetUtil.US_ASCII))
+                .writeByte(0x84).writeInt(-1);
+        final Http2Headers forwarded = new DefaultHttp2Headers();
+        try {
+            Http2Exception e = assertThrows(Http2Exception.class, new Executable() {
+                @Override
+                public void execute() throws Throwable {
+                    hpackDecoder.decode(3, in, forwarded, true, true);
+                }
+            });
+            assertEquals(Http2Error.COMPRESSION_ERROR, e.error());
+            assertTrue(forwarded.isEmpty());
+        } finally {
+            in.release();
+        }
+    }
 }
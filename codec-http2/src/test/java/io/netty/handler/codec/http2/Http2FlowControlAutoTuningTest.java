@@ -0,0 +1,174 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License, version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at:
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Uploads data over a simulated link with a high bandwidth-delay product, to test the throughput with the
+ * auto-tuning of the {@link DefaultHttp2LocalFlowController}.
+ */
+public class Http2FlowControlAutoTuningTest {
+    private static final int STREAM_ID = 3;
+    private static final int UPLOAD_SIZE = 16 * 1024 * 1024;
+    // One tick is the one-way delay of the link, so the bandwidth-delay product is 2 MiB.
+    private static final int LINK_BYTES_PER_TICK = 1024 * 1024;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final int MAX_TICKS = 10000;
+    private static final int MAX_WINDOW_SIZE = 4 * 1024 * 1024;
+
+    @Test
+    public void testAutoTuningIncreasesThroughput() throws Exception {
+        Upload fixed = new Upload(false);
+        int fixedTicks = fixed.run();
+        Upload autoTuned = new Upload(true);
+        int autoTunedTicks = autoTuned.run();
+
+        // A 64 KiB window allows 64 KiB per round trip, so the fixed windows need more than 500 ticks.
+        assertTrue(fixedTicks > 500, "fixed: " + fixedTicks);
+        // The link allows 1 MiB per tick.
+        assertTrue(autoTunedTicks < fixedTicks / 8, "auto-tuned: " + autoTunedTicks + ", fixed: " + fixedTicks);
+
+        Http2Connection connection = autoTuned.serverConnection;
+        DefaultHttp2LocalFlowController controller =
+                (DefaultHttp2LocalFlowController) connection.local().flowController();
+        int windowSize = controller.initialWindowSize(connection.connectionStream());
+        assertTrue(windowSize > 2 * 1024 * 1024, "window: " + windowSize);
+        assertTrue(windowSize <= MAX_WINDOW_SIZE, "window: " + windowSize);
+    }
+
+    private static final class Upload {
+        final Http2Connection serverConnection = new DefaultHttp2Connection(true);
+        final EmbeddedChannel clientChannel;
+        final EmbeddedChannel serverChannel;
+        int ticks;
+        long received;
+
+        Upload(boolean autoTune) throws Exception {
+            serverConnection.local().flowController(new DefaultHttp2LocalFlowController(serverConnection) {
+                @Override
+                long ticksInNanos() {
+                    return ticks * TICK_NANOS;
+                }
+            });
+            Http2ConnectionHandler server = new Http2ConnectionHandlerBuilder()
+                    .connection(serverConnection)
+                    .autoTuneFlowControlWindows(autoTune)
+                    .maxAutoTunedWindowSize(MAX_WINDOW_SIZE)
+                    .frameListener(new Http2FrameAdapter() {
+                        @Override
+                        public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding,
+                                              boolean endOfStream) {
+                            received += data.readableBytes();
+                            return data.readableBytes() + padding;
+                        }
+                    })
+                    .build();
+            Http2ConnectionHandler client = new Http2ConnectionHandlerBuilder()
+                    .server(false)
+                    .frameListener(new Http2FrameAdapter())
+                    .build();
+            serverChannel = new EmbeddedChannel(server);
+            clientChannel = new EmbeddedChannel(client);
+            // Like the socket buffers of a sender on a link with a high bandwidth-delay product, otherwise the client
+            // does not write more than the default high water mark at once.
+            clientChannel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(MAX_WINDOW_SIZE, MAX_WINDOW_SIZE));
+
+            ChannelHandlerContext ctx = clientChannel.pipeline().firstContext();
+            Http2Headers headers = new DefaultHttp2Headers().method("POST").path("/").scheme("http");
+            client.encoder().writeHeaders(ctx, STREAM_ID, headers, 0, false, ctx.newPromise());
+            client.encoder().writeData(ctx, STREAM_ID, Unpooled.wrappedBuffer(new byte[UPLOAD_SIZE]), 0, true,
+                                       ctx.newPromise());
+            clientChannel.flush();
+        }
+
+        int run() {
+            Link clientToServer = new Link(serverChannel);
+            Link serverToClient = new Link(clientChannel);
+            while (received < UPLOAD_SIZE) {
+                if (++ticks > MAX_TICKS) {
+                    fail("Upload did not complete, received: " + received);
+                }
+                // What was transmitted in the last tick arrives now, and the responses are transmitted right away.
+                clientToServer.deliver();
+                serverToClient.deliver();
+                clientToServer.transmit(clientChannel);
+                serverToClient.transmit(serverChannel);
+            }
+            assertEquals(UPLOAD_SIZE, received);
+            clientToServer.release();
+            serverToClient.release();
+            clientChannel.finishAndReleaseAll();
+            serverChannel.finishAndReleaseAll();
+            return ticks;
+        }
+    }
+
+    /**
+     * One direction of a link, which transmits at most {@link #LINK_BYTES_PER_TICK} per tick and delivers them in
+     * the next tick.
+     */
+    private static final class Link {
+        private final EmbeddedChannel receiver;
+        private final CompositeByteBuf queued = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        private ByteBuf inFlight;
+
+        Link(EmbeddedChannel receiver) {
+            this.receiver = receiver;
+        }
+
+        void transmit(EmbeddedChannel sender) {
+            for (;;) {
+                ByteBuf buf = sender.readOutbound();
+                if (buf == null) {
+                    break;
+                }
+                queued.addComponent(true, buf);
+            }
+            if (queued.isReadable()) {
+                // Copy, as the components are released by discardReadComponents().
+                inFlight = queued.readBytes(Math.min(queued.readableBytes(), LINK_BYTES_PER_TICK));
+                queued.discardReadComponents();
+            }
+        }
+
+        void deliver() {
+            if (inFlight != null) {
+                ByteBuf buf = inFlight;
+                inFlight = null;
+                receiver.writeInbound(buf);
+            }
+        }
+
+        void release() {
+            queued.release();
+            if (inFlight != null) {
+                inFlight.release();
+            }
+        }
+    }
+}
@@ -125,4 +125,27 @@ public class DelimiterBasedFrameDecoderTest {
         buf.release();
         buf2.release();
     }
+
+    @Test
+    public void testMultiByteDelimiterWithPartialMatches() {
+        EmbeddedChannel ch = new EmbeddedChannel(new DelimiterBasedFrameDecoder(8192, true,
+                Unpooled.copiedBuffer("<END>", CharsetUtil.US_ASCII)));
+        ch.writeInbound(Unpooled.copiedBuffer("<<E<EN<END first <END><EN", CharsetUtil.US_ASCII));
+
+        ByteBuf buf = ch.readInbound();
+        assertEquals("<<E<EN<END first ", buf.toString(CharsetUtil.US_ASCII));
+        assertNull(ch.readInbound());
+
+        ch.writeInbound(Unpooled.copiedBuffer("D><END>", CharsetUtil.US_ASCII));
+        ByteBuf buf2 = ch.readInbound();
+        assertEquals("", buf2.toString(CharsetUtil.US_ASCII));
+        ByteBuf buf3 = ch.readInbound();
+        assertEquals("", buf3.toString(CharsetUtil.US_ASCII));
+        assertNull(ch.readInbound());
+        ch.finish();
+
+        buf.release();
+        buf2.release();
+        buf3.release();
+    }
 }
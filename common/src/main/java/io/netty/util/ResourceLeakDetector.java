@@ -16,6 +16,7 @@
 
 package io.netty.util;
 
+import io.netty.util.concurrent.FastThreadLocalThread;
 import io.netty.util.internal.EmptyArrays;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.PlatformDependent;
@@ -26,11 +27,16 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 import java.lang.ref.WeakReference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.reflect.Method;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
@@ -52,8 +58,14 @@ public class ResourceLeakDetector<T> {
     // There is a minor performance benefit in TLR if this is a power of 2.
     private static final int DEFAULT_SAMPLING_INTERVAL = 128;
 
+    private static final String PROP_ASYNC = "io.netty.leakDetection.async";
+
+    private static final String PROP_ASYNC_TARGET_RECORDS = "io.netty.leakDetection.asyncTargetRecords";
+    private static final int DEFAULT_ASYNC_TARGET_RECORDS = 1024;
+
     private static final int TARGET_RECORDS;
     static final int SAMPLING_INTERVAL;
+    static final int ASYNC_TARGET_RECORDS;
 
     /**
      * Represents the level of resource leak detection.
@@ -97,6 +109,7 @@ public class ResourceLeakDetector<T> {
     }
 
     private static Level level;
+    private static boolean async;
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ResourceLeakDetector.class);
 
@@ -123,11 +136,15 @@ public class ResourceLeakDetector<T> {
 
         TARGET_RECORDS = SystemPropertyUtil.getInt(PROP_TARGET_RECORDS, DEFAULT_TARGET_RECORDS);
         SAMPLING_INTERVAL = SystemPropertyUtil.getInt(PROP_SAMPLING_INTERVAL, DEFAULT_SAMPLING_INTERVAL);
+        ASYNC_TARGET_RECORDS = SystemPropertyUtil.getInt(PROP_ASYNC_TARGET_RECORDS, DEFAULT_ASYNC_TARGET_RECORDS);
 
         ResourceLeakDetector.level = level;
+        async = SystemPropertyUtil.getBoolean(PROP_ASYNC, false);
         if (logger.isDebugEnabled()) {
             logger.debug("-D{}: {}", PROP_LEVEL, level.name().toLowerCase());
             logger.debug("-D{}: {}", PROP_TARGET_RECORDS, TARGET_RECORDS);
+            logger.debug("-D{}: {}", PROP_ASYNC, async);
+            logger.debug("-D{}: {}", PROP_ASYNC_TARGET_RECORDS, ASYNC_TARGET_RECORDS);
         }
     }
 
@@ -160,6 +177,31 @@ public class ResourceLeakDetector<T> {
         return level;
     }
 
+    /**
+     * Enables or disables asynchronous leak detection for resources which are tracked from now on.
+     * <p>
+     * When enabled, leaked resources are detected and reported by a background thread instead of the thread which
+     * allocates the next resource, so building the report with all its stack traces never happens on the hot path.
+     * <p>
+     * The access records of the tracked resources are also sampled adaptively, which bounds the cost of capturing
+     * their stack traces at {@link Level#ADVANCED} and {@link Level#PARANOID}: once a {@link ResourceLeakDetector}
+     * captured {@code io.netty.leakDetection.asyncTargetRecords} records within a second, only every second record is
+     * captured, after twice as many records every fourth and so on. Where a resource was created is always
+     * recorded, but as a consequence its very last access may be missing in the report.
+     */
+    public static void setAsync(boolean async) {
+        ResourceLeakDetector.async = async;
+    }
+
+    /**
+     * Returns {@code true} if asynchronous leak detection is enabled.
+     *
+     * @see #setAsync(boolean)
+     */
+    public static boolean isAsync() {
+        return async;
+    }
+
     /** the collection of active resources */
     private final Set<DefaultResourceLeak<?>> allLeaks =
             Collections.newSetFromMap(new ConcurrentHashMap<DefaultResourceLeak<?>, Boolean>());
@@ -167,6 +209,7 @@ public class ResourceLeakDetector<T> {
     private final ReferenceQueue<Object> refQueue = new ReferenceQueue<Object>();
     private final Set<String> reportedLeaks =
             Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final RecordSampler recordSampler = new RecordSampler(ASYNC_TARGET_RECORDS);
 
     private final String resourceType;
     private final int samplingInterval;
@@ -252,15 +295,18 @@ public class ResourceLeakDetector<T> {
             return null;
         }
 
-        if (level.ordinal() < Level.PARANOID.ordinal()) {
-            if ((PlatformDependent.threadLocalRandom().nextInt(samplingInterval)) == 0) {
-                reportLeak();
-                return new DefaultResourceLeak(obj, refQueue, allLeaks);
-            }
+        if (level.ordinal() < Level.PARANOID.ordinal() &&
+                PlatformDependent.threadLocalRandom().nextInt(samplingInterval) != 0) {
             return null;
         }
+        // Create the leak right here, so the stack traces of the records always start with the same frames.
+        if (async) {
+            DefaultResourceLeak leak = new DefaultResourceLeak(obj, AsyncLeakReporter.REFERENCE_QUEUE, allLeaks, this);
+            AsyncLeakReporter.startIfNeeded();
+            return leak;
+        }
         reportLeak();
-        return new DefaultResourceLeak(obj, refQueue, allLeaks);
+        return new DefaultResourceLeak(obj, refQueue, allLeaks, null);
     }
 
     private void clearRefQueue() {
@@ -296,17 +342,21 @@ public class ResourceLeakDetector<T> {
                 break;
             }
 
-            if (!ref.dispose()) {
-                continue;
-            }
+            reportLeak(ref);
+        }
+    }
 
-            String records = ref.toString();
-            if (reportedLeaks.add(records)) {
-                if (records.isEmpty()) {
-                    reportUntracedLeak(resourceType);
-                } else {
-                    reportTracedLeak(resourceType, records);
-                }
+    private void reportLeak(DefaultResourceLeak<?> ref) {
+        if (!ref.dispose()) {
+            return;
+        }
+
+        String records = ref.toString();
+        if (reportedLeaks.add(records)) {
+            if (records.isEmpty()) {
+                reportUntracedLeak(resourceType);
+            } else {
+                reportTracedLeak(resourceType, records);
             }
         }
     }
@@ -356,18 +406,28 @@ public class ResourceLeakDetector<T> {
                 (AtomicIntegerFieldUpdater)
                         AtomicIntegerFieldUpdater.newUpdater(DefaultResourceLeak.class, "droppedRecords");
 
+        @SuppressWarnings("unchecked") // generics and updaters do not mix.
+        private static final AtomicIntegerFieldUpdater<DefaultResourceLeak<?>> skippedRecordsUpdater =
+                (AtomicIntegerFieldUpdater)
+                        AtomicIntegerFieldUpdater.newUpdater(DefaultResourceLeak.class, "skippedRecords");
+
         @SuppressWarnings("unused")
         private volatile TraceRecord head;
         @SuppressWarnings("unused")
         private volatile int droppedRecords;
+        @SuppressWarnings("unused")
+        private volatile int skippedRecords;
 
         private final Set<DefaultResourceLeak<?>> allLeaks;
         private final int trackedHash;
+        // Only set if the leak is detected asynchronously.
+        private final ResourceLeakDetector<?> asyncDetector;
 
         DefaultResourceLeak(
                 Object referent,
                 ReferenceQueue<Object> refQueue,
-                Set<DefaultResourceLeak<?>> allLeaks) {
+                Set<DefaultResourceLeak<?>> allLeaks,
+                ResourceLeakDetector<?> asyncDetector) {
             super(referent, refQueue);
 
             assert referent != null;
@@ -376,6 +436,11 @@ public class ResourceLeakDetector<T> {
             // It's important that we not store a reference to the referent as this would disallow it from
             // be collected via the WeakReference.
             trackedHash = System.identityHashCode(referent);
+            this.asyncDetector = asyncDetector;
+            if (asyncDetector != null) {
+                // Count before adding, so the AsyncLeakReporter never stops while this leak may still be reported.
+                AsyncLeakReporter.LIVE_LEAKS.incrementAndGet();
+            }
             allLeaks.add(this);
             // Create a new Record so we always have the creation stacktrace included.
             headUpdater.set(this, new TraceRecord(TraceRecord.BOTTOM));
@@ -421,6 +486,11 @@ public class ResourceLeakDetector<T> {
         private void record0(Object hint) {
             // Check TARGET_RECORDS > 0 here to avoid similar check before remove from and add to lastRecords
             if (TARGET_RECORDS > 0) {
+                if (asyncDetector != null && !asyncDetector.recordSampler.sample()) {
+                    // Enough records were captured recently.
+                    skippedRecordsUpdater.incrementAndGet(this);
+                    return;
+                }
                 TraceRecord oldHead;
                 TraceRecord prevHead;
                 TraceRecord newHead;
@@ -449,12 +519,12 @@ public class ResourceLeakDetector<T> {
 
         boolean dispose() {
             clear();
-            return allLeaks.remove(this);
+            return remove();
         }
 
         @Override
         public boolean close() {
-            if (allLeaks.remove(this)) {
+            if (remove()) {
                 // Call clear so the reference is not even enqueued.
                 clear();
                 headUpdater.set(this, null);
@@ -463,6 +533,16 @@ public class ResourceLeakDetector<T> {
             return false;
         }
 
+        private boolean remove() {
+            if (allLeaks.remove(this)) {
+                if (asyncDetector != null) {
+                    AsyncLeakReporter.LIVE_LEAKS.decrementAndGet();
+                }
+                return true;
+            }
+            return false;
+        }
+
         @Override
         public boolean close(T trackedObject) {
             // Ensure that the object that was tracked is the same as the one that was passed to close(...).
@@ -515,6 +595,7 @@ public class ResourceLeakDetector<T> {
             }
 
             final int dropped = droppedRecordsUpdater.get(this);
+            final int skipped = skippedRecordsUpdater.get(this);
             int duped = 0;
 
             int present = oldHead.pos + 1;
@@ -555,11 +636,140 @@ public class ResourceLeakDetector<T> {
                    .append(NEWLINE);
             }
 
+            if (skipped > 0) {
+                buf.append(": ")
+                   .append(skipped)
+                   .append(" leak records were skipped because too many records were captured recently.")
+                   .append(" Use system property ")
+                   .append(PROP_ASYNC_TARGET_RECORDS)
+                   .append(" to increase the limit.")
+                   .append(NEWLINE);
+            }
+
             buf.setLength(buf.length() - NEWLINE.length());
             return buf.toString();
         }
     }
 
+    /**
+     * Decides which access records are captured if {@link #isAsync()} is {@code true}. Once {@code targetRecords}
+     * records were captured within a second only every second record is captured, after twice as many records every
+     * fourth and so on, until the next second starts.
+     */
+    static final class RecordSampler {
+        private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+        private static final int MAX_BACK_OFF = 10;
+
+        private final int targetRecords;
+        // Updated racy, as these are only used to adapt the sampling rate.
+        private volatile int capturedRecords;
+        private volatile long windowStartNanos;
+
+        RecordSampler(int targetRecords) {
+            this.targetRecords = targetRecords;
+            windowStartNanos = System.nanoTime();
+        }
+
+        /**
+         * Returns {@code true} if the next record should be captured.
+         */
+        boolean sample() {
+            int captured = capturedRecords;
+            if (captured >= targetRecords) {
+                long nanoTime = System.nanoTime();
+                if (nanoTime - windowStartNanos >= WINDOW_NANOS) {
+                    windowStartNanos = nanoTime;
+                    captured = 0;
+                } else {
+                    int backOffFactor = targetRecords > 0 ? Math.min(captured / targetRecords, MAX_BACK_OFF) :
+                            MAX_BACK_OFF;
+                    if (PlatformDependent.threadLocalRandom().nextInt(1 << backOffFactor) != 0) {
+                        return false;
+                    }
+                }
+            }
+            capturedRecords = captured + 1;
+            return true;
+        }
+    }
+
+    /**
+     * Detects and reports leaks of resources which were tracked while {@link #isAsync()} was {@code true}. Like the
+     * {@link io.netty.util.internal.ObjectCleaner} its thread only runs as long as tracked resources are alive.
+     */
+    private static final class AsyncLeakReporter {
+        private static final int REFERENCE_QUEUE_POLL_TIMEOUT_MS = 1000;
+        private static final String THREAD_NAME = "ResourceLeakDetectorThread";
+
+        static final ReferenceQueue<Object> REFERENCE_QUEUE = new ReferenceQueue<Object>();
+        static final AtomicInteger LIVE_LEAKS = new AtomicInteger();
+        private static final AtomicBoolean RUNNING = new AtomicBoolean();
+        private static final Runnable TASK = new Runnable() {
+            @Override
+            public void run() {
+                boolean interrupted = false;
+                for (;;) {
+                    while (LIVE_LEAKS.get() > 0) {
+                        final DefaultResourceLeak<?> ref;
+                        try {
+                            ref = (DefaultResourceLeak<?>) REFERENCE_QUEUE.remove(REFERENCE_QUEUE_POLL_TIMEOUT_MS);
+                        } catch (InterruptedException ex) {
+                            // Just consume and move on
+                            interrupted = true;
+                            continue;
+                        }
+                        if (ref != null) {
+                            report(ref);
+                        }
+                    }
+                    RUNNING.set(false);
+
+                    // Check again as something may have been tracked after we were done, see ObjectCleaner.
+                    if (LIVE_LEAKS.get() == 0 || !RUNNING.compareAndSet(false, true)) {
+                        break;
+                    }
+                }
+                if (interrupted) {
+                    // As we caught the InterruptedException above we should mark the Thread as interrupted.
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        static void startIfNeeded() {
+            if (RUNNING.compareAndSet(false, true)) {
+                final Thread thread = new FastThreadLocalThread(TASK);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                // Don't hold a strong reference to the inherited classloader, see ObjectCleaner.
+                AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                    @Override
+                    public Void run() {
+                        thread.setContextClassLoader(null);
+                        return null;
+                    }
+                });
+                thread.setName(THREAD_NAME);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+
+        private static void report(DefaultResourceLeak<?> ref) {
+            try {
+                ResourceLeakDetector<?> detector = ref.asyncDetector;
+                if (detector.needReport()) {
+                    detector.reportLeak(ref);
+                } else {
+                    ref.dispose();
+                }
+            } catch (Throwable t) {
+                logger.warn("Unexpected exception while reporting a leak", t);
+            }
+        }
+
+        private AsyncLeakReporter() { }
+    }
+
     private static final AtomicReference<String[]> excludedMethods =
             new AtomicReference<String[]>(EmptyArrays.EMPTY_STRINGS);
 
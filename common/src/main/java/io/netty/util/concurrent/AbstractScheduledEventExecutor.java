@@ -20,10 +20,12 @@ import static io.netty.util.concurrent.ScheduledFutureTask.deadlineNanos;
 import io.netty.util.internal.DefaultPriorityQueue;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.PriorityQueue;
+import io.netty.util.internal.UnstableApi;
 import java.util.Comparator;
 import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Abstract base class for {@link EventExecutor}s that want to support scheduling.
@@ -42,8 +44,14 @@ public abstract class AbstractScheduledEventExecutor extends AbstractEventExecut
        public void run() { } // Do nothing
     };
 
+    private static final AtomicReferenceFieldUpdater<AbstractScheduledEventExecutor, TimingWheelScheduler>
+            TIMING_WHEEL_UPDATER = AtomicReferenceFieldUpdater.newUpdater(
+                    AbstractScheduledEventExecutor.class, TimingWheelScheduler.class, "timingWheel");
+
     PriorityQueue<ScheduledFutureTask<?>> scheduledTaskQueue;
 
+    private volatile TimingWheelScheduler timingWheel;
+
     long nextTaskId;
 
     protected AbstractScheduledEventExecutor() {
@@ -85,6 +93,22 @@ public abstract class AbstractScheduledEventExecutor extends AbstractEventExecut
         return scheduledTaskQueue;
     }
 
+    /**
+     * Returns the {@link TimingWheelScheduler} of this executor, which schedules coarse timeouts with {@code O(1)}
+     * costs to add and cancel them instead of adding them to the scheduled task queue of this executor.
+     */
+    @UnstableApi
+    public final TimingWheelScheduler timingWheel() {
+        TimingWheelScheduler timingWheel = this.timingWheel;
+        if (timingWheel == null) {
+            timingWheel = new TimingWheelScheduler(this);
+            if (!TIMING_WHEEL_UPDATER.compareAndSet(this, null, timingWheel)) {
+                timingWheel = this.timingWheel;
+            }
+        }
+        return timingWheel;
+    }
+
     private static boolean isNullOrEmpty(Queue<ScheduledFutureTask<?>> queue) {
         return queue == null || queue.isEmpty();
     }
@@ -96,6 +120,10 @@ public abstract class AbstractScheduledEventExecutor extends AbstractEventExecut
      */
     protected void cancelScheduledTasks() {
         assert inEventLoop();
+        TimingWheelScheduler timingWheel = this.timingWheel;
+        if (timingWheel != null) {
+            timingWheel.cancelAll();
+        }
         PriorityQueue<ScheduledFutureTask<?>> scheduledTaskQueue = this.scheduledTaskQueue;
         if (isNullOrEmpty(scheduledTaskQueue)) {
             return;
@@ -41,6 +41,7 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
@@ -73,6 +74,10 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
     private static final AtomicReferenceFieldUpdater<SingleThreadEventExecutor, ThreadProperties> PROPERTIES_UPDATER =
             AtomicReferenceFieldUpdater.newUpdater(
                     SingleThreadEventExecutor.class, ThreadProperties.class, "threadProperties");
+    private static final AtomicLongFieldUpdater<SingleThreadEventExecutor> TASK_TIME_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(SingleThreadEventExecutor.class, "taskTimeNanos");
+    private static final AtomicLongFieldUpdater<SingleThreadEventExecutor> FIRST_PENDING_TASK_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(SingleThreadEventExecutor.class, "firstPendingTaskNanos");
     // 任务队列
     private final Queue<Runnable> taskQueue;
     // 自身所在线程
@@ -94,6 +99,17 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
 
     private long lastExecutionTime;
 
+    // The task metrics cost a few System.nanoTime() calls per task, so they are only collected once requested.
+    private volatile boolean taskMetricsEnabled;
+    // Metrics which are only written by the executor thread, so we can use lazySet(...) to update them.
+    @SuppressWarnings("unused")
+    private volatile long taskTimeNanos;
+    private volatile long maxTaskTimeNanos;
+    private volatile long taskQueueLatencyNanos;
+    // The time when the oldest task that was not picked up yet was added, or 0 if there is none.
+    @SuppressWarnings("unused")
+    private volatile long firstPendingTaskNanos;
+
     // 初始状态就是未启动
     @SuppressWarnings({ "FieldMayBeFinal", "unused" })
     private volatile int state = ST_NOT_STARTED;
@@ -248,6 +264,8 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
                     task = taskQueue.take();
                     if (task == WAKEUP_TASK) {
                         task = null;
+                    } else {
+                        updateTaskQueueLatencyForTakenTask();
                     }
                 } catch (InterruptedException e) {
                     // Ignore
@@ -274,6 +292,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
                 }
 
                 if (task != null) {
+                    updateTaskQueueLatencyForTakenTask();
                     return task;
                 }
             }
@@ -315,7 +334,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             return false;
         }
         do {
-            safeExecute(scheduledTask);
+            safeExecuteMeasured(scheduledTask);
         } while ((scheduledTask = pollScheduledTask(nanoTime)) != null);
         return true;
     }
@@ -358,7 +377,13 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         if (isShutdown()) {
             reject();
         }
-        return taskQueue.offer(task);
+        if (!taskQueue.offer(task)) {
+            return false;
+        }
+        if (taskMetricsEnabled && firstPendingTaskNanos == 0) {
+            FIRST_PENDING_TASK_UPDATER.compareAndSet(this, 0, System.nanoTime());
+        }
+        return true;
     }
 
     /**
@@ -377,6 +402,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         assert inEventLoop();
         boolean fetchedAll;
         boolean ranAtLeastOne = false;
+        updateTaskQueueLatency();
 
         do {
             // 取出要执行的定时任务
@@ -406,6 +432,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         assert inEventLoop();
         boolean ranAtLeastOneTask;
         int drainAttempt = 0;
+        updateTaskQueueLatency();
         do {
             // We must run the taskQueue tasks first, because the scheduled tasks from outside the EventLoop are queued
             // here because the taskQueue is thread safe and the scheduledTaskQueue is not thread safe.
@@ -433,7 +460,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             return false;
         }
         for (;;) {
-            safeExecute(task);
+            safeExecuteMeasured(task);
             task = pollTaskFrom(taskQueue);
             if (task == null) {
                 return true;
@@ -452,11 +479,11 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             return false;
         }
         int remaining = Math.min(maxPendingTasks, taskQueue.size());
-        safeExecute(task);
+        safeExecuteMeasured(task);
         // Use taskQueue.poll() directly rather than pollTaskFrom() since the latter may
         // silently consume more than one item from the queue (skips over WAKEUP_TASK instances)
         while (remaining-- > 0 && (task = taskQueue.poll()) != null) {
-            safeExecute(task);
+            safeExecuteMeasured(task);
         }
         return true;
     }
@@ -466,6 +493,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      * the tasks in the task queue and returns if it ran longer than {@code timeoutNanos}.
      */
     protected boolean runAllTasks(long timeoutNanos) {
+        updateTaskQueueLatency();
         fetchFromScheduledTaskQueue();
         Runnable task = pollTask();
         if (task == null) {
@@ -477,7 +505,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         long runTasks = 0;
         long lastExecutionTime;
         for (;;) {
-            safeExecute(task);
+            safeExecuteMeasured(task);
 
             runTasks ++;
 
@@ -502,6 +530,97 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         return true;
     }
 
+    /**
+     * Runs the given task via {@link #safeExecute(Runnable)} and records the time it took if
+     * {@link #enableTaskMetrics()} was called.
+     */
+    private void safeExecuteMeasured(Runnable task) {
+        if (!taskMetricsEnabled) {
+            safeExecute(task);
+            return;
+        }
+        long start = System.nanoTime();
+        safeExecute(task);
+        recordTaskTime(System.nanoTime() - start);
+    }
+
+    /**
+     * Returns {@code true} if {@link #enableTaskMetrics()} was called, so implementations which run tasks themselves
+     * should pass the time they took to {@link #recordTaskTime(long)}.
+     */
+    @UnstableApi
+    protected final boolean isTaskMetricsEnabled() {
+        return taskMetricsEnabled;
+    }
+
+    /**
+     * Adds the time in nanoseconds it took to run a task to {@link #taskTime()} and {@link #maxTaskTime()}. Must only
+     * be called from the thread of this executor.
+     */
+    @UnstableApi
+    protected final void recordTaskTime(long nanos) {
+        TASK_TIME_UPDATER.lazySet(this, taskTimeNanos + nanos);
+        if (nanos > maxTaskTimeNanos) {
+            maxTaskTimeNanos = nanos;
+        }
+    }
+
+    private void updateTaskQueueLatency() {
+        long first = firstPendingTaskNanos;
+        if (first != 0) {
+            // Reset first so the tasks that are added from now on start a new measurement.
+            firstPendingTaskNanos = 0;
+            taskQueueLatencyNanos = System.nanoTime() - first;
+        }
+    }
+
+    private void updateTaskQueueLatencyForTakenTask() {
+        if (!taskMetricsEnabled) {
+            return;
+        }
+        updateTaskQueueLatency();
+        // Only one task was taken, so the ones that are still queued are waiting since now at least.
+        if (!taskQueue.isEmpty()) {
+            FIRST_PENDING_TASK_UPDATER.compareAndSet(this, 0, System.nanoTime());
+        }
+    }
+
+    /**
+     * Starts to collect the values returned by {@link #taskTime()}, {@link #maxTaskTime()} and
+     * {@link #taskQueueLatency()}. They are not collected by default, as measuring them costs a few
+     * {@link System#nanoTime()} calls per task.
+     */
+    @UnstableApi
+    protected final void enableTaskMetrics() {
+        taskMetricsEnabled = true;
+    }
+
+    /**
+     * Returns the total time in nanoseconds spent running tasks via the {@code runAllTasks} methods, or reported via
+     * {@link #recordTaskTime(long)}, since {@link #enableTaskMetrics()} was called.
+     */
+    @UnstableApi
+    protected final long taskTime() {
+        return taskTimeNanos;
+    }
+
+    /**
+     * Returns the longest time in nanoseconds a single task took, see {@link #taskTime()}.
+     */
+    @UnstableApi
+    protected final long maxTaskTime() {
+        return maxTaskTimeNanos;
+    }
+
+    /**
+     * Returns how long in nanoseconds the oldest task had to wait in the task queue before this executor started to
+     * run the tasks the last time. This is an approximation, as it is only measured once per batch of tasks.
+     */
+    @UnstableApi
+    protected final long taskQueueLatency() {
+        return taskQueueLatencyNanos;
+    }
+
     /**
      * Invoked before returning from {@link #runAllTasks()} and {@link #runAllTasks(long)}.
      */
@@ -832,6 +951,34 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         execute(ObjectUtil.checkNotNull(task, "task"), false);
     }
 
+    /**
+     * Adds all the given tasks to the task queue with a single publication and at most one wakeup of the thread,
+     * instead of one of each per task like calling {@link #execute(Runnable)} for every task would do.
+     * <p>
+     * The tasks are run one after the other in the iteration order of the {@link Collection}, and an exception thrown
+     * by one of them does not prevent the following ones from being run. If the batch is rejected, none of its tasks
+     * is run.
+     */
+    @UnstableApi
+    public void executeBatch(Collection<? extends Runnable> tasks) {
+        ObjectUtil.checkNotNull(tasks, "tasks");
+        Runnable[] batch = tasks.toArray(new Runnable[0]);
+        boolean immediate = false;
+        for (int i = 0; i < batch.length; i++) {
+            Runnable task = ObjectUtil.checkNotNull(batch[i], "tasks[" + i + ']');
+            immediate |= !(task instanceof LazyRunnable) && wakesUpForTask(task);
+        }
+        switch (batch.length) {
+        case 0:
+            return;
+        case 1:
+            execute(batch[0], immediate);
+            return;
+        default:
+            execute(new BatchTask(batch), immediate);
+        }
+    }
+
     private void execute(Runnable task, boolean immediate) {
         // 检查是不是在自己所在线程
         boolean inEventLoop = inEventLoop();
@@ -1093,6 +1240,21 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         return numTasks;
     }
 
+    private static final class BatchTask implements Runnable {
+        private final Runnable[] tasks;
+
+        BatchTask(Runnable[] tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        public void run() {
+            for (Runnable task : tasks) {
+                safeExecute(task);
+            }
+        }
+    }
+
     private static final class DefaultThreadProperties implements ThreadProperties {
         private final Thread t;
 
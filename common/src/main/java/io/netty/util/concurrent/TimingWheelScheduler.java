@@ -0,0 +1,454 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.util.concurrent.ScheduledFutureTask.deadlineNanos;
+import static io.netty.util.concurrent.ScheduledFutureTask.deadlineToDelayNanos;
+import static io.netty.util.concurrent.ScheduledFutureTask.nanoTime;
+
+/**
+ * A {@link ScheduledExecutorService} which runs its tasks on an {@link AbstractScheduledEventExecutor} but keeps
+ * them in a hierarchical timing wheel instead of the priority queue of the {@link AbstractScheduledEventExecutor}.
+ * Scheduling and cancelling a task is {@code O(1)}, which makes it a good fit for timeouts that are scheduled and
+ * cancelled all the time but rarely expire, like the ones of {@code IdleStateHandler}.
+ * <p>
+ * Like {@link io.netty.util.HashedWheelTimer} the wheel advances in ticks, so a task is run up to one tick duration
+ * after its deadline. The tick duration defaults to 10 milliseconds and can be changed with the
+ * {@code io.netty.timingWheel.tickDurationMillis} system property. The wheel has four levels of 64 slots each, which
+ * covers about 46 hours with the default tick duration. Tasks with a later deadline are moved through the top level
+ * until they are due.
+ * <p>
+ * The wheel is only accessed from the thread of the {@link AbstractScheduledEventExecutor}, which advances it with a
+ * single scheduled task per tick while there are pending tasks. Use
+ * {@link AbstractScheduledEventExecutor#timingWheel()} to get the instance of an executor. Its lifecycle is bound to
+ * the {@link AbstractScheduledEventExecutor}: pending tasks are cancelled once it shuts down.
+ */
+@UnstableApi
+public final class TimingWheelScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(TimingWheelScheduler.class);
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long DEFAULT_TICK_DURATION_NANOS;
+
+    static {
+        long tickDurationMillis = Math.max(1,
+                SystemPropertyUtil.getLong("io.netty.timingWheel.tickDurationMillis", 10));
+        DEFAULT_TICK_DURATION_NANOS = TimeUnit.MILLISECONDS.toNanos(tickDurationMillis);
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.timingWheel.tickDurationMillis: {}", tickDurationMillis);
+        }
+    }
+
+    private final AbstractScheduledEventExecutor executor;
+    private final long tickDurationNanos;
+    private final WheelTask<?>[] buckets = new WheelTask<?>[LEVELS * WHEEL_SIZE];
+    private final Runnable tickTask = new Runnable() {
+        @Override
+        public void run() {
+            tick();
+        }
+    };
+
+    private long currentTick;
+    private int size;
+    private Future<?> tickFuture;
+
+    TimingWheelScheduler(AbstractScheduledEventExecutor executor) {
+        this(executor, DEFAULT_TICK_DURATION_NANOS);
+    }
+
+    TimingWheelScheduler(AbstractScheduledEventExecutor executor, long tickDurationNanos) {
+        this.executor = ObjectUtil.checkNotNull(executor, "executor");
+        this.tickDurationNanos = ObjectUtil.checkPositive(tickDurationNanos, "tickDurationNanos");
+        currentTick = nanoTime() / tickDurationNanos;
+    }
+
+    /**
+     * Returns the duration of a tick of this wheel, which is the precision of the deadlines of the tasks.
+     */
+    public long tickDuration(TimeUnit unit) {
+        return unit.convert(tickDurationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the {@link AbstractScheduledEventExecutor} which runs the tasks of this wheel.
+     */
+    public EventExecutor executor() {
+        return executor;
+    }
+
+    /**
+     * Returns the number of tasks that are waiting in the wheel. This method MUST be called only from the thread
+     * of the {@link #executor()}.
+     */
+    int pendingTasks() {
+        assert executor.inEventLoop();
+        return size;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        ObjectUtil.checkNotNull(command, "command");
+        ObjectUtil.checkNotNull(unit, "unit");
+        return schedule(new WheelTask<Void>(this, command, deadlineNanos(unit.toNanos(Math.max(0, delay))), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        ObjectUtil.checkNotNull(callable, "callable");
+        ObjectUtil.checkNotNull(unit, "unit");
+        return schedule(new WheelTask<V>(this, callable, deadlineNanos(unit.toNanos(Math.max(0, delay)))));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        ObjectUtil.checkNotNull(command, "command");
+        ObjectUtil.checkNotNull(unit, "unit");
+        ObjectUtil.checkPositive(period, "period");
+        return schedule(new WheelTask<Void>(this, command,
+                deadlineNanos(unit.toNanos(Math.max(0, initialDelay))), unit.toNanos(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        ObjectUtil.checkNotNull(command, "command");
+        ObjectUtil.checkNotNull(unit, "unit");
+        ObjectUtil.checkPositive(delay, "delay");
+        return schedule(new WheelTask<Void>(this, command,
+                deadlineNanos(unit.toNanos(Math.max(0, initialDelay))), -unit.toNanos(delay)));
+    }
+
+    private <V> ScheduledFuture<V> schedule(final WheelTask<V> task) {
+        if (executor.inEventLoop()) {
+            add(task);
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    add(task);
+                }
+            });
+        }
+        return task;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return executor.submit(task);
+    }
+
+    @Override
+    public <T> Future<T> submit(Runnable task, T result) {
+        return executor.submit(task, result);
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+
+    /**
+     * The lifecycle of a {@link TimingWheelScheduler} is bound to its {@link #executor()}, shut down the executor
+     * instead.
+     */
+    @Override
+    public void shutdown() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * The lifecycle of a {@link TimingWheelScheduler} is bound to its {@link #executor()}, shut down the executor
+     * instead.
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    private void add(WheelTask<?> task) {
+        assert executor.inEventLoop();
+        if (task.isCancelled()) {
+            return;
+        }
+        if (tickFuture == null) {
+            // The wheel is not advanced while it is empty, so catch up with the current time first.
+            currentTick = Math.max(currentTick, nanoTime() / tickDurationNanos);
+            scheduleTick();
+        }
+        size++;
+        // Never add to the slot of the current tick, as it was already processed.
+        insert(task, Math.max(tickOf(task.deadlineNanos()), currentTick + 1));
+    }
+
+    private long tickOf(long deadlineNanos) {
+        long tick = deadlineNanos / tickDurationNanos;
+        return deadlineNanos % tickDurationNanos == 0 ? tick : tick + 1;
+    }
+
+    private void insert(WheelTask<?> task, long tick) {
+        // The level is chosen by the highest bit in which the tick differs from the current tick, so the task is
+        // moved to a lower level by the time the current tick reaches the first tick of its slot.
+        long diff = tick ^ currentTick;
+        int level = diff == 0 ? 0 : Math.min(LEVELS - 1, (63 - Long.numberOfLeadingZeros(diff)) / WHEEL_BITS);
+        int bucket = level * WHEEL_SIZE + ((int) (tick >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+        task.tick = tick;
+        task.bucket = bucket;
+        WheelTask<?> head = buckets[bucket];
+        task.next = head;
+        if (head != null) {
+            head.prev = task;
+        }
+        buckets[bucket] = task;
+    }
+
+    private void unlink(WheelTask<?> task) {
+        WheelTask<?> prev = task.prev;
+        WheelTask<?> next = task.next;
+        if (prev == null) {
+            buckets[task.bucket] = next;
+        } else {
+            prev.next = next;
+        }
+        if (next != null) {
+            next.prev = prev;
+        }
+        task.prev = null;
+        task.next = null;
+        task.bucket = WheelTask.NOT_IN_WHEEL;
+    }
+
+    private void scheduleTick() {
+        tickFuture = executor.schedule(tickTask, (currentTick + 1) * tickDurationNanos - nanoTime(),
+                TimeUnit.NANOSECONDS);
+    }
+
+    private void tick() {
+        long nowTick = nanoTime() / tickDurationNanos;
+        while (currentTick < nowTick && size > 0) {
+            currentTick++;
+            cascade();
+            expire((int) currentTick & WHEEL_MASK);
+        }
+        currentTick = Math.max(currentTick, nowTick);
+        tickFuture = null;
+        if (size > 0 && !executor.isShutdown()) {
+            scheduleTick();
+        }
+    }
+
+    private void cascade() {
+        int levels = 1;
+        while (levels < LEVELS && (currentTick & ((1L << (levels * WHEEL_BITS)) - 1)) == 0) {
+            levels++;
+        }
+        // Start with the highest level, so its tasks are not moved into a slot of a lower level that is cascaded
+        // later during the same tick.
+        for (int level = levels - 1; level > 0; level--) {
+            int bucket = level * WHEEL_SIZE + ((int) (currentTick >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+            WheelTask<?> task = buckets[bucket];
+            buckets[bucket] = null;
+            while (task != null) {
+                WheelTask<?> next = task.next;
+                task.prev = null;
+                task.next = null;
+                insert(task, task.tick);
+                task = next;
+            }
+        }
+    }
+
+    private void expire(int bucket) {
+        WheelTask<?> task;
+        // Always take the head, as running a task may cancel other tasks of the same slot.
+        while ((task = buckets[bucket]) != null) {
+            unlink(task);
+            size--;
+            task.run();
+        }
+    }
+
+    private void remove(WheelTask<?> task) {
+        assert executor.inEventLoop();
+        if (task.bucket != WheelTask.NOT_IN_WHEEL) {
+            unlink(task);
+            size--;
+        }
+    }
+
+    /**
+     * Cancels all pending tasks. This method MUST be called only from the thread of the {@link #executor()}.
+     */
+    void cancelAll() {
+        assert executor.inEventLoop();
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            WheelTask<?> task;
+            while ((task = buckets[bucket]) != null) {
+                unlink(task);
+                size--;
+                task.cancelWithoutRemove(false);
+            }
+        }
+    }
+
+    @SuppressWarnings("ComparableImplementedButEqualsNotOverridden")
+    private static final class WheelTask<V> extends PromiseTask<V> implements ScheduledFuture<V> {
+        static final int NOT_IN_WHEEL = -1;
+
+        private final TimingWheelScheduler wheel;
+        /* 0 - no repeat, >0 - repeat at fixed rate, <0 - repeat with fixed delay */
+        private final long periodNanos;
+        private long deadlineNanos;
+
+        long tick;
+        int bucket = NOT_IN_WHEEL;
+        WheelTask<?> prev;
+        WheelTask<?> next;
+
+        WheelTask(TimingWheelScheduler wheel, Runnable runnable, long deadlineNanos, long periodNanos) {
+            super(wheel.executor, runnable);
+            this.wheel = wheel;
+            this.deadlineNanos = deadlineNanos;
+            this.periodNanos = periodNanos;
+        }
+
+        WheelTask(TimingWheelScheduler wheel, Callable<V> callable, long deadlineNanos) {
+            super(wheel.executor, callable);
+            this.wheel = wheel;
+            this.deadlineNanos = deadlineNanos;
+            periodNanos = 0;
+        }
+
+        long deadlineNanos() {
+            return deadlineNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineToDelayNanos(deadlineNanos), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            if (this == o) {
+                return 0;
+            }
+            long d = getDelay(TimeUnit.NANOSECONDS) - o.getDelay(TimeUnit.NANOSECONDS);
+            return d < 0 ? -1 : d > 0 ? 1 : 0;
+        }
+
+        @Override
+        public void run() {
+            assert executor().inEventLoop();
+            try {
+                if (periodNanos == 0) {
+                    if (setUncancellableInternal()) {
+                        V result = runTask();
+                        setSuccessInternal(result);
+                    }
+                } else if (!isCancelled()) {
+                    runTask();
+                    if (!executor().isShutdown()) {
+                        if (periodNanos > 0) {
+                            deadlineNanos += periodNanos;
+                        } else {
+                            deadlineNanos = nanoTime() - periodNanos;
+                        }
+                        if (!isCancelled()) {
+                            wheel.add(this);
+                        }
+                    }
+                }
+            } catch (Throwable cause) {
+                setFailureInternal(cause);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @param mayInterruptIfRunning this value has no effect in this implementation.
+         */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean canceled = super.cancel(mayInterruptIfRunning);
+            if (canceled) {
+                if (executor().inEventLoop()) {
+                    wheel.remove(this);
+                } else {
+                    ((AbstractEventExecutor) executor()).lazyExecute(new Runnable() {
+                        @Override
+                        public void run() {
+                            wheel.remove(WheelTask.this);
+                        }
+                    });
+                }
+            }
+            return canceled;
+        }
+
+        boolean cancelWithoutRemove(boolean mayInterruptIfRunning) {
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        protected StringBuilder toStringBuilder() {
+            StringBuilder buf = super.toStringBuilder();
+            buf.setCharAt(buf.length() - 1, ',');
+
+            return buf.append(" deadline: ")
+                      .append(deadlineNanos)
+                      .append(", period: ")
+                      .append(periodNanos)
+                      .append(')');
+        }
+    }
+}
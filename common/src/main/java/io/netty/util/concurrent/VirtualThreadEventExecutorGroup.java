@@ -0,0 +1,345 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link EventExecutorGroup} which is meant to be used for offloading blocking work, like calls to a database, from
+ * the {@code EventLoop}s via {@code ChannelPipeline.addLast(group, handler)}.
+ * <p>
+ * Every call to {@link #next()} returns a new {@link OrderedEventExecutor}, so every {@code Channel} gets its own
+ * sequence of tasks which is executed in order, while tasks of different {@code Channel}s never wait for each other.
+ * A sequence does not own a thread: a thread is only started while it has tasks to run and terminates once it is
+ * done. The threads are JDK virtual threads when the runtime supports them (see {@link #isVirtualThreadSupported()}),
+ * which makes blocking in a task cheap, and daemon platform threads otherwise.
+ * <p>
+ * Once {@link #shutdownGracefully()} was called no new tasks are accepted, while tasks that were already submitted
+ * are still run and scheduled tasks are cancelled.
+ */
+@UnstableApi
+public final class VirtualThreadEventExecutorGroup extends AbstractEventExecutorGroup {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(
+            VirtualThreadEventExecutorGroup.class);
+
+    private static final Method VIRTUAL_THREAD_BUILDER;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Throwable cause = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            name = builderClass.getMethod("name", String.class, long.class);
+            factory = builderClass.getMethod("factory");
+            // Fails if virtual threads are a preview feature that was not enabled.
+            factory.invoke(ofVirtual.invoke(null));
+        } catch (Throwable t) {
+            ofVirtual = null;
+            cause = t;
+        }
+        VIRTUAL_THREAD_BUILDER = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_FACTORY = factory;
+        if (cause == null) {
+            logger.debug("Virtual threads: available");
+        } else {
+            logger.debug("Virtual threads: unavailable, using platform threads", cause);
+        }
+    }
+
+    private final ThreadFactory threadFactory;
+    // The executors that are running tasks, mapped to the thread that runs them.
+    private final ConcurrentMap<SequentialEventExecutor, Thread> activeExecutors =
+            PlatformDependent.newConcurrentHashMap();
+    private final Promise<?> terminationFuture = new DefaultPromise<Void>(GlobalEventExecutor.INSTANCE);
+    private final AtomicBoolean shuttingDown = new AtomicBoolean();
+
+    /**
+     * Returns {@code true} if the runtime supports virtual threads and so this group will use them.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_THREAD_BUILDER != null;
+    }
+
+    /**
+     * Creates a new instance which uses virtual threads if supported.
+     */
+    public VirtualThreadEventExecutorGroup() {
+        this(newThreadFactory());
+    }
+
+    /**
+     * Creates a new instance which uses the given {@link ThreadFactory} to start the threads that run the tasks.
+     */
+    public VirtualThreadEventExecutorGroup(ThreadFactory threadFactory) {
+        this.threadFactory = ObjectUtil.checkNotNull(threadFactory, "threadFactory");
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        if (VIRTUAL_THREAD_BUILDER != null) {
+            try {
+                Object builder = VIRTUAL_THREAD_BUILDER.invoke(null);
+                builder = BUILDER_NAME.invoke(builder, DefaultThreadFactory.toPoolName(
+                        VirtualThreadEventExecutorGroup.class) + '-', 0L);
+                return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            } catch (Throwable t) {
+                logger.debug("Could not create a virtual thread factory, using platform threads", t);
+            }
+        }
+        return new DefaultThreadFactory(VirtualThreadEventExecutorGroup.class, true);
+    }
+
+    /**
+     * Returns a new {@link OrderedEventExecutor} which runs its tasks in order.
+     */
+    @Override
+    public EventExecutor next() {
+        return new SequentialEventExecutor(this);
+    }
+
+    /**
+     * Returns the {@link EventExecutor}s that are currently running tasks.
+     */
+    @Override
+    public Iterator<EventExecutor> iterator() {
+        return Collections.<EventExecutor>unmodifiableSet(activeExecutors.keySet()).iterator();
+    }
+
+    @Override
+    public boolean isShuttingDown() {
+        return shuttingDown.get();
+    }
+
+    @Override
+    public Future<?> shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+        ObjectUtil.checkPositiveOrZero(quietPeriod, "quietPeriod");
+        if (timeout < quietPeriod) {
+            throw new IllegalArgumentException(
+                    "timeout: " + timeout + " (expected >= quietPeriod (" + quietPeriod + "))");
+        }
+        ObjectUtil.checkNotNull(unit, "unit");
+        if (shuttingDown.compareAndSet(false, true)) {
+            // Wake up the executors which wait for scheduled tasks, so they can cancel them.
+            for (SequentialEventExecutor executor : activeExecutors.keySet()) {
+                executor.wakeup();
+            }
+            tryTerminate();
+        }
+        return terminationFuture;
+    }
+
+    @Override
+    public Future<?> terminationFuture() {
+        return terminationFuture;
+    }
+
+    @Override
+    @Deprecated
+    public void shutdown() {
+        shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return isShuttingDown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminationFuture.isDone();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminationFuture.await(timeout, unit);
+    }
+
+    private void tryTerminate() {
+        if (shuttingDown.get() && activeExecutors.isEmpty()) {
+            terminationFuture.trySuccess(null);
+        }
+    }
+
+    /**
+     * Runs its tasks one after the other on a thread that is only started while there are tasks to run.
+     */
+    private static final class SequentialEventExecutor extends AbstractScheduledEventExecutor
+            implements OrderedEventExecutor, Runnable {
+        private final VirtualThreadEventExecutorGroup parent;
+        private final BlockingQueue<Runnable> taskQueue = new LinkedBlockingQueue<Runnable>();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile Thread thread;
+
+        SequentialEventExecutor(VirtualThreadEventExecutorGroup parent) {
+            super(parent);
+            this.parent = parent;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            ObjectUtil.checkNotNull(task, "task");
+            if (parent.isShuttingDown()) {
+                throw new RejectedExecutionException("event executor terminated");
+            }
+            taskQueue.add(task);
+            startIfNeeded();
+        }
+
+        void wakeup() {
+            taskQueue.add(WAKEUP_TASK);
+        }
+
+        private void startIfNeeded() {
+            if (!running.get() && running.compareAndSet(false, true)) {
+                Thread newThread = null;
+                try {
+                    newThread = parent.threadFactory.newThread(this);
+                    parent.activeExecutors.put(this, newThread);
+                    newThread.start();
+                } catch (Throwable t) {
+                    if (newThread != null) {
+                        parent.activeExecutors.remove(this, newThread);
+                    }
+                    running.set(false);
+                    parent.tryTerminate();
+                    PlatformDependent.throwException(t);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            for (;;) {
+                Runnable task = pollScheduledTask();
+                if (task == null) {
+                    task = takeTask();
+                }
+                if (task != null) {
+                    safeExecute(task);
+                    continue;
+                }
+                // Nothing left to do, so release the thread unless a task was added concurrently.
+                Thread current = Thread.currentThread();
+                thread = null;
+                running.set(false);
+                if (taskQueue.isEmpty() || !running.compareAndSet(false, true)) {
+                    // Another thread may have taken over already, in which case it registered itself and must stay.
+                    parent.activeExecutors.remove(this, current);
+                    parent.tryTerminate();
+                    return;
+                }
+                // Another thread may have run tasks in between and so replaced our registration.
+                parent.activeExecutors.put(this, current);
+                thread = current;
+            }
+        }
+
+        /**
+         * Returns the next task, waiting for the next scheduled task if there is any.
+         */
+        private Runnable takeTask() {
+            Runnable task = taskQueue.poll();
+            while (task == null) {
+                if (parent.isShuttingDown()) {
+                    cancelScheduledTasks();
+                    return null;
+                }
+                long delayNanos = nextScheduledTaskNano();
+                if (delayNanos == -1) {
+                    return null;
+                }
+                try {
+                    task = taskQueue.poll(delayNanos, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    // Ignore, the loop checks for tasks again.
+                }
+                if (task == null) {
+                    task = pollScheduledTask();
+                }
+            }
+            return task;
+        }
+
+        @Override
+        public boolean inEventLoop(Thread thread) {
+            return thread == this.thread;
+        }
+
+        @Override
+        public boolean isShuttingDown() {
+            return parent.isShuttingDown();
+        }
+
+        /**
+         * The tasks of a {@link SequentialEventExecutor} belong to its group, so it can not be shut down on its own.
+         * Shut down the group instead.
+         */
+        @Override
+        public Future<?> shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+            return terminationFuture();
+        }
+
+        @Override
+        public Future<?> terminationFuture() {
+            return parent.terminationFuture();
+        }
+
+        /**
+         * See {@link #shutdownGracefully(long, long, TimeUnit)}.
+         */
+        @Override
+        @Deprecated
+        public void shutdown() {
+            // NOOP
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return parent.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return parent.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return parent.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -20,11 +20,15 @@ import org.junit.jupiter.api.Timeout;
 
 import java.util.ArrayDeque;
 import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 public class ResourceLeakDetectorTest {
 
     @Test
@@ -98,6 +102,55 @@ public class ResourceLeakDetectorTest {
         assertNoErrors(error);
     }
 
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testAsyncLeakReporting() throws Throwable {
+        ResourceLeakDetector.Level level = ResourceLeakDetector.getLevel();
+        boolean async = ResourceLeakDetector.isAsync();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+        ResourceLeakDetector.setAsync(true);
+        try {
+            final CountDownLatch reported = new CountDownLatch(1);
+            final AtomicReference<String> reportingThread = new AtomicReference<String>();
+            ResourceLeakDetector<Resource> detector = new ResourceLeakDetector<Resource>(Resource.class, 1) {
+                @Override
+                protected void reportTracedLeak(String resourceType, String records) {
+                    reportingThread.set(Thread.currentThread().getName());
+                    reported.countDown();
+                }
+            };
+            leakResource(detector);
+            while (!reported.await(100, TimeUnit.MILLISECONDS)) {
+                System.gc();
+            }
+            assertEquals("ResourceLeakDetectorThread", reportingThread.get());
+        } finally {
+            ResourceLeakDetector.setLevel(level);
+            ResourceLeakDetector.setAsync(async);
+        }
+    }
+
+    private static void leakResource(ResourceLeakDetector<Resource> detector) {
+        ResourceLeakTracker<Resource> leak = detector.track(new DefaultResource());
+        leak.record();
+    }
+
+    @Test
+    public void testRecordSampling() {
+        ResourceLeakDetector.RecordSampler sampler = new ResourceLeakDetector.RecordSampler(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(sampler.sample());
+        }
+        int sampled = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (sampler.sample()) {
+                sampled++;
+            }
+        }
+        // Every time another 4 records were captured within the second only half as many are captured afterwards.
+        assertTrue(sampled > 0 && sampled < 100, "sampled: " + sampled);
+    }
+
     // Mimic the way how we implement our classes that should help with leak detection
     private static final  class LeakAwareResource implements Resource {
         private final Resource resource;
@@ -21,7 +21,9 @@ import io.netty.util.concurrent.AbstractEventExecutor.LazyRunnable;
 import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.api.function.Executable;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
@@ -411,6 +413,71 @@ public class SingleThreadEventExecutorTest {
         assertThat(t.ran.get(), is(true));
     }
 
+    @Test
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void testExecuteBatch() throws Exception {
+        final SingleThreadEventExecutor executor = new SingleThreadEventExecutor(
+                null, new DefaultThreadFactory("test"), true) {
+            @Override
+            protected void run() {
+                while (!confirmShutdown()) {
+                    Runnable task = takeTask();
+                    if (task != null) {
+                        task.run();
+                    }
+                }
+            }
+        };
+        try {
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch blocked = new CountDownLatch(1);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        blocked.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            started.await();
+
+            final List<Integer> results = Collections.synchronizedList(new ArrayList<Integer>());
+            List<Runnable> tasks = new ArrayList<Runnable>();
+            for (int i = 0; i < 5; i++) {
+                final int value = i;
+                tasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        results.add(value);
+                        if (value == 2) {
+                            throw new IllegalStateException("expected");
+                        }
+                    }
+                });
+            }
+            executor.executeBatch(tasks);
+            // The whole batch was added as a single task.
+            assertEquals(1, executor.pendingTasks());
+            blocked.countDown();
+
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // Noop.
+                }
+            }).sync();
+            assertEquals(5, results.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i, (int) results.get(i));
+            }
+        } finally {
+            executor.shutdownGracefully();
+        }
+    }
+
     private static final class TestRunnable implements Runnable {
         final AtomicBoolean ran = new AtomicBoolean();
 
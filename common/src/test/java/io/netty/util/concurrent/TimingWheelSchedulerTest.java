@@ -0,0 +1,157 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelSchedulerTest {
+
+    private DefaultEventExecutor executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = new DefaultEventExecutor();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+    }
+
+    private int pendingTasks(final TimingWheelScheduler wheel) throws Exception {
+        return executor.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return wheel.pendingTasks();
+            }
+        }).get();
+    }
+
+    @Test
+    public void testTimingWheelIsPerExecutor() {
+        assertSame(executor.timingWheel(), executor.timingWheel());
+        assertSame(executor, executor.timingWheel().executor());
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testSchedule() throws Exception {
+        TimingWheelScheduler wheel = executor.timingWheel();
+        long start = System.nanoTime();
+        ScheduledFuture<String> future = wheel.schedule(new Callable<String>() {
+            @Override
+            public String call() {
+                return "done";
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+        assertEquals("done", future.get());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, pendingTasks(wheel));
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testDeadlinesOnAllLevels() throws Exception {
+        // A tick of one millisecond makes the longest delay pass through the first three levels of the wheel.
+        final TimingWheelScheduler wheel = new TimingWheelScheduler(executor, TimeUnit.MILLISECONDS.toNanos(1));
+        long[] delays = { 0, 1, 30, 63, 64, 65, 500, 4095, 4097, 4500 };
+        final long start = System.nanoTime();
+        final AtomicInteger early = new AtomicInteger();
+        List<ScheduledFuture<?>> futures = new ArrayList<ScheduledFuture<?>>();
+        for (final long delay : delays) {
+            futures.add(wheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(delay)) {
+                        early.incrementAndGet();
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS));
+        }
+        for (ScheduledFuture<?> future : futures) {
+            future.sync();
+        }
+        assertEquals(0, early.get());
+        assertEquals(0, pendingTasks(wheel));
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testCancel() throws Exception {
+        TimingWheelScheduler wheel = executor.timingWheel();
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+        ScheduledFuture<?> cancelled = wheel.schedule(task, 50, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> other = wheel.schedule(task, 100, TimeUnit.MILLISECONDS);
+        assertEquals(2, pendingTasks(wheel));
+        assertTrue(cancelled.cancel(false));
+        assertEquals(1, pendingTasks(wheel));
+        other.sync();
+        assertTrue(cancelled.isCancelled());
+        assertEquals(1, runs.get());
+        assertEquals(0, pendingTasks(wheel));
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testScheduleAtFixedRate() throws Exception {
+        TimingWheelScheduler wheel = executor.timingWheel();
+        final CountDownLatch latch = new CountDownLatch(3);
+        ScheduledFuture<?> future = wheel.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 0, 20, TimeUnit.MILLISECONDS);
+        latch.await();
+        assertFalse(future.isDone());
+        assertTrue(future.cancel(false));
+        assertEquals(0, pendingTasks(wheel));
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testShutdownCancelsPendingTasks() throws Exception {
+        ScheduledFuture<?> future = executor.timingWheel().schedule(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }, 1, TimeUnit.HOURS);
+        executor.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        assertTrue(future.isCancelled());
+    }
+}
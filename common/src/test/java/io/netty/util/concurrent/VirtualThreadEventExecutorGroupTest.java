@@ -0,0 +1,214 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VirtualThreadEventExecutorGroupTest {
+
+    private VirtualThreadEventExecutorGroup group;
+
+    @BeforeEach
+    public void setUp() {
+        group = new VirtualThreadEventExecutorGroup();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testTasksRunInOrder() throws Exception {
+        EventExecutor executor = group.next();
+        assertTrue(executor instanceof OrderedEventExecutor);
+        final List<Integer> results = Collections.synchronizedList(new ArrayList<Integer>());
+        final int tasks = 1000;
+        for (int i = 0; i < tasks; i++) {
+            final int value = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    results.add(value);
+                    if (value % 100 == 0) {
+                        // Let the thread exit in between, so the next one has to keep the order.
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }).sync();
+        assertEquals(tasks, results.size());
+        for (int i = 0; i < tasks; i++) {
+            assertEquals(i, (int) results.get(i));
+        }
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testBlockingTaskDoesNotBlockOtherExecutors() throws Exception {
+        EventExecutor blocked = group.next();
+        EventExecutor other = group.next();
+        assertNotSame(blocked, other);
+        final CountDownLatch latch = new CountDownLatch(1);
+        blocked.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        try {
+            Future<?> future = blocked.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            });
+            other.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }).sync();
+            assertFalse(future.isDone());
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testInEventLoop() throws Exception {
+        final EventExecutor executor = group.next();
+        assertFalse(executor.inEventLoop());
+        final AtomicBoolean inEventLoop = new AtomicBoolean();
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                inEventLoop.set(executor.inEventLoop());
+            }
+        }).sync();
+        assertTrue(inEventLoop.get());
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testActiveWhileRunningTasks() throws Exception {
+        final EventExecutor executor = group.next();
+        final AtomicBoolean inactive = new AtomicBoolean();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                boolean active = false;
+                for (EventExecutor e : group) {
+                    active |= e == executor;
+                }
+                if (!active) {
+                    inactive.set(true);
+                }
+            }
+        };
+        // Submit the next task while the thread of the previous one may just be releasing the executor.
+        for (int i = 0; i < 10000; i++) {
+            executor.submit(task).sync();
+        }
+        assertFalse(inactive.get());
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testShutdownOfExecutorIsIgnored() throws Exception {
+        EventExecutor executor = group.next();
+        executor.shutdown();
+        assertFalse(executor.isShuttingDown());
+        assertFalse(group.isShuttingDown());
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }).sync();
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testSchedule() throws Exception {
+        EventExecutor executor = group.next();
+        long start = System.nanoTime();
+        executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }, 100, TimeUnit.MILLISECONDS).sync();
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testShutdownCancelsScheduledTasks() throws Exception {
+        final EventExecutor executor = group.next();
+        Future<?> future = executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }, 1, TimeUnit.HOURS);
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        assertTrue(future.isCancelled());
+        assertTrue(group.isTerminated());
+        assertTrue(executor.isShutdown());
+        assertThrows(RejectedExecutionException.class, new Executable() {
+            @Override
+            public void execute() {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        // NOOP
+                    }
+                });
+            }
+        });
+    }
+}
@@ -19,6 +19,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelOutboundHandler;
 import io.netty.channel.ChannelOutboundInvoker;
 import io.netty.channel.ChannelPipeline;
@@ -26,6 +27,7 @@ import io.netty.channel.ChannelPromise;
 import io.netty.util.internal.ObjectUtil;
 
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link ChannelDuplexHandler} which consolidates {@link Channel#flush()} / {@link ChannelHandlerContext#flush()}
@@ -53,17 +55,33 @@ import java.util.concurrent.Future;
  * <p>
  * If the {@link Channel} becomes non-writable it will also try to execute any pending flush operations.
  * <p>
+ * A fixed {@code explicitFlushAfterFlushes} which works well at peak load only adds latency at low load. When created
+ * with a {@code maxFlushDelay} the handler instead adapts the number of flushes it consolidates to the observed flush
+ * rate: it consolidates about as many flushes as it expects to see within {@code maxFlushDelay}, so flushes are
+ * passed on directly when they are rare. A consolidated flush is also never delayed longer than
+ * {@code maxFlushDelay}, even while a read loop is ongoing, and is passed on as soon as
+ * {@value #MAX_CONSOLIDATED_BYTES} bytes are pending.
+ * <p>
  * The {@link FlushConsolidationHandler} should be put as first {@link ChannelHandler} in the
  * {@link ChannelPipeline} to have the best effect.
  */
 public class FlushConsolidationHandler extends ChannelDuplexHandler {
+    // The weight of a new sample in the average flush interval is 1 / 2^FLUSH_INTERVAL_SHIFT.
+    private static final int FLUSH_INTERVAL_SHIFT = 3;
+
     private final int explicitFlushAfterFlushes;
     private final boolean consolidateWhenNoReadInProgress;
+    private final long maxFlushDelayNanos;
     private final Runnable flushTask;
     private int flushPendingCount;
     private boolean readInProgress;
     private ChannelHandlerContext ctx;
     private Future<?> nextScheduledFlush;
+    // Only used if maxFlushDelayNanos > 0.
+    private int flushThreshold;
+    private long lastFlushTime;
+    private long avgFlushIntervalNanos;
+    private long flushDeadline;
 
     /**
      * The default number of flushes after which a flush will be forwarded to downstream handlers (whether while in a
@@ -71,6 +89,13 @@ public class FlushConsolidationHandler extends ChannelDuplexHandler {
      */
     public static final int DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES = 256;
 
+    /**
+     * The number of pending bytes after which a consolidated flush will be forwarded to downstream handlers if the
+     * handler was created with a {@code maxFlushDelay}. Consolidating more than the socket can take at once does not
+     * save any syscalls but still adds latency.
+     */
+    public static final int MAX_CONSOLIDATED_BYTES = 64 * 1024;
+
     /**
      * Create new instance which explicit flush after {@value DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES} pending flush
      * operations at the latest.
@@ -96,31 +121,94 @@ public class FlushConsolidationHandler extends ChannelDuplexHandler {
      *                                        ongoing.
      */
     public FlushConsolidationHandler(int explicitFlushAfterFlushes, boolean consolidateWhenNoReadInProgress) {
+        this(explicitFlushAfterFlushes, consolidateWhenNoReadInProgress, 0);
+    }
+
+    /**
+     * Create new instance which adapts the number of consolidated flushes to the observed flush rate, and also
+     * consolidates flushes when no read loop is currently ongoing.
+     *
+     * @param explicitFlushAfterFlushes the maximum number of flushes after which an explicit flush will be done.
+     * @param maxFlushDelay the maximum time a flush may be delayed by the consolidation.
+     * @param unit the {@link TimeUnit} of {@code maxFlushDelay}.
+     */
+    public FlushConsolidationHandler(int explicitFlushAfterFlushes, long maxFlushDelay, TimeUnit unit) {
+        this(explicitFlushAfterFlushes, true,
+             ObjectUtil.checkNotNull(unit, "unit").toNanos(ObjectUtil.checkPositive(maxFlushDelay, "maxFlushDelay")));
+    }
+
+    private FlushConsolidationHandler(int explicitFlushAfterFlushes, boolean consolidateWhenNoReadInProgress,
+                                      long maxFlushDelayNanos) {
         this.explicitFlushAfterFlushes =
                 ObjectUtil.checkPositive(explicitFlushAfterFlushes, "explicitFlushAfterFlushes");
         this.consolidateWhenNoReadInProgress = consolidateWhenNoReadInProgress;
-        this.flushTask = consolidateWhenNoReadInProgress ?
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        if (flushPendingCount > 0 && !readInProgress) {
-                            flushPendingCount = 0;
-                            nextScheduledFlush = null;
-                            ctx.flush();
-                        } // else we'll flush when the read completes
+        this.maxFlushDelayNanos = maxFlushDelayNanos;
+        if (maxFlushDelayNanos > 0) {
+            this.flushTask = new Runnable() {
+                @Override
+                public void run() {
+                    nextScheduledFlush = null;
+                    if (flushPendingCount > 0) {
+                        long delayNanos = flushDeadline - ticksInNanos();
+                        if (delayNanos > 0) {
+                            // The flushes we were scheduled for were passed on already, so wait for the pending ones.
+                            scheduleDelayedFlush(ctx, delayNanos);
+                        } else {
+                            // Flush even if a read is in progress, so no flush is delayed longer than
+                            // maxFlushDelayNanos.
+                            flushNow(ctx);
+                        }
                     }
                 }
-                : null;
+            };
+        } else if (consolidateWhenNoReadInProgress) {
+            this.flushTask = new Runnable() {
+                @Override
+                public void run() {
+                    if (flushPendingCount > 0 && !readInProgress) {
+                        flushPendingCount = 0;
+                        nextScheduledFlush = null;
+                        ctx.flush();
+                    } // else we'll flush when the read completes
+                }
+            };
+        } else {
+            this.flushTask = null;
+        }
     }
 
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         this.ctx = ctx;
+        if (maxFlushDelayNanos > 0) {
+            // Start as if flushes are rare, so nothing is consolidated until we know better.
+            flushThreshold = 1;
+            avgFlushIntervalNanos = maxFlushDelayNanos;
+            lastFlushTime = ticksInNanos();
+        }
+    }
+
+    /**
+     * This method is visible for testing!
+     */
+    long ticksInNanos() {
+        return System.nanoTime();
     }
 
     @Override
     public void flush(ChannelHandlerContext ctx) throws Exception {
-        if (readInProgress) {
+        if (maxFlushDelayNanos > 0) {
+            updateFlushThreshold();
+            if (flushPendingCount++ == 0) {
+                flushDeadline = lastFlushTime + maxFlushDelayNanos;
+            }
+            if (flushPendingCount >= flushThreshold || pendingBytes(ctx) >= MAX_CONSOLIDATED_BYTES) {
+                flushNow(ctx);
+            } else {
+                // Make sure the flush is not delayed longer than maxFlushDelayNanos, even if a read is in progress.
+                scheduleDelayedFlush(ctx, maxFlushDelayNanos);
+            }
+        } else if (readInProgress) {
             // If there is still a read in progress we are sure we will see a channelReadComplete(...) call. Thus
             // we only need to flush if we reach the explicitFlushAfterFlushes limit.
             if (++flushPendingCount == explicitFlushAfterFlushes) {
@@ -170,6 +258,7 @@ public class FlushConsolidationHandler extends ChannelDuplexHandler {
     public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
         // Try to flush one last time if flushes are pending before close the channel.
         resetReadAndFlushIfNeeded(ctx);
+        cancelScheduledFlush();
         ctx.close(promise);
     }
 
@@ -185,6 +274,7 @@ public class FlushConsolidationHandler extends ChannelDuplexHandler {
     @Override
     public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
         flushIfNeeded(ctx);
+        cancelScheduledFlush();
     }
 
     private void resetReadAndFlushIfNeeded(ChannelHandlerContext ctx) {
@@ -199,11 +289,38 @@ public class FlushConsolidationHandler extends ChannelDuplexHandler {
     }
 
     private void flushNow(ChannelHandlerContext ctx) {
-        cancelScheduledFlush();
+        if (maxFlushDelayNanos == 0) {
+            cancelScheduledFlush();
+        } // else keep the delayed flush, it checks the deadline of the flushes that are pending when it runs.
         flushPendingCount = 0;
         ctx.flush();
     }
 
+    /**
+     * Updates the number of flushes to consolidate, which is the number of flushes expected within
+     * {@link #maxFlushDelayNanos} at the average rate of the recent flushes.
+     */
+    private void updateFlushThreshold() {
+        long now = ticksInNanos();
+        // Longer pauses would make the average take too long to recover, and mean "no consolidation" anyway.
+        long interval = Math.min(now - lastFlushTime, maxFlushDelayNanos);
+        lastFlushTime = now;
+        avgFlushIntervalNanos += (interval - avgFlushIntervalNanos) >> FLUSH_INTERVAL_SHIFT;
+        long expectedFlushes = maxFlushDelayNanos / Math.max(avgFlushIntervalNanos, 1);
+        flushThreshold = (int) Math.max(1, Math.min(expectedFlushes, explicitFlushAfterFlushes));
+    }
+
+    private static long pendingBytes(ChannelHandlerContext ctx) {
+        ChannelOutboundBuffer buffer = ctx.channel().unsafe().outboundBuffer();
+        return buffer == null ? 0 : buffer.totalPendingWriteBytes();
+    }
+
+    private void scheduleDelayedFlush(ChannelHandlerContext ctx, long delayNanos) {
+        if (nextScheduledFlush == null) {
+            nextScheduledFlush = ctx.channel().eventLoop().schedule(flushTask, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
     private void scheduleFlush(final ChannelHandlerContext ctx) {
         if (nextScheduledFlush == null) {
             // Run as soon as possible, but still yield to give a chance for additional writes to enqueue.
@@ -15,11 +15,10 @@
  */
 package io.netty.handler.ssl;
 
-import io.netty.internal.tcnative.SSL;
 import io.netty.util.AsciiString;
+import io.netty.util.internal.PlatformDependent;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * {@link OpenSslSessionCache} that is used by the client-side.
@@ -27,7 +26,7 @@ import java.util.Map;
 final class OpenSslClientSessionCache extends OpenSslSessionCache {
     // TODO: Should we support to have a List of OpenSslSessions for a Host/Port key and so be able to
     // support sessions for different protocols / ciphers to the same remote peer ?
-    private final Map<HostPort, NativeSslSession> sessions = new HashMap<HostPort, NativeSslSession>();
+    private final ConcurrentMap<HostPort, NativeSslSession> sessions = PlatformDependent.newConcurrentHashMap();
 
     OpenSslClientSessionCache(OpenSslEngineMap engineMap) {
         super(engineMap);
@@ -35,23 +34,17 @@ final class OpenSslClientSessionCache extends OpenSslSessionCache {
 
     @Override
     protected boolean sessionCreated(NativeSslSession session) {
-        assert Thread.holdsLock(this);
         HostPort hostPort = keyFor(session.getPeerHost(), session.getPeerPort());
-        if (hostPort == null || sessions.containsKey(hostPort)) {
-            return false;
-        }
-        sessions.put(hostPort, session);
-        return true;
+        return hostPort != null && sessions.putIfAbsent(hostPort, session) == null;
     }
 
     @Override
     protected void sessionRemoved(NativeSslSession session) {
-        assert Thread.holdsLock(this);
         HostPort hostPort = keyFor(session.getPeerHost(), session.getPeerPort());
         if (hostPort == null) {
             return;
         }
-        sessions.remove(hostPort);
+        sessions.remove(hostPort, session);
     }
 
     @Override
@@ -60,27 +53,17 @@ final class OpenSslClientSessionCache extends OpenSslSessionCache {
         if (hostPort == null) {
             return;
         }
-        final NativeSslSession session;
-        final boolean reused;
-        synchronized (this) {
-            session = sessions.get(hostPort);
-            if (session == null) {
-                return;
-            }
-            if (!session.isValid()) {
-                removeSessionWithId(session.sessionId());
-                return;
-            }
-            // Try to set the session, if true is returned OpenSSL incremented the reference count
-            // of the underlying SSL_SESSION*.
-            reused = SSL.setSession(ssl, session.session());
+        final NativeSslSession session = sessions.get(hostPort);
+        if (session == null) {
+            return;
         }
-
-        if (reused) {
-            if (session.shouldBeSingleUse()) {
-                // Should only be used once
-                session.invalidate();
-            }
+        if (!session.isValid()) {
+            removeSessionWithId(session.sessionId());
+            return;
+        }
+        // Try to set the session, if true is returned OpenSSL incremented the reference count
+        // of the underlying SSL_SESSION*. This fails if the session was freed concurrently.
+        if (session.setOn(ssl)) {
             session.updateLastAccessedTime();
         }
     }
@@ -93,7 +76,7 @@ final class OpenSslClientSessionCache extends OpenSslSessionCache {
     }
 
     @Override
-    synchronized void clear() {
+    void clear() {
         super.clear();
         sessions.clear();
     }
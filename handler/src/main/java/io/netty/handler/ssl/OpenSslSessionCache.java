@@ -15,12 +15,17 @@
  */
 package io.netty.handler.ssl;
 
+import io.netty.internal.tcnative.SSL;
 import io.netty.internal.tcnative.SSLSession;
 import io.netty.internal.tcnative.SSLSessionCache;
+import io.netty.util.NettyRuntime;
 import io.netty.util.ResourceLeakDetector;
 import io.netty.util.ResourceLeakDetectorFactory;
 import io.netty.util.ResourceLeakTracker;
 import io.netty.util.internal.EmptyArrays;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.MathUtil;
+import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
 
 import javax.security.cert.X509Certificate;
@@ -35,11 +40,16 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * {@link SSLSessionCache} implementation for our native SSL implementation.
+ * <p>
+ * The sessions are spread over multiple segments which are guarded by their own lock, so that concurrent handshakes,
+ * for example a burst of resumptions, do not all contend on the same lock. The maximum cache size is enforced over
+ * all segments, by evicting the oldest session of the segment a new session is added to.
  */
 class OpenSslSessionCache implements SSLSessionCache {
     private static final OpenSslSession[] EMPTY_SESSIONS = new OpenSslSession[0];
 
     private static final int DEFAULT_CACHE_SIZE;
+    private static final int SEGMENTS;
     static {
         // Respect the same system property as the JDK implementation to make it easy to switch between implementations.
         int cacheSize = SystemPropertyUtil.getInt("javax.net.ssl.sessionCacheSize", 20480);
@@ -48,34 +58,32 @@ class OpenSslSessionCache implements SSLSessionCache {
         } else {
             DEFAULT_CACHE_SIZE = 20480;
         }
+        int segments = SystemPropertyUtil.getInt("io.netty.handler.ssl.openssl.sessionCacheSegments",
+                NettyRuntime.availableProcessors() * 2);
+        SEGMENTS = MathUtil.findNextPositivePowerOfTwo(Math.max(1, Math.min(segments, 1 << 10)));
     }
     private final OpenSslEngineMap engineMap;
 
-    private final Map<OpenSslSessionId, NativeSslSession> sessions =
-            new LinkedHashMap<OpenSslSessionId, NativeSslSession>() {
-
-                private static final long serialVersionUID = -7773696788135734448L;
-
-                @Override
-                protected boolean removeEldestEntry(Map.Entry<OpenSslSessionId, NativeSslSession> eldest) {
-                    int maxSize = maximumCacheSize.get();
-                    if (maxSize >= 0 && size() > maxSize) {
-                        removeSessionWithId(eldest.getKey());
-                    }
-                    // We always need to return false as we modify the map directly.
-                    return false;
-                }
-            };
+    private final Segment[] segments;
+    // The number of sessions in all segments.
+    private final AtomicInteger size = new AtomicInteger();
 
     private final AtomicInteger maximumCacheSize = new AtomicInteger(DEFAULT_CACHE_SIZE);
 
     // Let's use the same default value as OpenSSL does.
     // See https://www.openssl.org/docs/man1.1.1/man3/SSL_get_default_timeout.html
     private final AtomicInteger sessionTimeout = new AtomicInteger(300);
-    private int sessionCounter;
+
+    private final LongCounter hits = PlatformDependent.newLongCounter();
+    private final LongCounter misses = PlatformDependent.newLongCounter();
+    private final LongCounter evictions = PlatformDependent.newLongCounter();
 
     OpenSslSessionCache(OpenSslEngineMap engineMap) {
         this.engineMap = engineMap;
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
     }
 
     final void setSessionTimeout(int seconds) {
@@ -92,7 +100,8 @@ class OpenSslSessionCache implements SSLSessionCache {
     }
 
     /**
-     * Called once a new {@link OpenSslSession} was created.
+     * Called once a new {@link OpenSslSession} was created. This is called while holding the lock of the segment
+     * the session is added to.
      *
      * @param session the new session.
      * @return {@code true} if the session should be cached, {@code false} otherwise.
@@ -102,7 +111,8 @@ class OpenSslSessionCache implements SSLSessionCache {
     }
 
     /**
-     * Called once an {@link OpenSslSession} was removed from the cache.
+     * Called once an {@link OpenSslSession} was removed from the cache. This is called while holding the lock of the
+     * segment the session was removed from.
      *
      * @param session the session to remove.
      */
@@ -120,24 +130,36 @@ class OpenSslSessionCache implements SSLSessionCache {
         return maximumCacheSize.get();
     }
 
-    private void expungeInvalidSessions() {
-        if (sessions.isEmpty()) {
-            return;
-        }
-        long now = System.currentTimeMillis();
-        Iterator<Map.Entry<OpenSslSessionId, NativeSslSession>> iterator = sessions.entrySet().iterator();
-        while (iterator.hasNext()) {
-            NativeSslSession session = iterator.next().getValue();
-            // As we use a LinkedHashMap we can break the while loop as soon as we find a valid session.
-            // This is true as we always drain the cache as soon as we change the timeout to a smaller value as
-            // it was set before. This way its true that the insertion order matches the timeout order.
-            if (session.isValid(now)) {
-                break;
-            }
-            iterator.remove();
+    /**
+     * Returns the number of sessions that were found in the cache and resumed.
+     */
+    final long hits() {
+        return hits.value();
+    }
 
-            notifyRemovalAndFree(session);
-        }
+    /**
+     * Returns the number of sessions that were requested but not found in the cache or not valid anymore.
+     */
+    final long misses() {
+        return misses.value();
+    }
+
+    /**
+     * Returns the number of sessions that were removed from the cache because it was full.
+     */
+    final long evictions() {
+        return evictions.value();
+    }
+
+    private int segmentIndex(OpenSslSessionId id) {
+        int h = id.hashCode();
+        // Spread the bits as the lower bits are used to select the segment.
+        h ^= h >>> 16;
+        return h & segments.length - 1;
+    }
+
+    private Segment segmentFor(OpenSslSessionId id) {
+        return segments[segmentIndex(id)];
     }
 
     @Override
@@ -150,61 +172,45 @@ class OpenSslSessionCache implements SSLSessionCache {
         NativeSslSession session = new NativeSslSession(sslSession, engine.getPeerHost(), engine.getPeerPort(),
                 getSessionTimeout() * 1000L);
         engine.setSessionId(session.sessionId());
-        synchronized (this) {
-            // Mimic what OpenSSL is doing and expunge every 255 new sessions
-            // See https://www.openssl.org/docs/man1.0.2/man3/SSL_CTX_flush_sessions.html
-            if (++sessionCounter == 255) {
-                sessionCounter = 0;
-                expungeInvalidSessions();
-            }
-
-            if (!sessionCreated(session)) {
-                // Should not be cached, return false. In this case we also need to call close() to ensure we
-                // close the ResourceLeakTracker.
-                session.close();
-                return false;
+        int index = segmentIndex(session.sessionId());
+        if (!segments[index].add(session)) {
+            return false;
+        }
+        // Evict outside of the lock of the segment so we never hold more than one segment lock at a time.
+        int maxSize = maximumCacheSize.get();
+        while (maxSize >= 0 && size.get() > maxSize) {
+            if (!evictOldest(index, session)) {
+                break;
             }
+        }
+        return true;
+    }
 
-            final NativeSslSession old = sessions.put(session.sessionId(), session);
-            if (old != null) {
-                notifyRemovalAndFree(old);
+    /**
+     * Removes the oldest session, starting with the given {@link Segment} and never removing the given session
+     * unless it is the only one left.
+     *
+     * @return {@code true} if a session was removed.
+     */
+    private boolean evictOldest(int index, NativeSslSession newSession) {
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[(index + i) & segments.length - 1].evictOldest(newSession)) {
+                return true;
             }
         }
-        return true;
+        return segments[index].evictOldest(null);
     }
 
     @Override
     public final long getSession(long ssl, byte[] sessionId) {
         OpenSslSessionId id = new OpenSslSessionId(sessionId);
-        final NativeSslSession session;
-        synchronized (this) {
-            session = sessions.get(id);
-            if (session == null) {
-                return -1;
-            }
-
-            // If the session is not valid anymore we should remove it from the cache and just signal back
-            // that we couldn't find a session that is re-usable.
-            if (!session.isValid() ||
-                    // This needs to happen in the synchronized block so we ensure we never destroy it before we
-                    // incremented the reference count. If we cant increment the reference count there is something
-                    // wrong. In this case just remove the session from the cache and signal back that we couldn't
-                    // find a session for re-use.
-                    !session.upRef()) {
-                // Remove the session from the cache. This will also take care of calling SSL_SESSION_free(...)
-                removeSessionWithId(session.sessionId());
-                return -1;
-            }
-
-            // At this point we already incremented the reference count via SSL_SESSION_up_ref(...).
-            if (session.shouldBeSingleUse()) {
-                // Should only be used once. In this case invalidate the session which will also ensure we remove it
-                // from the cache and call SSL_SESSION_free(...).
-                removeSessionWithId(session.sessionId());
-            }
+        long session = segmentFor(id).acquire(id);
+        if (session == -1) {
+            misses.increment();
+        } else {
+            hits.increment();
         }
-        session.updateLastAccessedTime();
-        return session.session();
+        return session;
     }
 
     void setSession(long ssl, String host, int port) {
@@ -214,18 +220,15 @@ class OpenSslSessionCache implements SSLSessionCache {
     /**
      * Remove the session with the given id from the cache
      */
-    final synchronized void removeSessionWithId(OpenSslSessionId id) {
-        NativeSslSession sslSession = sessions.remove(id);
-        if (sslSession != null) {
-            notifyRemovalAndFree(sslSession);
-        }
+    final void removeSessionWithId(OpenSslSessionId id) {
+        segmentFor(id).remove(id);
     }
 
     /**
      * Returns {@code true} if there is a session for the given id in the cache.
      */
-    final synchronized boolean containsSessionWithId(OpenSslSessionId id) {
-        return sessions.containsKey(id);
+    final boolean containsSessionWithId(OpenSslSessionId id) {
+        return segmentFor(id).contains(id);
     }
 
     private void notifyRemovalAndFree(NativeSslSession session) {
@@ -236,29 +239,20 @@ class OpenSslSessionCache implements SSLSessionCache {
     /**
      * Return the {@link OpenSslSession} which is cached for the given id.
      */
-    final synchronized OpenSslSession getSession(OpenSslSessionId id) {
-        NativeSslSession session = sessions.get(id);
-        if (session != null && !session.isValid()) {
-            // The session is not valid anymore, let's remove it and just signal back that there is no session
-            // with the given ID in the cache anymore. This also takes care of calling SSL_SESSION_free(...)
-            removeSessionWithId(session.sessionId());
-            return null;
-        }
-        return session;
+    final OpenSslSession getSession(OpenSslSessionId id) {
+        return segmentFor(id).get(id);
     }
 
     /**
      * Returns a snapshot of the session ids of the current valid sessions.
      */
     final List<OpenSslSessionId> getIds() {
-        final OpenSslSession[] sessionsArray;
-        synchronized (this) {
-            sessionsArray = sessions.values().toArray(EMPTY_SESSIONS);
-        }
-        List<OpenSslSessionId> ids = new ArrayList<OpenSslSessionId>(sessionsArray.length);
-        for (OpenSslSession session: sessionsArray) {
-            if (session.isValid()) {
-                ids.add(session.sessionId());
+        List<OpenSslSessionId> ids = new ArrayList<OpenSslSessionId>();
+        for (Segment segment: segments) {
+            for (OpenSslSession session: segment.sessions()) {
+                if (session.isValid()) {
+                    ids.add(session.sessionId());
+                }
             }
         }
         return ids;
@@ -267,14 +261,155 @@ class OpenSslSessionCache implements SSLSessionCache {
     /**
      * Clear the cache and free all cached SSL_SESSION*.
      */
-    synchronized void clear() {
-        Iterator<Map.Entry<OpenSslSessionId, NativeSslSession>> iterator = sessions.entrySet().iterator();
-        while (iterator.hasNext()) {
-            NativeSslSession session = iterator.next().getValue();
-            iterator.remove();
+    void clear() {
+        for (Segment segment: segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * A part of the cache which is guarded by its own lock.
+     */
+    private final class Segment {
+        private final Map<OpenSslSessionId, NativeSslSession> sessions =
+                new LinkedHashMap<OpenSslSessionId, NativeSslSession>();
+        private int sessionCounter;
+
+        synchronized boolean add(NativeSslSession session) {
+            // Mimic what OpenSSL is doing and expunge every 255 new sessions
+            // See https://www.openssl.org/docs/man1.0.2/man3/SSL_CTX_flush_sessions.html
+            if (++sessionCounter == 255) {
+                sessionCounter = 0;
+                expungeInvalidSessions();
+            }
+
+            if (!sessionCreated(session)) {
+                // Should not be cached, return false. In this case we also need to call close() to ensure we
+                // close the ResourceLeakTracker.
+                session.close();
+                return false;
+            }
 
-            // Notify about removal. This also takes care of calling SSL_SESSION_free(...).
+            final NativeSslSession old = sessions.put(session.sessionId(), session);
+            if (old != null) {
+                notifyRemovalAndFree(old);
+            } else {
+                size.incrementAndGet();
+            }
+            return true;
+        }
+
+        private void expungeInvalidSessions() {
+            if (sessions.isEmpty()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            Iterator<NativeSslSession> iterator = sessions.values().iterator();
+            while (iterator.hasNext()) {
+                NativeSslSession session = iterator.next();
+                // As we use a LinkedHashMap we can break the while loop as soon as we find a valid session.
+                // This is true as we always drain the cache as soon as we change the timeout to a smaller value as
+                // it was set before. This way its true that the insertion order matches the timeout order.
+                if (session.isValid(now)) {
+                    break;
+                }
+                iterator.remove();
+                size.decrementAndGet();
+
+                notifyRemovalAndFree(session);
+            }
+        }
+
+        /**
+         * Removes the oldest session of this segment, unless it is the given session.
+         */
+        synchronized boolean evictOldest(NativeSslSession keep) {
+            Iterator<NativeSslSession> iterator = sessions.values().iterator();
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            NativeSslSession session = iterator.next();
+            if (session == keep) {
+                return false;
+            }
+            iterator.remove();
+            size.decrementAndGet();
+            evictions.increment();
             notifyRemovalAndFree(session);
+            return true;
+        }
+
+        /**
+         * Returns the SSL_SESSION* of the session with the given id after incrementing its reference count, or
+         * {@code -1} if there is no valid session.
+         */
+        synchronized long acquire(OpenSslSessionId id) {
+            NativeSslSession session = sessions.get(id);
+            if (session == null) {
+                return -1;
+            }
+
+            // If the session is not valid anymore we should remove it from the cache and just signal back
+            // that we couldn't find a session that is re-usable.
+            if (!session.isValid() ||
+                    // This needs to happen while holding the lock so we ensure we never destroy it before we
+                    // incremented the reference count. If we cant increment the reference count there is something
+                    // wrong. In this case just remove the session from the cache and signal back that we couldn't
+                    // find a session for re-use.
+                    !session.upRef()) {
+                // Remove the session from the cache. This will also take care of calling SSL_SESSION_free(...)
+                remove(session.sessionId());
+                return -1;
+            }
+
+            // At this point we already incremented the reference count via SSL_SESSION_up_ref(...).
+            long sslSession = session.session();
+            session.updateLastAccessedTime();
+            if (session.shouldBeSingleUse()) {
+                // Should only be used once. In this case invalidate the session which will also ensure we remove it
+                // from the cache and call SSL_SESSION_free(...).
+                remove(session.sessionId());
+            }
+            return sslSession;
+        }
+
+        synchronized void remove(OpenSslSessionId id) {
+            NativeSslSession sslSession = sessions.remove(id);
+            if (sslSession != null) {
+                size.decrementAndGet();
+                notifyRemovalAndFree(sslSession);
+            }
+        }
+
+        synchronized boolean contains(OpenSslSessionId id) {
+            return sessions.containsKey(id);
+        }
+
+        synchronized NativeSslSession get(OpenSslSessionId id) {
+            NativeSslSession session = sessions.get(id);
+            if (session != null && !session.isValid()) {
+                // The session is not valid anymore, let's remove it and just signal back that there is no session
+                // with the given ID in the cache anymore. This also takes care of calling SSL_SESSION_free(...)
+                remove(session.sessionId());
+                return null;
+            }
+            return session;
+        }
+
+        synchronized OpenSslSession[] sessions() {
+            return sessions.values().toArray(EMPTY_SESSIONS);
+        }
+
+        synchronized void clear() {
+            Iterator<NativeSslSession> iterator = sessions.values().iterator();
+            while (iterator.hasNext()) {
+                NativeSslSession session = iterator.next();
+                iterator.remove();
+                size.decrementAndGet();
+
+                // Notify about removal. This also takes care of calling SSL_SESSION_free(...).
+                notifyRemovalAndFree(session);
+            }
         }
     }
 
@@ -329,6 +464,22 @@ class OpenSslSessionCache implements SSLSessionCache {
             SSLSession.free(session);
         }
 
+        /**
+         * Sets this session on the given SSL*, which increments the reference count of the SSL_SESSION*, unless it
+         * was freed already. A session which should only be used once is invalidated.
+         *
+         * @return {@code true} if the session was set.
+         */
+        synchronized boolean setOn(long ssl) {
+            if (freed || !SSL.setSession(ssl, session)) {
+                return false;
+            }
+            if (SSLSession.shouldBeSingleUse(session)) {
+                invalidate();
+            }
+            return true;
+        }
+
         void close() {
             assert !freed;
             freed = true;
@@ -28,13 +28,15 @@ import java.util.concurrent.locks.Lock;
 public final class OpenSslSessionStats {
 
     private final ReferenceCountedOpenSslContext context;
+    private final OpenSslSessionCache cache;
 
     // IMPORTANT: We take the OpenSslContext and not just the long (which points the native instance) to prevent
     //            the GC to collect OpenSslContext as this would also free the pointer and so could result in a
     //            segfault when the user calls any of the methods here that try to pass the pointer down to the native
     //            level.
-    OpenSslSessionStats(ReferenceCountedOpenSslContext context) {
+    OpenSslSessionStats(ReferenceCountedOpenSslContext context, OpenSslSessionCache cache) {
         this.context = context;
+        this.cache = cache;
     }
 
     /**
@@ -250,4 +252,28 @@ public final class OpenSslSessionStats {
             readerLock.unlock();
         }
     }
+
+    /**
+     * Returns the number of sessions that were found in the session cache of this context and resumed in server
+     * mode.
+     */
+    public long cacheHits() {
+        return cache.hits();
+    }
+
+    /**
+     * Returns the number of sessions proposed by clients that were not found in the session cache of this context, or
+     * that were not valid anymore, in server mode.
+     */
+    public long cacheMisses() {
+        return cache.misses();
+    }
+
+    /**
+     * Returns the number of sessions that were removed from the session cache of this context because it reached its
+     * maximum size.
+     */
+    public long cacheEvictions() {
+        return cache.evictions();
+    }
 }
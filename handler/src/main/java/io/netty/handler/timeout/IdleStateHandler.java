@@ -25,6 +25,8 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.AbstractScheduledEventExecutor;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.Future;
 import io.netty.util.internal.ObjectUtil;
 
@@ -109,6 +111,7 @@ public class IdleStateHandler extends ChannelDuplexHandler {
     };
 
     private final boolean observeOutput;
+    private final boolean useTimingWheel;
     private final long readerIdleTimeNanos;
     private final long writerIdleTimeNanos;
     private final long allIdleTimeNanos;
@@ -191,9 +194,43 @@ public class IdleStateHandler extends ChannelDuplexHandler {
     public IdleStateHandler(boolean observeOutput,
             long readerIdleTime, long writerIdleTime, long allIdleTime,
             TimeUnit unit) {
+        this(observeOutput, readerIdleTime, writerIdleTime, allIdleTime, unit, false);
+    }
+
+    /**
+     * Creates a new instance firing {@link IdleStateEvent}s.
+     *
+     * @param observeOutput
+     *        whether or not the consumption of {@code bytes} should be taken into
+     *        consideration when assessing write idleness. The default is {@code false}.
+     * @param readerIdleTime
+     *        an {@link IdleStateEvent} whose state is {@link IdleState#READER_IDLE}
+     *        will be triggered when no read was performed for the specified
+     *        period of time.  Specify {@code 0} to disable.
+     * @param writerIdleTime
+     *        an {@link IdleStateEvent} whose state is {@link IdleState#WRITER_IDLE}
+     *        will be triggered when no write was performed for the specified
+     *        period of time.  Specify {@code 0} to disable.
+     * @param allIdleTime
+     *        an {@link IdleStateEvent} whose state is {@link IdleState#ALL_IDLE}
+     *        will be triggered when neither read nor write was performed for
+     *        the specified period of time.  Specify {@code 0} to disable.
+     * @param unit
+     *        the {@link TimeUnit} of {@code readerIdleTime},
+     *        {@code writeIdleTime}, and {@code allIdleTime}
+     * @param useTimingWheel
+     *        whether or not the timeouts should be scheduled on the
+     *        {@link AbstractScheduledEventExecutor#timingWheel()} of the event loop, which is cheaper when
+     *        there are many connections but only as precise as its tick duration.
+     *        The default is {@code false}.
+     */
+    public IdleStateHandler(boolean observeOutput,
+            long readerIdleTime, long writerIdleTime, long allIdleTime,
+            TimeUnit unit, boolean useTimingWheel) {
         ObjectUtil.checkNotNull(unit, "unit");
 
         this.observeOutput = observeOutput;
+        this.useTimingWheel = useTimingWheel;
 
         if (readerIdleTime <= 0) {
             readerIdleTimeNanos = 0;
@@ -345,7 +382,19 @@ public class IdleStateHandler extends ChannelDuplexHandler {
      * This method is visible for testing!
      */
     Future<?> schedule(ChannelHandlerContext ctx, Runnable task, long delay, TimeUnit unit) {
-        return ctx.executor().schedule(task, delay, unit);
+        return schedule(ctx.executor(), task, delay, unit, useTimingWheel);
+    }
+
+    /**
+     * Schedules the task on the {@link AbstractScheduledEventExecutor#timingWheel()} of the executor if requested
+     * and supported, or on the executor itself otherwise.
+     */
+    static Future<?> schedule(EventExecutor executor, Runnable task, long delay, TimeUnit unit,
+                              boolean useTimingWheel) {
+        if (useTimingWheel && executor instanceof AbstractScheduledEventExecutor) {
+            return ((AbstractScheduledEventExecutor) executor).timingWheel().schedule(task, delay, unit);
+        }
+        return executor.schedule(task, delay, unit);
     }
 
     private void destroy() {
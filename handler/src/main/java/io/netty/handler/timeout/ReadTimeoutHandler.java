@@ -81,7 +81,22 @@ public class ReadTimeoutHandler extends IdleStateHandler {
      *        the {@link TimeUnit} of {@code timeout}
      */
     public ReadTimeoutHandler(long timeout, TimeUnit unit) {
-        super(timeout, 0, 0, unit);
+        this(timeout, unit, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param timeout
+     *        read timeout
+     * @param unit
+     *        the {@link TimeUnit} of {@code timeout}
+     * @param useTimingWheel
+     *        whether or not the timeout should be scheduled on the timing wheel of the event loop,
+     *        see {@link IdleStateHandler#IdleStateHandler(boolean, long, long, long, TimeUnit, boolean)}
+     */
+    public ReadTimeoutHandler(long timeout, TimeUnit unit, boolean useTimingWheel) {
+        super(false, timeout, 0, 0, unit, useTimingWheel);
     }
 
     @Override
@@ -67,6 +67,7 @@ public class WriteTimeoutHandler extends ChannelOutboundHandlerAdapter {
     private static final long MIN_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
 
     private final long timeoutNanos;
+    private final boolean useTimingWheel;
 
     /**
      * A doubly-linked list to track all WriteTimeoutTasks
@@ -94,7 +95,23 @@ public class WriteTimeoutHandler extends ChannelOutboundHandlerAdapter {
      *        the {@link TimeUnit} of {@code timeout}
      */
     public WriteTimeoutHandler(long timeout, TimeUnit unit) {
+        this(timeout, unit, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param timeout
+     *        write timeout
+     * @param unit
+     *        the {@link TimeUnit} of {@code timeout}
+     * @param useTimingWheel
+     *        whether or not the timeouts should be scheduled on the timing wheel of the event loop,
+     *        see {@link IdleStateHandler#IdleStateHandler(boolean, long, long, long, TimeUnit, boolean)}
+     */
+    public WriteTimeoutHandler(long timeout, TimeUnit unit, boolean useTimingWheel) {
         ObjectUtil.checkNotNull(unit, "unit");
+        this.useTimingWheel = useTimingWheel;
 
         if (timeout <= 0) {
             timeoutNanos = 0;
@@ -130,7 +147,8 @@ public class WriteTimeoutHandler extends ChannelOutboundHandlerAdapter {
     private void scheduleTimeout(final ChannelHandlerContext ctx, final ChannelPromise promise) {
         // Schedule a timeout.
         final WriteTimeoutTask task = new WriteTimeoutTask(ctx, promise);
-        task.scheduledFuture = ctx.executor().schedule(task, timeoutNanos, TimeUnit.NANOSECONDS);
+        task.scheduledFuture = IdleStateHandler.schedule(
+                ctx.executor(), task, timeoutNanos, TimeUnit.NANOSECONDS, useTimingWheel);
 
         if (!task.scheduledFuture.isDone()) {
             addWriteTimeoutTask(task);
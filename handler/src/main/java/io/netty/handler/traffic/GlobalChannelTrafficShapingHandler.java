@@ -26,8 +26,8 @@ import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.util.Attribute;
+import io.netty.util.collection.ConcurrentIntObjectHashMap;
 import io.netty.util.concurrent.EventExecutor;
-import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -35,7 +35,6 @@ import java.util.AbstractCollection;
 import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -94,7 +93,7 @@ public class GlobalChannelTrafficShapingHandler extends AbstractTrafficShapingHa
     /**
      * All queues per channel
      */
-    final ConcurrentMap<Integer, PerChannel> channelQueues = PlatformDependent.newConcurrentHashMap();
+    final ConcurrentIntObjectHashMap<PerChannel> channelQueues = new ConcurrentIntObjectHashMap<PerChannel>();
 
     /**
      * Global queues size
@@ -454,7 +453,7 @@ public class GlobalChannelTrafficShapingHandler extends AbstractTrafficShapingHa
     private PerChannel getOrSetPerChannel(ChannelHandlerContext ctx) {
         // ensure creation is limited to one thread per channel
         Channel channel = ctx.channel();
-        Integer key = channel.hashCode();
+        int key = channel.hashCode();
         PerChannel perChannel = channelQueues.get(key);
         if (perChannel == null) {
             perChannel = new PerChannel();
@@ -481,7 +480,7 @@ public class GlobalChannelTrafficShapingHandler extends AbstractTrafficShapingHa
     public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
         trafficCounter.resetCumulativeTime();
         Channel channel = ctx.channel();
-        Integer key = channel.hashCode();
+        int key = channel.hashCode();
         PerChannel perChannel = channelQueues.remove(key);
         if (perChannel != null) {
             // write operations need synchronization
@@ -518,7 +517,7 @@ public class GlobalChannelTrafficShapingHandler extends AbstractTrafficShapingHa
         if (size > 0) {
             // compute the number of ms to wait before reopening the channel
             long waitGlobal = trafficCounter.readTimeToWait(size, getReadLimit(), maxTime, now);
-            Integer key = ctx.channel().hashCode();
+            int key = ctx.channel().hashCode();
             PerChannel perChannel = channelQueues.get(key);
             long wait = 0;
             if (perChannel != null) {
@@ -575,7 +574,7 @@ public class GlobalChannelTrafficShapingHandler extends AbstractTrafficShapingHa
 
     @Override
     protected long checkWaitReadTime(final ChannelHandlerContext ctx, long wait, final long now) {
-        Integer key = ctx.channel().hashCode();
+        int key = ctx.channel().hashCode();
         PerChannel perChannel = channelQueues.get(key);
         if (perChannel != null) {
             if (wait > maxTime && now + wait - perChannel.lastReadTimestamp > maxTime) {
@@ -587,7 +586,7 @@ public class GlobalChannelTrafficShapingHandler extends AbstractTrafficShapingHa
 
     @Override
     protected void informReadOperation(final ChannelHandlerContext ctx, final long now) {
-        Integer key = ctx.channel().hashCode();
+        int key = ctx.channel().hashCode();
         PerChannel perChannel = channelQueues.get(key);
         if (perChannel != null) {
             perChannel.lastReadTimestamp = now;
@@ -655,7 +654,7 @@ public class GlobalChannelTrafficShapingHandler extends AbstractTrafficShapingHa
         if (size > 0) {
             // compute the number of ms to wait before continue with the channel
             long waitGlobal = trafficCounter.writeTimeToWait(size, getWriteLimit(), maxTime, now);
-            Integer key = ctx.channel().hashCode();
+            int key = ctx.channel().hashCode();
             PerChannel perChannel = channelQueues.get(key);
             long wait = 0;
             if (perChannel != null) {
@@ -695,7 +694,7 @@ public class GlobalChannelTrafficShapingHandler extends AbstractTrafficShapingHa
             final long size, final long writedelay, final long now,
             final ChannelPromise promise) {
         Channel channel = ctx.channel();
-        Integer key = channel.hashCode();
+        int key = channel.hashCode();
         PerChannel perChannel = channelQueues.get(key);
         if (perChannel == null) {
             // in case write occurs before handlerAdded is raised for this handler
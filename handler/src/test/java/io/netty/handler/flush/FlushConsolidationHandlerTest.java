@@ -15,6 +15,8 @@
  */
 package io.netty.handler.flush;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
@@ -24,12 +26,15 @@ import io.netty.util.concurrent.GenericFutureListener;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FlushConsolidationHandlerTest {
 
@@ -183,7 +188,156 @@ public class FlushConsolidationHandlerTest {
         assertFalse(channel.finish());
     }
 
+    @Test
+    public void testAdaptiveFlushesImmediatelyAtLowRate() {
+        final AtomicInteger flushCount = new AtomicInteger();
+        TestAdaptiveHandler handler = new TestAdaptiveHandler(TimeUnit.MILLISECONDS.toNanos(1));
+        EmbeddedChannel channel = newChannel(flushCount, handler);
+        for (int i = 1; i <= 10; i++) {
+            handler.ticks += TimeUnit.MILLISECONDS.toNanos(2);
+            channel.flush();
+            assertEquals(i, flushCount.get());
+        }
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testAdaptiveConsolidatesAtHighRate() throws Exception {
+        final AtomicInteger flushCount = new AtomicInteger();
+        TestAdaptiveHandler handler = new TestAdaptiveHandler(TimeUnit.MILLISECONDS.toNanos(1));
+        EmbeddedChannel channel = newChannel(flushCount, handler);
+        for (long i = 0; i < 1000; i++) {
+            handler.ticks += TimeUnit.MICROSECONDS.toNanos(10);
+            channel.writeAndFlush(i);
+        }
+        // About 100 flushes are expected within the maximum delay, once the average rate caught up.
+        int flushes = flushCount.get();
+        assertTrue(flushes > 1, "flushes: " + flushes);
+        assertTrue(flushes < 1000 / 10, "flushes: " + flushes);
+
+        // The flushes that are still pending are flushed once the maximum delay is over.
+        handler.ticks += TimeUnit.MILLISECONDS.toNanos(1);
+        Thread.sleep(10);
+        channel.runScheduledPendingTasks();
+        for (long i = 0; i < 1000; i++) {
+            assertEquals(i, (Long) channel.readOutbound());
+        }
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testAdaptiveFlushViaMaxDelay() throws Exception {
+        final AtomicInteger flushCount = new AtomicInteger();
+        TestAdaptiveHandler handler = new TestAdaptiveHandler(TimeUnit.MILLISECONDS.toNanos(1));
+        EmbeddedChannel channel = newChannel(flushCount, handler);
+        for (int i = 0; i < 100; i++) {
+            handler.ticks += TimeUnit.MICROSECONDS.toNanos(1);
+            channel.flush();
+        }
+        // Flush what is pending, so the next flush is consolidated.
+        channel.pipeline().fireChannelReadComplete();
+        int flushes = flushCount.get();
+        channel.writeAndFlush(1L);
+        assertEquals(flushes, flushCount.get());
+        assertNull(channel.readOutbound());
+
+        // The delayed flush that was scheduled before is still pending, but must wait for the new deadline.
+        Thread.sleep(10);
+        channel.runScheduledPendingTasks();
+        assertEquals(flushes, flushCount.get());
+
+        handler.ticks += TimeUnit.MILLISECONDS.toNanos(1);
+        Thread.sleep(10);
+        channel.runScheduledPendingTasks();
+        assertEquals(flushes + 1, flushCount.get());
+        assertEquals(1L, (Long) channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testAdaptiveFlushViaMaxDelayWhileReading() throws Exception {
+        final AtomicInteger flushCount = new AtomicInteger();
+        TestAdaptiveHandler handler = new TestAdaptiveHandler(TimeUnit.MILLISECONDS.toNanos(1));
+        EmbeddedChannel channel = newChannel(flushCount, handler);
+        for (int i = 0; i < 100; i++) {
+            handler.ticks += TimeUnit.MICROSECONDS.toNanos(1);
+            channel.flush();
+        }
+        channel.pipeline().fireChannelReadComplete();
+        int flushes = flushCount.get();
+        // The read is not completed, but the flush must not be delayed longer than the maximum delay anyway.
+        channel.pipeline().fireChannelRead(1L);
+        assertEquals(flushes, flushCount.get());
+
+        handler.ticks += TimeUnit.MILLISECONDS.toNanos(1);
+        Thread.sleep(10);
+        channel.runScheduledPendingTasks();
+        assertEquals(flushes + 1, flushCount.get());
+        assertEquals(1L, (Long) channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testAdaptiveFlushViaPendingBytes() {
+        final AtomicInteger flushCount = new AtomicInteger();
+        TestAdaptiveHandler handler = new TestAdaptiveHandler(TimeUnit.SECONDS.toNanos(1));
+        EmbeddedChannel channel = newChannel(flushCount, handler);
+        for (int i = 0; i < 100; i++) {
+            handler.ticks += TimeUnit.MICROSECONDS.toNanos(1);
+            channel.flush();
+        }
+        channel.pipeline().fireChannelReadComplete();
+        int flushes = flushCount.get();
+        channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[FlushConsolidationHandler.MAX_CONSOLIDATED_BYTES]));
+        assertEquals(flushes + 1, flushCount.get());
+        ByteBuf buf = channel.readOutbound();
+        assertNotNull(buf);
+        buf.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testAdaptiveFlushViaRemovalCancelsDelayedFlush() {
+        final AtomicInteger flushCount = new AtomicInteger();
+        TestAdaptiveHandler handler = new TestAdaptiveHandler(TimeUnit.SECONDS.toNanos(1));
+        EmbeddedChannel channel = newChannel(flushCount, handler);
+        for (int i = 0; i < 100; i++) {
+            handler.ticks += TimeUnit.MICROSECONDS.toNanos(1);
+            channel.flush();
+        }
+        channel.pipeline().fireChannelReadComplete();
+        int flushes = flushCount.get();
+        channel.writeAndFlush(1L);
+        assertEquals(flushes, flushCount.get());
+
+        channel.pipeline().remove(handler);
+        assertEquals(flushes + 1, flushCount.get());
+        assertEquals(1L, (Long) channel.readOutbound());
+        // The delayed flush must not be scheduled anymore.
+        assertEquals(-1, channel.runScheduledPendingTasks());
+        assertFalse(channel.finish());
+    }
+
+    private static final class TestAdaptiveHandler extends FlushConsolidationHandler {
+        long ticks;
+
+        TestAdaptiveHandler(long maxFlushDelayNanos) {
+            super(DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES, maxFlushDelayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        long ticksInNanos() {
+            return ticks;
+        }
+    }
+
     private static EmbeddedChannel newChannel(final AtomicInteger flushCount, boolean consolidateWhenNoReadInProgress) {
+        return newChannel(flushCount,
+                          new FlushConsolidationHandler(EXPLICIT_FLUSH_AFTER_FLUSHES, consolidateWhenNoReadInProgress));
+    }
+
+    private static EmbeddedChannel newChannel(final AtomicInteger flushCount, FlushConsolidationHandler handler) {
         return new EmbeddedChannel(
                 new ChannelOutboundHandlerAdapter() {
                     @Override
@@ -192,7 +346,7 @@ public class FlushConsolidationHandlerTest {
                         ctx.flush();
                     }
                 },
-                new FlushConsolidationHandler(EXPLICIT_FLUSH_AFTER_FLUSHES, consolidateWhenNoReadInProgress),
+                handler,
                 new ChannelInboundHandlerAdapter() {
                     @Override
                     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
@@ -53,6 +53,7 @@ import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -229,6 +230,49 @@ public class OpenSslEngineTest extends SSLEngineTest {
             new String[]{SslProtocols.SSL_v2_HELLO, SslProtocols.TLS_v1_2});
     }
 
+    @MethodSource("newTestParams")
+    @ParameterizedTest
+    public void testSessionCacheEvictions(SSLEngineTestParam param) throws Exception {
+        clientSslCtx = wrapContext(param, SslContextBuilder.forClient()
+                                        .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                                        .sslProvider(sslClientProvider())
+                                        .protocols(param.protocols())
+                                        .ciphers(param.ciphers())
+                                        .build());
+        SelfSignedCertificate ssc = new SelfSignedCertificate();
+        serverSslCtx = wrapContext(param, SslContextBuilder.forServer(ssc.certificate(), ssc.privateKey())
+                                        .sslProvider(sslServerProvider())
+                                        .protocols(param.protocols())
+                                        .ciphers(param.ciphers())
+                                        .sessionCacheSize(1)
+                                        .build());
+        try {
+            OpenSslSessionContext sessionContext = (OpenSslSessionContext) serverSslCtx.sessionContext();
+            String[] hosts = { "a.netty.io", "b.netty.io", "c.netty.io" };
+            for (String host : hosts) {
+                SSLEngine clientEngine = null;
+                SSLEngine serverEngine = null;
+                try {
+                    clientEngine = wrapEngine(clientSslCtx.newEngine(UnpooledByteBufAllocator.DEFAULT, host, 9999));
+                    serverEngine = wrapEngine(serverSslCtx.newEngine(UnpooledByteBufAllocator.DEFAULT));
+                    handshake(param.type(), param.delegate(), clientEngine, serverEngine);
+                } finally {
+                    cleanupClientSslEngine(clientEngine);
+                    cleanupServerSslEngine(serverEngine);
+                }
+            }
+            int sessions = Collections.list(sessionContext.getIds()).size();
+            assertTrue(sessions <= 1);
+            if (sessions == 1) {
+                // Every full handshake created a new session, so all but the last one were evicted.
+                assertEquals(hosts.length - 1, sessionContext.stats().cacheEvictions());
+            }
+            assertEquals(0, sessionContext.stats().cacheHits());
+        } finally {
+            ssc.delete();
+        }
+    }
+
     @MethodSource("newTestParams")
     @ParameterizedTest
     public void testWrapBuffersNoWritePendingError(SSLEngineTestParam param) throws Exception {
@@ -99,6 +99,31 @@ public class IdleStateHandlerTest {
         }
     }
 
+    @Test
+    public void testReaderIdleWithTimingWheel() throws Exception {
+        final List<Object> events = new ArrayList<Object>();
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new IdleStateHandler(false, 50L, 0L, 0L, TimeUnit.MILLISECONDS, true),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                        events.add(evt);
+                    }
+                });
+        try {
+            // The timeout is scheduled on the timing wheel, which is advanced by a task of the event loop.
+            channel.runScheduledPendingTasks();
+            assertEquals(0, events.size());
+
+            Thread.sleep(100);
+            channel.runScheduledPendingTasks();
+            assertEquals(1, events.size());
+            assertSame(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT, events.get(0));
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
     @Test
     public void testReaderNotIdle() throws Exception {
         TestableIdleStateHandler idleStateHandler = new TestableIdleStateHandler(
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a Huffman encoded header block and encodes it again, like a proxy between two HTTP/2 connections does.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HpackForwardingBenchmark extends AbstractMicrobenchmark {
+
+    @Param
+    public HpackHeadersSize size;
+
+    @Param({ "false", "true" })
+    public boolean lazy;
+
+    private ByteBuf input;
+    private ByteBuf output;
+
+    @Setup(Level.Trial)
+    public void setup() throws Http2Exception {
+        // Never index and Huffman encode everything, so every value is a Huffman encoded literal.
+        HpackEncoder hpackEncoder = new HpackEncoder(true, 16, 0);
+        input = size.newOutBuffer();
+        hpackEncoder.encodeHeaders(3 /* randomly chosen */, input, HpackBenchmarkUtil.http2Headers(size, true),
+                                   Http2HeadersEncoder.ALWAYS_SENSITIVE);
+        output = size.newOutBuffer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        input.release();
+        output.release();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void forward(Blackhole bh) throws Http2Exception {
+        HpackDecoder hpackDecoder = new HpackDecoder(Integer.MAX_VALUE);
+        HpackEncoder hpackEncoder = new HpackEncoder(true, 16, 0);
+        Http2Headers headers = new DefaultHttp2Headers(false);
+        hpackDecoder.decode(3, input.duplicate(), headers, false, lazy);
+        output.clear();
+        hpackEncoder.encodeHeaders(3, output, headers, Http2HeadersEncoder.NEVER_SENSITIVE);
+        bh.consume(output);
+    }
+}
@@ -17,9 +17,12 @@ package io.netty.microbench.buffer;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ByteProcessor;
+import io.netty.util.CharsetUtil;
 import io.netty.util.internal.SuppressJava6Requirement;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
@@ -55,6 +58,8 @@ public class ByteBufIndexOfBenchmark extends AbstractMicrobenchmark {
     int permutations;
 
     ByteBuf[] data;
+    ByteBuf[] asciiData;
+    private ByteProcessor indexOfProcessor;
     private int i;
 
     @Param({ "0" })
@@ -75,6 +80,8 @@ public class ByteBufIndexOfBenchmark extends AbstractMicrobenchmark {
         SplittableRandom random = new SplittableRandom(seed);
         permutations = 1 << logPermutations;
         this.data = new ByteBuf[permutations];
+        this.asciiData = new ByteBuf[permutations];
+        indexOfProcessor = new ByteProcessor.IndexOfProcessor(needleByte);
         final ByteBufAllocator allocator = pooled? PooledByteBufAllocator.DEFAULT : UnpooledByteBufAllocator.DEFAULT;
         for (int i = 0; i < permutations; ++i) {
             data[i] = direct? allocator.directBuffer(size, size) : allocator.heapBuffer(size, size);
@@ -92,6 +99,11 @@ public class ByteBufIndexOfBenchmark extends AbstractMicrobenchmark {
             }
             final int foundIndex = random.nextInt(Math.max(0, size - 8), size);
             data[i].setByte(foundIndex, needleByte);
+            asciiData[i] = direct? allocator.directBuffer(size, size) : allocator.heapBuffer(size, size);
+            for (int j = 0; j < size; j++) {
+                asciiData[i].setByte(j, data[i].getByte(j) & 0x7F);
+            }
+            asciiData[i].writerIndex(size);
         }
     }
 
@@ -104,11 +116,27 @@ public class ByteBufIndexOfBenchmark extends AbstractMicrobenchmark {
         return getData().indexOf(0, size, needleByte);
     }
 
+    /**
+     * The byte by byte scan that {@link #indexOf()} replaces.
+     */
+    @Benchmark
+    public int forEachByte() {
+        return getData().forEachByte(0, size, indexOfProcessor);
+    }
+
+    @Benchmark
+    public boolean isAscii() {
+        return ByteBufUtil.isText(asciiData[i++ & (permutations - 1)], CharsetUtil.US_ASCII);
+    }
+
     @TearDown
     public void releaseBuffers() {
         for (ByteBuf buffer : data) {
             buffer.release();
         }
+        for (ByteBuf buffer : asciiData) {
+            buffer.release();
+        }
     }
 
 }
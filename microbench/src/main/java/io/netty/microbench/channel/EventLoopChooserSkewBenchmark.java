@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.channel.LoadAwareEventLoopChooserFactory;
+import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.DefaultEventExecutorChooserFactory;
+import io.netty.util.concurrent.EventExecutorChooserFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a skewed mix of heavy and light connections, where every {@code heavyEvery}-th connection costs
+ * {@code heavyFactor} times as much as the others, and measures how long it takes to process a burst of them
+ * depending on the {@link EventExecutorChooserFactory} used to spread them over the {@link EventLoop}s.
+ */
+public class EventLoopChooserSkewBenchmark extends AbstractMicrobenchmark {
+    private static final int CONNECTIONS = 64;
+    private static final int LIGHT_TOKENS = 1000;
+
+    public enum Chooser {
+        ROUND_ROBIN,
+        LOAD_AWARE
+    }
+
+    @Param
+    public Chooser chooser;
+
+    @Param({ "4" })
+    public int heavyEvery;
+
+    @Param({ "20" })
+    public int heavyFactor;
+
+    private MultithreadEventLoopGroup group;
+
+    @Setup
+    public void setup() {
+        EventExecutorChooserFactory factory = chooser == Chooser.LOAD_AWARE ?
+                new LoadAwareEventLoopChooserFactory() : DefaultEventExecutorChooserFactory.INSTANCE;
+        group = new MultithreadEventLoopGroup(4, (Executor) null, factory) {
+            @Override
+            protected EventLoop newChild(Executor executor, Object... args) {
+                return new DefaultEventLoop(this, executor);
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONNECTIONS)
+    public void skewedBurst() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(CONNECTIONS);
+        for (int i = 0; i < CONNECTIONS; i++) {
+            final long tokens = i % heavyEvery == 0 ? (long) LIGHT_TOKENS * heavyFactor : LIGHT_TOKENS;
+            group.next().execute(new Runnable() {
+                @Override
+                public void run() {
+                    Blackhole.consumeCPU(tokens);
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+    }
+}
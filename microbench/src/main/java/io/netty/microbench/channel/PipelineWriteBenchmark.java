@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes many small messages through the {@link ChannelPipeline} of a {@link NioSocketChannel} and flushes them
+ * at once, so the written messages are completed in bulk by the
+ * {@link io.netty.channel.ChannelOutboundBuffer}.
+ */
+public class PipelineWriteBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "1", "16", "256" })
+    public int messages;
+
+    @Param({ "16", "128" })
+    public int messageSize;
+
+    @Param({ "true", "false" })
+    public boolean voidPromise;
+
+    private NioEventLoopGroup group;
+    private Channel serverChan;
+    private Channel chan;
+    private ByteBuf message;
+    private Callable<Integer> writeTask;
+
+    @Setup
+    public void setup() throws Exception {
+        group = new NioEventLoopGroup(2);
+        serverChan = new ServerBootstrap()
+            .channel(NioServerSocketChannel.class)
+            .group(group)
+            .childHandler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            ReferenceCountUtil.release(msg);
+                        }
+                    });
+                }
+            })
+            .bind(0)
+            .sync()
+            .channel();
+        chan = new Bootstrap()
+            .channel(NioSocketChannel.class)
+            .handler(new ChannelInboundHandlerAdapter())
+            .group(group)
+            .connect(serverChan.localAddress())
+            .sync()
+            .channel();
+
+        message = chan.alloc().directBuffer(messageSize);
+        message.writeZero(messageSize);
+        writeTask = new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                ChannelPipeline pipeline = chan.pipeline();
+                for (int i = 0; i < messages; i++) {
+                    if (voidPromise) {
+                        pipeline.write(message.retainedDuplicate(), chan.voidPromise());
+                    } else {
+                        pipeline.write(message.retainedDuplicate());
+                    }
+                }
+                pipeline.flush();
+                return messages;
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        chan.close().sync();
+        serverChan.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        message.release();
+    }
+
+    @Benchmark
+    public Integer writeAndFlush() throws Exception {
+        return chan.eventLoop().submit(writeTask).get();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.NetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast {@link EpollDatagramChannel} reads bursts of datagrams, with and without batching them via
+ * {@code recvmmsg}.
+ */
+public class EpollDatagramChannelBenchmark extends AbstractMicrobenchmark {
+    private static final int BURST = 64;
+
+    @Param({ "0", "8", "32", "64" })
+    public int maxDatagramsPerRecvmmsg;
+
+    @Param({ "64", "1024" })
+    public int size;
+
+    private EpollEventLoopGroup group;
+    private Channel serverChan;
+    private Channel chan;
+    private ByteBuf payload;
+    private InetSocketAddress serverAddress;
+    private final Semaphore received = new Semaphore(0);
+
+    @Setup
+    public void setup() throws Exception {
+        group = new EpollEventLoopGroup(2);
+        serverChan = new Bootstrap()
+            .channel(EpollDatagramChannel.class)
+            .group(group)
+            .option(ChannelOption.SO_RCVBUF, 4 * 1024 * 1024)
+            .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(2048))
+            .option(EpollChannelOption.MAX_DATAGRAMS_PER_RECVMMSG, maxDatagramsPerRecvmmsg)
+            .option(ChannelOption.MAX_MESSAGES_PER_READ, BURST)
+            .handler(new ChannelInboundHandlerAdapter() {
+                private int count;
+
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    ReferenceCountUtil.release(msg);
+                    count++;
+                }
+
+                @Override
+                public void channelReadComplete(ChannelHandlerContext ctx) {
+                    received.release(count);
+                    count = 0;
+                }
+            })
+            .bind(NetUtil.LOCALHOST, 0)
+            .sync()
+            .channel();
+        serverAddress = (InetSocketAddress) serverChan.localAddress();
+
+        chan = new Bootstrap()
+            .channel(EpollDatagramChannel.class)
+            .group(group)
+            .option(ChannelOption.SO_SNDBUF, 4 * 1024 * 1024)
+            .handler(new ChannelInboundHandlerAdapter())
+            .bind(NetUtil.LOCALHOST, 0)
+            .sync()
+            .channel();
+
+        payload = chan.alloc().directBuffer(size).writeZero(size);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        chan.close().sync();
+        serverChan.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        payload.release();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public boolean readBurst() throws Exception {
+        for (int i = 0; i < BURST; i++) {
+            chan.write(new DatagramPacket(payload.retainedSlice(), serverAddress), chan.voidPromise());
+        }
+        chan.flush();
+        // Datagrams may be dropped, so do not wait forever.
+        return received.tryAcquire(BURST, 1, TimeUnit.SECONDS);
+    }
+}
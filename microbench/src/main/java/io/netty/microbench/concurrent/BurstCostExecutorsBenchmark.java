@@ -21,6 +21,7 @@ import io.netty.channel.kqueue.KQueueEventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import io.netty.util.concurrent.DefaultEventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
 import io.netty.util.internal.PlatformDependent;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -34,6 +35,7 @@ import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.infra.Blackhole;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Queue;
@@ -243,6 +245,7 @@ public class BurstCostExecutorsBenchmark extends AbstractMicrobenchmark {
         private volatile int completed;
 
         private Runnable completeTask;
+        private List<Runnable> completeTasks;
 
         @Setup
         public void setup(BurstCostExecutorsBenchmark bench) {
@@ -271,6 +274,10 @@ public class BurstCostExecutorsBenchmark extends AbstractMicrobenchmark {
                     }
                 };
             }
+            completeTasks = new ArrayList<Runnable>(bench.burstLength);
+            for (int i = 0; i < bench.burstLength; i++) {
+                completeTasks.add(completeTask);
+            }
         }
 
         /**
@@ -317,6 +324,46 @@ public class BurstCostExecutorsBenchmark extends AbstractMicrobenchmark {
         return executeBurst(state);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @Threads(1)
+    public int test1ProducerBatch(final PerThreadState state) {
+        return executeBatchBurst(state);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @Threads(2)
+    public int test2ProducersBatch(final PerThreadState state) {
+        return executeBatchBurst(state);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @Threads(3)
+    public int test3ProducersBatch(final PerThreadState state) {
+        return executeBatchBurst(state);
+    }
+
+    /**
+     * Submits the whole burst with {@link SingleThreadEventExecutor#executeBatch(Collection)} if supported by the
+     * executor, so it is published to the task queue at once and wakes up the executor at most once.
+     */
+    private int executeBatchBurst(final PerThreadState state) {
+        final ExecutorService executor = this.executor;
+        final List<Runnable> completeTasks = state.completeTasks;
+        if (executor instanceof SingleThreadEventExecutor) {
+            ((SingleThreadEventExecutor) executor).executeBatch(completeTasks);
+        } else {
+            for (int i = 0; i < completeTasks.size(); i++) {
+                executor.execute(completeTasks.get(i));
+            }
+        }
+        final int value = state.spinWaitCompletionOf(completeTasks.size());
+        state.resetCompleted();
+        return value;
+    }
+
     private int executeBurst(final PerThreadState state) {
         final ExecutorService executor = this.executor;
         final int burstLength = this.burstLength;
@@ -18,8 +18,8 @@ package io.netty.microbench.concurrent;
 import io.netty.channel.DefaultEventLoop;
 import io.netty.channel.EventLoop;
 import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.AbstractScheduledEventExecutor;
 import io.netty.util.concurrent.Future;
-import io.netty.util.concurrent.ScheduledFuture;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Param;
@@ -31,6 +31,8 @@ import org.openjdk.jmh.annotations.TearDown;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 @State(Scope.Benchmark)
@@ -51,16 +53,25 @@ public class ScheduledFutureTaskBenchmark extends AbstractMicrobenchmark {
         @Param({ "100", "1000", "10000", "100000" })
         int num;
 
+        // Schedule on the timing wheel of the executor instead of its scheduled task queue.
+        @Param({ "false", "true" })
+        boolean timingWheel;
+
         final List<ScheduledFuture<Void>> futures = new ArrayList<ScheduledFuture<Void>>();
 
+        ScheduledExecutorService scheduler() {
+            return timingWheel ? ((AbstractScheduledEventExecutor) executor).timingWheel() : executor;
+        }
+
         @Setup(Level.Invocation)
         public void reset() {
             futures.clear();
+            final ScheduledExecutorService scheduler = scheduler();
             executor.submit(new Runnable() {
                 @Override
                 public void run() {
                     for (int i = 1; i <= num; i++) {
-                        futures.add(executor.schedule(NO_OP, i, TimeUnit.HOURS));
+                        futures.add(scheduler.schedule(NO_OP, i, TimeUnit.HOURS));
                     }
                 }
             }).syncUninterruptibly();
@@ -95,4 +106,18 @@ public class ScheduledFutureTaskBenchmark extends AbstractMicrobenchmark {
             }
         }).syncUninterruptibly();
     }
+
+    @Benchmark
+    public Future<?> scheduleAndCancel(final FuturesHolder futuresHolder) {
+        final ScheduledExecutorService scheduler = futuresHolder.scheduler();
+        return executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                // Like an idle timeout, which is rescheduled over and over again but rarely expires.
+                for (int i = 0; i < futuresHolder.num; i++) {
+                    scheduler.schedule(FuturesHolder.NO_OP, 1, TimeUnit.MINUTES).cancel(false);
+                }
+            }
+        }).syncUninterruptibly();
+    }
 }
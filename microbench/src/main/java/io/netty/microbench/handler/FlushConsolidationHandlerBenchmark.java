@@ -0,0 +1,177 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.handler;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the number of flushes which reach the transport, and so the number of write syscalls, with the latency
+ * that is added by the different modes of the {@link FlushConsolidationHandler}.
+ * <p>
+ * Each operation writes and flushes a burst of small messages from outside the event loop, and waits until they were
+ * written to the socket. {@link #burstLatency()} reports the latency percentiles (see p0.99), and
+ * {@link #burstFlushes(FlushCounters)} the flushes per written message.
+ */
+@State(Scope.Benchmark)
+public class FlushConsolidationHandlerBenchmark extends AbstractMicrobenchmark {
+
+    public enum Consolidation {
+        NONE,
+        FIXED,
+        ADAPTIVE
+    }
+
+    @Param
+    public Consolidation consolidation;
+
+    @Param({ "1", "16", "64" })
+    public int writesPerBurst;
+
+    @Param({ "50" })
+    public int maxFlushDelayMicros;
+
+    private final AtomicLong flushes = new AtomicLong();
+    private NioEventLoopGroup group;
+    private Channel serverChan;
+    private Channel chan;
+    private ByteBuf message;
+
+    /**
+     * The flushes which reached the transport and the written messages, their ratio is the number of flushes per
+     * message.
+     */
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class FlushCounters {
+        public long flushes;
+        public long writes;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        group = new NioEventLoopGroup(2);
+        serverChan = new ServerBootstrap()
+            .channel(NioServerSocketChannel.class)
+            .group(group)
+            .childHandler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            ReferenceCountUtil.release(msg);
+                        }
+                    });
+                }
+            })
+            .bind(0)
+            .sync()
+            .channel();
+        chan = new Bootstrap()
+            .channel(NioSocketChannel.class)
+            .handler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ch.pipeline().addLast(new ChannelOutboundHandlerAdapter() {
+                        @Override
+                        public void flush(ChannelHandlerContext ctx) {
+                            flushes.incrementAndGet();
+                            ctx.flush();
+                        }
+                    });
+                    switch (consolidation) {
+                        case FIXED:
+                            ch.pipeline().addLast(new FlushConsolidationHandler(
+                                    FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES, true));
+                            break;
+                        case ADAPTIVE:
+                            ch.pipeline().addLast(new FlushConsolidationHandler(
+                                    FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES,
+                                    maxFlushDelayMicros, TimeUnit.MICROSECONDS));
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            })
+            .group(group)
+            .connect(serverChan.localAddress())
+            .sync()
+            .channel();
+
+        message = chan.alloc().directBuffer(64);
+        message.writeZero(64);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        chan.close().sync();
+        serverChan.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        message.release();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void burstLatency() {
+        writeBurst();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void burstFlushes(FlushCounters counters) {
+        long flushesBefore = flushes.get();
+        writeBurst();
+        counters.flushes += flushes.get() - flushesBefore;
+        counters.writes += writesPerBurst;
+    }
+
+    private void writeBurst() {
+        ChannelFuture future = null;
+        for (int i = 0; i < writesPerBurst; i++) {
+            future = chan.writeAndFlush(message.retainedDuplicate());
+        }
+        future.syncUninterruptibly();
+    }
+}
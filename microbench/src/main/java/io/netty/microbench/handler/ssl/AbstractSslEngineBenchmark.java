@@ -86,6 +86,10 @@ public class AbstractSslEngineBenchmark extends AbstractMicrobenchmark {
             return configureEngine(clientContext.newHandler(allocator).engine(), cipher);
         }
 
+        SSLEngine newClientEngine(ByteBufAllocator allocator, String cipher, String peerHost, int peerPort) {
+            return configureEngine(clientContext.newHandler(allocator, peerHost, peerPort).engine(), cipher);
+        }
+
         SSLEngine newServerEngine(ByteBufAllocator allocator, String cipher) {
             return configureEngine(serverContext.newHandler(allocator).engine(), cipher);
         }
@@ -147,6 +151,11 @@ public class AbstractSslEngineBenchmark extends AbstractMicrobenchmark {
         serverEngine = newServerEngine(allocator);
     }
 
+    protected final void initEngines(ByteBufAllocator allocator, String peerHost, int peerPort) {
+        clientEngine = newClientEngine(allocator, peerHost, peerPort);
+        serverEngine = newServerEngine(allocator);
+    }
+
     protected final void destroyEngines() {
         ReferenceCountUtil.release(clientEngine);
         ReferenceCountUtil.release(serverEngine);
@@ -245,6 +254,10 @@ public class AbstractSslEngineBenchmark extends AbstractMicrobenchmark {
         return sslProvider.newClientEngine(allocator, cipher);
     }
 
+    protected final SSLEngine newClientEngine(ByteBufAllocator allocator, String peerHost, int peerPort) {
+        return sslProvider.newClientEngine(allocator, cipher, peerHost, peerPort);
+    }
+
     protected final SSLEngine newServerEngine(ByteBufAllocator allocator) {
         return sslProvider.newServerEngine(allocator, cipher);
     }
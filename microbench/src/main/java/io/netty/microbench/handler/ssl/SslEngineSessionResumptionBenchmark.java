@@ -0,0 +1,76 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.handler.ssl;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs handshakes from several threads against the same client and server contexts. The clients reuse a small set of
+ * peers, so most of the handshakes are resumptions which all hit the session caches of the shared contexts.
+ */
+@State(Scope.Thread)
+@Threads(4)
+public class SslEngineSessionResumptionBenchmark extends AbstractSslEngineBenchmark {
+
+    private static final int PEER_PORT = 443;
+
+    @Param({ "1", "64" })
+    public int peers;
+
+    private ByteBufAllocator allocator;
+    private int peer;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        allocator = new PooledByteBufAllocator(true);
+        initEngines(allocator);
+        initHandshakeBuffers();
+        destroyEngines();
+    }
+
+    @TearDown(Level.Iteration)
+    public void teardown() {
+        destroyHandshakeBuffers();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public boolean resumeHandshake() throws Exception {
+        if (++peer >= peers) {
+            peer = 0;
+        }
+        initEngines(allocator, "peer" + peer, PEER_PORT);
+        boolean ok = doHandshake();
+        destroyEngines();
+        assert ok;
+        return ok;
+    }
+}
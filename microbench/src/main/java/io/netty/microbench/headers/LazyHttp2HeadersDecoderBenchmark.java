@@ -0,0 +1,113 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.headers;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpScheme;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersDecoder;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersEncoder;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersEncoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares eager and lazy decoding of a Huffman encoded HTTP/2 header block, for a proxy which only routes on
+ * {@code :authority} and {@code :path} and for a handler which reads every header.
+ */
+@Threads(1)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LazyHttp2HeadersDecoderBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "5", "20" })
+    public int headerCount;
+
+    @Param({ "false", "true" })
+    public boolean lazy;
+
+    private DefaultHttp2HeadersDecoder decoder;
+    private ByteBuf headerBlock;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Http2Headers headers = new DefaultHttp2Headers(false);
+        headers.method(HttpMethod.POST.asciiName());
+        headers.scheme(HttpScheme.HTTPS.name());
+        headers.path("/BigDynamicPayload");
+        headers.authority("io.netty");
+        for (int i = 0; i < headerCount; ++i) {
+            headers.add("key-" + i, UUID.randomUUID().toString());
+        }
+        // Never index so the same block can be decoded over and over, and Huffman encode everything like browsers do.
+        DefaultHttp2HeadersEncoder encoder =
+                new DefaultHttp2HeadersEncoder(Http2HeadersEncoder.ALWAYS_SENSITIVE, false, 16, 0);
+        headerBlock = Unpooled.buffer();
+        encoder.encodeHeaders(3, headers, headerBlock);
+        decoder = new DefaultHttp2HeadersDecoder(true, Http2CodecUtil.DEFAULT_HEADER_LIST_SIZE, lazy);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        headerBlock.release();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void route(Blackhole bh) throws Http2Exception {
+        Http2Headers headers = decode();
+        bh.consume(headers.authority().length());
+        bh.consume(headers.path().length());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void readAll(Blackhole bh) throws Http2Exception {
+        for (Map.Entry<CharSequence, CharSequence> entry : decode()) {
+            bh.consume(entry.getValue().length());
+        }
+    }
+
+    private Http2Headers decode() throws Http2Exception {
+        return decoder.decodeHeaders(3, headerBlock.duplicate());
+    }
+}
@@ -17,6 +17,7 @@ package io.netty.microbench.http;
 
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpObjectDecoder;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import io.netty.util.CharsetUtil;
@@ -83,11 +84,22 @@ public class HttpRequestDecoderBenchmark extends AbstractMicrobenchmark {
 
     @Benchmark
     public void testDecodeWholeRequestInMultipleStepsMixedDelimiters() {
-        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, step);
+        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, step, new HttpRequestDecoder());
     }
 
-    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize) {
-        final EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+    @Benchmark
+    public void testDecodeWholeRequestInMultipleStepsMixedDelimitersLazyHeaders() {
+        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, step, new HttpRequestDecoder(
+                HttpObjectDecoder.DEFAULT_MAX_INITIAL_LINE_LENGTH, HttpObjectDecoder.DEFAULT_MAX_HEADER_SIZE,
+                HttpObjectDecoder.DEFAULT_MAX_CHUNK_SIZE, HttpObjectDecoder.DEFAULT_VALIDATE_HEADERS,
+                HttpObjectDecoder.DEFAULT_INITIAL_BUFFER_SIZE,
+                HttpObjectDecoder.DEFAULT_ALLOW_DUPLICATE_CONTENT_LENGTHS,
+                HttpObjectDecoder.DEFAULT_ALLOW_PARTIAL_CHUNKS, true));
+    }
+
+    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize,
+                                                              HttpRequestDecoder decoder) {
+        final EmbeddedChannel channel = new EmbeddedChannel(decoder);
 
         final int headerLength = content.length - CONTENT_LENGTH;
 
@@ -18,6 +18,7 @@ import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http2.DefaultHttp2Connection;
 import io.netty.handler.codec.http2.DefaultHttp2RemoteFlowController;
+import io.netty.handler.codec.http2.ExtensiblePriorityStreamByteDistributor;
 import io.netty.handler.codec.http2.Http2Connection;
 import io.netty.handler.codec.http2.Http2ConnectionHandler;
 import io.netty.handler.codec.http2.Http2ConnectionHandlerBuilder;
@@ -43,14 +44,17 @@ import org.openjdk.jmh.annotations.Threads;
 
 /**
  * Benchmark to compare stream byte distribution algorithms when priorities are identical for
- * all streams.
+ * all streams. The {@link ExtensiblePriorityStreamByteDistributor} is measured with non-incremental streams, which
+ * are served one after another, and with incremental streams, which share the bytes like with {@code UNIFORM}.
  */
 @Threads(1)
 @State(Scope.Benchmark)
 public class NoPriorityByteDistributionBenchmark extends AbstractMicrobenchmark {
     public enum Algorithm {
         WFQ,
-        UNIFORM
+        UNIFORM,
+        EXTENSIBLE_PRIORITY,
+        EXTENSIBLE_PRIORITY_INCREMENTAL
     }
 
     @Param({ "100", "10000" })
@@ -128,6 +132,10 @@ public class NoPriorityByteDistributionBenchmark extends AbstractMicrobenchmark
             case UNIFORM:
                 distributor = new UniformStreamByteDistributor(connection);
                 break;
+            case EXTENSIBLE_PRIORITY:
+            case EXTENSIBLE_PRIORITY_INCREMENTAL:
+                distributor = new ExtensiblePriorityStreamByteDistributor(connection);
+                break;
         }
         controller = new DefaultHttp2RemoteFlowController(connection, new ByteCounter(distributor));
         connection.remote().flowController(controller);
@@ -148,6 +156,10 @@ public class NoPriorityByteDistributionBenchmark extends AbstractMicrobenchmark
         // Create the streams, each initialized with MAX_INT bytes.
         for (int i = 0; i < numStreams; ++i) {
             Http2Stream stream = connection.local().createStream(toStreamId(i), false);
+            if (algorithm == Algorithm.EXTENSIBLE_PRIORITY_INCREMENTAL) {
+                ((ExtensiblePriorityStreamByteDistributor) distributor).updatePriority(
+                        stream.id(), ExtensiblePriorityStreamByteDistributor.DEFAULT_URGENCY, true);
+            }
             addData(stream, Integer.MAX_VALUE);
             stream.setProperty(dataRefresherKey, new DataRefresher(stream));
         }
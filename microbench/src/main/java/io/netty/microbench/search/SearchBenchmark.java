@@ -153,6 +153,12 @@ public class SearchBenchmark extends AbstractMicrobenchmark {
         return ByteBufUtil.indexOf(needle, haystack);
     }
 
+    @Benchmark
+    @CompilerControl(Mode.DONT_INLINE)
+    public int swarIndexOf() {
+        return ByteBufUtil.indexOf(haystack, haystack.readerIndex(), haystack.writerIndex(), needle);
+    }
+
     @Benchmark
     @CompilerControl(Mode.DONT_INLINE)
     public int kmp() {
@@ -24,6 +24,10 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.TearDown;
 
+/**
+ * Measures the overhead of tracking a resource and recording accesses to it at each
+ * {@link ResourceLeakDetector.Level}, with synchronous and asynchronous leak detection.
+ */
 public class ResourceLeakDetectorRecordBenchmark extends AbstractMicrobenchmark {
     private static final Object TRACKED = new Object();
     private static final ResourceLeakHint HINT = new ResourceLeakHint() {
@@ -35,10 +39,21 @@ public class ResourceLeakDetectorRecordBenchmark extends AbstractMicrobenchmark
 
     @Param({ "8", "16" })
     private int recordTimes;
+
+    @Param({ "DISABLED", "SIMPLE", "ADVANCED", "PARANOID" })
     private ResourceLeakDetector.Level level;
 
+    @Param({ "false", "true" })
+    private boolean async;
+
+    private ResourceLeakDetector.Level oldLevel;
+    private boolean oldAsync;
+    // Only leak-aware resources which are tracked at ADVANCED or PARANOID level record their accesses.
+    private boolean recording;
+
+    // Use the default sampling interval, so only PARANOID level tracks every resource.
     ResourceLeakDetector<Object> detector = new ResourceLeakDetector<Object>(
-            Object.class, 1, Integer.MAX_VALUE) {
+            Object.class, 128, Integer.MAX_VALUE) {
         @Override
         protected void reportTracedLeak(String resourceType, String records) {
             // noop
@@ -57,20 +72,29 @@ public class ResourceLeakDetectorRecordBenchmark extends AbstractMicrobenchmark
 
     @Setup(Level.Trial)
     public void setup() {
-        level = ResourceLeakDetector.getLevel();
-        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+        oldLevel = ResourceLeakDetector.getLevel();
+        oldAsync = ResourceLeakDetector.isAsync();
+        ResourceLeakDetector.setLevel(level);
+        ResourceLeakDetector.setAsync(async);
+        recording = level.ordinal() >= ResourceLeakDetector.Level.ADVANCED.ordinal();
     }
 
     @TearDown(Level.Trial)
     public void teardown() {
-        ResourceLeakDetector.setLevel(level);
+        ResourceLeakDetector.setLevel(oldLevel);
+        ResourceLeakDetector.setAsync(oldAsync);
     }
 
     @Benchmark
     public boolean record() {
         ResourceLeakTracker<Object> tracker = detector.track(TRACKED);
-        for (int i = 0 ; i < recordTimes; i++) {
-            tracker.record();
+        if (tracker == null) {
+            return false;
+        }
+        if (recording) {
+            for (int i = 0 ; i < recordTimes; i++) {
+                tracker.record();
+            }
         }
         return tracker.close(TRACKED);
     }
@@ -78,8 +102,13 @@ public class ResourceLeakDetectorRecordBenchmark extends AbstractMicrobenchmark
     @Benchmark
     public boolean recordWithHint() {
         ResourceLeakTracker<Object> tracker = detector.track(TRACKED);
-        for (int i = 0 ; i < recordTimes; i++) {
-            tracker.record(HINT);
+        if (tracker == null) {
+            return false;
+        }
+        if (recording) {
+            for (int i = 0 ; i < recordTimes; i++) {
+                tracker.record(HINT);
+            }
         }
         return tracker.close(TRACKED);
     }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbenchmark.common;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.collection.ConcurrentLongObjectHashMap;
+import io.netty.util.collection.IntArrayDeque;
+import io.netty.util.collection.IntHashSet;
+import io.netty.util.internal.PlatformDependent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compares the primitive collections of {@code io.netty.util.collection} with the boxed JDK collections they replace.
+ * Keys are chosen outside of the {@link Long} / {@link Integer} cache, so run with {@code -prof gc} to see the
+ * allocations caused by boxing.
+ */
+public class PrimitiveCollectionsBenchmark extends AbstractMicrobenchmark {
+    private static final Object VALUE = new Object();
+    private static final long KEY_OFFSET = 1L << 40;
+
+    public enum Type {
+        JDK,
+        NETTY
+    }
+
+    @Param({ "100", "10000" })
+    public int size;
+
+    @Param
+    public Type type;
+
+    private long[] keys;
+    private ConcurrentMap<Long, Object> jdkMap;
+    private ConcurrentLongObjectHashMap<Object> nettyMap;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random rnd = new Random(0);
+        keys = new long[size];
+        jdkMap = PlatformDependent.newConcurrentHashMap();
+        nettyMap = new ConcurrentLongObjectHashMap<Object>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = KEY_OFFSET + rnd.nextInt(Integer.MAX_VALUE);
+            jdkMap.put(keys[i], VALUE);
+            nettyMap.put(keys[i], VALUE);
+        }
+    }
+
+    @Benchmark
+    public void concurrentMapGet(Blackhole bh) {
+        if (type == Type.JDK) {
+            for (long key : keys) {
+                bh.consume(jdkMap.get(key));
+            }
+        } else {
+            for (long key : keys) {
+                bh.consume(nettyMap.get(key));
+            }
+        }
+    }
+
+    @Benchmark
+    public void concurrentMapPutRemove(Blackhole bh) {
+        if (type == Type.JDK) {
+            for (long key : keys) {
+                bh.consume(jdkMap.remove(key));
+                bh.consume(jdkMap.put(key, VALUE));
+            }
+        } else {
+            for (long key : keys) {
+                bh.consume(nettyMap.remove(key));
+                bh.consume(nettyMap.put(key, VALUE));
+            }
+        }
+    }
+
+    @Benchmark
+    public void setAddContains(Blackhole bh) {
+        if (type == Type.JDK) {
+            Set<Integer> set = new HashSet<Integer>();
+            for (long key : keys) {
+                set.add((int) key);
+            }
+            for (long key : keys) {
+                bh.consume(set.contains((int) key));
+            }
+        } else {
+            IntHashSet set = new IntHashSet();
+            for (long key : keys) {
+                set.add((int) key);
+            }
+            for (long key : keys) {
+                bh.consume(set.contains((int) key));
+            }
+        }
+    }
+
+    @Benchmark
+    public void dequeAddRemove(Blackhole bh) {
+        if (type == Type.JDK) {
+            ArrayDeque<Integer> deque = new ArrayDeque<Integer>();
+            for (long key : keys) {
+                deque.addLast((int) key);
+            }
+            while (!deque.isEmpty()) {
+                bh.consume(deque.removeFirst().intValue());
+            }
+        } else {
+            IntArrayDeque deque = new IntArrayDeque();
+            for (long key : keys) {
+                deque.addLast((int) key);
+            }
+            while (!deque.isEmpty()) {
+                bh.consume(deque.removeFirst());
+            }
+        }
+    }
+}
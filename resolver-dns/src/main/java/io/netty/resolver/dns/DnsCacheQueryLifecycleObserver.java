@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.resolver.dns;
+
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * A {@link DnsQueryLifecycleObserver} which is also notified about lookups in the {@link DnsCache}.
+ * <p>
+ * If the {@link DnsQueryLifecycleObserverFactory} of a {@link DnsNameResolver} is a
+ * {@link DnsCacheQueryLifecycleObserverFactory}, the resolver creates an observer for the lookup of every hostname in
+ * the cache. Either {@link #queryCacheHit()} or {@link #queryCacheMiss()} is called on it, which ends its lifecycle.
+ * On a miss the queries which are sent afterwards use their own observers.
+ */
+@UnstableApi
+public interface DnsCacheQueryLifecycleObserver extends DnsQueryLifecycleObserver {
+
+    /**
+     * The query was answered from the cache, either with addresses or with a cached failure.
+     */
+    void queryCacheHit();
+
+    /**
+     * The cache had no usable entries for the query, so it will be sent to a DNS server.
+     */
+    void queryCacheMiss();
+}
@@ -38,6 +38,7 @@ import io.netty.handler.codec.CorruptedFrameException;
 import io.netty.handler.codec.dns.DatagramDnsQueryEncoder;
 import io.netty.handler.codec.dns.DatagramDnsResponse;
 import io.netty.handler.codec.dns.DatagramDnsResponseDecoder;
+import io.netty.handler.codec.dns.DefaultDnsQuestion;
 import io.netty.handler.codec.dns.DefaultDnsRawRecord;
 import io.netty.handler.codec.dns.DnsQuestion;
 import io.netty.handler.codec.dns.DnsRawRecord;
@@ -84,6 +85,7 @@ import java.util.concurrent.TimeUnit;
 import static io.netty.resolver.dns.DefaultDnsServerAddressStreamProvider.DNS_PORT;
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
 import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 
 /**
  * A DNS-based {@link InetNameResolver}.
@@ -268,6 +270,7 @@ public class DnsNameResolver extends InetNameResolver {
     private final DnsQueryLifecycleObserverFactory dnsQueryLifecycleObserverFactory;
     private final boolean completeOncePreferredResolved;
     private final ChannelFactory<? extends SocketChannel> socketChannelFactory;
+    private final TcpDnsConnectionPool tcpConnectionPool;
 
     /**
      * Creates a new DNS-based name resolver that communicates with the specified list of DNS servers.
@@ -397,7 +400,7 @@ public class DnsNameResolver extends InetNameResolver {
                 null, dnsQueryLifecycleObserverFactory, queryTimeoutMillis, resolvedAddressTypes,
                 recursionDesired, maxQueriesPerResolve, traceEnabled, maxPayloadSize, optResourceEnabled,
                 hostsFileEntriesResolver, dnsServerAddressStreamProvider, searchDomains, ndots, decodeIdn,
-                completeOncePreferredResolved);
+                completeOncePreferredResolved, 0);
     }
 
     DnsNameResolver(
@@ -421,7 +424,8 @@ public class DnsNameResolver extends InetNameResolver {
             String[] searchDomains,
             int ndots,
             boolean decodeIdn,
-            boolean completeOncePreferredResolved) {
+            boolean completeOncePreferredResolved,
+            int maxTcpConnectionsPerNameServer) {
         super(eventLoop);
         this.queryTimeoutMillis = queryTimeoutMillis > 0
             ? queryTimeoutMillis
@@ -447,6 +451,10 @@ public class DnsNameResolver extends InetNameResolver {
         this.decodeIdn = decodeIdn;
         this.completeOncePreferredResolved = completeOncePreferredResolved;
         this.socketChannelFactory = socketChannelFactory;
+        tcpConnectionPool = socketChannelFactory != null &&
+                checkPositiveOrZero(maxTcpConnectionsPerNameServer, "maxTcpConnectionsPerNameServer") > 0 ?
+                new TcpDnsConnectionPool(this, executor(), socketChannelFactory, maxTcpConnectionsPerNameServer) :
+                null;
         switch (this.resolvedAddressTypes) {
             case IPV4_ONLY:
                 supportsAAAARecords = false;
@@ -514,6 +522,9 @@ public class DnsNameResolver extends InetNameResolver {
         ch.closeFuture().addListener(new ChannelFutureListener() {
             @Override
             public void operationComplete(ChannelFuture future) {
+                if (tcpConnectionPool != null) {
+                    tcpConnectionPool.close();
+                }
                 resolveCache.clear();
                 cnameCache.clear();
                 authoritativeDnsServerCache.clear();
@@ -958,11 +969,37 @@ public class DnsNameResolver extends InetNameResolver {
             return;
         }
 
-        if (!doResolveCached(hostname, additionals, promise, resolveCache)) {
+        boolean cached = doResolveCached(hostname, additionals, promise, resolveCache);
+        cacheLookedUp(hostname, additionals, resolveCache, cached);
+        if (!cached) {
             doResolveUncached(hostname, additionals, promise, resolveCache, true);
         }
     }
 
+    /**
+     * Notifies a {@link DnsCacheQueryLifecycleObserverFactory} about the lookup of the hostname in the cache and starts
+     * to prefetch its entries if they are about to expire and the cache asks for it.
+     */
+    private void cacheLookedUp(String hostname, DnsRecord[] additionals, DnsCache resolveCache, boolean hit) {
+        if (dnsQueryLifecycleObserverFactory instanceof DnsCacheQueryLifecycleObserverFactory) {
+            DnsCacheQueryLifecycleObserver observer =
+                    ((DnsCacheQueryLifecycleObserverFactory) dnsQueryLifecycleObserverFactory)
+                            .newDnsQueryLifecycleObserver(new DefaultDnsQuestion(hostname, resolveRecordTypes[0]));
+            if (hit) {
+                observer.queryCacheHit();
+            } else {
+                observer.queryCacheMiss();
+            }
+        }
+        if (hit && resolveCache instanceof ShardedDnsCache &&
+                ((ShardedDnsCache) resolveCache).claimPrefetch(hostname)) {
+            // Resolve the hostname again in the background, the result replaces the cached entries.
+            Promise<List<InetAddress>> prefetchPromise = executor().newPromise();
+            doResolveAllUncached(hostname, additionals, prefetchPromise, prefetchPromise,
+                                 ((ShardedDnsCache) resolveCache).prefetchCache(), false);
+        }
+    }
+
     private boolean doResolveCached(String hostname,
                                     DnsRecord[] additionals,
                                     Promise<InetAddress> promise,
@@ -1063,7 +1100,10 @@ public class DnsNameResolver extends InetNameResolver {
             return;
         }
 
-        if (!doResolveAllCached(hostname, additionals, promise, resolveCache, resolvedInternetProtocolFamilies)) {
+        boolean cached = doResolveAllCached(hostname, additionals, promise, resolveCache,
+                                            resolvedInternetProtocolFamilies);
+        cacheLookedUp(hostname, additionals, resolveCache, cached);
+        if (!cached) {
             doResolveAllUncached(hostname, additionals, promise, promise,
                                  resolveCache, completeOncePreferredResolved);
         }
@@ -1302,6 +1342,12 @@ public class DnsNameResolver extends InetNameResolver {
                 return;
             }
 
+            if (tcpConnectionPool != null) {
+                // Pipeline the query over a pooled connection to the name server.
+                tcpConnectionPool.query(res.sender(), qCtx, res);
+                return;
+            }
+
             Bootstrap bs = new Bootstrap();
             bs.option(ChannelOption.SO_REUSEADDR, true)
             .group(executor())
@@ -1401,7 +1447,7 @@ public class DnsNameResolver extends InetNameResolver {
         }
     }
 
-    private static final class AddressedEnvelopeAdapter implements AddressedEnvelope<DnsResponse, InetSocketAddress> {
+    static final class AddressedEnvelopeAdapter implements AddressedEnvelope<DnsResponse, InetSocketAddress> {
         private final InetSocketAddress sender;
         private final InetSocketAddress recipient;
         private final DnsResponse response;
@@ -31,6 +31,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 import static io.netty.util.internal.ObjectUtil.intValue;
 
 /**
@@ -40,6 +41,7 @@ public final class DnsNameResolverBuilder {
     volatile EventLoop eventLoop;
     private ChannelFactory<? extends DatagramChannel> channelFactory;
     private ChannelFactory<? extends SocketChannel> socketChannelFactory;
+    private int maxTcpConnectionsPerNameServer;
     private DnsCache resolveCache;
     private DnsCnameCache cnameCache;
     private AuthoritativeDnsServerCache authoritativeDnsServerCache;
@@ -146,6 +148,23 @@ public final class DnsNameResolverBuilder {
         return socketChannelFactory(new ReflectiveChannelFactory<SocketChannel>(channelType));
     }
 
+    /**
+     * Sets the maximum number of persistent TCP connections per name server which are used for
+     * <a href="https://tools.ietf.org/html/rfc7766">TCP fallback</a>. Queries are pipelined over these connections,
+     * so a truncated response doesn't need a new connection. Connections are closed once they were idle for a while.
+     * <p>
+     * This only has an effect if a {@link #socketChannelFactory(ChannelFactory)} is set.
+     *
+     * @param maxTcpConnectionsPerNameServer the maximum number of connections per name server, or {@code 0} (the
+     *                                       default) to open a new connection for every truncated response.
+     * @return {@code this}
+     */
+    public DnsNameResolverBuilder maxTcpConnectionsPerNameServer(int maxTcpConnectionsPerNameServer) {
+        this.maxTcpConnectionsPerNameServer =
+                checkPositiveOrZero(maxTcpConnectionsPerNameServer, "maxTcpConnectionsPerNameServer");
+        return this;
+    }
+
     /**
      * Sets the cache for resolution results.
      *
@@ -506,7 +525,8 @@ public final class DnsNameResolverBuilder {
                 searchDomains,
                 ndots,
                 decodeIdn,
-                completeOncePreferredResolved);
+                completeOncePreferredResolved,
+                maxTcpConnectionsPerNameServer);
     }
 
     /**
@@ -529,6 +549,8 @@ public final class DnsNameResolverBuilder {
             copiedBuilder.socketChannelFactory(socketChannelFactory);
         }
 
+        copiedBuilder.maxTcpConnectionsPerNameServer(maxTcpConnectionsPerNameServer);
+
         if (resolveCache != null) {
             copiedBuilder.resolveCache(resolveCache);
         }
@@ -0,0 +1,558 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.resolver.dns;
+
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.util.NettyRuntime;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * A {@link DnsCache} for resolvers which talk to a large number of hostnames.
+ * <p>
+ * Unlike {@link DefaultDnsCache} it does not schedule a task per hostname to expire its entries:
+ * <ul>
+ *     <li>Hostnames are spread over a number of shards, which are {@link ConcurrentMap}s, so lookups never lock.</li>
+ *     <li>Expired entries are never returned, and are removed by a single sweep over all shards every second. The
+ *     sweep runs on the {@link EventLoop} which cached the first entry.</li>
+ *     <li>The number of cached hostnames is bounded. Once a shard holds more than its share the least recently used
+ *     hostnames of this shard are evicted in bulk.</li>
+ *     <li>Hostnames which were looked up often are prefetched by {@link DnsNameResolver} shortly before they expire,
+ *     so lookups of popular hostnames keep hitting the cache.</li>
+ * </ul>
+ * Hits and misses are counted, and reported to {@link DnsCacheQueryLifecycleObserverFactory}s by
+ * {@link DnsNameResolver}. If any additional {@link DnsRecord} is used, no caching takes place.
+ */
+@UnstableApi
+public final class ShardedDnsCache implements DnsCache {
+    private static final long SWEEP_INTERVAL_SECONDS = 1;
+    // A full shard evicts down to this fraction of its capacity, so the cost of finding the least recently used
+    // hostnames is amortized over many insertions.
+    private static final float EVICTION_TARGET = 0.9f;
+
+    private static final AtomicIntegerFieldUpdater<ShardedDnsCache> SWEEP_SCHEDULED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(ShardedDnsCache.class, "sweepScheduled");
+
+    private final Shard[] shards;
+    private final int minTtl;
+    private final int maxTtl;
+    private final int negativeTtl;
+    private final int maxEntries;
+    private final long prefetchBeforeExpiryNanos;
+    private final int prefetchMinHits;
+    private final LongCounter hits = PlatformDependent.newLongCounter();
+    private final LongCounter misses = PlatformDependent.newLongCounter();
+    private final LongCounter evictions = PlatformDependent.newLongCounter();
+    private final LongCounter prefetches = PlatformDependent.newLongCounter();
+    private final Runnable sweepTask = new Runnable() {
+        @Override
+        public void run() {
+            sweep();
+        }
+    };
+
+    private final DnsCache prefetchCache = new DnsCache() {
+        @Override
+        public void clear() {
+            ShardedDnsCache.this.clear();
+        }
+
+        @Override
+        public boolean clear(String hostname) {
+            return ShardedDnsCache.this.clear(hostname);
+        }
+
+        @Override
+        public List<? extends DnsCacheEntry> get(String hostname, DnsRecord[] additionals) {
+            return null;
+        }
+
+        @Override
+        public DnsCacheEntry cache(String hostname, DnsRecord[] additionals, InetAddress address, long originalTtl,
+                                   EventLoop loop) {
+            return ShardedDnsCache.this.cache(hostname, additionals, address, originalTtl, loop);
+        }
+
+        @Override
+        public DnsCacheEntry cache(String hostname, DnsRecord[] additionals, Throwable cause, EventLoop loop) {
+            return prefetchFailed(hostname, additionals, cause, loop);
+        }
+    };
+
+    private volatile int sweepScheduled;
+    private volatile EventLoop sweepLoop;
+
+    /**
+     * Create a cache that respects the TTL returned by the DNS server, doesn't cache negative responses, holds up to
+     * {@code 65536} hostnames and doesn't prefetch.
+     */
+    public ShardedDnsCache() {
+        this(0, Cache.MAX_SUPPORTED_TTL_SECS, 0, 65536, 0, 0);
+    }
+
+    /**
+     * Create a cache.
+     * @param minTtl the minimum TTL
+     * @param maxTtl the maximum TTL
+     * @param negativeTtl the TTL for failed queries
+     * @param maxEntries the maximum number of cached hostnames
+     * @param prefetchBeforeExpiry the number of seconds before the expiry of the entries of a hostname in which a
+     *                             lookup starts to resolve the hostname again, or {@code 0} to disable prefetching
+     * @param prefetchMinHits the number of lookups which are needed before the entries of a hostname are prefetched
+     */
+    public ShardedDnsCache(int minTtl, int maxTtl, int negativeTtl, int maxEntries,
+                           int prefetchBeforeExpiry, int prefetchMinHits) {
+        this.minTtl = Math.min(Cache.MAX_SUPPORTED_TTL_SECS, checkPositiveOrZero(minTtl, "minTtl"));
+        this.maxTtl = Math.min(Cache.MAX_SUPPORTED_TTL_SECS, checkPositiveOrZero(maxTtl, "maxTtl"));
+        if (minTtl > maxTtl) {
+            throw new IllegalArgumentException(
+                    "minTtl: " + minTtl + ", maxTtl: " + maxTtl + " (expected: 0 <= minTtl <= maxTtl)");
+        }
+        this.negativeTtl = checkPositiveOrZero(negativeTtl, "negativeTtl");
+        this.maxEntries = checkPositive(maxEntries, "maxEntries");
+        prefetchBeforeExpiryNanos = TimeUnit.SECONDS.toNanos(
+                checkPositiveOrZero(prefetchBeforeExpiry, "prefetchBeforeExpiry"));
+        this.prefetchMinHits = checkPositiveOrZero(prefetchMinHits, "prefetchMinHits");
+
+        int numShards = Math.min(findNextPositivePowerOfTwo(NettyRuntime.availableProcessors() * 4),
+                                 findNextPositivePowerOfTwo(maxEntries));
+        int maxEntriesPerShard = Math.max(1, maxEntries / numShards);
+        shards = new Shard[numShards];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(maxEntriesPerShard, evictions);
+        }
+    }
+
+    /**
+     * Returns the minimum TTL of the cached DNS resource records (in seconds).
+     */
+    public int minTtl() {
+        return minTtl;
+    }
+
+    /**
+     * Returns the maximum TTL of the cached DNS resource records (in seconds).
+     */
+    public int maxTtl() {
+        return maxTtl;
+    }
+
+    /**
+     * Returns the TTL of the cache for the failed DNS queries (in seconds).
+     */
+    public int negativeTtl() {
+        return negativeTtl;
+    }
+
+    /**
+     * Returns the maximum number of cached hostnames.
+     */
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the number of cached hostnames, including the ones which are expired but were not swept yet.
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.map.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of lookups which found entries.
+     */
+    public long hits() {
+        return hits.value();
+    }
+
+    /**
+     * Returns the number of lookups which found no or only expired entries.
+     */
+    public long misses() {
+        return misses.value();
+    }
+
+    /**
+     * Returns the number of hostnames which were evicted before they expired, as the cache was full.
+     */
+    public long evictions() {
+        return evictions.value();
+    }
+
+    /**
+     * Returns the number of prefetches which were started.
+     */
+    public long prefetches() {
+        return prefetches.value();
+    }
+
+    @Override
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.map.clear();
+        }
+    }
+
+    @Override
+    public boolean clear(String hostname) {
+        checkNotNull(hostname, "hostname");
+        hostname = appendDot(hostname);
+        return shard(hostname).map.remove(hostname) != null;
+    }
+
+    @Override
+    public List<? extends DnsCacheEntry> get(String hostname, DnsRecord[] additionals) {
+        checkNotNull(hostname, "hostname");
+        if (!emptyAdditionals(additionals)) {
+            return Collections.<DnsCacheEntry>emptyList();
+        }
+        hostname = appendDot(hostname);
+        Shard shard = shard(hostname);
+        Entries entries = shard.map.get(hostname);
+        if (entries != null) {
+            long now = System.nanoTime();
+            if (!entries.isExpired(now)) {
+                entries.lastAccessNanos = now;
+                // Racy, but this is only used to find out if a hostname is popular.
+                entries.hits++;
+                hits.increment();
+                return entries.entries;
+            }
+            shard.map.remove(hostname, entries);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Returns {@code true} if the entries of the hostname should be resolved again in the background, as they are
+     * popular and about to expire. Only the first caller for the same entries gets {@code true}.
+     */
+    boolean claimPrefetch(String hostname) {
+        if (prefetchBeforeExpiryNanos == 0) {
+            return false;
+        }
+        hostname = appendDot(hostname);
+        Entries entries = shard(hostname).map.get(hostname);
+        if (entries == null || entries.hits < prefetchMinHits || entries.entries.get(0).cause() != null) {
+            return false;
+        }
+        long remaining = entries.expirationNanos - System.nanoTime();
+        if (remaining <= 0 || remaining > prefetchBeforeExpiryNanos ||
+                !Entries.PREFETCHING_UPDATER.compareAndSet(entries, 0, 1)) {
+            return false;
+        }
+        prefetches.increment();
+        return true;
+    }
+
+    /**
+     * Keeps the entries a failed prefetch should have refreshed as long as they did not expire, so they are still
+     * used and can be prefetched again.
+     */
+    private DnsCacheEntry prefetchFailed(String hostname, DnsRecord[] additionals, Throwable cause, EventLoop loop) {
+        String key = appendDot(checkNotNull(hostname, "hostname"));
+        Entries entries = shard(key).map.get(key);
+        if (entries == null || entries.isExpired(System.nanoTime())) {
+            return cache(hostname, additionals, cause, loop);
+        }
+        checkNotNull(cause, "cause");
+        entries.prefetching = 0;
+        return new ShardedDnsCacheEntry(hostname, null, cause);
+    }
+
+    /**
+     * Returns a view of this cache which never returns any entries, so a prefetch does not resolve from the very
+     * entries it should refresh. A failed prefetch does not replace entries which did not expire yet.
+     */
+    DnsCache prefetchCache() {
+        return prefetchCache;
+    }
+
+    @Override
+    public DnsCacheEntry cache(String hostname, DnsRecord[] additionals,
+                               InetAddress address, long originalTtl, EventLoop loop) {
+        checkNotNull(hostname, "hostname");
+        checkNotNull(address, "address");
+        checkNotNull(loop, "loop");
+        ShardedDnsCacheEntry e = new ShardedDnsCacheEntry(hostname, address, null);
+        if (maxTtl == 0 || !emptyAdditionals(additionals)) {
+            return e;
+        }
+        cache(appendDot(hostname), e, Math.max(minTtl, (int) Math.min(maxTtl, originalTtl)), loop);
+        return e;
+    }
+
+    @Override
+    public DnsCacheEntry cache(String hostname, DnsRecord[] additionals, Throwable cause, EventLoop loop) {
+        checkNotNull(hostname, "hostname");
+        checkNotNull(cause, "cause");
+        checkNotNull(loop, "loop");
+        ShardedDnsCacheEntry e = new ShardedDnsCacheEntry(hostname, null, cause);
+        if (negativeTtl == 0 || !emptyAdditionals(additionals)) {
+            return e;
+        }
+        cache(appendDot(hostname), e, negativeTtl, loop);
+        return e;
+    }
+
+    private void cache(String hostname, ShardedDnsCacheEntry e, int ttl, EventLoop loop) {
+        long now = System.nanoTime();
+        long expirationNanos = now + TimeUnit.SECONDS.toNanos(ttl);
+        Shard shard = shard(hostname);
+        for (;;) {
+            Entries oldEntries = shard.map.get(hostname);
+            if (oldEntries == null) {
+                if (shard.map.putIfAbsent(hostname, new Entries(singletonList(e), expirationNanos, now, 0)) == null) {
+                    shard.evictIfNeeded();
+                    break;
+                }
+            } else if (shard.map.replace(hostname, oldEntries, oldEntries.add(e, expirationNanos, now))) {
+                break;
+            }
+        }
+        scheduleSweepIfNeeded(loop);
+    }
+
+    private void scheduleSweepIfNeeded(EventLoop loop) {
+        if (sweepScheduled == 1) {
+            EventLoop sweepLoop = this.sweepLoop;
+            if (sweepLoop == null || !sweepLoop.isShuttingDown()) {
+                return;
+            }
+            // The loop which sweeps is going away, so move the sweep to the given one.
+            if (!SWEEP_SCHEDULED_UPDATER.compareAndSet(this, 1, 0)) {
+                return;
+            }
+        }
+        if (SWEEP_SCHEDULED_UPDATER.compareAndSet(this, 0, 1)) {
+            scheduleSweep(loop);
+        }
+    }
+
+    private void scheduleSweep(EventLoop loop) {
+        sweepLoop = loop;
+        try {
+            loop.schedule(sweepTask, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException ignore) {
+            // The next entry that is cached will try again.
+            sweepScheduled = 0;
+        }
+    }
+
+    /**
+     * Removes all expired entries and schedules the next sweep as long as anything is cached.
+     */
+    void sweep() {
+        long now = System.nanoTime();
+        for (Shard shard : shards) {
+            for (Map.Entry<String, Entries> entry : shard.map.entrySet()) {
+                Entries entries = entry.getValue();
+                // Only remove the entries that were found to be expired, not the ones that replaced them meanwhile.
+                if (entries.isExpired(now)) {
+                    shard.map.remove(entry.getKey(), entries);
+                }
+            }
+        }
+        EventLoop loop = sweepLoop;
+        if (size() != 0 && !loop.isShuttingDown()) {
+            scheduleSweep(loop);
+        } else {
+            sweepScheduled = 0;
+        }
+    }
+
+    private Shard shard(String hostname) {
+        return shards[hostname.hashCode() & shards.length - 1];
+    }
+
+    private static boolean emptyAdditionals(DnsRecord[] additionals) {
+        return additionals == null || additionals.length == 0;
+    }
+
+    private static String appendDot(String hostname) {
+        return StringUtil.endsWith(hostname, '.') ? hostname : hostname + '.';
+    }
+
+    private static List<ShardedDnsCacheEntry> singletonList(ShardedDnsCacheEntry e) {
+        return Collections.singletonList(e);
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder()
+                .append("ShardedDnsCache(minTtl=")
+                .append(minTtl).append(", maxTtl=")
+                .append(maxTtl).append(", negativeTtl=")
+                .append(negativeTtl).append(", maxEntries=")
+                .append(maxEntries).append(", cached resolved hostname=")
+                .append(size()).append(')')
+                .toString();
+    }
+
+    private static final class Shard {
+        private static final AtomicIntegerFieldUpdater<Shard> EVICTING_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(Shard.class, "evicting");
+
+        final ConcurrentMap<String, Entries> map = PlatformDependent.newConcurrentHashMap();
+        private final int maxEntries;
+        private final LongCounter evictions;
+        volatile int evicting;
+
+        Shard(int maxEntries, LongCounter evictions) {
+            this.maxEntries = maxEntries;
+            this.evictions = evictions;
+        }
+
+        /**
+         * Evicts the least recently used hostnames if this shard holds too many. Only one thread evicts at a time,
+         * the others just continue as the shard will be trimmed anyway.
+         */
+        void evictIfNeeded() {
+            if (map.size() <= maxEntries || !EVICTING_UPDATER.compareAndSet(this, 0, 1)) {
+                return;
+            }
+            try {
+                List<Map.Entry<String, Entries>> snapshot = new ArrayList<Map.Entry<String, Entries>>(map.entrySet());
+                int excess = snapshot.size() - Math.max(1, (int) (maxEntries * EVICTION_TARGET));
+                if (excess <= 0) {
+                    return;
+                }
+                // Snapshot the access times, as they change while we look at them.
+                long[] lastAccess = new long[snapshot.size()];
+                for (int i = 0; i < lastAccess.length; i++) {
+                    lastAccess[i] = snapshot.get(i).getValue().lastAccessNanos;
+                }
+                long[] sorted = lastAccess.clone();
+                Arrays.sort(sorted);
+                long cutOff = sorted[excess - 1];
+                for (int i = 0; i < lastAccess.length && excess > 0; i++) {
+                    if (lastAccess[i] - cutOff <= 0) {
+                        Map.Entry<String, Entries> entry = snapshot.get(i);
+                        if (map.remove(entry.getKey(), entry.getValue())) {
+                            evictions.increment();
+                        }
+                        excess--;
+                    }
+                }
+            } finally {
+                evicting = 0;
+            }
+        }
+    }
+
+    /**
+     * The entries of a hostname, which are replaced as a whole when an entry is added.
+     */
+    private static final class Entries {
+        static final AtomicIntegerFieldUpdater<Entries> PREFETCHING_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(Entries.class, "prefetching");
+
+        final List<ShardedDnsCacheEntry> entries;
+        // All entries of a hostname expire together, see https://github.com/netty/netty/issues/7329
+        final long expirationNanos;
+        volatile long lastAccessNanos;
+        volatile int hits;
+        volatile int prefetching;
+
+        Entries(List<ShardedDnsCacheEntry> entries, long expirationNanos, long lastAccessNanos, int hits) {
+            this.entries = entries;
+            this.expirationNanos = expirationNanos;
+            this.lastAccessNanos = lastAccessNanos;
+            this.hits = hits;
+        }
+
+        boolean isExpired(long nanoTime) {
+            return expirationNanos - nanoTime <= 0;
+        }
+
+        /**
+         * Returns the entries which replace these ones once {@code e} was added.
+         */
+        Entries add(ShardedDnsCacheEntry e, long expirationNanos, long nanoTime) {
+            if (prefetching == 1 || isExpired(nanoTime) || e.cause() != null || entries.get(0).cause() != null) {
+                // Start over with the result of a new resolution, a failure always replaces everything.
+                return new Entries(singletonList(e), expirationNanos, lastAccessNanos, 0);
+            }
+            List<ShardedDnsCacheEntry> newEntries = new ArrayList<ShardedDnsCacheEntry>(entries.size() + 1);
+            for (ShardedDnsCacheEntry entry : entries) {
+                // Skip the old entry for the same address, the new one may have more up-to-date data.
+                if (!entry.address().equals(e.address())) {
+                    newEntries.add(entry);
+                }
+            }
+            newEntries.add(e);
+            // The entries of a hostname expire with the one which expires first.
+            return new Entries(Collections.unmodifiableList(newEntries),
+                               expirationNanos - this.expirationNanos < 0 ? expirationNanos : this.expirationNanos,
+                               lastAccessNanos, hits);
+        }
+    }
+
+    private static final class ShardedDnsCacheEntry implements DnsCacheEntry {
+        private final String hostname;
+        private final InetAddress address;
+        private final Throwable cause;
+
+        ShardedDnsCacheEntry(String hostname, InetAddress address, Throwable cause) {
+            this.hostname = hostname;
+            this.address = address;
+            this.cause = cause;
+        }
+
+        @Override
+        public InetAddress address() {
+            return address;
+        }
+
+        @Override
+        public Throwable cause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            if (cause != null) {
+                return hostname + '/' + cause;
+            } else {
+                return address.toString();
+            }
+        }
+    }
+}
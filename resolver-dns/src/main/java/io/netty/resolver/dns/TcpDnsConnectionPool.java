@@ -0,0 +1,290 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.resolver.dns;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.AddressedEnvelope;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFactory;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.dns.DatagramDnsResponse;
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.handler.codec.dns.DnsResponse;
+import io.netty.handler.codec.dns.TcpDnsQueryEncoder;
+import io.netty.handler.codec.dns.TcpDnsResponseDecoder;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a small number of persistent TCP connections per name server which are used for
+ * <a href="https://tools.ietf.org/html/rfc7766">TCP fallback</a>. Queries are pipelined over these connections,
+ * as allowed by <a href="https://tools.ietf.org/html/rfc7766#section-6.2.1.1">RFC 7766</a>, and their responses are
+ * matched by the query IDs handed out by the {@link DnsQueryContextManager}.
+ * <p>
+ * A new connection is only opened if every connection to the name server has queries in flight and there are less
+ * than the maximum number of connections. Otherwise the query is written to the connection with the least queries
+ * in flight. Connections without any queries in flight are closed after a while.
+ * <p>
+ * All connections are served by the {@link EventLoop} of the {@link DnsNameResolver}, so this class must only be used
+ * from it.
+ */
+final class TcpDnsConnectionPool {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(TcpDnsConnectionPool.class);
+
+    private static final TcpDnsQueryEncoder TCP_ENCODER = new TcpDnsQueryEncoder();
+    private static final DnsRecord[] EMPTY_ADDITIONALS = new DnsRecord[0];
+    // RFC 7766 recommends that clients close idle connections, and servers drop them after about ten seconds anyway.
+    private static final long IDLE_TIMEOUT_SECONDS = 5;
+
+    private final DnsNameResolver parent;
+    private final Bootstrap bootstrap;
+    private final int maxConnectionsPerNameServer;
+    private final Map<InetSocketAddress, List<Connection>> connections =
+            new HashMap<InetSocketAddress, List<Connection>>();
+
+    TcpDnsConnectionPool(DnsNameResolver parent, EventLoop eventLoop,
+                         ChannelFactory<? extends SocketChannel> socketChannelFactory,
+                         int maxConnectionsPerNameServer) {
+        this.parent = parent;
+        this.maxConnectionsPerNameServer = maxConnectionsPerNameServer;
+        bootstrap = new Bootstrap()
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .group(eventLoop)
+                .channelFactory(socketChannelFactory);
+    }
+
+    /**
+     * Sends the query of {@code qCtx}, whose UDP response {@code res} was truncated, again via TCP. Once done
+     * {@code qCtx} is finished either with the TCP response or, if this fails, with {@code res}.
+     */
+    void query(final InetSocketAddress nameServerAddr, final DnsQueryContext qCtx, final DatagramDnsResponse res) {
+        final Connection connection = acquire(nameServerAddr);
+        if (connection.connectFuture.isDone()) {
+            query(connection, nameServerAddr, qCtx, res);
+        } else {
+            connection.connectFuture.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    query(connection, nameServerAddr, qCtx, res);
+                }
+            });
+        }
+    }
+
+    private void query(Connection connection, InetSocketAddress nameServerAddr,
+                       final DnsQueryContext qCtx, final DatagramDnsResponse res) {
+        ChannelFuture connectFuture = connection.connectFuture;
+        if (!connectFuture.isSuccess()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Unable to fallback to TCP [{}]", nameServerAddr, connectFuture.cause());
+            }
+            connection.release();
+            // TCP fallback failed, just use the truncated response.
+            qCtx.finish(res);
+            return;
+        }
+
+        Channel channel = connectFuture.channel();
+        Promise<AddressedEnvelope<DnsResponse, InetSocketAddress>> promise = channel.eventLoop().newPromise();
+        TcpDnsQueryContext tcpCtx = new TcpDnsQueryContext(parent, channel, nameServerAddr, qCtx.question(),
+                                                           EMPTY_ADDITIONALS, promise);
+        connection.add(tcpCtx, promise);
+        promise.addListener(new FutureListener<AddressedEnvelope<DnsResponse, InetSocketAddress>>() {
+            @Override
+            public void operationComplete(Future<AddressedEnvelope<DnsResponse, InetSocketAddress>> future) {
+                if (future.isSuccess()) {
+                    qCtx.finish(future.getNow());
+                    res.release();
+                } else {
+                    // TCP fallback failed, just use the truncated response.
+                    qCtx.finish(res);
+                }
+            }
+        });
+        // Flush right away, the response of the other queries on this connection must not delay this one.
+        tcpCtx.query(true, channel.newPromise());
+    }
+
+    private Connection acquire(InetSocketAddress nameServerAddr) {
+        List<Connection> list = connections.get(nameServerAddr);
+        if (list == null) {
+            list = new ArrayList<Connection>(maxConnectionsPerNameServer);
+            connections.put(nameServerAddr, list);
+        }
+        Connection leastBusy = null;
+        for (Connection connection : list) {
+            if (leastBusy == null || connection.queries < leastBusy.queries) {
+                leastBusy = connection;
+            }
+        }
+        if (leastBusy == null || leastBusy.queries != 0 && list.size() < maxConnectionsPerNameServer) {
+            leastBusy = new Connection(nameServerAddr);
+            list.add(leastBusy);
+        }
+        leastBusy.acquire();
+        return leastBusy;
+    }
+
+    private void remove(Connection connection) {
+        List<Connection> list = connections.get(connection.nameServerAddr);
+        if (list != null && list.remove(connection) && list.isEmpty()) {
+            connections.remove(connection.nameServerAddr);
+        }
+    }
+
+    /**
+     * Closes all connections. Queries which are still in flight fail, so their truncated responses are used.
+     */
+    void close() {
+        List<Connection> all = new ArrayList<Connection>();
+        for (List<Connection> list : connections.values()) {
+            all.addAll(list);
+        }
+        connections.clear();
+        for (Connection connection : all) {
+            connection.connectFuture.channel().close();
+        }
+    }
+
+    /**
+     * A connection to a name server, which also matches the responses it receives to the queries in flight.
+     */
+    private final class Connection extends ChannelInboundHandlerAdapter implements Runnable {
+        final InetSocketAddress nameServerAddr;
+        final ChannelFuture connectFuture;
+        final List<TcpDnsQueryContext> inFlight = new ArrayList<TcpDnsQueryContext>();
+        // The queries which use this connection and are not done yet, including the ones waiting for the connect.
+        int queries;
+        private Future<?> idleTimeoutFuture;
+
+        Connection(InetSocketAddress nameServerAddr) {
+            this.nameServerAddr = nameServerAddr;
+            connectFuture = bootstrap.clone().handler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel ch) {
+                    ch.pipeline().addLast(TCP_ENCODER, new TcpDnsResponseDecoder(), Connection.this);
+                }
+            }).connect(nameServerAddr);
+            connectFuture.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    if (!future.isSuccess()) {
+                        remove(Connection.this);
+                    }
+                }
+            });
+        }
+
+        void acquire() {
+            if (idleTimeoutFuture != null) {
+                idleTimeoutFuture.cancel(false);
+                idleTimeoutFuture = null;
+            }
+            queries++;
+        }
+
+        void release() {
+            if (--queries == 0 && connectFuture.channel().isActive()) {
+                idleTimeoutFuture = connectFuture.channel().eventLoop().schedule(
+                        this, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+
+        void add(final TcpDnsQueryContext tcpCtx,
+                 Promise<AddressedEnvelope<DnsResponse, InetSocketAddress>> promise) {
+            inFlight.add(tcpCtx);
+            promise.addListener(new FutureListener<AddressedEnvelope<DnsResponse, InetSocketAddress>>() {
+                @Override
+                public void operationComplete(Future<AddressedEnvelope<DnsResponse, InetSocketAddress>> future) {
+                    inFlight.remove(tcpCtx);
+                    release();
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+            // Idle for too long.
+            idleTimeoutFuture = null;
+            if (queries == 0) {
+                remove(this);
+                connectFuture.channel().close();
+            }
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            Channel channel = ctx.channel();
+            DnsResponse response = (DnsResponse) msg;
+            int queryId = response.id();
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} RECEIVED: TCP [{}: {}], {}", channel, queryId, nameServerAddr, response);
+            }
+
+            DnsQueryContext foundCtx = parent.queryContextManager.get(nameServerAddr, queryId);
+            if (foundCtx instanceof TcpDnsQueryContext && ((TcpDnsQueryContext) foundCtx).channel() == channel) {
+                foundCtx.finish(new DnsNameResolver.AddressedEnvelopeAdapter(
+                        (InetSocketAddress) channel.remoteAddress(), (InetSocketAddress) channel.localAddress(),
+                        response));
+            } else {
+                response.release();
+                logger.debug("Received a DNS response with an unexpected ID: TCP [{}: {}]", channel, queryId);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            remove(this);
+            if (idleTimeoutFuture != null) {
+                idleTimeoutFuture.cancel(false);
+                idleTimeoutFuture = null;
+            }
+            // Copy as failing a query removes it from the list.
+            for (TcpDnsQueryContext tcpCtx : new ArrayList<TcpDnsQueryContext>(inFlight)) {
+                tcpCtx.tryFailure("TCP connection closed", null, false);
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} Error during processing response: TCP [{}]", ctx.channel(), nameServerAddr, cause);
+            }
+            // The stream can't be trusted anymore, fail all queries in flight by closing the connection.
+            ctx.close();
+        }
+    }
+}
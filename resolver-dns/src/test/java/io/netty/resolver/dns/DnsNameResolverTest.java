@@ -71,8 +71,10 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.DatagramSocket;
 import java.net.Inet4Address;
 import java.net.InetAddress;
@@ -2077,6 +2079,57 @@ public class DnsNameResolverTest {
         }
     }
 
+    private static final class TestDnsCacheQueryLifecycleObserver implements DnsCacheQueryLifecycleObserver {
+        private final AtomicInteger cacheHits;
+        private final AtomicInteger cacheMisses;
+
+        TestDnsCacheQueryLifecycleObserver(AtomicInteger cacheHits, AtomicInteger cacheMisses) {
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+        }
+
+        @Override
+        public void queryCacheHit() {
+            cacheHits.incrementAndGet();
+        }
+
+        @Override
+        public void queryCacheMiss() {
+            cacheMisses.incrementAndGet();
+        }
+
+        @Override
+        public void queryWritten(InetSocketAddress dnsServerAddress, ChannelFuture future) {
+        }
+
+        @Override
+        public void queryCancelled(int queriesRemaining) {
+        }
+
+        @Override
+        public DnsQueryLifecycleObserver queryRedirected(List<InetSocketAddress> nameServers) {
+            return this;
+        }
+
+        @Override
+        public DnsQueryLifecycleObserver queryCNAMEd(DnsQuestion cnameQuestion) {
+            return this;
+        }
+
+        @Override
+        public DnsQueryLifecycleObserver queryNoAnswer(DnsResponseCode code) {
+            return this;
+        }
+
+        @Override
+        public void queryFailed(Throwable cause) {
+        }
+
+        @Override
+        public void querySucceed() {
+        }
+    }
+
     private static final class QueryWrittenEvent {
         final InetSocketAddress dnsServerAddress;
 
@@ -2511,6 +2564,30 @@ public class DnsNameResolverTest {
         }
     }
 
+    @Test
+    public void testCacheHitsAndMissesAreObserved() throws Exception {
+        final AtomicInteger cacheHits = new AtomicInteger();
+        final AtomicInteger cacheMisses = new AtomicInteger();
+        ShardedDnsCache cache = new ShardedDnsCache();
+        DnsNameResolver resolver = newResolver(ResolvedAddressTypes.IPV4_ONLY).resolveCache(cache)
+                .dnsQueryLifecycleObserverFactory(new DnsCacheQueryLifecycleObserverFactory() {
+                    @Override
+                    public DnsCacheQueryLifecycleObserver newDnsQueryLifecycleObserver(DnsQuestion question) {
+                        return new TestDnsCacheQueryLifecycleObserver(cacheHits, cacheMisses);
+                    }
+                }).build();
+        try {
+            InetAddress address = resolver.resolve("google.com").syncUninterruptibly().getNow();
+            assertEquals(address, resolver.resolve("google.com").syncUninterruptibly().getNow());
+            assertEquals(1, cacheHits.get());
+            assertEquals(1, cacheMisses.get());
+            assertEquals(1, cache.hits());
+            assertEquals(1, cache.misses());
+        } finally {
+            resolver.close();
+        }
+    }
+
     @Test
     @Timeout(value = 2000, unit = TimeUnit.MILLISECONDS)
     public void testCachesClearedOnClose() throws Exception {
@@ -3075,12 +3152,10 @@ public class DnsNameResolverTest {
         return modifier;
     }
 
-    private static void testTruncated0(boolean tcpFallback, final boolean truncatedBecauseOfMtu) throws IOException {
-        final String host = "somehost.netty.io";
-        final String txt = "this is a txt record";
-        final AtomicReference<DnsMessage> messageRef = new AtomicReference<DnsMessage>();
-
-        TestDnsServer dnsServer2 = new TestDnsServer(new RecordStore() {
+    private static TestDnsServer newTruncatingDnsServer(final String host, final String txt,
+                                                        final AtomicReference<DnsMessage> messageRef,
+                                                        final boolean truncatedBecauseOfMtu) {
+        return new TestDnsServer(new RecordStore() {
             @Override
             public Set<ResourceRecord> getRecords(QuestionRecord question) {
                 String name = question.getDomainName();
@@ -3107,6 +3182,100 @@ public class DnsNameResolverTest {
                 return message;
             }
         };
+    }
+
+    private static int readTcpQueryId(DataInputStream in) throws IOException {
+        byte[] query = new byte[in.readUnsignedShort()];
+        in.readFully(query);
+        return (query[0] & 0xff) << 8 | query[1] & 0xff;
+    }
+
+    private static void writeTcpResponse(OutputStream out, DnsMessage message, int txnId) throws IOException {
+        IoBuffer ioBuffer = IoBuffer.allocate(1024);
+        // Must replace the transactionId with the one from the TCP request
+        DnsMessageModifier modifier = modifierFrom(message);
+        modifier.setTransactionId(txnId);
+        new DnsMessageEncoder().encode(ioBuffer, modifier.getDnsMessage());
+        ioBuffer.flip();
+
+        byte[] response = new byte[ioBuffer.remaining() + 2];
+        response[0] = (byte) (ioBuffer.remaining() >>> 8);
+        response[1] = (byte) ioBuffer.remaining();
+        ioBuffer.get(response, 2, response.length - 2);
+        out.write(response);
+        out.flush();
+    }
+
+    private static void assertTcpTxtResponse(Future<AddressedEnvelope<DnsResponse, InetSocketAddress>> future,
+                                             String txt) {
+        AddressedEnvelope<DnsResponse, InetSocketAddress> envelope = future.syncUninterruptibly().getNow();
+        DnsResponse response = envelope.content();
+        assertEquals(DnsResponseCode.NOERROR, response.code());
+        assertFalse(response.isTruncated());
+        assertEquals(1, response.count(DnsSection.ANSWER));
+        assertEquals(Collections.singletonList(txt), decodeTxt(response.recordAt(DnsSection.ANSWER, 0)));
+        assertTrue(envelope.release());
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testTruncatedWithPooledTcpFallback() throws IOException {
+        final String host = "somehost.netty.io";
+        final String txt = "this is a txt record";
+        AtomicReference<DnsMessage> messageRef = new AtomicReference<DnsMessage>();
+
+        TestDnsServer dnsServer2 = newTruncatingDnsServer(host, txt, messageRef, false);
+        dnsServer2.start();
+        DnsNameResolver resolver = null;
+        ServerSocket serverSocket = new ServerSocket();
+        try {
+            serverSocket.setReuseAddress(true);
+            serverSocket.bind(new InetSocketAddress(dnsServer2.localAddress().getPort()));
+            resolver = newResolver()
+                    .queryTimeoutMillis(10000)
+                    .resolvedAddressTypes(ResolvedAddressTypes.IPV4_PREFERRED)
+                    .maxQueriesPerResolve(16)
+                    .nameServerProvider(new SingletonDnsServerAddressStreamProvider(dnsServer2.localAddress()))
+                    .socketChannelType(NioSocketChannel.class)
+                    .maxTcpConnectionsPerNameServer(1)
+                    .build();
+            DnsQuestion question = new DefaultDnsQuestion(host, DnsRecordType.TXT);
+            Future<AddressedEnvelope<DnsResponse, InetSocketAddress>> first = resolver.query(question);
+            Future<AddressedEnvelope<DnsResponse, InetSocketAddress>> second = resolver.query(question);
+
+            // Both queries are pipelined over a single connection, a second one would never be accepted.
+            Socket socket = serverSocket.accept();
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            int firstId = readTcpQueryId(in);
+            int secondId = readTcpQueryId(in);
+
+            // The responses are matched by their ID, so they may arrive in any order.
+            writeTcpResponse(out, messageRef.get(), secondId);
+            writeTcpResponse(out, messageRef.get(), firstId);
+            assertTcpTxtResponse(first, txt);
+            assertTcpTxtResponse(second, txt);
+
+            // The connection is reused by later queries.
+            Future<AddressedEnvelope<DnsResponse, InetSocketAddress>> third = resolver.query(question);
+            writeTcpResponse(out, messageRef.get(), readTcpQueryId(in));
+            assertTcpTxtResponse(third, txt);
+            socket.close();
+        } finally {
+            serverSocket.close();
+            dnsServer2.stop();
+            if (resolver != null) {
+                resolver.close();
+            }
+        }
+    }
+
+    private static void testTruncated0(boolean tcpFallback, final boolean truncatedBecauseOfMtu) throws IOException {
+        final String host = "somehost.netty.io";
+        final String txt = "this is a txt record";
+        final AtomicReference<DnsMessage> messageRef = new AtomicReference<DnsMessage>();
+
+        TestDnsServer dnsServer2 = newTruncatingDnsServer(host, txt, messageRef, truncatedBecauseOfMtu);
         dnsServer2.start();
         DnsNameResolver resolver = null;
         ServerSocket serverSocket = null;
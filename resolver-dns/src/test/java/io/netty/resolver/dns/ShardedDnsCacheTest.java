@@ -0,0 +1,207 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.resolver.dns;
+
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.codec.dns.DefaultDnsOptEcsRecord;
+import io.netty.handler.codec.dns.DnsRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShardedDnsCacheTest {
+
+    private EventLoopGroup group;
+    private EventLoop loop;
+
+    @BeforeEach
+    public void setUp() {
+        group = new DefaultEventLoopGroup(1);
+        loop = group.next();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        group.shutdownGracefully();
+    }
+
+    private static InetAddress address(int i) throws UnknownHostException {
+        return InetAddress.getByAddress(new byte[] { 10, 0, 0, (byte) i });
+    }
+
+    @Test
+    public void testExpire() throws Exception {
+        ShardedDnsCache cache = new ShardedDnsCache();
+        cache.cache("netty.io", null, address(1), 1, loop);
+        cache.cache("netty.io", null, address(2), 10000, loop);
+        assertEquals(2, cache.get("netty.io", null).size());
+
+        Thread.sleep(1100);
+        // All entries of a hostname expire with the first one.
+        assertNull(cache.get("netty.io", null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSweep() throws Exception {
+        ShardedDnsCache cache = new ShardedDnsCache();
+        cache.cache("netty.io", null, address(1), 1, loop);
+        cache.cache("example.com", null, address(2), 10000, loop);
+        assertEquals(2, cache.size());
+
+        Thread.sleep(1100);
+        cache.sweep();
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("example.com", null));
+    }
+
+    @Test
+    public void testMultipleAddresses() throws Exception {
+        ShardedDnsCache cache = new ShardedDnsCache();
+        cache.cache("netty.io", null, address(1), 10000, loop);
+        cache.cache("netty.io.", null, address(2), 10000, loop);
+        cache.cache("netty.io", null, address(1), 10000, loop);
+
+        List<? extends DnsCacheEntry> entries = cache.get("netty.io", null);
+        assertEquals(2, entries.size());
+        assertEquals(address(2), entries.get(0).address());
+        assertEquals(address(1), entries.get(1).address());
+        assertSame(entries, cache.get("netty.io.", null));
+    }
+
+    @Test
+    public void testFailureReplacesEntries() throws Exception {
+        ShardedDnsCache cache = new ShardedDnsCache(0, Cache.MAX_SUPPORTED_TTL_SECS, 10, 16, 0, 0);
+        cache.cache("netty.io", null, address(1), 10000, loop);
+        Exception cause = new Exception();
+        cache.cache("netty.io", null, cause, loop);
+
+        List<? extends DnsCacheEntry> entries = cache.get("netty.io", null);
+        assertEquals(1, entries.size());
+        assertSame(cause, entries.get(0).cause());
+
+        cache.cache("netty.io", null, address(1), 10000, loop);
+        entries = cache.get("netty.io", null);
+        assertEquals(1, entries.size());
+        assertEquals(address(1), entries.get(0).address());
+    }
+
+    @Test
+    public void testNoCachingWithAdditionals() throws Exception {
+        ShardedDnsCache cache = new ShardedDnsCache();
+        DnsCacheEntry entry = cache.cache("netty.io", new DnsRecord[] {
+                new DefaultDnsOptEcsRecord(1024, 24, address(1).getAddress())
+        }, address(1), 10000, loop);
+        assertEquals(address(1), entry.address());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws Exception {
+        // A single entry makes the cache use a single shard.
+        ShardedDnsCache cache = new ShardedDnsCache(0, Cache.MAX_SUPPORTED_TTL_SECS, 0, 1, 0, 0);
+        cache.cache("netty.io", null, address(1), 10000, loop);
+        cache.cache("example.com", null, address(2), 10000, loop);
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.evictions());
+        assertNull(cache.get("netty.io", null));
+        assertNotNull(cache.get("example.com", null));
+    }
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        ShardedDnsCache cache = new ShardedDnsCache();
+        assertNull(cache.get("netty.io", null));
+        cache.cache("netty.io", null, address(1), 10000, loop);
+        assertNotNull(cache.get("netty.io", null));
+        assertNotNull(cache.get("netty.io", null));
+
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        ShardedDnsCache cache = new ShardedDnsCache(0, Cache.MAX_SUPPORTED_TTL_SECS, 0, 16, 5, 2);
+        cache.cache("netty.io", null, address(1), 3, loop);
+        cache.cache("example.com", null, address(2), 10000, loop);
+
+        // Not popular enough yet.
+        assertNotNull(cache.get("netty.io", null));
+        assertFalse(cache.claimPrefetch("netty.io"));
+        assertNotNull(cache.get("netty.io", null));
+        assertTrue(cache.claimPrefetch("netty.io"));
+        // Only claimed once.
+        assertFalse(cache.claimPrefetch("netty.io"));
+        assertEquals(1, cache.prefetches());
+
+        // Not about to expire.
+        assertNotNull(cache.get("example.com", null));
+        assertNotNull(cache.get("example.com", null));
+        assertFalse(cache.claimPrefetch("example.com"));
+
+        // The prefetch does not see the cached entries and replaces them with its result.
+        DnsCache prefetchCache = cache.prefetchCache();
+        assertNull(prefetchCache.get("netty.io", null));
+        prefetchCache.cache("netty.io", null, address(3), 10000, loop);
+        List<? extends DnsCacheEntry> entries = cache.get("netty.io", null);
+        assertEquals(1, entries.size());
+        assertEquals(address(3), entries.get(0).address());
+    }
+
+    @Test
+    public void testFailedPrefetchKeepsEntries() throws Exception {
+        testFailedPrefetchKeepsEntries(10);
+    }
+
+    @Test
+    public void testFailedPrefetchKeepsEntriesWithoutNegativeCaching() throws Exception {
+        testFailedPrefetchKeepsEntries(0);
+    }
+
+    private void testFailedPrefetchKeepsEntries(int negativeTtl) throws Exception {
+        ShardedDnsCache cache = new ShardedDnsCache(0, Cache.MAX_SUPPORTED_TTL_SECS, negativeTtl, 16, 5, 1);
+        cache.cache("netty.io", null, address(1), 3, loop);
+        cache.cache("netty.io", null, address(2), 3, loop);
+        assertNotNull(cache.get("netty.io", null));
+        assertTrue(cache.claimPrefetch("netty.io"));
+
+        Exception cause = new Exception();
+        assertSame(cause, cache.prefetchCache().cache("netty.io", null, cause, loop).cause());
+        List<? extends DnsCacheEntry> entries = cache.get("netty.io", null);
+        assertEquals(2, entries.size());
+        assertEquals(address(1), entries.get(0).address());
+        assertEquals(address(2), entries.get(1).address());
+
+        // The entries can be prefetched again.
+        assertTrue(cache.claimPrefetch("netty.io"));
+        assertEquals(2, cache.prefetches());
+    }
+}
@@ -17,6 +17,7 @@ package io.netty.testsuite_native;
 
 import io.netty.channel.epoll.Epoll;
 import io.netty.channel.kqueue.KQueue;
+import io.netty.channel.uring.IOUring;
 import io.netty.resolver.dns.macos.MacOSDnsServerAddressStreamProvider;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledOnOs;
@@ -41,4 +42,10 @@ public class NativeLoadingTest {
     public void testNativeLoadingEpoll() {
         Epoll.ensureAvailability();
     }
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    public void testNativeLoadingIOUring() {
+        IOUring.ensureAvailability();
+    }
 }
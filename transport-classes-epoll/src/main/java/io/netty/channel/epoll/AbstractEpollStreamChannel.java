@@ -61,6 +61,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             " (expected: " + StringUtil.simpleClassName(ByteBuf.class) + ", " +
                     StringUtil.simpleClassName(DefaultFileRegion.class) + ')';
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(AbstractEpollStreamChannel.class);
+    private static final int ZERO_COPY_COMPLETIONS_ON_CLOSE = 3 * 16;
 
     private final Runnable flushTask = new Runnable() {
         @Override
@@ -77,6 +78,8 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
     private FileDescriptor pipeOut;
 
     private WritableByteChannel byteChannel;
+    private ZeroCopyWriteQueue zeroCopyWrites;
+    private boolean zeroCopyCopied;
 
     protected AbstractEpollStreamChannel(Channel parent, int fd) {
         this(parent, new LinuxSocket(fd));
@@ -256,6 +259,12 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             return 0;
         }
 
+        if (isZeroCopyPartial(buf)) {
+            return writePartialZeroCopy(in, buf);
+        }
+        if (buf.hasMemoryAddress() && isZeroCopyWrite(readableBytes)) {
+            return writeBytesZeroCopy(in, buf);
+        }
         if (buf.hasMemoryAddress() || buf.nioBufferCount() == 1) {
             return doWriteBytes(in, buf);
         } else {
@@ -265,6 +274,120 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
     }
 
+    /**
+     * Write bytes from the given {@link ByteBuf} using {@code MSG_ZEROCOPY}.
+     * @see #writeBytes(ChannelOutboundBuffer, ByteBuf)
+     */
+    private int writeBytesZeroCopy(ChannelOutboundBuffer in, ByteBuf buf) throws Exception {
+        final int localWrittenBytes = socket.sendAddressZeroCopy(
+                buf.memoryAddress(), buf.readerIndex(), buf.writerIndex());
+        if (localWrittenBytes == Native.ERRNO_ENOBUFS_NEGATIVE) {
+            // The pages could not be pinned, so just copy the data.
+            return doWriteBytes(in, buf);
+        }
+        if (localWrittenBytes > 0) {
+            removeZeroCopyBytes(in, localWrittenBytes);
+            return 1;
+        }
+        return WRITE_STATUS_SNDBUF_FULL;
+    }
+
+    /**
+     * Returns {@code true} if a write of {@code bytes} bytes should use {@code MSG_ZEROCOPY}.
+     */
+    private boolean isZeroCopyWrite(long bytes) {
+        if (zeroCopyCopied) {
+            return false;
+        }
+        int threshold = zeroCopyThreshold();
+        return threshold >= 0 && bytes >= threshold;
+    }
+
+    /**
+     * Returns {@code true} if parts of the given {@link ByteBuf} were already sent with {@code MSG_ZEROCOPY}. The
+     * rest must be sent the same way, as its promise would be notified before the kernel is done with its memory
+     * otherwise.
+     */
+    private boolean isZeroCopyPartial(ByteBuf buf) {
+        return zeroCopyWrites != null && zeroCopyWrites.isPartial(buf);
+    }
+
+    /**
+     * Writes the rest of a {@link ByteBuf} of which parts were already sent with {@code MSG_ZEROCOPY}, and nothing
+     * else.
+     */
+    private int writePartialZeroCopy(ChannelOutboundBuffer in, ByteBuf buf) throws IOException {
+        IovArray array = ((EpollEventLoop) eventLoop()).cleanIovArray();
+        array.add(buf, buf.readerIndex(), buf.readableBytes());
+        return writeBytesMultipleZeroCopy(in, array);
+    }
+
+    /**
+     * Returns the minimum number of bytes a write must have to be sent with {@code MSG_ZEROCOPY}, or {@code -1} if
+     * {@code MSG_ZEROCOPY} should not be used.
+     */
+    int zeroCopyThreshold() {
+        return -1;
+    }
+
+    /**
+     * Like {@link ChannelOutboundBuffer#removeBytes(long)}, but hands the written messages over to the
+     * {@link ZeroCopyWriteQueue} instead of releasing them, as the kernel may still read from their memory.
+     */
+    private void removeZeroCopyBytes(ChannelOutboundBuffer in, long writtenBytes) {
+        ZeroCopyWriteQueue writes = zeroCopyWrites;
+        if (writes == null) {
+            zeroCopyWrites = writes = new ZeroCopyWriteQueue();
+        }
+        final int sequence = writes.nextSequence();
+        for (;;) {
+            final ByteBuf buf = (ByteBuf) in.current();
+            final int readerIndex = buf.readerIndex();
+            final int readableBytes = buf.writerIndex() - readerIndex;
+
+            if (readableBytes <= writtenBytes) {
+                in.progress(readableBytes);
+                writtenBytes -= readableBytes;
+                ChannelPromise promise = in.detachCurrent();
+                if (promise != null) {
+                    writes.add(buf, promise, sequence);
+                }
+                if (writtenBytes == 0) {
+                    break;
+                }
+            } else {
+                buf.readerIndex(readerIndex + (int) writtenBytes);
+                in.progress(writtenBytes);
+                // Keep the memory alive until this send completes, the rest is written later.
+                writes.add(buf.retain(), null, sequence);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Completes the {@code MSG_ZEROCOPY} writes the kernel is done with. Called by the {@link EpollEventLoop} when
+     * {@code EPOLLERR} is signalled, as completions are delivered via the error queue of the socket.
+     *
+     * @param completions the array to read the completion notifications into.
+     */
+    final void processZeroCopyCompletions(int[] completions) {
+        ZeroCopyWriteQueue writes = zeroCopyWrites;
+        if (writes == null || writes.isEmpty()) {
+            return;
+        }
+        try {
+            if (writes.drain(socket, completions) && !zeroCopyCopied) {
+                // The kernel had to copy the data anyway (e.g. loopback), so MSG_ZEROCOPY only adds overhead.
+                zeroCopyCopied = true;
+                logger.debug("MSG_ZEROCOPY sends of {} were copied, disabling zero copy for it", this);
+            }
+        } catch (IOException e) {
+            // Any error of the socket itself is reported by the next read or write.
+            logger.debug("Failed to read MSG_ZEROCOPY completions of {}", this, e);
+        }
+    }
+
     private void adjustMaxBytesPerGatheringWrite(long attempted, long written, long oldMaxBytesPerGatheringWrite) {
         // By default we track the SO_SNDBUF when ever it is explicitly set. However some OSes may dynamically change
         // SO_SNDBUF (and other characteristics that determine how much data can be written at once) so we should try
@@ -308,6 +431,29 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         return WRITE_STATUS_SNDBUF_FULL;
     }
 
+    /**
+     * Write multiple bytes via {@link IovArray} using {@code MSG_ZEROCOPY}.
+     * @see #writeBytesMultiple(ChannelOutboundBuffer, IovArray)
+     */
+    private int writeBytesMultipleZeroCopy(ChannelOutboundBuffer in, IovArray array) throws IOException {
+        final long expectedWrittenBytes = array.size();
+        final long localWrittenBytes = socket.writevAddressesZeroCopy(array.memoryAddress(0), array.count());
+        if (localWrittenBytes == Native.ERRNO_ENOBUFS_NEGATIVE) {
+            if (isZeroCopyPartial((ByteBuf) in.current())) {
+                // The rest of a partly sent buffer must not be copied, try again once completions freed some memory.
+                return WRITE_STATUS_SNDBUF_FULL;
+            }
+            // The pages could not be pinned, so just copy the data.
+            return writeBytesMultiple(in, array);
+        }
+        if (localWrittenBytes > 0) {
+            adjustMaxBytesPerGatheringWrite(expectedWrittenBytes, localWrittenBytes, array.maxBytes());
+            removeZeroCopyBytes(in, localWrittenBytes);
+            return 1;
+        }
+        return WRITE_STATUS_SNDBUF_FULL;
+    }
+
     /**
      * Write multiple bytes via {@link ByteBuffer} array.
      * @param in the collection which contains objects to write.
@@ -506,6 +652,14 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         in.forEachFlushedMessage(array);
 
         if (array.count() >= 1) {
+            if (isZeroCopyWrite(array.size())) {
+                return writeBytesMultipleZeroCopy(in, array);
+            }
+            ByteBuf first = (ByteBuf) in.current();
+            if (isZeroCopyPartial(first)) {
+                // Only finish the partly sent buffer with MSG_ZEROCOPY.
+                return writePartialZeroCopy(in, first);
+            }
             // TODO: Handle the case where cnt == 1 specially.
             return writeBytesMultiple(in, array);
         }
@@ -667,6 +821,21 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
     @Override
     protected void doClose() throws Exception {
+        ZeroCopyWriteQueue writes = zeroCopyWrites;
+        LinuxSocket zeroCopySocket = null;
+        if (writes != null && !writes.isEmpty()) {
+            // Pick up the completions that already arrived.
+            processZeroCopyCompletions(new int[ZERO_COPY_COMPLETIONS_ON_CLOSE]);
+            if (!writes.isEmpty()) {
+                // Keep the socket open, as the remaining completions can not be read anymore once it is closed.
+                try {
+                    zeroCopySocket = socket.duplicate();
+                } catch (IOException e) {
+                    logger.debug("Failed to keep {} open until its MSG_ZEROCOPY sends complete", this, e);
+                    ZeroCopyWriteQueue.reset(socket);
+                }
+            }
+        }
         try {
             // Calling super.doClose() first so spliceTo(...) will fail on next call.
             super.doClose();
@@ -674,6 +843,17 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             safeClosePipe(pipeIn);
             safeClosePipe(pipeOut);
             clearSpliceQueue();
+            if (zeroCopySocket != null) {
+                // Closing our file descriptor does not close the socket anymore, so shut it down like close() would.
+                try {
+                    zeroCopySocket.shutdown();
+                } catch (IOException e) {
+                    logger.debug("Failed to shutdown {} with MSG_ZEROCOPY sends in progress", this, e);
+                }
+                writes.closeWhenCompleted(zeroCopySocket, eventLoop());
+            } else if (writes != null && !writes.isEmpty()) {
+                writes.failAfterGracePeriod(eventLoop());
+            }
         }
     }
 
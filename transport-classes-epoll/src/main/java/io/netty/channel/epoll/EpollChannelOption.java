@@ -47,6 +47,17 @@ public final class EpollChannelOption<T> extends UnixChannelOption<T> {
             ChannelOption.valueOf(EpollChannelOption.class, "TCP_DEFER_ACCEPT");
     public static final ChannelOption<Boolean> TCP_QUICKACK = valueOf(EpollChannelOption.class, "TCP_QUICKACK");
     public static final ChannelOption<Integer> SO_BUSY_POLL = valueOf(EpollChannelOption.class, "SO_BUSY_POLL");
+    /**
+     * Enables {@code SO_ZEROCOPY} on the socket, so that writes of at least {@link #ZEROCOPY_THRESHOLD} bytes are sent
+     * with {@code MSG_ZEROCOPY}. Requires Linux kernel 4.14 or later.
+     */
+    public static final ChannelOption<Boolean> SO_ZEROCOPY = valueOf(EpollChannelOption.class, "SO_ZEROCOPY");
+    /**
+     * The minimum number of bytes a write must have to be sent with {@code MSG_ZEROCOPY} once {@link #SO_ZEROCOPY}
+     * is enabled.
+     */
+    public static final ChannelOption<Integer> ZEROCOPY_THRESHOLD =
+            valueOf(EpollChannelOption.class, "ZEROCOPY_THRESHOLD");
 
     public static final ChannelOption<EpollMode> EPOLL_MODE =
             ChannelOption.valueOf(EpollChannelOption.class, "EPOLL_MODE");
@@ -55,6 +66,7 @@ public final class EpollChannelOption<T> extends UnixChannelOption<T> {
 
     public static final ChannelOption<Integer> MAX_DATAGRAM_PAYLOAD_SIZE = valueOf("MAX_DATAGRAM_PAYLOAD_SIZE");
     public static final ChannelOption<Boolean> UDP_GRO = valueOf("UDP_GRO");
+    public static final ChannelOption<Integer> MAX_DATAGRAMS_PER_RECVMMSG = valueOf("MAX_DATAGRAMS_PER_RECVMMSG");
 
     @SuppressWarnings({ "unused", "deprecation" })
     private EpollChannelOption() {
@@ -30,6 +30,7 @@ import io.netty.channel.socket.DatagramPacket;
 import io.netty.channel.socket.InternetProtocolFamily;
 import io.netty.channel.unix.Errors;
 import io.netty.channel.unix.Errors.NativeIoException;
+import io.netty.channel.unix.Limits;
 import io.netty.channel.unix.Socket;
 import io.netty.channel.unix.UnixChannelUtil;
 import io.netty.util.ReferenceCountUtil;
@@ -64,6 +65,8 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
 
     private final EpollDatagramChannelConfig config;
     private volatile boolean connected;
+    // Only used by the EventLoop to hold the buffers of a batchedRead(...).
+    private ByteBuf[] batchBuffers;
 
     /**
      * Returns {@code true} if {@link io.netty.channel.unix.SegmentedDatagramPacket} is supported natively.
@@ -480,23 +483,29 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                     do {
                         final boolean read;
                         int datagramSize = config().getMaxDatagramPayloadSize();
-
-                        ByteBuf byteBuf = allocHandle.allocate(allocator);
                         // Only try to use recvmmsg if its really supported by the running system.
-                        int numDatagram = Native.IS_SUPPORTING_RECVMMSG ?
-                                datagramSize == 0 ? 1 : byteBuf.writableBytes() / datagramSize :
-                                0;
+                        int batchSize = Native.IS_SUPPORTING_RECVMMSG ?
+                                Math.min(config.getMaxDatagramsPerRecvmmsg(), Limits.UIO_MAX_IOV) : 0;
                         try {
-                            if (numDatagram <= 1) {
-                                if (!connected || config.isUdpGro()) {
-                                    read = recvmsg(allocHandle, cleanDatagramPacketArray(), byteBuf);
+                            if (batchSize > 1) {
+                                // Read multiple datagrams, each into its own buffer, via recvmmsg(...) syscall.
+                                read = batchedRead(allocHandle, cleanDatagramPacketArray(), allocator, batchSize);
+                            } else {
+                                ByteBuf byteBuf = allocHandle.allocate(allocator);
+                                int numDatagram = Native.IS_SUPPORTING_RECVMMSG ?
+                                        datagramSize == 0 ? 1 : byteBuf.writableBytes() / datagramSize :
+                                        0;
+                                if (numDatagram <= 1) {
+                                    if (!connected || config.isUdpGro()) {
+                                        read = recvmsg(allocHandle, cleanDatagramPacketArray(), byteBuf);
+                                    } else {
+                                        read = connectedRead(allocHandle, byteBuf, datagramSize);
+                                    }
                                 } else {
-                                    read = connectedRead(allocHandle, byteBuf, datagramSize);
+                                    // Try to use scattering reads via recvmmsg(...) syscall.
+                                    read = scatteringRead(allocHandle, cleanDatagramPacketArray(),
+                                            byteBuf, datagramSize, numDatagram);
                                 }
-                            } else {
-                                // Try to use scattering reads via recvmmsg(...) syscall.
-                                read = scatteringRead(allocHandle, cleanDatagramPacketArray(),
-                                        byteBuf, datagramSize, numDatagram);
                             }
                         } catch (NativeIoException e) {
                             if (connected) {
@@ -726,6 +735,70 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
         }
     }
 
+    private boolean batchedRead(EpollRecvByteAllocatorHandle allocHandle, NativeDatagramPacketArray array,
+                                ByteBufAllocator allocator, int batchSize) throws IOException {
+        ByteBuf[] buffers = batchBuffers;
+        if (buffers == null || buffers.length < batchSize) {
+            batchBuffers = buffers = new ByteBuf[batchSize];
+        }
+        int numBuffers = 0;
+        RecyclableArrayList datagramPackets = null;
+        try {
+            int attempted = 0;
+            while (numBuffers < batchSize) {
+                ByteBuf byteBuf = allocHandle.allocate(allocator);
+                int writable = byteBuf.writableBytes();
+                if (writable == 0 || !array.addWritable(byteBuf, byteBuf.writerIndex(), writable)) {
+                    byteBuf.release();
+                    break;
+                }
+                buffers[numBuffers++] = byteBuf;
+                attempted = Math.max(attempted, writable);
+            }
+            if (numBuffers == 0) {
+                return false;
+            }
+            // The RecvByteBufAllocator sizes the buffers for a single datagram and not for the whole batch, so
+            // report the largest datagram the batch could take.
+            allocHandle.attemptedBytesRead(attempted);
+
+            NativeDatagramPacketArray.NativeDatagramPacket[] packets = array.packets();
+            int received = socket.recvmmsg(packets, 0, array.count());
+            if (received == 0) {
+                allocHandle.lastBytesRead(-1);
+                return false;
+            }
+
+            // Its important that we process all received data out of the NativeDatagramPacketArray
+            // before we call fireChannelRead(...). This is because the user may call flush()
+            // in a channelRead(...) method and so may re-use the NativeDatagramPacketArray again.
+            InetSocketAddress local = localAddress();
+            datagramPackets = RecyclableArrayList.newInstance(received);
+            int maxBytesReceived = 0;
+            for (int i = 0; i < received; i++) {
+                DatagramPacket packet = packets[i].newDatagramPacket(buffers[i], local);
+                // The packet (or the slices of it when UDP_GRO was used) now owns the buffer.
+                buffers[i] = null;
+                maxBytesReceived = Math.max(maxBytesReceived, packet.content().readableBytes());
+                addDatagramPacketToOut(packet, datagramPackets);
+            }
+
+            processPacketList(pipeline(), allocHandle, maxBytesReceived, datagramPackets);
+            datagramPackets.recycle();
+            datagramPackets = null;
+            return true;
+        } finally {
+            for (int i = 0; i < numBuffers; i++) {
+                ByteBuf byteBuf = buffers[i];
+                if (byteBuf != null) {
+                    byteBuf.release();
+                    buffers[i] = null;
+                }
+            }
+            releaseAndRecycle(null, datagramPackets);
+        }
+    }
+
     private NativeDatagramPacketArray cleanDatagramPacketArray() {
         return ((EpollEventLoop) eventLoop()).cleanDatagramPacketArray();
     }
@@ -35,6 +35,7 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
     private static final RecvByteBufAllocator DEFAULT_RCVBUF_ALLOCATOR = new FixedRecvByteBufAllocator(2048);
     private boolean activeOnOpen;
     private volatile int maxDatagramSize;
+    private volatile int maxDatagramsPerRecvmmsg;
 
     EpollDatagramChannelConfig(EpollDatagramChannel channel) {
         super(channel);
@@ -52,7 +53,7 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
                 ChannelOption.IP_TOS, ChannelOption.DATAGRAM_CHANNEL_ACTIVE_ON_REGISTRATION,
                 EpollChannelOption.SO_REUSEPORT, EpollChannelOption.IP_FREEBIND, EpollChannelOption.IP_TRANSPARENT,
                 EpollChannelOption.IP_RECVORIGDSTADDR, EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE,
-                EpollChannelOption.UDP_GRO);
+                EpollChannelOption.UDP_GRO, EpollChannelOption.MAX_DATAGRAMS_PER_RECVMMSG);
     }
 
     @SuppressWarnings({ "unchecked", "deprecation" })
@@ -106,6 +107,9 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
         if (option == EpollChannelOption.UDP_GRO) {
             return (T) Boolean.valueOf(isUdpGro());
         }
+        if (option == EpollChannelOption.MAX_DATAGRAMS_PER_RECVMMSG) {
+            return (T) Integer.valueOf(getMaxDatagramsPerRecvmmsg());
+        }
         return super.getOption(option);
     }
 
@@ -146,6 +150,8 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
             setMaxDatagramPayloadSize((Integer) value);
         } else if (option == EpollChannelOption.UDP_GRO) {
             setUdpGro((Boolean) value);
+        } else if (option == EpollChannelOption.MAX_DATAGRAMS_PER_RECVMMSG) {
+            setMaxDatagramsPerRecvmmsg((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -560,6 +566,28 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
         return gro;
     }
 
+    /**
+     * Set the maximum number of {@link io.netty.channel.socket.DatagramPacket}s to read with one {@code recvmmsg}
+     * call. Each of them is read into its own {@link ByteBuf} returned by the used {@link RecvByteBufAllocator}, so
+     * unlike {@link #setMaxDatagramPayloadSize(int)} this works with datagrams of any size, including the ones
+     * coalesced by {@code UDP_GRO}, which are split into {@link io.netty.channel.socket.DatagramPacket}s without
+     * copying. Use {@code 0} or {@code 1} to disable the usage of {@code recvmmsg} for this purpose. The value is
+     * capped at {@code UIO_MAX_IOV}.
+     */
+    public EpollDatagramChannelConfig setMaxDatagramsPerRecvmmsg(int maxDatagramsPerRecvmmsg) {
+        this.maxDatagramsPerRecvmmsg = ObjectUtil.checkPositiveOrZero(
+                maxDatagramsPerRecvmmsg, "maxDatagramsPerRecvmmsg");
+        return this;
+    }
+
+    /**
+     * Get the maximum number of {@link io.netty.channel.socket.DatagramPacket}s to read with one {@code recvmmsg}
+     * call.
+     */
+    public int getMaxDatagramsPerRecvmmsg() {
+        return maxDatagramsPerRecvmmsg;
+    }
+
     @Override
     public EpollDatagramChannelConfig setMaxMessagesPerWrite(int maxMessagesPerWrite) {
         super.setMaxMessagesPerWrite(maxMessagesPerWrite);
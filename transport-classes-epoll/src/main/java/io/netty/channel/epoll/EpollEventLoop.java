@@ -51,12 +51,18 @@ class EpollEventLoop extends SingleThreadEventLoop {
         Epoll.ensureAvailability();
     }
 
+    /**
+     * Number of {@code MSG_ZEROCOPY} completion notifications that are read from a socket with one JNI call.
+     */
+    private static final int ZERO_COPY_COMPLETIONS_BATCH = 64;
+
     private final FileDescriptor epollFd;
     private final FileDescriptor eventFd;
     private final FileDescriptor timerFd;
     private final IntObjectMap<AbstractEpollChannel> channels = new IntObjectHashMap<AbstractEpollChannel>(4096);
     private final boolean allowGrowing;
     private final EpollEventArray events;
+    private final int[] zeroCopyCompletions = new int[3 * ZERO_COPY_COMPLETIONS_BATCH];
 
     // These are initialized on first use
     private IovArray iovArray;
@@ -321,7 +327,12 @@ class EpollEventLoop extends SingleThreadEventLoop {
                         if (pendingWakeup) {
                             // We are going to be immediately woken so no need to reset wakenUp
                             // or check for timerfd adjustment.
-                            strategy = epollWaitTimeboxed();
+                            beforeWait();
+                            try {
+                                strategy = epollWaitTimeboxed();
+                            } finally {
+                                afterWait();
+                            }
                             if (strategy != 0) {
                                 break;
                             }
@@ -342,6 +353,7 @@ class EpollEventLoop extends SingleThreadEventLoop {
                         nextWakeupNanos.set(curDeadlineNanos);
                         try {
                             if (!hasTasks()) {
+                                beforeWait();
                                 if (curDeadlineNanos == prevDeadlineNanos) {
                                     // No timer activity needed
                                     strategy = epollWaitNoTimerChange();
@@ -352,6 +364,7 @@ class EpollEventLoop extends SingleThreadEventLoop {
                                 }
                             }
                         } finally {
+                            afterWait();
                             // Try get() first to avoid much more expensive CAS in the case we
                             // were woken via the wakeup() method (submitted task)
                             if (nextWakeupNanos.get() == AWAKE || nextWakeupNanos.getAndSet(AWAKE) == AWAKE) {
@@ -465,6 +478,13 @@ class EpollEventLoop extends SingleThreadEventLoop {
                     // In either case epollOutReady() will do the correct thing (finish connecting, or fail
                     // the connection).
                     // See https://github.com/netty/netty/issues/3848
+                    // Completions of MSG_ZEROCOPY writes are delivered via the error queue of the socket and
+                    // signalled by EPOLLERR. Process them first so the written buffers are released before we write
+                    // more.
+                    if ((ev & Native.EPOLLERR) != 0 && ch instanceof AbstractEpollStreamChannel) {
+                        ((AbstractEpollStreamChannel) ch).processZeroCopyCompletions(zeroCopyCompletions);
+                    }
+
                     if ((ev & (Native.EPOLLERR | Native.EPOLLOUT)) != 0) {
                         // Force flush of data as the epoll is writable again
                         unsafe.epollOutReady();
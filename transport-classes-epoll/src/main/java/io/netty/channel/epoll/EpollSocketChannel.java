@@ -105,6 +105,11 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
         return config;
     }
 
+    @Override
+    int zeroCopyThreshold() {
+        return config.zeroCopyThresholdIfEnabled();
+    }
+
     @Override
     public ServerSocketChannel parent() {
         return (ServerSocketChannel) super.parent();
@@ -36,10 +36,19 @@ import static io.netty.channel.ChannelOption.SO_RCVBUF;
 import static io.netty.channel.ChannelOption.SO_REUSEADDR;
 import static io.netty.channel.ChannelOption.SO_SNDBUF;
 import static io.netty.channel.ChannelOption.TCP_NODELAY;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 
 public final class EpollSocketChannelConfig extends EpollChannelConfig implements SocketChannelConfig {
+    /**
+     * {@code MSG_ZEROCOPY} is generally only effective for writes larger than around 10 KB, as pinning the pages and
+     * processing the completion notification is more expensive than copying small writes.
+     */
+    private static final int DEFAULT_ZEROCOPY_THRESHOLD = 16 * 1024;
+
     private volatile boolean allowHalfClosure;
     private volatile boolean tcpFastopen;
+    private volatile boolean soZeroCopy;
+    private volatile int zeroCopyThreshold = DEFAULT_ZEROCOPY_THRESHOLD;
 
     /**
      * Creates a new instance.
@@ -61,7 +70,8 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
                 ALLOW_HALF_CLOSURE, EpollChannelOption.TCP_CORK, EpollChannelOption.TCP_NOTSENT_LOWAT,
                 EpollChannelOption.TCP_KEEPCNT, EpollChannelOption.TCP_KEEPIDLE, EpollChannelOption.TCP_KEEPINTVL,
                 EpollChannelOption.TCP_MD5SIG, EpollChannelOption.TCP_QUICKACK, EpollChannelOption.IP_TRANSPARENT,
-                ChannelOption.TCP_FASTOPEN_CONNECT, EpollChannelOption.SO_BUSY_POLL);
+                ChannelOption.TCP_FASTOPEN_CONNECT, EpollChannelOption.SO_BUSY_POLL, EpollChannelOption.SO_ZEROCOPY,
+                EpollChannelOption.ZEROCOPY_THRESHOLD);
     }
 
     @SuppressWarnings("unchecked")
@@ -121,6 +131,12 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         if (option == EpollChannelOption.SO_BUSY_POLL) {
             return (T) Integer.valueOf(getSoBusyPoll());
         }
+        if (option == EpollChannelOption.SO_ZEROCOPY) {
+            return (T) Boolean.valueOf(isSoZeroCopy());
+        }
+        if (option == EpollChannelOption.ZEROCOPY_THRESHOLD) {
+            return (T) Integer.valueOf(getZeroCopyThreshold());
+        }
         return super.getOption(option);
     }
 
@@ -168,6 +184,10 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
             setTcpFastOpenConnect((Boolean) value);
         } else if (option == EpollChannelOption.SO_BUSY_POLL) {
             setSoBusyPoll((Integer) value);
+        } else if (option == EpollChannelOption.SO_ZEROCOPY) {
+            setSoZeroCopy((Boolean) value);
+        } else if (option == EpollChannelOption.ZEROCOPY_THRESHOLD) {
+            setZeroCopyThreshold((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -569,6 +589,53 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         return tcpFastopen;
     }
 
+    /**
+     * Set the {@code SO_ZEROCOPY} option on the socket. When enabled, writes of at least
+     * {@link #getZeroCopyThreshold()} bytes are sent with {@code MSG_ZEROCOPY}: the kernel sends directly from the
+     * memory of the {@link io.netty.buffer.ByteBuf}, which is only released (and the write promise only notified)
+     * once the kernel signalled that it is done with it. See
+     * <a href="https://www.kernel.org/doc/html/latest/networking/msg_zerocopy.html">MSG_ZEROCOPY</a>.
+     */
+    public EpollSocketChannelConfig setSoZeroCopy(boolean soZeroCopy) {
+        try {
+            ((EpollSocketChannel) channel).socket.setSoZeroCopy(soZeroCopy);
+            this.soZeroCopy = soZeroCopy;
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns {@code true} if {@code SO_ZEROCOPY} is enabled, {@code false} otherwise.
+     */
+    public boolean isSoZeroCopy() {
+        return soZeroCopy;
+    }
+
+    /**
+     * Set the minimum number of bytes a write must have to be sent with {@code MSG_ZEROCOPY} if
+     * {@link #isSoZeroCopy()} is enabled.
+     */
+    public EpollSocketChannelConfig setZeroCopyThreshold(int zeroCopyThreshold) {
+        this.zeroCopyThreshold = checkPositiveOrZero(zeroCopyThreshold, "zeroCopyThreshold");
+        return this;
+    }
+
+    /**
+     * Returns the minimum number of bytes a write must have to be sent with {@code MSG_ZEROCOPY}.
+     */
+    public int getZeroCopyThreshold() {
+        return zeroCopyThreshold;
+    }
+
+    /**
+     * Returns the threshold for {@code MSG_ZEROCOPY} writes, or {@code -1} if {@code SO_ZEROCOPY} is disabled.
+     */
+    int zeroCopyThresholdIfEnabled() {
+        return soZeroCopy ? zeroCopyThreshold : -1;
+    }
+
     @Override
     public boolean isAllowHalfClosure() {
         return allowHalfClosure;
@@ -17,6 +17,7 @@ package io.netty.channel.epoll;
 
 import io.netty.channel.ChannelException;
 import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.unix.Errors;
 import io.netty.channel.unix.NativeInetAddress;
 import io.netty.channel.unix.PeerCredentials;
 import io.netty.channel.unix.Socket;
@@ -300,6 +301,70 @@ public final class LinuxSocket extends Socket {
         setUdpGro(intValue(), gro ? 1 : 0);
     }
 
+    boolean isSoZeroCopy() throws IOException {
+        return isSoZeroCopy(intValue()) != 0;
+    }
+
+    void setSoZeroCopy(boolean zeroCopy) throws IOException {
+        setSoZeroCopy(intValue(), zeroCopy ? 1 : 0);
+    }
+
+    /**
+     * Like {@link #writeAddress(long, int, int)} but uses {@code MSG_ZEROCOPY}, so the memory must not be reused until
+     * the kernel signalled the completion of the send via {@link #recvZeroCopyCompletions(int[])}.
+     *
+     * @return the number of bytes written, {@code 0} if the socket is not writable, or
+     * {@link Native#ERRNO_ENOBUFS_NEGATIVE} if the memory could not be pinned and the data must be written by copying.
+     */
+    int sendAddressZeroCopy(long memoryAddress, int pos, int limit) throws IOException {
+        int res = sendAddressZeroCopy(intValue(), memoryAddress, pos, limit);
+        if (res >= 0 || res == Native.ERRNO_ENOBUFS_NEGATIVE) {
+            return res;
+        }
+        return ioResult("sendAddressZeroCopy", res);
+    }
+
+    /**
+     * Like {@link #writevAddresses(long, int)} but uses {@code MSG_ZEROCOPY}.
+     *
+     * @see #sendAddressZeroCopy(long, int, int)
+     */
+    long writevAddressesZeroCopy(long memoryAddress, int length) throws IOException {
+        long res = writevAddressesZeroCopy(intValue(), memoryAddress, length);
+        if (res >= 0 || res == Native.ERRNO_ENOBUFS_NEGATIVE) {
+            return res;
+        }
+        return ioResult("writevAddressesZeroCopy", (int) res);
+    }
+
+    /**
+     * Reads {@code MSG_ZEROCOPY} completion notifications from the error queue of the socket. Each notification is
+     * stored as three consecutive ints: the first and last completed send, and {@code 1} if the kernel copied the
+     * data instead of sending it from the pinned memory.
+     *
+     * @return the number of ints that were filled in, which is equal to the length of the array (rounded down to a
+     * multiple of three) if there may be more notifications to read.
+     */
+    int recvZeroCopyCompletions(int[] completions) throws IOException {
+        int res = recvZeroCopyCompletions(intValue(), completions);
+        if (res >= 0) {
+            return res;
+        }
+        return ioResult("recvZeroCopyCompletions", res);
+    }
+
+    /**
+     * Returns a duplicate of the file descriptor of this socket, which keeps the socket open until it is closed as
+     * well, even if this {@link LinuxSocket} was closed before.
+     */
+    LinuxSocket duplicate() throws IOException {
+        int res = dup(intValue());
+        if (res < 0) {
+            throw Errors.newIOException("dup", res);
+        }
+        return new LinuxSocket(res);
+    }
+
     long sendFile(DefaultFileRegion src, long baseOffset, long offset, long length) throws IOException {
         // Open the file-region as it may be created via the lazy constructor. This is needed as we directly access
         // the FileChannel field via JNI.
@@ -409,4 +474,10 @@ public final class LinuxSocket extends Socket {
     private static native void setTimeToLive(int fd, int ttl) throws IOException;
     private static native int isUdpGro(int fd) throws IOException;
     private static native void setUdpGro(int fd, int gro) throws IOException;
+    private static native int isSoZeroCopy(int fd) throws IOException;
+    private static native void setSoZeroCopy(int fd, int zeroCopy) throws IOException;
+    private static native int sendAddressZeroCopy(int fd, long address, int pos, int limit);
+    private static native long writevAddressesZeroCopy(int fd, long memoryAddress, int length);
+    private static native int recvZeroCopyCompletions(int fd, int[] completions);
+    private static native int dup(int fd);
 }
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the {@link ByteBuf}s that were written with {@code MSG_ZEROCOPY} and so must not be released before
+ * the kernel notified us via the error queue that it is done with their memory.
+ * <p>
+ * The kernel numbers every successful {@code MSG_ZEROCOPY} send of a socket, starting at {@code 0}, and reports
+ * completions as ranges of these numbers. This class is not thread-safe and must only be used from the
+ * {@link EpollEventLoop} of the channel.
+ */
+final class ZeroCopyWriteQueue {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(ZeroCopyWriteQueue.class);
+    private static final int COMPLETIONS_ON_CLOSE = 3 * 16;
+    private static final long CLOSE_POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long CLOSE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    // Once the connection was reset, the kernel only keeps the packets that were handed to the network device already.
+    private static final long ABORT_GRACE_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ArrayDeque<PendingWrite> pending = new ArrayDeque<PendingWrite>();
+    private int nextSequence;
+    private ByteBuf partial;
+
+    /**
+     * Returns the number the kernel assigns to the next {@code MSG_ZEROCOPY} send, and advances it.
+     */
+    int nextSequence() {
+        return nextSequence++;
+    }
+
+    /**
+     * Returns {@code true} if parts of {@code buf} were already sent with {@code MSG_ZEROCOPY}, in which case the
+     * rest should be sent the same way so its {@link ChannelPromise} is not notified too early.
+     */
+    boolean isPartial(ByteBuf buf) {
+        return partial == buf;
+    }
+
+    /**
+     * Adds a buffer that was (partly) sent by the send with the given {@code sequence} number. The ownership of
+     * {@code buf} is transferred to this queue; {@code promise} may be {@code null} if more of the buffer is still to
+     * be written.
+     */
+    void add(ByteBuf buf, ChannelPromise promise, int sequence) {
+        pending.add(new PendingWrite(buf, promise, sequence));
+        partial = promise == null ? buf : null;
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Reads all completion notifications that arrived for {@code socket} and completes the writes they cover.
+     *
+     * @return {@code true} if the kernel copied the data of at least one of the sends.
+     * @see #complete(int[], int)
+     */
+    boolean drain(LinuxSocket socket, int[] completions) throws IOException {
+        boolean copied = false;
+        int length;
+        do {
+            length = socket.recvZeroCopyCompletions(completions);
+            copied |= complete(completions, length);
+        } while (length == completions.length);
+        return copied;
+    }
+
+    /**
+     * Completes the writes covered by the notifications read via
+     * {@link LinuxSocket#recvZeroCopyCompletions(int[])}.
+     *
+     * @return {@code true} if the kernel copied the data of at least one of the sends, which means that
+     * {@code MSG_ZEROCOPY} only adds overhead for this socket.
+     */
+    boolean complete(int[] completions, int length) {
+        boolean copied = false;
+        for (int i = 0; i + 2 < length; i += 3) {
+            int lo = completions[i];
+            int hi = completions[i + 1];
+            copied |= completions[i + 2] != 0;
+
+            long range = (hi - lo) & 0xFFFFFFFFL;
+            for (PendingWrite write : pending) {
+                // Sends complete mostly in order, so stop at the first one that was issued after this range.
+                if (write.sequence - hi > 0) {
+                    break;
+                }
+                if (((write.sequence - lo) & 0xFFFFFFFFL) <= range) {
+                    write.done = true;
+                }
+            }
+        }
+
+        for (;;) {
+            PendingWrite write = pending.peek();
+            if (write == null || !write.done) {
+                break;
+            }
+            pending.poll();
+            write.buf.release();
+            if (write.promise != null) {
+                write.promise.trySuccess();
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * Called once the channel was closed while some sends are not completed yet. {@code socket} is a duplicate of
+     * the socket of the channel, which keeps it open so the remaining notifications can still be read. The buffers
+     * must not be released before, as the kernel would send whatever the allocator put into their memory.
+     * <p>
+     * The error queue is polled until all sends completed, but at most for ten seconds. Then the
+     * connection is reset, which makes the kernel drop the data it did not send yet, and the remaining writes are
+     * failed and released after a grace period.
+     */
+    void closeWhenCompleted(LinuxSocket socket, EventExecutor executor) {
+        closeWhenCompleted(socket, executor, CLOSE_TIMEOUT_NANOS, ABORT_GRACE_PERIOD_NANOS);
+    }
+
+    /**
+     * This method is visible for testing!
+     */
+    void closeWhenCompleted(final LinuxSocket socket, final EventExecutor executor, long timeoutNanos,
+                            final long gracePeriodNanos) {
+        partial = null;
+        final long deadline = System.nanoTime() + timeoutNanos;
+        final int[] completions = new int[COMPLETIONS_ON_CLOSE];
+        Runnable pollTask = new Runnable() {
+            @Override
+            public void run() {
+                boolean failed = false;
+                try {
+                    drain(socket, completions);
+                } catch (IOException e) {
+                    logger.debug("Failed to read MSG_ZEROCOPY completions after the channel was closed", e);
+                    failed = true;
+                }
+                if (isEmpty()) {
+                    closeQuietly(socket);
+                } else if (failed || deadline - System.nanoTime() <= 0 ||
+                        !schedule(executor, this, CLOSE_POLL_INTERVAL_NANOS)) {
+                    abort(socket, executor, gracePeriodNanos);
+                }
+            }
+        };
+        if (!schedule(executor, pollTask, 0)) {
+            abort(socket, executor, gracePeriodNanos);
+        }
+    }
+
+    private void abort(LinuxSocket socket, EventExecutor executor, long gracePeriodNanos) {
+        reset(socket);
+        closeQuietly(socket);
+        failAfterGracePeriod(executor, gracePeriodNanos);
+    }
+
+    /**
+     * Makes the kernel drop the data it did not send yet once {@code socket} is closed, by resetting the connection.
+     * Must be followed by {@link #failAfterGracePeriod(EventExecutor)} once it was closed.
+     */
+    static void reset(LinuxSocket socket) {
+        try {
+            socket.setSoLinger(0);
+        } catch (IOException e) {
+            logger.debug("Failed to reset a connection with MSG_ZEROCOPY sends in progress", e);
+        }
+    }
+
+    /**
+     * Fails the remaining writes after the connection was reset, see {@link #reset(LinuxSocket)}.
+     */
+    void failAfterGracePeriod(EventExecutor executor) {
+        failAfterGracePeriod(executor, ABORT_GRACE_PERIOD_NANOS);
+    }
+
+    private void failAfterGracePeriod(EventExecutor executor, long gracePeriodNanos) {
+        partial = null;
+        final IOException cause = new IOException("MSG_ZEROCOPY send did not complete before the channel was closed");
+        Runnable failTask = new Runnable() {
+            @Override
+            public void run() {
+                failAll(cause);
+            }
+        };
+        if (!schedule(executor, failTask, gracePeriodNanos)) {
+            // Nothing will run later anymore, so release the memory now instead of leaking it.
+            failAll(cause);
+        }
+    }
+
+    /**
+     * Fails the promises of all writes whose completion was not seen, and releases their buffers. Must only be
+     * called once the kernel does not reference the memory of the buffers anymore.
+     */
+    private void failAll(Throwable cause) {
+        for (;;) {
+            PendingWrite write = pending.poll();
+            if (write == null) {
+                break;
+            }
+            write.buf.release();
+            if (write.promise != null) {
+                write.promise.tryFailure(cause);
+            }
+        }
+        partial = null;
+    }
+
+    private static boolean schedule(EventExecutor executor, Runnable task, long delayNanos) {
+        try {
+            executor.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(LinuxSocket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close a socket after its MSG_ZEROCOPY sends", e);
+        }
+    }
+
+    private static final class PendingWrite {
+        final ByteBuf buf;
+        final ChannelPromise promise;
+        final int sequence;
+        boolean done;
+
+        PendingWrite(ByteBuf buf, ChannelPromise promise, int sequence) {
+            this.buf = buf;
+            this.promise = promise;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,756 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.ChannelInputShutdownEvent;
+import io.netty.channel.socket.ChannelInputShutdownReadComplete;
+import io.netty.channel.socket.SocketChannelConfig;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.Socket;
+import io.netty.channel.unix.UnixChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.AlreadyConnectedException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ConnectionPendingException;
+import java.nio.channels.NotYetConnectedException;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.channel.unix.UnixChannelUtil.computeRemoteAddr;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * Base class for all io_uring based {@link Channel}s.
+ * <p>
+ * In contrast to epoll, io_uring notifies about the <strong>completion</strong> of an operation. Every operation
+ * that is submitted for a {@link Channel} is tracked in {@link #ioState} until its completion was processed, as
+ * memory that is used by the operation must not be released before.
+ */
+abstract class AbstractIOUringChannel extends AbstractChannel implements UnixChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+
+    // Bits of ioState
+    static final int POLL_IN_SCHEDULED = 1;
+    static final int POLL_OUT_SCHEDULED = 1 << 1;
+    static final int READ_SCHEDULED = 1 << 2;
+    static final int WRITE_SCHEDULED = 1 << 3;
+
+    // Used as data of the POLL_ADD user data to be able to distinguish the poll operations.
+    static final short POLL_IN_DATA = 1;
+    static final short POLL_OUT_DATA = 2;
+
+    final Socket socket;
+
+    /**
+     * The future of the current connection attempt.  If not null, subsequent
+     * connection attempts will fail.
+     */
+    private ChannelPromise connectPromise;
+    private Future<?> connectTimeoutFuture;
+    private SocketAddress requestedRemoteAddress;
+
+    private volatile SocketAddress local;
+    private volatile SocketAddress remote;
+
+    // The IOUringEventLoop we are currently registered to and the id that identifies this channel there.
+    private IOUringEventLoop registeredLoop;
+    private int id;
+    private boolean removePending;
+
+    int ioState;
+    boolean inputClosedSeenErrorOnRead;
+
+    protected volatile boolean active;
+
+    AbstractIOUringChannel(Channel parent, Socket fd, boolean active) {
+        super(parent);
+        this.socket = checkNotNull(fd, "fd");
+        this.active = active;
+        if (active) {
+            // Directly cache the remote and local addresses
+            // See https://github.com/netty/netty/issues/2359
+            this.local = fd.localAddress();
+            this.remote = fd.remoteAddress();
+        }
+    }
+
+    AbstractIOUringChannel(Channel parent, Socket fd, SocketAddress remote) {
+        super(parent);
+        this.socket = checkNotNull(fd, "fd");
+        this.active = true;
+        // Directly cache the remote and local addresses
+        // See https://github.com/netty/netty/issues/2359
+        this.remote = remote;
+        this.local = fd.localAddress();
+    }
+
+    static boolean isSoErrorZero(Socket fd) {
+        try {
+            return fd.getSoError() == 0;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    public final FileDescriptor fd() {
+        return socket;
+    }
+
+    @Override
+    public abstract IOUringChannelConfig config();
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return socket.isOpen();
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof IOUringEventLoop;
+    }
+
+    final IOUringSubmissionQueue submissionQueue() {
+        return registeredLoop.submissionQueue();
+    }
+
+    /**
+     * Returns {@code true} if new operations can be submitted for this channel.
+     */
+    final boolean canSubmit() {
+        return registeredLoop != null && !removePending;
+    }
+
+    final long userData(byte op, short data) {
+        return UserData.encode(id, op, data);
+    }
+
+    @Override
+    protected void doRegister() throws Exception {
+        if (ioState != 0) {
+            // We can only be registered to a new EventLoop once all operations that were submitted via the previous
+            // one did complete, as otherwise the completions would be delivered to the wrong EventLoop.
+            throw new IllegalStateException("Operations of the previous registration are still in flight");
+        }
+        registeredLoop = (IOUringEventLoop) eventLoop();
+        id = registeredLoop.add(this);
+        removePending = false;
+    }
+
+    @Override
+    protected void doDeregister() throws Exception {
+        if (registeredLoop == null) {
+            return;
+        }
+        if (ioState == 0) {
+            removeFromLoop();
+        } else {
+            // Cancel all operations and remove the channel once all of them did complete.
+            cancelOperations();
+            removePending = true;
+        }
+    }
+
+    private void removeFromLoop() {
+        registeredLoop.remove(this, id);
+        registeredLoop = null;
+        id = 0;
+        removePending = false;
+    }
+
+    private void cancelOperations() {
+        IOUringSubmissionQueue submissionQueue = submissionQueue();
+        if ((ioState & POLL_IN_SCHEDULED) != 0) {
+            submissionQueue.addPollRemove(userData(Native.IORING_OP_POLL_ADD, POLL_IN_DATA),
+                    userData(Native.IORING_OP_POLL_REMOVE, (short) 0));
+        }
+        if ((ioState & POLL_OUT_SCHEDULED) != 0) {
+            submissionQueue.addPollRemove(userData(Native.IORING_OP_POLL_ADD, POLL_OUT_DATA),
+                    userData(Native.IORING_OP_POLL_REMOVE, (short) 0));
+        }
+        if ((ioState & READ_SCHEDULED) != 0) {
+            submissionQueue.addCancel(userData(readOp(), (short) 0),
+                    userData(Native.IORING_OP_ASYNC_CANCEL, (short) 0));
+        }
+        if ((ioState & WRITE_SCHEDULED) != 0) {
+            submissionQueue.addCancel(userData(Native.IORING_OP_WRITEV, (short) 0),
+                    userData(Native.IORING_OP_ASYNC_CANCEL, (short) 0));
+        }
+    }
+
+    /**
+     * Returns the operation that is used to read from the underlying socket.
+     */
+    byte readOp() {
+        return Native.IORING_OP_READ;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        active = false;
+        // Even if we allow half closed sockets we should give up on reading. Otherwise we may allow a read attempt on a
+        // socket which has not even been connected yet.
+        inputClosedSeenErrorOnRead = true;
+        try {
+            ChannelPromise promise = connectPromise;
+            if (promise != null) {
+                // Use tryFailure() instead of setFailure() to avoid the race against cancel().
+                promise.tryFailure(new ClosedChannelException());
+                connectPromise = null;
+            }
+
+            Future<?> future = connectTimeoutFuture;
+            if (future != null) {
+                future.cancel(false);
+                connectTimeoutFuture = null;
+            }
+
+            if (isRegistered()) {
+                // Need to check if we are on the EventLoop as doClose() may be triggered by the GlobalEventExecutor
+                // if SO_LINGER is used.
+                EventLoop loop = eventLoop();
+                if (loop.inEventLoop()) {
+                    doDeregister();
+                    submitQueued();
+                } else {
+                    loop.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                doDeregister();
+                            } catch (Throwable cause) {
+                                pipeline().fireExceptionCaught(cause);
+                            }
+                        }
+                    });
+                }
+            }
+        } finally {
+            // The in-flight operations hold their own reference to the file, so it is safe to close the fd now.
+            socket.close();
+        }
+    }
+
+    /**
+     * Hands all queued operations of this channel over to the kernel. The kernel resolves the file descriptor only
+     * once an operation is submitted, so this must be done before the file descriptor is closed as the same number
+     * may be used by a new file afterwards.
+     */
+    final void submitQueued() throws IOException {
+        if (ioState != 0 && registeredLoop != null) {
+            registeredLoop.submissionQueue().submit();
+        }
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    @Override
+    protected final void doBeginRead() throws Exception {
+        // Channel.read() or ChannelHandlerContext.read() was called
+        final AbstractIOUringUnsafe unsafe = (AbstractIOUringUnsafe) unsafe();
+        unsafe.readPending = true;
+        if (!unsafe.readInProgress) {
+            // If we are in the middle of processing a read completion the read is scheduled once we are done.
+            unsafe.schedulePollIn();
+        }
+    }
+
+    final boolean shouldBreakIoUringInReady(ChannelConfig config) {
+        return socket.isInputShutdown() && (inputClosedSeenErrorOnRead || !isAllowHalfClosure(config));
+    }
+
+    private static boolean isAllowHalfClosure(ChannelConfig config) {
+        return config instanceof SocketChannelConfig &&
+                ((SocketChannelConfig) config).isAllowHalfClosure();
+    }
+
+    final void autoReadCleared() {
+        if (isRegistered()) {
+            final EventLoop loop = eventLoop();
+            final AbstractIOUringUnsafe unsafe = (AbstractIOUringUnsafe) unsafe();
+            if (loop.inEventLoop()) {
+                unsafe.readPending = false;
+            } else {
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!config().isAutoRead()) {
+                            unsafe.readPending = false;
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    @Override
+    protected abstract AbstractIOUringUnsafe newUnsafe();
+
+    /**
+     * Returns an off-heap copy of the specified {@link ByteBuf}, and releases the original one.
+     */
+    protected final ByteBuf newDirectBuffer(ByteBuf buf) {
+        return newDirectBuffer(buf, buf);
+    }
+
+    /**
+     * Returns an off-heap copy of the specified {@link ByteBuf}, and releases the specified holder.
+     * The caller must ensure that the holder releases the original {@link ByteBuf} when the holder is released by
+     * this method.
+     */
+    protected final ByteBuf newDirectBuffer(Object holder, ByteBuf buf) {
+        final int readableBytes = buf.readableBytes();
+        if (readableBytes == 0) {
+            ReferenceCountUtil.release(holder);
+            return Unpooled.EMPTY_BUFFER;
+        }
+
+        final ByteBufAllocator alloc = alloc();
+        if (alloc.isDirectBufferPooled()) {
+            return newDirectBuffer0(holder, buf, alloc, readableBytes);
+        }
+
+        final ByteBuf directBuf = ByteBufUtil.threadLocalDirectBuffer();
+        if (directBuf == null) {
+            return newDirectBuffer0(holder, buf, alloc, readableBytes);
+        }
+
+        directBuf.writeBytes(buf, buf.readerIndex(), readableBytes);
+        ReferenceCountUtil.safeRelease(holder);
+        return directBuf;
+    }
+
+    private static ByteBuf newDirectBuffer0(Object holder, ByteBuf buf, ByteBufAllocator alloc, int capacity) {
+        final ByteBuf directBuf = alloc.directBuffer(capacity);
+        directBuf.writeBytes(buf, buf.readerIndex(), capacity);
+        ReferenceCountUtil.safeRelease(holder);
+        return directBuf;
+    }
+
+    protected static void checkResolvable(InetSocketAddress addr) {
+        if (addr.isUnresolved()) {
+            throw new UnresolvedAddressException();
+        }
+    }
+
+    abstract class AbstractIOUringUnsafe extends AbstractUnsafe {
+        boolean readPending;
+        // Set while a read completion is processed, so a read() call during this time does not schedule a new poll.
+        boolean readInProgress;
+
+        /**
+         * Called by the {@link IOUringEventLoop} once an operation of this {@link Channel} completed.
+         */
+        final void handle(byte op, int res, short data) {
+            try {
+                if (op == Native.IORING_OP_POLL_ADD) {
+                    if (data == POLL_IN_DATA) {
+                        ioState &= ~POLL_IN_SCHEDULED;
+                        if (res != Native.ERRNO_ECANCELED_NEGATIVE) {
+                            pollIn(res);
+                        }
+                    } else {
+                        ioState &= ~POLL_OUT_SCHEDULED;
+                        if (res != Native.ERRNO_ECANCELED_NEGATIVE) {
+                            pollOut(res);
+                        }
+                    }
+                } else if (op == Native.IORING_OP_WRITEV) {
+                    ioState &= ~WRITE_SCHEDULED;
+                    writeComplete(res);
+                } else {
+                    ioState &= ~READ_SCHEDULED;
+                    readComplete(res);
+                }
+            } finally {
+                if (removePending && ioState == 0) {
+                    removeFromLoop();
+                }
+            }
+        }
+
+        final void schedulePollIn() {
+            if ((ioState & (POLL_IN_SCHEDULED | READ_SCHEDULED)) != 0 || !canSubmit() || !isActive() ||
+                    shouldBreakIoUringInReady(config())) {
+                return;
+            }
+            ioState |= POLL_IN_SCHEDULED;
+            submissionQueue().addPoll(socket.intValue(), Native.POLLIN, userData(Native.IORING_OP_POLL_ADD,
+                    POLL_IN_DATA));
+        }
+
+        final void schedulePollOut() {
+            if ((ioState & POLL_OUT_SCHEDULED) != 0 || !canSubmit()) {
+                return;
+            }
+            ioState |= POLL_OUT_SCHEDULED;
+            submissionQueue().addPoll(socket.intValue(), Native.POLLOUT, userData(Native.IORING_OP_POLL_ADD,
+                    POLL_OUT_DATA));
+        }
+
+        private void pollIn(int res) {
+            if (!readPending || !isActive() || !canSubmit()) {
+                // read() was not called in the meantime or we were closed already, nothing to do.
+                return;
+            }
+            if (shouldBreakIoUringInReady(config())) {
+                readPending = false;
+                return;
+            }
+            readInProgress = true;
+            try {
+                pollInReady();
+            } finally {
+                readInProgress = false;
+            }
+            readFinally();
+        }
+
+        /**
+         * Must be called once a read loop is complete to schedule the next read if {@code read()} was called
+         * while the completions were processed.
+         */
+        final void readFinally() {
+            if (readPending && (ioState & READ_SCHEDULED) == 0) {
+                schedulePollIn();
+            }
+        }
+
+        /**
+         * Called once the socket is readable and {@code read()} was requested.
+         */
+        abstract void pollInReady();
+
+        /**
+         * Called once the read operation that was scheduled by {@link #pollInReady()} completed.
+         */
+        abstract void readComplete(int res);
+
+        /**
+         * Called once the writev operation that was scheduled by {@code doWrite(...)} completed.
+         */
+        void writeComplete(int res) {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Called once the socket is writable.
+         */
+        void pollOut(int res) {
+            if (connectPromise != null) {
+                // pending connect which is now complete so handle it.
+                finishConnect();
+            } else if (!socket.isOutputShutdown()) {
+                // directly call super.flush0() to force a flush now
+                super.flush0();
+            }
+        }
+
+        /**
+         * Shutdown the input side of the channel.
+         */
+        void shutdownInput(boolean rdHup) {
+            if (!socket.isInputShutdown()) {
+                if (isAllowHalfClosure(config())) {
+                    try {
+                        socket.shutdown(true, false);
+                    } catch (IOException ignored) {
+                        // We attempted to shutdown and failed, which means the input has already effectively been
+                        // shutdown.
+                        fireEventAndClose(ChannelInputShutdownEvent.INSTANCE);
+                        return;
+                    } catch (NotYetConnectedException ignore) {
+                        // We attempted to shutdown and failed, which means the input has already effectively been
+                        // shutdown.
+                    }
+                    pipeline().fireUserEventTriggered(ChannelInputShutdownEvent.INSTANCE);
+                } else {
+                    close(voidPromise());
+                }
+            } else if (!rdHup) {
+                inputClosedSeenErrorOnRead = true;
+                pipeline().fireUserEventTriggered(ChannelInputShutdownReadComplete.INSTANCE);
+            }
+        }
+
+        private void fireEventAndClose(Object evt) {
+            pipeline().fireUserEventTriggered(evt);
+            close(voidPromise());
+        }
+
+        @Override
+        protected void flush0() {
+            // Flush immediately only when there's no pending write or connect operation.
+            // If there's one the flush is triggered again once it completed.
+            if ((ioState & (WRITE_SCHEDULED | POLL_OUT_SCHEDULED)) == 0) {
+                super.flush0();
+            }
+        }
+
+        /**
+         * Directly call {@link AbstractUnsafe#flush0()} to force a flush now.
+         */
+        final void forceFlush() {
+            super.flush0();
+        }
+
+        @Override
+        public void connect(
+                final SocketAddress remoteAddress, final SocketAddress localAddress, final ChannelPromise promise) {
+            if (!promise.setUncancellable() || !ensureOpen(promise)) {
+                return;
+            }
+
+            try {
+                if (connectPromise != null) {
+                    throw new ConnectionPendingException();
+                }
+
+                boolean wasActive = isActive();
+                if (doConnect(remoteAddress, localAddress)) {
+                    fulfillConnectPromise(promise, wasActive);
+                } else {
+                    connectPromise = promise;
+                    requestedRemoteAddress = remoteAddress;
+
+                    // Schedule connect timeout.
+                    int connectTimeoutMillis = config().getConnectTimeoutMillis();
+                    if (connectTimeoutMillis > 0) {
+                        connectTimeoutFuture = eventLoop().schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                ChannelPromise connectPromise = AbstractIOUringChannel.this.connectPromise;
+                                if (connectPromise != null && !connectPromise.isDone()
+                                        && connectPromise.tryFailure(new ConnectTimeoutException(
+                                        "connection timed out: " + remoteAddress))) {
+                                    close(voidPromise());
+                                }
+                            }
+                        }, connectTimeoutMillis, TimeUnit.MILLISECONDS);
+                    }
+
+                    promise.addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) throws Exception {
+                            if (future.isCancelled()) {
+                                if (connectTimeoutFuture != null) {
+                                    connectTimeoutFuture.cancel(false);
+                                }
+                                connectPromise = null;
+                                close(voidPromise());
+                            }
+                        }
+                    });
+                }
+            } catch (Throwable t) {
+                closeIfClosed();
+                promise.tryFailure(annotateConnectException(t, remoteAddress));
+            }
+        }
+
+        private void fulfillConnectPromise(ChannelPromise promise, boolean wasActive) {
+            if (promise == null) {
+                // Closed via cancellation and the promise has been notified already.
+                return;
+            }
+            active = true;
+
+            // Get the state as trySuccess() may trigger an ChannelFutureListener that will close the Channel.
+            // We still need to ensure we call fireChannelActive() in this case.
+            boolean active = isActive();
+
+            // trySuccess() will return false if a user cancelled the connection attempt.
+            boolean promiseSet = promise.trySuccess();
+
+            // Regardless if the connection attempt was cancelled, channelActive() event should be triggered,
+            // because what happened is what happened.
+            if (!wasActive && active) {
+                pipeline().fireChannelActive();
+            }
+
+            // If a user cancelled the connection attempt, close the channel, which is followed by channelInactive().
+            if (!promiseSet) {
+                close(voidPromise());
+            }
+        }
+
+        private void fulfillConnectPromise(ChannelPromise promise, Throwable cause) {
+            if (promise == null) {
+                // Closed via cancellation and the promise has been notified already.
+                return;
+            }
+
+            // Use tryFailure() instead of setFailure() to avoid the race against cancel().
+            promise.tryFailure(cause);
+            closeIfClosed();
+        }
+
+        private void finishConnect() {
+            // Note this method is invoked by the event loop only if the connection attempt was
+            // neither cancelled nor timed out.
+
+            assert eventLoop().inEventLoop();
+
+            boolean connectStillInProgress = false;
+            try {
+                boolean wasActive = isActive();
+                if (!doFinishConnect()) {
+                    connectStillInProgress = true;
+                    return;
+                }
+                fulfillConnectPromise(connectPromise, wasActive);
+            } catch (Throwable t) {
+                fulfillConnectPromise(connectPromise, annotateConnectException(t, requestedRemoteAddress));
+            } finally {
+                if (!connectStillInProgress) {
+                    // Check for null as the connectTimeoutFuture is only created if a connectTimeoutMillis > 0 is used
+                    // See https://github.com/netty/netty/issues/1770
+                    if (connectTimeoutFuture != null) {
+                        connectTimeoutFuture.cancel(false);
+                    }
+                    connectPromise = null;
+                    // Writes may have been queued while the connect was in progress.
+                    flush0();
+                }
+            }
+        }
+
+        /**
+         * Finish the connect
+         */
+        private boolean doFinishConnect() throws Exception {
+            if (socket.finishConnect()) {
+                if (requestedRemoteAddress instanceof InetSocketAddress) {
+                    remote = computeRemoteAddr((InetSocketAddress) requestedRemoteAddress, socket.remoteAddress());
+                }
+                requestedRemoteAddress = null;
+
+                return true;
+            }
+            schedulePollOut();
+            return false;
+        }
+    }
+
+    @Override
+    protected void doBind(SocketAddress local) throws Exception {
+        if (local instanceof InetSocketAddress) {
+            checkResolvable((InetSocketAddress) local);
+        }
+        socket.bind(local);
+        this.local = socket.localAddress();
+    }
+
+    /**
+     * Connect to the remote peer
+     */
+    protected boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        if (localAddress instanceof InetSocketAddress) {
+            checkResolvable((InetSocketAddress) localAddress);
+        }
+
+        InetSocketAddress remoteSocketAddr = remoteAddress instanceof InetSocketAddress
+                ? (InetSocketAddress) remoteAddress : null;
+        if (remoteSocketAddr != null) {
+            checkResolvable(remoteSocketAddr);
+        }
+
+        if (remote != null) {
+            // Check if already connected before trying to connect. This is needed as connect(...) will not return -1
+            // and set errno to EISCONN if a previous connect(...) attempt was setting errno to EINPROGRESS and finished
+            // later.
+            throw new AlreadyConnectedException();
+        }
+
+        if (localAddress != null) {
+            socket.bind(localAddress);
+        }
+
+        boolean connected = doConnect0(remoteAddress);
+        if (connected) {
+            remote = remoteSocketAddr == null ?
+                    remoteAddress : computeRemoteAddr(remoteSocketAddr, socket.remoteAddress());
+        }
+        // We always need to set the localAddress even if not connected yet as the bind already took place.
+        //
+        // See https://github.com/netty/netty/issues/3463
+        local = socket.localAddress();
+        return connected;
+    }
+
+    boolean doConnect0(SocketAddress remote) throws Exception {
+        boolean success = false;
+        try {
+            boolean connected = socket.connect(remote);
+            if (!connected) {
+                ((AbstractIOUringUnsafe) unsafe()).schedulePollOut();
+            }
+            success = true;
+            return connected;
+        } finally {
+            if (!success) {
+                doClose();
+            }
+        }
+    }
+
+    void resetCachedAddresses() {
+        local = socket.localAddress();
+        remote = null;
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return remote;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.unix.Buffer;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.Socket;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+abstract class AbstractIOUringServerChannel extends AbstractIOUringChannel implements ServerChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false, 16);
+
+    // Will hold the remote address and its length after the accept operation completed. The memory is only
+    // referenced by this channel, so it is released once the channel and so all its operations are done.
+    private final ByteBuffer acceptedAddressMemory;
+    private final long acceptedAddressMemoryAddress;
+    private final long acceptedAddressLengthMemoryAddress;
+
+    AbstractIOUringServerChannel(Socket socket, boolean active) {
+        super(null, socket, active);
+        acceptedAddressMemory = Buffer.allocateDirectWithNativeOrder(SockaddrIn.SOCKADDR_STORAGE_SIZE + 8);
+        acceptedAddressMemoryAddress = Buffer.memoryAddress(acceptedAddressMemory);
+        acceptedAddressLengthMemoryAddress = acceptedAddressMemoryAddress + SockaddrIn.SOCKADDR_STORAGE_SIZE;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    protected InetSocketAddress remoteAddress0() {
+        return null;
+    }
+
+    @Override
+    protected AbstractIOUringUnsafe newUnsafe() {
+        return new IOUringServerSocketUnsafe();
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    byte readOp() {
+        return Native.IORING_OP_ACCEPT;
+    }
+
+    abstract Channel newChildChannel(int fd, InetSocketAddress remoteAddress) throws Exception;
+
+    final class IOUringServerSocketUnsafe extends AbstractIOUringUnsafe {
+
+        @Override
+        public void connect(SocketAddress socketAddress, SocketAddress socketAddress2, ChannelPromise channelPromise) {
+            // Connect not supported by ServerChannel implementations
+            channelPromise.setFailure(new UnsupportedOperationException());
+        }
+
+        @Override
+        void pollInReady() {
+            final RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            allocHandle.reset(config());
+            scheduleAccept();
+        }
+
+        private void scheduleAccept() {
+            PlatformDependent.putInt(acceptedAddressLengthMemoryAddress, SockaddrIn.SOCKADDR_STORAGE_SIZE);
+            ioState |= READ_SCHEDULED;
+            submissionQueue().addAccept(socket.intValue(), acceptedAddressMemoryAddress,
+                    acceptedAddressLengthMemoryAddress, userData(Native.IORING_OP_ACCEPT, (short) 0));
+        }
+
+        @Override
+        void readComplete(int res) {
+            if (!isActive()) {
+                if (res >= 0) {
+                    // We were closed in the meantime, make sure we not leak the accepted fd.
+                    try {
+                        new Socket(res).close();
+                    } catch (IOException ignore) {
+                        // ignore
+                    }
+                }
+                return;
+            }
+            if (res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                return;
+            }
+            final RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            final ChannelPipeline pipeline = pipeline();
+            Throwable exception = null;
+            readInProgress = true;
+            try {
+                try {
+                    if (res >= 0) {
+                        allocHandle.incMessagesRead(1);
+                        // lastBytesRead is not used for server channels, but needs to be positive to continue reading.
+                        allocHandle.lastBytesRead(1);
+                        readPending = false;
+                        pipeline.fireChannelRead(newChildChannel(
+                                res, SockaddrIn.readAddress(acceptedAddressMemoryAddress)));
+                        if (allocHandle.continueReading() && canSubmit()) {
+                            // There may be more connections waiting, accept again without waiting for the next poll.
+                            scheduleAccept();
+                            return;
+                        }
+                    } else {
+                        // Translate the error, this will throw for everything except EAGAIN.
+                        Errors.ioResult("accept", res);
+                    }
+                } catch (Throwable t) {
+                    exception = t;
+                }
+                allocHandle.readComplete();
+                pipeline.fireChannelReadComplete();
+
+                if (exception != null) {
+                    pipeline.fireExceptionCaught(exception);
+                }
+            } finally {
+                readInProgress = false;
+                readFinally();
+            }
+        }
+    }
+
+    @Override
+    protected boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+}
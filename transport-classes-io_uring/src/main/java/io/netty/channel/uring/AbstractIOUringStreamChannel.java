@@ -0,0 +1,384 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.socket.DuplexChannel;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.IovArray;
+import io.netty.channel.unix.Limits;
+import io.netty.channel.unix.Socket;
+import io.netty.channel.unix.UnixChannelUtil;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+
+abstract class AbstractIOUringStreamChannel extends AbstractIOUringChannel implements DuplexChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false, 16);
+    private static final String EXPECTED_TYPES =
+            " (expected: " + StringUtil.simpleClassName(ByteBuf.class) + ')';
+    private static final InternalLogger logger =
+            InternalLoggerFactory.getInstance(AbstractIOUringStreamChannel.class);
+
+    AbstractIOUringStreamChannel(Channel parent, Socket fd, boolean active) {
+        super(parent, fd, active);
+    }
+
+    AbstractIOUringStreamChannel(Channel parent, Socket fd, SocketAddress remote) {
+        super(parent, fd, remote);
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    protected AbstractIOUringUnsafe newUnsafe() {
+        return new IOUringStreamUnsafe();
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        ((IOUringStreamUnsafe) unsafe()).scheduleWrite(in);
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            // The memory must stay valid until the kernel completed the write, so always use off-heap memory.
+            return UnixChannelUtil.isBufferCopyNeededForWrite(buf)? newDirectBuffer(buf): buf;
+        }
+
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    @Override
+    protected final void doShutdownOutput() throws Exception {
+        socket.shutdown(false, true);
+    }
+
+    private void shutdownInput0(final ChannelPromise promise) {
+        try {
+            socket.shutdown(true, false);
+            promise.setSuccess();
+        } catch (Throwable cause) {
+            promise.setFailure(cause);
+        }
+    }
+
+    @Override
+    public boolean isOutputShutdown() {
+        return socket.isOutputShutdown();
+    }
+
+    @Override
+    public boolean isInputShutdown() {
+        return socket.isInputShutdown();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return socket.isShutdown();
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput() {
+        return shutdownOutput(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput(final ChannelPromise promise) {
+        EventLoop loop = eventLoop();
+        if (loop.inEventLoop()) {
+            ((AbstractUnsafe) unsafe()).shutdownOutput(promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ((AbstractUnsafe) unsafe()).shutdownOutput(promise);
+                }
+            });
+        }
+
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture shutdownInput() {
+        return shutdownInput(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdownInput(final ChannelPromise promise) {
+        EventLoop loop = eventLoop();
+        if (loop.inEventLoop()) {
+            shutdownInput0(promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    shutdownInput0(promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture shutdown() {
+        return shutdown(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdown(final ChannelPromise promise) {
+        ChannelFuture shutdownOutputFuture = shutdownOutput();
+        if (shutdownOutputFuture.isDone()) {
+            shutdownOutputDone(shutdownOutputFuture, promise);
+        } else {
+            shutdownOutputFuture.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(final ChannelFuture shutdownOutputFuture) throws Exception {
+                    shutdownOutputDone(shutdownOutputFuture, promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    private void shutdownOutputDone(final ChannelFuture shutdownOutputFuture, final ChannelPromise promise) {
+        ChannelFuture shutdownInputFuture = shutdownInput();
+        if (shutdownInputFuture.isDone()) {
+            shutdownDone(shutdownOutputFuture, shutdownInputFuture, promise);
+        } else {
+            shutdownInputFuture.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture shutdownInputFuture) throws Exception {
+                    shutdownDone(shutdownOutputFuture, shutdownInputFuture, promise);
+                }
+            });
+        }
+    }
+
+    private static void shutdownDone(ChannelFuture shutdownOutputFuture,
+                              ChannelFuture shutdownInputFuture,
+                              ChannelPromise promise) {
+        Throwable shutdownOutputCause = shutdownOutputFuture.cause();
+        Throwable shutdownInputCause = shutdownInputFuture.cause();
+        if (shutdownOutputCause != null) {
+            if (shutdownInputCause != null) {
+                logger.debug("Exception suppressed because a previous exception occurred.",
+                        shutdownInputCause);
+            }
+            promise.setFailure(shutdownOutputCause);
+        } else if (shutdownInputCause != null) {
+            promise.setFailure(shutdownInputCause);
+        } else {
+            promise.setSuccess();
+        }
+    }
+
+    class IOUringStreamUnsafe extends AbstractIOUringUnsafe {
+        // The buffer the currently scheduled read operation reads into.
+        private ByteBuf readBuffer;
+        // The iovec array the currently scheduled writev operation writes from.
+        private IovArray writeIovArray;
+
+        @Override
+        void pollInReady() {
+            final RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            allocHandle.reset(config());
+            scheduleRead();
+        }
+
+        private void scheduleRead() {
+            final ByteBufAllocator allocator = config().getAllocator();
+            final RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            ByteBuf byteBuf = allocHandle.allocate(allocator);
+            if (!byteBuf.hasMemoryAddress()) {
+                // We need the memory address to pass it to the kernel, so fallback to an off-heap buffer.
+                int capacity = byteBuf.writableBytes();
+                byteBuf.release();
+                byteBuf = allocator.directBuffer(capacity);
+            }
+            allocHandle.attemptedBytesRead(byteBuf.writableBytes());
+            readBuffer = byteBuf;
+            ioState |= READ_SCHEDULED;
+            submissionQueue().addRead(socket.intValue(), byteBuf.memoryAddress(), byteBuf.writerIndex(),
+                    byteBuf.capacity(), userData(Native.IORING_OP_READ, (short) 0));
+        }
+
+        @Override
+        void readComplete(int res) {
+            ByteBuf byteBuf = readBuffer;
+            readBuffer = null;
+            assert byteBuf != null;
+            if (!isActive() || res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                // The channel was closed or deregistered in the meantime, the memory can be released now.
+                byteBuf.release();
+                return;
+            }
+
+            final ChannelConfig config = config();
+            final RecvByteBufAllocator.Handle allocHandle = recvBufAllocHandle();
+            final ChannelPipeline pipeline = pipeline();
+            boolean close = false;
+            readInProgress = true;
+            try {
+                if (res < 0 && Errors.ioResult("read", res) == 0) {
+                    // EAGAIN, there is nothing to read right now.
+                    byteBuf.release();
+                    byteBuf = null;
+                    allocHandle.readComplete();
+                    pipeline.fireChannelReadComplete();
+                    return;
+                }
+                byteBuf.writerIndex(byteBuf.writerIndex() + res);
+                allocHandle.lastBytesRead(res == 0 ? -1 : res);
+                if (allocHandle.lastBytesRead() <= 0) {
+                    // nothing was read, release the buffer.
+                    byteBuf.release();
+                    byteBuf = null;
+                    close = true;
+                    readPending = false;
+                } else {
+                    allocHandle.incMessagesRead(1);
+                    readPending = false;
+                    pipeline.fireChannelRead(byteBuf);
+                    byteBuf = null;
+
+                    if (allocHandle.continueReading() && canSubmit() && !shouldBreakIoUringInReady(config)) {
+                        // There may be more data, directly read again without waiting for the next poll.
+                        scheduleRead();
+                        return;
+                    }
+                }
+
+                allocHandle.readComplete();
+                pipeline.fireChannelReadComplete();
+
+                if (close) {
+                    shutdownInput(false);
+                }
+            } catch (Throwable t) {
+                handleReadException(pipeline, byteBuf, t, close, allocHandle);
+            } finally {
+                readInProgress = false;
+                readFinally();
+            }
+        }
+
+        private void handleReadException(ChannelPipeline pipeline, ByteBuf byteBuf, Throwable cause, boolean close,
+                                         RecvByteBufAllocator.Handle allocHandle) {
+            if (byteBuf != null) {
+                if (byteBuf.isReadable()) {
+                    readPending = false;
+                    pipeline.fireChannelRead(byteBuf);
+                } else {
+                    byteBuf.release();
+                }
+            }
+            allocHandle.readComplete();
+            pipeline.fireChannelReadComplete();
+            pipeline.fireExceptionCaught(cause);
+
+            // If oom will close the read event, release connection.
+            // See https://github.com/netty/netty/issues/10434
+            if (close || cause instanceof OutOfMemoryError || cause instanceof IOException) {
+                shutdownInput(false);
+            }
+        }
+
+        /**
+         * Submit a writev operation for all flushed messages, if there is not one in flight already.
+         */
+        final void scheduleWrite(ChannelOutboundBuffer in) throws Exception {
+            if ((ioState & WRITE_SCHEDULED) != 0 || !canSubmit()) {
+                // Once the current write completes we will write the rest.
+                return;
+            }
+            IovArray iovArray = new IovArray(alloc().directBuffer(IovArray.IOV_SIZE * Limits.IOV_MAX));
+            try {
+                iovArray.maxBytes(config().getMaxBytesPerGatheringWrite());
+                in.forEachFlushedMessage(iovArray);
+            } catch (Exception e) {
+                iovArray.release();
+                throw e;
+            }
+            if (iovArray.count() == 0) {
+                // Only empty buffers are flushed, just remove these.
+                iovArray.release();
+                in.removeBytes(0);
+                return;
+            }
+            writeIovArray = iovArray;
+            ioState |= WRITE_SCHEDULED;
+            IOUringSubmissionQueue submissionQueue = submissionQueue();
+            submissionQueue.addWritev(socket.intValue(), iovArray.memoryAddress(0), iovArray.count(),
+                    userData(Native.IORING_OP_WRITEV, (short) 0));
+            // Hand the write over to the kernel right away like the other transports do on flush, and not only once
+            // the EventLoop blocks. Otherwise the data is never sent if a handler blocks the EventLoop.
+            submissionQueue.submit();
+        }
+
+        @Override
+        void writeComplete(int res) {
+            IovArray iovArray = writeIovArray;
+            writeIovArray = null;
+            // The kernel does not access the memory anymore.
+            iovArray.release();
+
+            ChannelOutboundBuffer in = outboundBuffer();
+            if (in == null || !isActive() || res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                // The channel was closed in the meantime, the pending messages are failed by close(...) already.
+                return;
+            }
+            try {
+                if (res < 0) {
+                    // Translate the error, this will throw for everything except EAGAIN.
+                    res = Errors.ioResult("writev", res);
+                }
+                in.removeBytes(res);
+            } catch (Throwable cause) {
+                handleWriteError(cause);
+                return;
+            }
+            if (res == 0) {
+                // The socket is not writable at the moment, try again once it is.
+                schedulePollOut();
+            } else if (!in.isEmpty()) {
+                // Write what was flushed in the meantime or what could not be written yet.
+                forceFlush();
+            }
+        }
+    }
+}
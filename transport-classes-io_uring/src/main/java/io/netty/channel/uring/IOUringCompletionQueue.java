@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * The completion side of a {@link RingBuffer}.
+ */
+final class IOUringCompletionQueue {
+    private static final long CQE_SIZE = 16;
+
+    // Offsets of the fields inside of struct io_uring_cqe.
+    private static final int CQE_USER_DATA_FIELD = 0;
+    private static final int CQE_RES_FIELD = 8;
+    private static final int CQE_FLAGS_FIELD = 12;
+
+    private final long kHeadAddress;
+    private final long kTailAddress;
+    private final long completionQueueArrayAddress;
+    private final int ringEntries;
+    private final int ringMask;
+    private final int ringSize;
+    private final long ringAddress;
+    private final int ringFd;
+
+    private int head;
+
+    IOUringCompletionQueue(long kHeadAddress, long kTailAddress, long kRingMaskAddress, long kRingEntriesAddress,
+                           long kOverflowAddress, long completionQueueArrayAddress, int ringSize, long ringAddress,
+                           int ringFd) {
+        this.kHeadAddress = kHeadAddress;
+        this.kTailAddress = kTailAddress;
+        this.completionQueueArrayAddress = completionQueueArrayAddress;
+        this.ringSize = ringSize;
+        this.ringAddress = ringAddress;
+        this.ringFd = ringFd;
+
+        ringEntries = PlatformDependent.getIntVolatile(kRingEntriesAddress);
+        ringMask = PlatformDependent.getIntVolatile(kRingMaskAddress);
+        head = PlatformDependent.getIntVolatile(kHeadAddress);
+    }
+
+    /**
+     * Returns {@code true} if there are completions that were not {@linkplain #process(IOUringCompletionQueueCallback)
+     * processed} yet.
+     */
+    boolean hasCompletions() {
+        return head != PlatformDependent.getIntVolatile(kTailAddress);
+    }
+
+    /**
+     * Process all completions that are currently available and return the number of processed completions.
+     */
+    int process(IOUringCompletionQueueCallback callback) {
+        int tail = PlatformDependent.getIntVolatile(kTailAddress);
+        int processed = 0;
+        while (head != tail) {
+            long cqe = completionQueueArrayAddress + (head & ringMask) * CQE_SIZE;
+            long userData = PlatformDependent.getLong(cqe + CQE_USER_DATA_FIELD);
+            int res = PlatformDependent.getInt(cqe + CQE_RES_FIELD);
+            int flags = PlatformDependent.getInt(cqe + CQE_FLAGS_FIELD);
+
+            // Release the slot before calling the callback so the kernel can reuse it as soon as possible.
+            head++;
+            PlatformDependent.putIntOrdered(kHeadAddress, head);
+            processed++;
+
+            callback.handle(res, flags, userData);
+
+            if (head == tail) {
+                // Pick up completions that were added in the meantime.
+                tail = PlatformDependent.getIntVolatile(kTailAddress);
+            }
+        }
+        return processed;
+    }
+
+    int ringFd() {
+        return ringFd;
+    }
+
+    int ringEntries() {
+        return ringEntries;
+    }
+
+    int ringSize() {
+        return ringSize;
+    }
+
+    long ringAddress() {
+        return ringAddress;
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.EventLoopTaskQueueFactory;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.unix.Buffer;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.uring.AbstractIOUringChannel.AbstractIOUringUnsafe;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.netty.util.concurrent.RejectedExecutionHandler;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EventLoop} which uses io_uring under the covers. Only works on Linux!
+ */
+final class IOUringEventLoop extends SingleThreadEventLoop implements IOUringCompletionQueueCallback {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(IOUringEventLoop.class);
+
+    static {
+        // Ensure JNI is initialized by the time this class is loaded by this time!
+        // We use unix-common methods in this class which are backed by JNI methods.
+        IOUring.ensureAvailability();
+    }
+
+    // The id used for operations that belong to the EventLoop itself and not to a Channel.
+    private static final int LOOP_ID = 0;
+    private static final long EVENTFD_READ_USER_DATA = UserData.encode(LOOP_ID, Native.IORING_OP_READ, (short) 0);
+    private static final long CLEANUP_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final RingBuffer ringBuffer;
+    private final FileDescriptor eventFd;
+    private final ByteBuffer eventFdReadMemory;
+    private final long eventFdReadMemoryAddress;
+    private final IntObjectMap<AbstractIOUringChannel> channels = new IntObjectHashMap<AbstractIOUringChannel>(4096);
+    private int nextChannelId;
+
+    private static final long AWAKE = -1L;
+    private static final long NONE = Long.MAX_VALUE;
+
+    // nextWakeupNanos is:
+    //    AWAKE            when EL is awake
+    //    NONE             when EL is waiting with no wakeup scheduled
+    //    other value T    when EL is waiting with wakeup scheduled at time T
+    private final AtomicLong nextWakeupNanos = new AtomicLong(AWAKE);
+    private boolean pendingWakeup;
+    private boolean eventFdReadPending;
+    private long prevDeadlineNanos = NONE;
+    // Used to distinguish the currently armed timeout from timeouts that were removed already.
+    private short timeoutGeneration;
+    private boolean timeoutPending;
+    private volatile int ioRatio = 50;
+
+    IOUringEventLoop(EventLoopGroup parent, Executor executor, int ringSize,
+                     RejectedExecutionHandler rejectedExecutionHandler,
+                     EventLoopTaskQueueFactory taskQueueFactory, EventLoopTaskQueueFactory tailTaskQueueFactory) {
+        super(parent, executor, false, newTaskQueue(taskQueueFactory), newTaskQueue(tailTaskQueueFactory),
+                rejectedExecutionHandler);
+        RingBuffer ringBuffer = Native.createRingBuffer(ringSize == 0 ? Native.DEFAULT_RING_SIZE : ringSize);
+        FileDescriptor eventFd = null;
+        boolean success = false;
+        try {
+            Native.checkAllIOSupported(ringBuffer.features());
+            this.eventFd = eventFd = Native.newEventFd();
+            success = true;
+        } finally {
+            if (!success) {
+                ringBuffer.close();
+                if (eventFd != null) {
+                    try {
+                        eventFd.close();
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
+            }
+        }
+        this.ringBuffer = ringBuffer;
+        eventFdReadMemory = Buffer.allocateDirectWithNativeOrder(8);
+        eventFdReadMemoryAddress = Buffer.memoryAddress(eventFdReadMemory);
+    }
+
+    private static Queue<Runnable> newTaskQueue(
+            EventLoopTaskQueueFactory queueFactory) {
+        if (queueFactory == null) {
+            return newTaskQueue0(DEFAULT_MAX_PENDING_TASKS);
+        }
+        return queueFactory.newTaskQueue(DEFAULT_MAX_PENDING_TASKS);
+    }
+
+    @Override
+    protected Queue<Runnable> newTaskQueue(int maxPendingTasks) {
+        return newTaskQueue0(maxPendingTasks);
+    }
+
+    private static Queue<Runnable> newTaskQueue0(int maxPendingTasks) {
+        // This event loop never calls takeTask()
+        return maxPendingTasks == Integer.MAX_VALUE ? PlatformDependent.<Runnable>newMpscQueue()
+                : PlatformDependent.<Runnable>newMpscQueue(maxPendingTasks);
+    }
+
+    IOUringSubmissionQueue submissionQueue() {
+        return ringBuffer.ioUringSubmissionQueue();
+    }
+
+    /**
+     * Register the given {@link AbstractIOUringChannel} with this {@link EventLoop} and return the id that must be
+     * used for all its submissions.
+     */
+    int add(AbstractIOUringChannel ch) {
+        assert inEventLoop();
+        int id;
+        do {
+            id = ++nextChannelId;
+            if (id <= LOOP_ID) {
+                // Wrapped around, start again from the beginning.
+                nextChannelId = LOOP_ID;
+                id = LOOP_ID;
+            }
+        } while (id == LOOP_ID || channels.containsKey(id));
+        channels.put(id, ch);
+        return id;
+    }
+
+    /**
+     * Remove the given {@link AbstractIOUringChannel} from this {@link EventLoop}. This must only be called once
+     * there are no operations in flight for the channel anymore.
+     */
+    void remove(AbstractIOUringChannel ch, int id) {
+        assert inEventLoop();
+        AbstractIOUringChannel old = channels.remove(id);
+        assert old == ch;
+    }
+
+    @Override
+    protected void wakeup(boolean inEventLoop) {
+        if (!inEventLoop && nextWakeupNanos.getAndSet(AWAKE) != AWAKE) {
+            // write to the evfd which will then complete the pending read and so wake-up io_uring_enter(...)
+            Native.eventFdWrite(eventFd.intValue(), 1L);
+        }
+    }
+
+    @Override
+    protected boolean beforeScheduledTaskSubmitted(long deadlineNanos) {
+        // Note this is also correct for the nextWakeupNanos == -1 (AWAKE) case
+        return deadlineNanos < nextWakeupNanos.get();
+    }
+
+    @Override
+    protected boolean afterScheduledTaskSubmitted(long deadlineNanos) {
+        // Note this is also correct for the nextWakeupNanos == -1 (AWAKE) case
+        return deadlineNanos < nextWakeupNanos.get();
+    }
+
+    /**
+     * Returns the percentage of the desired amount of time spent for I/O in the event loop.
+     */
+    public int getIoRatio() {
+        return ioRatio;
+    }
+
+    /**
+     * Sets the percentage of the desired amount of time spent for I/O in the event loop.  The default value is
+     * {@code 50}, which means the event loop will try to spend the same amount of time for I/O as for non-I/O tasks.
+     */
+    public void setIoRatio(int ioRatio) {
+        if (ioRatio <= 0 || ioRatio > 100) {
+            throw new IllegalArgumentException("ioRatio: " + ioRatio + " (expected: 0 < ioRatio <= 100)");
+        }
+        this.ioRatio = ioRatio;
+    }
+
+    @Override
+    public int registeredChannels() {
+        return channels.size();
+    }
+
+    private void addEventFdRead(IOUringSubmissionQueue submissionQueue) {
+        if (!eventFdReadPending) {
+            eventFdReadPending = true;
+            submissionQueue.addRead(eventFd.intValue(), eventFdReadMemoryAddress, 0, 8, EVENTFD_READ_USER_DATA);
+        }
+    }
+
+    private void updateTimeout(IOUringSubmissionQueue submissionQueue, long deadlineNanos) {
+        if (timeoutPending) {
+            submissionQueue.addTimeoutRemove(timeoutUserData(timeoutGeneration),
+                    UserData.encode(LOOP_ID, Native.IORING_OP_TIMEOUT_REMOVE, (short) 0));
+            timeoutPending = false;
+        }
+        if (deadlineNanos != NONE) {
+            addTimeout(submissionQueue, deadlineToDelayNanos(deadlineNanos));
+        }
+    }
+
+    private void addTimeout(IOUringSubmissionQueue submissionQueue, long delayNanos) {
+        timeoutPending = true;
+        submissionQueue.addTimeout(delayNanos, timeoutUserData(++timeoutGeneration));
+    }
+
+    private static long timeoutUserData(short generation) {
+        return UserData.encode(LOOP_ID, Native.IORING_OP_TIMEOUT, generation);
+    }
+
+    @Override
+    protected void run() {
+        final IOUringSubmissionQueue submissionQueue = ringBuffer.ioUringSubmissionQueue();
+        final IOUringCompletionQueue completionQueue = ringBuffer.ioUringCompletionQueue();
+        for (;;) {
+            try {
+                addEventFdRead(submissionQueue);
+                if (hasTasks() || completionQueue.hasCompletions()) {
+                    // Hand over everything that was queued so far without blocking.
+                    submissionQueue.submit();
+                } else {
+                    long curDeadlineNanos = nextScheduledTaskDeadlineNanos();
+                    if (curDeadlineNanos == -1L) {
+                        curDeadlineNanos = NONE; // nothing on the calendar
+                    }
+                    nextWakeupNanos.set(curDeadlineNanos);
+                    try {
+                        if (!hasTasks()) {
+                            if (curDeadlineNanos != prevDeadlineNanos) {
+                                // The timeout needs to be re-armed or disarmed
+                                prevDeadlineNanos = curDeadlineNanos;
+                                updateTimeout(submissionQueue, curDeadlineNanos);
+                            }
+                            // Submit everything that was queued and block until at least one operation completed.
+                            beforeWait();
+                            submissionQueue.submitAndWait();
+                        }
+                    } finally {
+                        afterWait();
+                        // Try get() first to avoid much more expensive CAS in the case we
+                        // were woken via the wakeup() method (submitted task)
+                        if (nextWakeupNanos.get() == AWAKE || nextWakeupNanos.getAndSet(AWAKE) == AWAKE) {
+                            pendingWakeup = true;
+                        }
+                    }
+                }
+
+                final int ioRatio = this.ioRatio;
+                if (ioRatio == 100) {
+                    try {
+                        completionQueue.process(this);
+                    } finally {
+                        // Ensure we always run tasks.
+                        runAllTasks();
+                    }
+                } else {
+                    final long ioStartTime = System.nanoTime();
+                    try {
+                        completionQueue.process(this);
+                    } finally {
+                        // Ensure we always run tasks.
+                        final long ioTime = System.nanoTime() - ioStartTime;
+                        runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+                    }
+                }
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable t) {
+                handleLoopException(t);
+            } finally {
+                // Always handle shutdown even if the loop processing threw an exception.
+                try {
+                    if (isShuttingDown()) {
+                        closeAll();
+                        if (confirmShutdown()) {
+                            break;
+                        }
+                    }
+                } catch (Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    handleLoopException(t);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void handle(int res, int flags, long userData) {
+        int id = UserData.decodeId(userData);
+        byte op = UserData.decodeOp(userData);
+        if (id == LOOP_ID) {
+            if (op == Native.IORING_OP_READ) {
+                // The eventfd was written to by wakeup(...)
+                eventFdReadPending = false;
+                pendingWakeup = false;
+            } else if (op == Native.IORING_OP_TIMEOUT && UserData.decodeData(userData) == timeoutGeneration) {
+                timeoutPending = false;
+                // The timeout fired, make sure it is re-armed for the next scheduled task.
+                prevDeadlineNanos = NONE;
+            }
+            return;
+        }
+        if (op == Native.IORING_OP_POLL_REMOVE || op == Native.IORING_OP_ASYNC_CANCEL) {
+            // Nothing to do, the cancelled operation itself will complete as well.
+            return;
+        }
+        AbstractIOUringChannel ch = channels.get(id);
+        if (ch != null) {
+            ((AbstractIOUringUnsafe) ch.unsafe()).handle(op, res, UserData.decodeData(userData));
+        }
+    }
+
+    /**
+     * Visible only for testing!
+     */
+    void handleLoopException(Throwable t) {
+        logger.warn("Unexpected exception in the io_uring loop.", t);
+
+        // Prevent possible consecutive immediate failures that lead to
+        // excessive CPU consumption.
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            // Ignore.
+        }
+    }
+
+    private void closeAll() {
+        // Using the intermediate collection to prevent ConcurrentModificationException.
+        // In the `close()` method, the channel is deleted from `channels` map.
+        AbstractIOUringChannel[] localChannels = channels.values().toArray(new AbstractIOUringChannel[0]);
+
+        for (AbstractIOUringChannel ch: localChannels) {
+            ch.unsafe().close(ch.unsafe().voidPromise());
+        }
+    }
+
+    @Override
+    protected void cleanup() {
+        final IOUringSubmissionQueue submissionQueue = ringBuffer.ioUringSubmissionQueue();
+        final IOUringCompletionQueue completionQueue = ringBuffer.ioUringCompletionQueue();
+        try {
+            // Ensure any in-flight wakeup writes have been performed prior to closing eventFd.
+            if (pendingWakeup) {
+                if (timeoutPending) {
+                    submissionQueue.addTimeoutRemove(timeoutUserData(timeoutGeneration),
+                            UserData.encode(LOOP_ID, Native.IORING_OP_TIMEOUT_REMOVE, (short) 0));
+                }
+                addTimeout(submissionQueue, CLEANUP_TIMEOUT_NANOS);
+                while (pendingWakeup && timeoutPending) {
+                    try {
+                        submissionQueue.submitAndWait();
+                    } catch (IOException ignore) {
+                        break;
+                    }
+                    completionQueue.process(this);
+                }
+            }
+            try {
+                eventFd.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close the event fd.", e);
+            }
+        } finally {
+            // Closing the ring will cancel everything that is still in flight.
+            ringBuffer.close();
+            Buffer.free(eventFdReadMemory);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.unix.Socket;
+
+/**
+ * A {@link Socket} which allows to choose the protocol family of new datagram sockets.
+ */
+final class IOUringSocket extends Socket {
+
+    IOUringSocket(int fd) {
+        super(fd);
+    }
+
+    boolean isIpv6() {
+        return ipv6;
+    }
+
+    static IOUringSocket newSocketDgram(boolean ipv6) {
+        return new IOUringSocket(newSocketDgram0(ipv6));
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.unix.Buffer;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The submission side of a {@link RingBuffer}. Entries are only written into the shared memory here and are handed
+ * to the kernel in batches via {@link #submit()} or {@link #submitAndWait()}, so a single {@code io_uring_enter(...)}
+ * can cover the reads, writes and accepts of many channels.
+ */
+final class IOUringSubmissionQueue {
+    private static final long SQE_SIZE = 64;
+    private static final int INT_SIZE = 4;
+    private static final int KERNEL_TIMESPEC_SIZE = 16;
+
+    // Offsets of the fields inside of struct io_uring_sqe.
+    private static final int SQE_OP_CODE_FIELD = 0;
+    private static final int SQE_FLAGS_FIELD = 1;
+    private static final int SQE_IOPRIO_FIELD = 2;
+    private static final int SQE_FD_FIELD = 4;
+    private static final int SQE_OFFSET_FIELD = 8;
+    private static final int SQE_ADDRESS_FIELD = 16;
+    private static final int SQE_LEN_FIELD = 24;
+    private static final int SQE_RW_FLAGS_FIELD = 28;
+    private static final int SQE_USER_DATA_FIELD = 32;
+    private static final int SQE_PAD_FIELD = 40;
+
+    // Offsets of the fields inside of struct __kernel_timespec.
+    private static final int KERNEL_TIMESPEC_TV_SEC_FIELD = 0;
+    private static final int KERNEL_TIMESPEC_TV_NSEC_FIELD = 8;
+
+    private final long kHeadAddress;
+    private final long kTailAddress;
+    private final long submissionQueueArrayAddress;
+    private final int ringEntries;
+    private final int ringMask;
+    private final int ringSize;
+    private final long ringAddress;
+    private final int ringFd;
+    private final ByteBuffer timeoutMemory;
+    private final long timeoutMemoryAddress;
+
+    private int head;
+    private int tail;
+
+    IOUringSubmissionQueue(long kHeadAddress, long kTailAddress, long kRingMaskAddress, long kRingEntriesAddress,
+                           long kFlagsAddress, long kDroppedAddress, long kArrayAddress,
+                           long submissionQueueArrayAddress, int ringSize, long ringAddress, int ringFd) {
+        this.kHeadAddress = kHeadAddress;
+        this.kTailAddress = kTailAddress;
+        this.submissionQueueArrayAddress = submissionQueueArrayAddress;
+        this.ringSize = ringSize;
+        this.ringAddress = ringAddress;
+        this.ringFd = ringFd;
+
+        ringEntries = PlatformDependent.getIntVolatile(kRingEntriesAddress);
+        ringMask = PlatformDependent.getIntVolatile(kRingMaskAddress);
+        head = PlatformDependent.getIntVolatile(kHeadAddress);
+        tail = PlatformDependent.getIntVolatile(kTailAddress);
+
+        // Use an identity mapping between the index array and the submission queue entries, this allows us to
+        // address the entries directly via the tail.
+        for (int i = 0; i < ringEntries; i++) {
+            PlatformDependent.putInt(kArrayAddress + (long) i * INT_SIZE, i);
+        }
+
+        timeoutMemory = Buffer.allocateDirectWithNativeOrder(KERNEL_TIMESPEC_SIZE);
+        timeoutMemoryAddress = Buffer.memoryAddress(timeoutMemory);
+    }
+
+    /**
+     * Add a one-shot poll for the given {@code pollMask}.
+     */
+    boolean addPoll(int fd, int pollMask, long userData) {
+        return enqueueSqe(Native.IORING_OP_POLL_ADD, pollMask, fd, 0, 0, 0, userData);
+    }
+
+    /**
+     * Remove the poll that was submitted with the given {@code pollUserData}.
+     */
+    boolean addPollRemove(long pollUserData, long userData) {
+        return enqueueSqe(Native.IORING_OP_POLL_REMOVE, 0, -1, pollUserData, 0, 0, userData);
+    }
+
+    boolean addRead(int fd, long bufferAddress, int pos, int limit, long userData) {
+        return enqueueSqe(Native.IORING_OP_READ, 0, fd, bufferAddress + pos, limit - pos, 0, userData);
+    }
+
+    boolean addWritev(int fd, long iovecArrayAddress, int length, long userData) {
+        return enqueueSqe(Native.IORING_OP_WRITEV, 0, fd, iovecArrayAddress, length, 0, userData);
+    }
+
+    boolean addAccept(int fd, long address, long addressLength, long userData) {
+        return enqueueSqe(Native.IORING_OP_ACCEPT, Native.SOCK_NONBLOCK | Native.SOCK_CLOEXEC, fd,
+                address, 0, addressLength, userData);
+    }
+
+    /**
+     * Cancel the operation that was submitted with the given {@code opUserData}.
+     */
+    boolean addCancel(long opUserData, long userData) {
+        return enqueueSqe(Native.IORING_OP_ASYNC_CANCEL, 0, -1, opUserData, 0, 0, userData);
+    }
+
+    /**
+     * Add a relative timeout that completes with {@code -ETIME} once {@code nanoSeconds} have passed. The timespec is
+     * copied by the kernel when the entry is consumed, so at most one timeout may be added per submission.
+     */
+    boolean addTimeout(long nanoSeconds, long userData) {
+        PlatformDependent.putLong(timeoutMemoryAddress + KERNEL_TIMESPEC_TV_SEC_FIELD, nanoSeconds / 1000000000L);
+        PlatformDependent.putLong(timeoutMemoryAddress + KERNEL_TIMESPEC_TV_NSEC_FIELD, nanoSeconds % 1000000000L);
+        return enqueueSqe(Native.IORING_OP_TIMEOUT, 0, -1, timeoutMemoryAddress, 1, 0, userData);
+    }
+
+    boolean addTimeoutRemove(long timeoutUserData, long userData) {
+        return enqueueSqe(Native.IORING_OP_TIMEOUT_REMOVE, 0, -1, timeoutUserData, 0, 0, userData);
+    }
+
+    /**
+     * Returns the number of entries that were added but not submitted yet.
+     */
+    int pending() {
+        return tail - head;
+    }
+
+    /**
+     * Submit all pending entries without waiting for any completion.
+     */
+    int submit() throws IOException {
+        int submit = tail - head;
+        return submit > 0 ? submit(submit, 0, 0) : 0;
+    }
+
+    /**
+     * Submit all pending entries and block until at least one completion is available.
+     */
+    int submitAndWait() throws IOException {
+        return submit(tail - head, 1, Native.IORING_ENTER_GETEVENTS);
+    }
+
+    private int submit(int toSubmit, int minComplete, int flags) throws IOException {
+        // Publish the new tail, the ordered write ensures the kernel sees all the writes to the entries.
+        PlatformDependent.putIntOrdered(kTailAddress, tail);
+        try {
+            return Native.ioUringEnter(ringFd, toSubmit, minComplete, flags);
+        } finally {
+            head = PlatformDependent.getIntVolatile(kHeadAddress);
+        }
+    }
+
+    private boolean enqueueSqe(byte op, int rwFlags, int fd, long address, int length, long offset,
+                               long userData) {
+        boolean submitted = false;
+        if (tail - head == ringEntries) {
+            // The queue is full, hand everything over to the kernel now so we can reuse the entries.
+            try {
+                submit();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to submit full io_uring submission queue", e);
+            }
+            submitted = true;
+        }
+        long sqe = submissionQueueArrayAddress + (tail++ & ringMask) * SQE_SIZE;
+        PlatformDependent.putByte(sqe + SQE_OP_CODE_FIELD, op);
+        PlatformDependent.putByte(sqe + SQE_FLAGS_FIELD, (byte) 0);
+        PlatformDependent.putShort(sqe + SQE_IOPRIO_FIELD, (short) 0);
+        PlatformDependent.putInt(sqe + SQE_FD_FIELD, fd);
+        PlatformDependent.putLong(sqe + SQE_OFFSET_FIELD, offset);
+        PlatformDependent.putLong(sqe + SQE_ADDRESS_FIELD, address);
+        PlatformDependent.putInt(sqe + SQE_LEN_FIELD, length);
+        PlatformDependent.putInt(sqe + SQE_RW_FLAGS_FIELD, rwFlags);
+        PlatformDependent.putLong(sqe + SQE_USER_DATA_FIELD, userData);
+        // buf_index, personality, splice_fd_in and the padding are unused.
+        PlatformDependent.putLong(sqe + SQE_PAD_FIELD, 0);
+        PlatformDependent.putLong(sqe + SQE_PAD_FIELD + 8, 0);
+        PlatformDependent.putLong(sqe + SQE_PAD_FIELD + 16, 0);
+        return submitted;
+    }
+
+    int ringFd() {
+        return ringFd;
+    }
+
+    int ringEntries() {
+        return ringEntries;
+    }
+
+    int ringSize() {
+        return ringSize;
+    }
+
+    long ringAddress() {
+        return ringAddress;
+    }
+
+    long submissionQueueArrayAddress() {
+        return submissionQueueArrayAddress;
+    }
+
+    void release() {
+        Buffer.free(timeoutMemory);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.Unix;
+import io.netty.util.internal.NativeLibraryLoader;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.ThrowableUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.Selector;
+
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.afInet;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.afInet6;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ecanceled;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.etime;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringEnterGetevents;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringFeatFastPoll;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringFeatNodrop;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpAccept;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpAsyncCancel;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpPollAdd;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpPollRemove;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpRead;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpTimeout;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpTimeoutRemove;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpWritev;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.kernelVersion;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.pollin;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.pollout;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.pollrdhup;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sizeofCqe;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sizeofSqe;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sockCloexec;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sockNonblock;
+import static io.netty.channel.unix.Errors.newIOException;
+
+/**
+ * Native helper methods
+ * <p><strong>Internal usage only!</strong>
+ * <p>Static members which call JNI methods must be defined in {@link NativeStaticallyReferencedJniMethods}.
+ */
+final class Native {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(Native.class);
+
+    static {
+        Selector selector = null;
+        try {
+            // We call Selector.open() as this will under the hood cause IOUtil to be loaded.
+            // This is a workaround for a possible classloader deadlock that could happen otherwise:
+            //
+            // See https://github.com/netty/netty/issues/10187
+            selector = Selector.open();
+        } catch (IOException ignore) {
+            // Just ignore
+        }
+        try {
+            // First, try calling a side-effect free JNI method to see if the library was already
+            // loaded by the application.
+            sizeofSqe();
+        } catch (UnsatisfiedLinkError ignore) {
+            // The library was not previously loaded, load it now.
+            loadNativeLibrary();
+        } finally {
+            try {
+                if (selector != null) {
+                    selector.close();
+                }
+            } catch (IOException ignore) {
+                // Just ignore
+            }
+        }
+        Unix.registerInternal(new Runnable() {
+            @Override
+            public void run() {
+                registerUnix();
+            }
+        });
+    }
+
+    private static native int registerUnix();
+
+    static final int SIZEOF_SQE = sizeofSqe();
+    static final int SIZEOF_CQE = sizeofCqe();
+
+    static final byte IORING_OP_POLL_ADD = (byte) ioringOpPollAdd();
+    static final byte IORING_OP_POLL_REMOVE = (byte) ioringOpPollRemove();
+    static final byte IORING_OP_TIMEOUT = (byte) ioringOpTimeout();
+    static final byte IORING_OP_TIMEOUT_REMOVE = (byte) ioringOpTimeoutRemove();
+    static final byte IORING_OP_ACCEPT = (byte) ioringOpAccept();
+    static final byte IORING_OP_ASYNC_CANCEL = (byte) ioringOpAsyncCancel();
+    static final byte IORING_OP_READ = (byte) ioringOpRead();
+    static final byte IORING_OP_WRITEV = (byte) ioringOpWritev();
+    static final int IORING_ENTER_GETEVENTS = ioringEnterGetevents();
+    static final int IORING_FEAT_NODROP = ioringFeatNodrop();
+    static final int IORING_FEAT_FAST_POLL = ioringFeatFastPoll();
+
+    static final int POLLIN = pollin();
+    static final int POLLOUT = pollout();
+    static final int POLLRDHUP = pollrdhup();
+    static final int SOCK_NONBLOCK = sockNonblock();
+    static final int SOCK_CLOEXEC = sockCloexec();
+    static final int AF_INET = afInet();
+    static final int AF_INET6 = afInet6();
+    static final int ERRNO_ECANCELED_NEGATIVE = -ecanceled();
+    static final int ERRNO_ETIME_NEGATIVE = -etime();
+
+    static final String KERNEL_VERSION = kernelVersion();
+
+    /**
+     * The default number of entries of the submission queue of each {@link RingBuffer}.
+     */
+    static final int DEFAULT_RING_SIZE = 4096;
+
+    static RingBuffer createRingBuffer(int ringSize) {
+        long[] values = ioUringSetup(ringSize);
+        assert values.length == 20;
+        IOUringSubmissionQueue submissionQueue = new IOUringSubmissionQueue(
+                values[1], values[2], values[3], values[4], values[5], values[6], values[7],
+                values[8], (int) values[9], values[10], (int) values[0]);
+        IOUringCompletionQueue completionQueue = new IOUringCompletionQueue(
+                values[11], values[12], values[13], values[14], values[15], values[16],
+                (int) values[17], values[18], (int) values[0]);
+        return new RingBuffer(submissionQueue, completionQueue, (int) values[19]);
+    }
+
+    static void checkAllIOSupported(int features) {
+        if ((features & IORING_FEAT_NODROP) == 0) {
+            throw new UnsupportedOperationException(
+                    "io_uring without IORING_FEAT_NODROP is not supported (kernel " + KERNEL_VERSION + ')');
+        }
+        if ((features & IORING_FEAT_FAST_POLL) == 0) {
+            throw new UnsupportedOperationException(
+                    "io_uring without IORING_FEAT_FAST_POLL is not supported (kernel " + KERNEL_VERSION + ')');
+        }
+    }
+
+    static int ioUringEnter(int ringFd, int toSubmit, int minComplete, int flags) throws IOException {
+        int res = ioUringEnter0(ringFd, toSubmit, minComplete, flags);
+        if (res < 0) {
+            throw newIOException("io_uring_enter", res);
+        }
+        return res;
+    }
+
+    static FileDescriptor newEventFd() {
+        return new FileDescriptor(eventFd());
+    }
+
+    private static native long[] ioUringSetup(int entries);
+    static native void ioUringExit(long sqRingAddress, int sqRingSize, long cqRingAddress, int cqRingSize,
+                                   long sqesAddress, int sqesSize, int ringFd);
+    private static native int ioUringEnter0(int ringFd, int toSubmit, int minComplete, int flags);
+    private static native int eventFd();
+    static native void eventFdWrite(int fd, long value);
+
+    private static void loadNativeLibrary() {
+        String name = PlatformDependent.normalizedOs();
+        if (!"linux".equals(name)) {
+            throw new IllegalStateException("Only supported on Linux");
+        }
+        String staticLibName = "netty_transport_native_io_uring";
+        String sharedLibName = staticLibName + '_' + PlatformDependent.normalizedArch();
+        ClassLoader cl = PlatformDependent.getClassLoader(Native.class);
+        try {
+            NativeLibraryLoader.load(sharedLibName, cl);
+        } catch (UnsatisfiedLinkError e1) {
+            try {
+                NativeLibraryLoader.load(staticLibName, cl);
+                logger.debug("Failed to load {}", sharedLibName, e1);
+            } catch (UnsatisfiedLinkError e2) {
+                ThrowableUtil.addSuppressed(e1, e2);
+                throw e1;
+            }
+        }
+    }
+
+    private Native() {
+        // utility
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+/**
+ * The shared memory of an io_uring instance, consisting of a {@link IOUringSubmissionQueue} and a
+ * {@link IOUringCompletionQueue}.
+ */
+final class RingBuffer {
+    private final IOUringSubmissionQueue ioUringSubmissionQueue;
+    private final IOUringCompletionQueue ioUringCompletionQueue;
+    private final int features;
+
+    RingBuffer(IOUringSubmissionQueue ioUringSubmissionQueue, IOUringCompletionQueue ioUringCompletionQueue,
+               int features) {
+        this.ioUringSubmissionQueue = ioUringSubmissionQueue;
+        this.ioUringCompletionQueue = ioUringCompletionQueue;
+        this.features = features;
+    }
+
+    int fd() {
+        return ioUringCompletionQueue.ringFd();
+    }
+
+    int features() {
+        return features;
+    }
+
+    IOUringSubmissionQueue ioUringSubmissionQueue() {
+        return ioUringSubmissionQueue;
+    }
+
+    IOUringCompletionQueue ioUringCompletionQueue() {
+        return ioUringCompletionQueue;
+    }
+
+    void close() {
+        ioUringSubmissionQueue.release();
+        Native.ioUringExit(
+                ioUringSubmissionQueue.ringAddress(),
+                ioUringSubmissionQueue.ringSize(),
+                ioUringCompletionQueue.ringAddress(),
+                ioUringCompletionQueue.ringSize(),
+                ioUringSubmissionQueue.submissionQueueArrayAddress(),
+                ioUringSubmissionQueue.ringEntries() * Native.SIZEOF_SQE,
+                ioUringSubmissionQueue.ringFd());
+    }
+}
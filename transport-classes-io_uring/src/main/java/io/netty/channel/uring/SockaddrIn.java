@@ -0,0 +1,67 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Decodes the {@code sockaddr_in} / {@code sockaddr_in6} structs that are filled by the kernel.
+ */
+final class SockaddrIn {
+    // Large enough to hold a sockaddr_storage.
+    static final int SOCKADDR_STORAGE_SIZE = 128;
+
+    private static final int FAMILY_OFFSET = 0;
+    private static final int PORT_OFFSET = 2;
+    private static final int IPV4_ADDRESS_OFFSET = 4;
+    private static final int IPV4_ADDRESS_LENGTH = 4;
+    private static final int IPV6_ADDRESS_OFFSET = 8;
+    private static final int IPV6_ADDRESS_LENGTH = 16;
+    private static final int IPV6_SCOPE_ID_OFFSET = 24;
+
+    /**
+     * Read the address that was stored at {@code memoryAddress} by the kernel.
+     */
+    static InetSocketAddress readAddress(long memoryAddress) throws UnknownHostException {
+        int family = PlatformDependent.getShort(memoryAddress + FAMILY_OFFSET) & 0xFFFF;
+        // The port is stored in network byte order.
+        int port = ((PlatformDependent.getByte(memoryAddress + PORT_OFFSET) & 0xFF) << 8) |
+                (PlatformDependent.getByte(memoryAddress + PORT_OFFSET + 1) & 0xFF);
+        if (family == Native.AF_INET) {
+            byte[] address = new byte[IPV4_ADDRESS_LENGTH];
+            PlatformDependent.copyMemory(memoryAddress + IPV4_ADDRESS_OFFSET, address, 0, IPV4_ADDRESS_LENGTH);
+            return new InetSocketAddress(InetAddress.getByAddress(address), port);
+        }
+        if (family == Native.AF_INET6) {
+            byte[] address = new byte[IPV6_ADDRESS_LENGTH];
+            PlatformDependent.copyMemory(memoryAddress + IPV6_ADDRESS_OFFSET, address, 0, IPV6_ADDRESS_LENGTH);
+            int scopeId = PlatformDependent.getInt(memoryAddress + IPV6_SCOPE_ID_OFFSET);
+            if (scopeId == 0) {
+                // This also takes care of IPv4-mapped IPv6 addresses.
+                return new InetSocketAddress(InetAddress.getByAddress(address), port);
+            }
+            return new InetSocketAddress(Inet6Address.getByAddress(null, address, scopeId), port);
+        }
+        throw new UnknownHostException("Unsupported address family: " + family);
+    }
+
+    private SockaddrIn() { }
+}
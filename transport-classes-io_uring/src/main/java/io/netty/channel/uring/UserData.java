@@ -0,0 +1,43 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+/**
+ * Encodes the {@code user_data} of a submission: the id of the channel in the upper 32 bits, followed by the
+ * opcode and 16 bits of operation specific data. Channels are addressed by an id which is unique per
+ * {@link IOUringEventLoop} instead of the file descriptor, as file descriptors are reused by the kernel while
+ * completions for a closed channel may still be in flight.
+ */
+final class UserData {
+
+    static long encode(int id, byte op, short data) {
+        return ((long) id << 32) | ((op & 0xFFL) << 16) | (data & 0xFFFFL);
+    }
+
+    static int decodeId(long userData) {
+        return (int) (userData >>> 32);
+    }
+
+    static byte decodeOp(long userData) {
+        return (byte) (userData >>> 16);
+    }
+
+    static short decodeData(long userData) {
+        return (short) userData;
+    }
+
+    private UserData() { }
+}
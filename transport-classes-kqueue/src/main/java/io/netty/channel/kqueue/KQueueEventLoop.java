@@ -235,7 +235,12 @@ final class KQueueEventLoop extends SingleThreadEventLoop {
                         // fall-through to SELECT since the busy-wait is not supported with kqueue
 
                     case SelectStrategy.SELECT:
-                        strategy = kqueueWait(WAKEN_UP_UPDATER.getAndSet(this, 0) == 1);
+                        beforeWait();
+                        try {
+                            strategy = kqueueWait(WAKEN_UP_UPDATER.getAndSet(this, 0) == 1);
+                        } finally {
+                            afterWait();
+                        }
 
                         // 'wakenUp.compareAndSet(false, true)' is always evaluated
                         // before calling 'selector.wakeup()' to reduce the wake-up
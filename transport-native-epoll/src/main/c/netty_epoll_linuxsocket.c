@@ -24,10 +24,12 @@
 #include <stdlib.h>
 #include <string.h>
 #include <errno.h>
+#include <fcntl.h>
 #include <netinet/in.h>
 #include <netinet/udp.h> // SOL_UDP
 #include <sys/sendfile.h>
 #include <linux/tcp.h> // TCP_NOTSENT_LOWAT is a linux specific define
+#include <linux/errqueue.h> // struct sock_extended_err
 #include "netty_epoll_linuxsocket.h"
 #include "netty_unix_errors.h"
 #include "netty_unix_filedescriptor.h"
@@ -62,6 +64,23 @@
 #define UDP_GRO 104
 #endif
 
+// SO_ZEROCOPY and MSG_ZEROCOPY are defined in linux 4.14. We define these here so older kernels can compile.
+#ifndef SO_ZEROCOPY
+#define SO_ZEROCOPY 60
+#endif
+
+#ifndef MSG_ZEROCOPY
+#define MSG_ZEROCOPY 0x4000000
+#endif
+
+#ifndef SO_EE_ORIGIN_ZEROCOPY
+#define SO_EE_ORIGIN_ZEROCOPY 5
+#endif
+
+#ifndef SO_EE_CODE_ZEROCOPY_COPIED
+#define SO_EE_CODE_ZEROCOPY_COPIED 1
+#endif
+
 static jclass peerCredentialsClass = NULL;
 static jmethodID peerCredentialsMethodId = NULL;
 
@@ -627,6 +646,108 @@ static void netty_epoll_linuxsocket_setUdpGro(JNIEnv* env, jclass clazz, jint fd
     netty_unix_socket_setOption(env, fd, SOL_UDP, UDP_GRO, &optval, sizeof(optval));
 }
 
+static jint netty_epoll_linuxsocket_isSoZeroCopy(JNIEnv* env, jclass clazz, jint fd) {
+     int optval;
+     if (netty_unix_socket_getOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval)) == -1) {
+         return -1;
+     }
+     return optval;
+}
+
+static void netty_epoll_linuxsocket_setSoZeroCopy(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval));
+}
+
+static jint netty_epoll_linuxsocket_sendAddressZeroCopy(JNIEnv* env, jclass clazz, jint fd, jlong address, jint pos, jint limit) {
+    ssize_t res;
+    int err;
+    do {
+        res = send(fd, (void*) (intptr_t) (address + pos), (size_t) (limit - pos), MSG_ZEROCOPY);
+        // keep on writing if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+    return (jint) res;
+}
+
+static jlong netty_epoll_linuxsocket_writevAddressesZeroCopy(JNIEnv* env, jclass clazz, jint fd, jlong memoryAddress, jint length) {
+    struct msghdr m = { 0 };
+    m.msg_iov = (struct iovec*) (intptr_t) memoryAddress;
+    m.msg_iovlen = length;
+
+    ssize_t res;
+    int err;
+    do {
+        res = sendmsg(fd, &m, MSG_ZEROCOPY);
+        // keep on writing if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+    return (jlong) res;
+}
+
+static jint netty_epoll_linuxsocket_dup(JNIEnv* env, jclass clazz, jint fd) {
+    int res = fcntl(fd, F_DUPFD_CLOEXEC, 0);
+    if (res == -1) {
+        return -errno;
+    }
+    return res;
+}
+
+// Reads MSG_ZEROCOPY notifications from the error queue until it is empty or the array is full. Every notification is
+// stored as three ints: the first and the last completed send and 1 if the kernel had to copy the data, 0 otherwise.
+static jint netty_epoll_linuxsocket_recvZeroCopyCompletions(JNIEnv* env, jclass clazz, jint fd, jintArray completions) {
+    jint len = (*env)->GetArrayLength(env, completions);
+    jint values[len];
+    jint count = 0;
+    char control[128];
+    struct msghdr m;
+    struct cmsghdr* cm;
+    struct sock_extended_err* serr;
+    ssize_t res;
+    int err;
+
+    while (count + 3 <= len) {
+        memset(&m, 0, sizeof(m));
+        m.msg_control = control;
+        m.msg_controllen = sizeof(control);
+
+        do {
+            res = recvmsg(fd, &m, MSG_ERRQUEUE);
+            // Keep on reading if we was interrupted
+        } while (res == -1 && ((err = errno) == EINTR));
+
+        if (res < 0) {
+            if (err == EAGAIN || err == EWOULDBLOCK) {
+                break;
+            }
+            return -err;
+        }
+
+        for (cm = CMSG_FIRSTHDR(&m); cm != NULL; cm = CMSG_NXTHDR(&m, cm)) {
+            if (!((cm->cmsg_level == SOL_IP && cm->cmsg_type == IP_RECVERR) ||
+                    (cm->cmsg_level == SOL_IPV6 && cm->cmsg_type == IPV6_RECVERR))) {
+                continue;
+            }
+            serr = (struct sock_extended_err*) CMSG_DATA(cm);
+            if (serr->ee_errno != 0 || serr->ee_origin != SO_EE_ORIGIN_ZEROCOPY) {
+                continue;
+            }
+            values[count++] = (jint) serr->ee_info;
+            values[count++] = (jint) serr->ee_data;
+            values[count++] = (serr->ee_code & SO_EE_CODE_ZEROCOPY_COPIED) != 0 ? 1 : 0;
+        }
+    }
+
+    if (count > 0) {
+        (*env)->SetIntArrayRegion(env, completions, 0, count, values);
+    }
+    return count;
+}
 
 static jlong netty_epoll_linuxsocket_sendFile(JNIEnv* env, jclass clazz, jint fd, jobject fileRegion, jlong base_off, jlong off, jlong len) {
     jobject fileChannel = (*env)->GetObjectField(env, fileRegion, fileChannelFieldId);
@@ -703,7 +824,13 @@ static const JNINativeMethod fixed_method_table[] = {
   { "leaveGroup", "(IZ[B[BII)V", (void *) netty_epoll_linuxsocket_leaveGroup },
   { "leaveSsmGroup", "(IZ[B[BII[B)V", (void *) netty_epoll_linuxsocket_leaveSsmGroup },
   { "isUdpGro", "(I)I", (void *) netty_epoll_linuxsocket_isUdpGro },
-  { "setUdpGro", "(II)V", (void *) netty_epoll_linuxsocket_setUdpGro }
+  { "setUdpGro", "(II)V", (void *) netty_epoll_linuxsocket_setUdpGro },
+  { "isSoZeroCopy", "(I)I", (void *) netty_epoll_linuxsocket_isSoZeroCopy },
+  { "setSoZeroCopy", "(II)V", (void *) netty_epoll_linuxsocket_setSoZeroCopy },
+  { "sendAddressZeroCopy", "(IJII)I", (void *) netty_epoll_linuxsocket_sendAddressZeroCopy },
+  { "writevAddressesZeroCopy", "(IJI)J", (void *) netty_epoll_linuxsocket_writevAddressesZeroCopy },
+  { "recvZeroCopyCompletions", "(I[I)I", (void *) netty_epoll_linuxsocket_recvZeroCopyCompletions },
+  { "dup", "(I)I", (void *) netty_epoll_linuxsocket_dup }
 
   // "sendFile" has a dynamic signature
 };
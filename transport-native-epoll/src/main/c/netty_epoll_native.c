@@ -472,22 +472,23 @@ static jint netty_epoll_native_recvmsg0(JNIEnv* env, jclass clazz, jint fd, jboo
     return (jint) res;
 }
 
+// Enough space for GRO and IP_RECVORIGDSTADDR.
+#define NETTY_EPOLL_RECVMMSG_CONTROL_SIZE (CMSG_SPACE(sizeof(uint16_t)) + sizeof(struct sockaddr_storage))
+// The maximum number of messages that are read with one recvmmsg call, so the buffers fit on the stack. recvmmsg may
+// always read less messages than requested, so the caller does not need to know about it.
+#define NETTY_EPOLL_RECVMMSG_MAX_MESSAGES 256
+
 static jint netty_epoll_native_recvmmsg0(JNIEnv* env, jclass clazz, jint fd, jboolean ipv6, jobjectArray packets, jint offset, jint len) {
+    if (len > NETTY_EPOLL_RECVMMSG_MAX_MESSAGES) {
+        len = NETTY_EPOLL_RECVMMSG_MAX_MESSAGES;
+    }
     struct mmsghdr msg[len];
     memset(msg, 0, sizeof(msg));
     struct sockaddr_storage addr[len];
     int addrSize = sizeof(addr);
     memset(addr, 0, addrSize);
     int storageSize = sizeof(struct sockaddr_storage);
-    char* cntrlbuf = NULL;
-
-#ifdef IP_RECVORIGDSTADDR
-    int readLocalAddr = 0;
-    if (netty_unix_socket_getOption(env, fd, IPPROTO_IP, IP_RECVORIGDSTADDR,
-            &readLocalAddr, sizeof(readLocalAddr)) < 0) {
-        cntrlbuf = malloc(sizeof(char) * storageSize * len);
-    }
-#endif // IP_RECVORIGDSTADDR
+    char cntrlbuf[len][NETTY_EPOLL_RECVMMSG_CONTROL_SIZE];
 
     int i;
 
@@ -497,12 +498,10 @@ static jint netty_epoll_native_recvmmsg0(JNIEnv* env, jclass clazz, jint fd, jbo
         msg[i].msg_hdr.msg_iovlen = (*env)->GetIntField(env, packet, packetCountFieldId);
 
         msg[i].msg_hdr.msg_name = addr + i;
-        msg[i].msg_hdr.msg_namelen = (socklen_t) addrSize;
+        msg[i].msg_hdr.msg_namelen = (socklen_t) storageSize;
 
-        if (cntrlbuf != NULL) {
-            msg[i].msg_hdr.msg_control =  cntrlbuf + i * storageSize;
-            msg[i].msg_hdr.msg_controllen = storageSize;
-        }
+        msg[i].msg_hdr.msg_control = cntrlbuf[i];
+        msg[i].msg_hdr.msg_controllen = NETTY_EPOLL_RECVMMSG_CONTROL_SIZE;
     }
 
     ssize_t res;
@@ -520,8 +519,6 @@ static jint netty_epoll_native_recvmmsg0(JNIEnv* env, jclass clazz, jint fd, jbo
             init_packet(env, packet, &msg[i].msg_hdr, msg[i].msg_len);
         }
     }
-    // Free the control message buffer if needed.
-    free(cntrlbuf);
 
     if (res < 0) {
         return -err;
@@ -640,6 +637,10 @@ static jint netty_epoll_native_tcpMd5SigMaxKeyLen(JNIEnv* env, jclass clazz) {
     return TCP_MD5SIG_MAXKEYLEN;
 }
 
+static jint netty_epoll_native_errnoENOBUFS(JNIEnv* env, jclass clazz) {
+    return ENOBUFS;
+}
+
 static jint netty_epoll_native_registerUnix(JNIEnv* env, jclass clazz) {
     register_unix_called = 1;
     return netty_unix_register(env, staticPackagePrefix);
@@ -658,6 +659,7 @@ static const JNINativeMethod statically_referenced_fixed_method_table[] = {
   { "isSupportingSendmmsg", "()Z", (void *) netty_epoll_native_isSupportingSendmmsg },
   { "isSupportingRecvmmsg", "()Z", (void *) netty_epoll_native_isSupportingRecvmmsg },
   { "tcpFastopenMode", "()I", (void *) netty_epoll_native_tcpFastopenMode },
+  { "errnoENOBUFS", "()I", (void *) netty_epoll_native_errnoENOBUFS },
   { "kernelVersion", "()Ljava/lang/String;", (void *) netty_epoll_native_kernelVersion }
 };
 static const jint statically_referenced_fixed_method_table_size = sizeof(statically_referenced_fixed_method_table) / sizeof(statically_referenced_fixed_method_table[0]);
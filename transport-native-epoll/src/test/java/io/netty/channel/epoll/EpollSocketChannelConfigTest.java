@@ -98,6 +98,19 @@ public class EpollSocketChannelConfigTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void testZeroCopyThreshold() {
+        assertEquals(16 * 1024, ch.config().getZeroCopyThreshold());
+        ch.config().setZeroCopyThreshold(1024);
+        assertEquals(1024, (int) ch.config().getOption(EpollChannelOption.ZEROCOPY_THRESHOLD));
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                ch.config().setZeroCopyThreshold(-1);
+            }
+        });
+    }
+
     @Test
     public void testInvalidHighTcpNotSentLowAt() {
         try {
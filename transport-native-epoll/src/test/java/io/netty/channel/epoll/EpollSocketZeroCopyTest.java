@@ -0,0 +1,126 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.NetUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EpollSocketZeroCopyTest {
+
+    private static final int SIZE = 1024 * 1024;
+    private static final Random random = new Random();
+    private static EventLoopGroup group;
+
+    @BeforeAll
+    public static void beforeClass() {
+        group = new EpollEventLoopGroup(2);
+    }
+
+    @AfterAll
+    public static void afterClass() {
+        group.shutdownGracefully();
+    }
+
+    @Test
+    @Timeout(value = 30000, unit = TimeUnit.MILLISECONDS)
+    public void testZeroCopyWrite() throws Throwable {
+        testZeroCopyWrite(1);
+    }
+
+    @Test
+    @Timeout(value = 30000, unit = TimeUnit.MILLISECONDS)
+    public void testZeroCopyGatheringWrite() throws Throwable {
+        testZeroCopyWrite(8);
+    }
+
+    private static void testZeroCopyWrite(int buffers) throws Throwable {
+        final byte[] data = new byte[SIZE];
+        random.nextBytes(data);
+        final ByteBuf received = Unpooled.buffer(SIZE);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group).channel(EpollServerSocketChannel.class)
+                .childHandler(new SimpleChannelInboundHandler<ByteBuf>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+                        received.writeBytes(msg);
+                        if (!received.isWritable()) {
+                            latch.countDown();
+                        }
+                    }
+                });
+        Bootstrap cb = new Bootstrap();
+        cb.group(group).channel(EpollSocketChannel.class)
+                .option(EpollChannelOption.SO_ZEROCOPY, true)
+                .option(EpollChannelOption.ZEROCOPY_THRESHOLD, 0)
+                .handler(new ChannelInboundHandlerAdapter());
+
+        Channel sc = sb.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).syncUninterruptibly().channel();
+        Channel cc = cb.connect(sc.localAddress()).syncUninterruptibly().channel();
+        try {
+            assertTrue(((EpollSocketChannel) cc).config().isSoZeroCopy());
+
+            int chunk = SIZE / buffers;
+            List<ByteBuf> bufs = new ArrayList<ByteBuf>(buffers);
+            List<ChannelFuture> futures = new ArrayList<ChannelFuture>(buffers);
+            for (int i = 0; i < buffers; i++) {
+                ByteBuf buf = Unpooled.directBuffer(chunk).writeBytes(data, i * chunk, chunk);
+                bufs.add(buf);
+                futures.add(cc.write(buf));
+            }
+            cc.flush();
+
+            for (ChannelFuture future : futures) {
+                future.sync();
+            }
+            for (ByteBuf buf : bufs) {
+                // The buffer must only be released once the kernel is done with it, which is before the promise
+                // is notified.
+                assertEquals(0, buf.refCnt());
+            }
+            latch.await();
+            assertEquals(Unpooled.wrappedBuffer(data), received);
+        } finally {
+            cc.close().syncUninterruptibly();
+            sc.close().syncUninterruptibly();
+            received.release();
+        }
+    }
+}
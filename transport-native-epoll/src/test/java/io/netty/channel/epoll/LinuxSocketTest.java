@@ -18,6 +18,7 @@ package io.netty.channel.epoll;
 import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.channel.unix.Errors.NativeIoException;
 import io.netty.channel.unix.Socket;
+import io.netty.util.NetUtil;
 import java.nio.charset.Charset;
 import java.util.Random;
 import java.util.UUID;
@@ -30,7 +31,9 @@ import java.net.InetSocketAddress;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class LinuxSocketTest {
     @BeforeAll
@@ -73,6 +76,26 @@ public class LinuxSocketTest {
         }
     }
 
+    @Test
+    public void testDuplicateKeepsSocketOpen() throws Exception {
+        LinuxSocket socket = LinuxSocket.newSocketStream();
+        LinuxSocket duplicate = null;
+        try {
+            socket.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0));
+            InetSocketAddress address = (InetSocketAddress) socket.localAddress();
+            duplicate = socket.duplicate();
+            socket.close();
+
+            assertTrue(duplicate.isOpen());
+            assertEquals(address, duplicate.localAddress());
+        } finally {
+            socket.close();
+            if (duplicate != null) {
+                duplicate.close();
+            }
+        }
+    }
+
     @Test
     public void testUnixDomainSocketTooLongPathFails() throws IOException {
         // Most systems has a limit for UDS path of 108, 255 is generally too long.
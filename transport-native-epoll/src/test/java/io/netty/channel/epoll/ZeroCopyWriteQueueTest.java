@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelPromise;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ZeroCopyWriteQueueTest {
+
+    @Test
+    public void testCompleteInOrder() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ZeroCopyWriteQueue queue = new ZeroCopyWriteQueue();
+        ByteBuf first = Unpooled.directBuffer(8);
+        ByteBuf second = Unpooled.directBuffer(8);
+        ChannelPromise firstPromise = channel.newPromise();
+        ChannelPromise secondPromise = channel.newPromise();
+        queue.add(first, firstPromise, queue.nextSequence());
+        queue.add(second, secondPromise, queue.nextSequence());
+
+        // The second send completes first, but the first one is still in progress.
+        assertFalse(queue.complete(new int[] { 1, 1, 0 }, 3));
+        assertFalse(firstPromise.isDone());
+        assertFalse(secondPromise.isDone());
+        assertEquals(1, second.refCnt());
+
+        assertFalse(queue.complete(new int[] { 0, 0, 0 }, 3));
+        assertTrue(firstPromise.isSuccess());
+        assertTrue(secondPromise.isSuccess());
+        assertEquals(0, first.refCnt());
+        assertEquals(0, second.refCnt());
+        assertTrue(queue.isEmpty());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testPartialWrite() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ZeroCopyWriteQueue queue = new ZeroCopyWriteQueue();
+        ByteBuf buf = Unpooled.directBuffer(8);
+        ChannelPromise promise = channel.newPromise();
+        queue.add(buf.retain(), null, queue.nextSequence());
+        assertTrue(queue.isPartial(buf));
+        queue.add(buf, promise, queue.nextSequence());
+        assertFalse(queue.isPartial(buf));
+
+        assertTrue(queue.complete(new int[] { 0, 1, 1 }, 3));
+        assertTrue(promise.isSuccess());
+        assertEquals(0, buf.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testCloseWhenCompletedFailsPendingWrites() throws Exception {
+        Epoll.ensureAvailability();
+        EventLoopGroup group = new DefaultEventLoopGroup(1);
+        try {
+            ZeroCopyWriteQueue queue = new ZeroCopyWriteQueue();
+            ByteBuf buf = Unpooled.directBuffer(8);
+            ChannelPromise promise = new DefaultChannelPromise(new EmbeddedChannel(), group.next());
+            queue.add(buf, promise, queue.nextSequence());
+            LinuxSocket socket = LinuxSocket.newSocketStream();
+
+            // No completion arrives, so the connection is reset and the write is failed once the timeout is over.
+            queue.closeWhenCompleted(socket, group.next(), 0, 0);
+            assertTrue(promise.await(5, TimeUnit.SECONDS));
+            assertFalse(promise.isSuccess());
+            assertEquals(0, buf.refCnt());
+            assertFalse(socket.isOpen());
+            assertTrue(queue.isEmpty());
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#define _GNU_SOURCE
+#include <jni.h>
+#include <stdint.h>
+#include <stdlib.h>
+#include <string.h>
+#include <errno.h>
+#include <poll.h>
+#include <sys/eventfd.h>
+#include <sys/mman.h>
+#include <sys/socket.h>
+#include <sys/utsname.h>
+#include <unistd.h>
+// Needed to be able to use syscalls directly and so not depend on newer GLIBC / liburing versions
+#include <sys/syscall.h>
+#include <linux/io_uring.h>
+
+#include "netty_unix_buffer.h"
+#include "netty_unix_errors.h"
+#include "netty_unix_filedescriptor.h"
+#include "netty_unix_jni.h"
+#include "netty_unix_limits.h"
+#include "netty_unix_socket.h"
+#include "netty_unix_util.h"
+#include "netty_unix.h"
+
+// Add define if NETTY_BUILD_STATIC is defined so it is picked up in netty_jni_util.c
+#ifdef NETTY_BUILD_STATIC
+#define NETTY_JNI_UTIL_BUILD_STATIC
+#endif
+
+#define STATICALLY_CLASSNAME "io/netty/channel/uring/NativeStaticallyReferencedJniMethods"
+#define NATIVE_CLASSNAME "io/netty/channel/uring/Native"
+
+// All linux syscall numbers are stable so this is safe. io_uring uses the same numbers on all architectures.
+#ifndef __NR_io_uring_setup
+#define __NR_io_uring_setup 425
+#endif
+
+#ifndef __NR_io_uring_enter
+#define __NR_io_uring_enter 426
+#endif
+
+// The number of elements in the array returned by ioUringSetup(...). This must match the indices used in RingBuffer.
+#define RING_ARRAY_LENGTH 20
+
+static const char* staticPackagePrefix = NULL;
+static int register_unix_called = 0;
+
+static int sys_io_uring_setup(unsigned entries, struct io_uring_params *p) {
+    return (int) syscall(__NR_io_uring_setup, entries, p);
+}
+
+static int sys_io_uring_enter(int fd, unsigned to_submit, unsigned min_complete, unsigned flags) {
+    return (int) syscall(__NR_io_uring_enter, fd, to_submit, min_complete, flags, NULL, 0);
+}
+
+// JNI Registered Methods Begin
+static jlongArray netty_io_uring_native_ioUringSetup(JNIEnv* env, jclass clazz, jint entries) {
+    struct io_uring_params p;
+    jlong values[RING_ARRAY_LENGTH];
+    void* sqRing = MAP_FAILED;
+    void* cqRing = MAP_FAILED;
+    void* sqes = MAP_FAILED;
+    size_t sqRingSize = 0;
+    size_t cqRingSize = 0;
+    size_t sqesSize = 0;
+    jlongArray array = NULL;
+    int err;
+
+    memset(&p, 0, sizeof(p));
+    int ringFd = sys_io_uring_setup((unsigned) entries, &p);
+    if (ringFd < 0) {
+        netty_unix_errors_throwRuntimeExceptionErrorNo(env, "io_uring_setup() failed: ", errno);
+        return NULL;
+    }
+
+    sqRingSize = p.sq_off.array + p.sq_entries * sizeof(unsigned);
+    cqRingSize = p.cq_off.cqes + p.cq_entries * sizeof(struct io_uring_cqe);
+    if (p.features & IORING_FEAT_SINGLE_MMAP) {
+        if (cqRingSize > sqRingSize) {
+            sqRingSize = cqRingSize;
+        }
+        cqRingSize = sqRingSize;
+    }
+
+    sqRing = mmap(0, sqRingSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, IORING_OFF_SQ_RING);
+    if (sqRing == MAP_FAILED) {
+        err = errno;
+        goto error;
+    }
+    if (p.features & IORING_FEAT_SINGLE_MMAP) {
+        cqRing = sqRing;
+    } else {
+        cqRing = mmap(0, cqRingSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, IORING_OFF_CQ_RING);
+        if (cqRing == MAP_FAILED) {
+            err = errno;
+            goto error;
+        }
+    }
+    sqesSize = p.sq_entries * sizeof(struct io_uring_sqe);
+    sqes = mmap(0, sqesSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, IORING_OFF_SQES);
+    if (sqes == MAP_FAILED) {
+        err = errno;
+        goto error;
+    }
+
+    values[0] = (jlong) ringFd;
+    values[1] = (jlong) (intptr_t) ((char*) sqRing + p.sq_off.head);
+    values[2] = (jlong) (intptr_t) ((char*) sqRing + p.sq_off.tail);
+    values[3] = (jlong) (intptr_t) ((char*) sqRing + p.sq_off.ring_mask);
+    values[4] = (jlong) (intptr_t) ((char*) sqRing + p.sq_off.ring_entries);
+    values[5] = (jlong) (intptr_t) ((char*) sqRing + p.sq_off.flags);
+    values[6] = (jlong) (intptr_t) ((char*) sqRing + p.sq_off.dropped);
+    values[7] = (jlong) (intptr_t) ((char*) sqRing + p.sq_off.array);
+    values[8] = (jlong) (intptr_t) sqes;
+    values[9] = (jlong) sqRingSize;
+    values[10] = (jlong) (intptr_t) sqRing;
+    values[11] = (jlong) (intptr_t) ((char*) cqRing + p.cq_off.head);
+    values[12] = (jlong) (intptr_t) ((char*) cqRing + p.cq_off.tail);
+    values[13] = (jlong) (intptr_t) ((char*) cqRing + p.cq_off.ring_mask);
+    values[14] = (jlong) (intptr_t) ((char*) cqRing + p.cq_off.ring_entries);
+    values[15] = (jlong) (intptr_t) ((char*) cqRing + p.cq_off.overflow);
+    values[16] = (jlong) (intptr_t) ((char*) cqRing + p.cq_off.cqes);
+    values[17] = (jlong) cqRingSize;
+    values[18] = (jlong) (intptr_t) cqRing;
+    values[19] = (jlong) p.features;
+
+    array = (*env)->NewLongArray(env, RING_ARRAY_LENGTH);
+    if (array == NULL) {
+        // We ran out of memory
+        err = ENOMEM;
+        goto error;
+    }
+    (*env)->SetLongArrayRegion(env, array, 0, RING_ARRAY_LENGTH, values);
+    return array;
+error:
+    if (sqes != MAP_FAILED) {
+        munmap(sqes, sqesSize);
+    }
+    if (cqRing != MAP_FAILED && cqRing != sqRing) {
+        munmap(cqRing, cqRingSize);
+    }
+    if (sqRing != MAP_FAILED) {
+        munmap(sqRing, sqRingSize);
+    }
+    close(ringFd);
+    netty_unix_errors_throwRuntimeExceptionErrorNo(env, "mmap() of io_uring failed: ", err);
+    return NULL;
+}
+
+static void netty_io_uring_native_ioUringExit(JNIEnv* env, jclass clazz,
+        jlong sqRingAddress, jint sqRingSize, jlong cqRingAddress, jint cqRingSize,
+        jlong sqesAddress, jint sqesSize, jint ringFd) {
+    munmap((void*) (intptr_t) sqesAddress, (size_t) sqesSize);
+    if (cqRingAddress != sqRingAddress) {
+        munmap((void*) (intptr_t) cqRingAddress, (size_t) cqRingSize);
+    }
+    munmap((void*) (intptr_t) sqRingAddress, (size_t) sqRingSize);
+    if (close(ringFd) != 0) {
+        netty_unix_errors_throwChannelExceptionErrorNo(env, "close() of io_uring failed: ", errno);
+    }
+}
+
+static jint netty_io_uring_native_ioUringEnter0(JNIEnv* env, jclass clazz, jint ringFd, jint toSubmit,
+        jint minComplete, jint flags) {
+    int result;
+    int err;
+    do {
+        result = sys_io_uring_enter(ringFd, (unsigned) toSubmit, (unsigned) minComplete, (unsigned) flags);
+        if (result >= 0) {
+            return result;
+        }
+    } while ((err = errno) == EINTR);
+    return -err;
+}
+
+static jint netty_io_uring_native_eventFd(JNIEnv* env, jclass clazz) {
+    jint eventFD = eventfd(0, EFD_CLOEXEC | EFD_NONBLOCK);
+
+    if (eventFD < 0) {
+        netty_unix_errors_throwChannelExceptionErrorNo(env, "eventfd() failed: ", errno);
+    }
+    return eventFD;
+}
+
+static void netty_io_uring_native_eventFdWrite(JNIEnv* env, jclass clazz, jint fd, jlong value) {
+    uint64_t val;
+
+    for (;;) {
+        jint ret = eventfd_write(fd, (eventfd_t) value);
+
+        if (ret < 0) {
+            // We need to read before we can write again, let's try to read and then write again and if this
+            // fails we will bail out.
+            //
+            // See https://man7.org/linux/man-pages/man2/eventfd.2.html.
+            if (errno == EAGAIN) {
+                if (eventfd_read(fd, &val) == 0 || errno == EAGAIN) {
+                    // Try again
+                    continue;
+                }
+                netty_unix_errors_throwChannelExceptionErrorNo(env, "eventfd_read(...) failed: ", errno);
+            } else {
+                netty_unix_errors_throwChannelExceptionErrorNo(env, "eventfd_write(...) failed: ", errno);
+            }
+        }
+        break;
+    }
+}
+
+static jstring netty_io_uring_native_kernelVersion(JNIEnv* env, jclass clazz) {
+    struct utsname name;
+
+    int res = uname(&name);
+    if (res == 0) {
+        return (*env)->NewStringUTF(env, name.release);
+    }
+    netty_unix_errors_throwRuntimeExceptionErrorNo(env, "uname() failed: ", errno);
+    return NULL;
+}
+
+static jint netty_io_uring_native_sizeofSqe(JNIEnv* env, jclass clazz) {
+    return sizeof(struct io_uring_sqe);
+}
+
+static jint netty_io_uring_native_sizeofCqe(JNIEnv* env, jclass clazz) {
+    return sizeof(struct io_uring_cqe);
+}
+
+static jint netty_io_uring_native_ioringOpPollAdd(JNIEnv* env, jclass clazz) {
+    return IORING_OP_POLL_ADD;
+}
+
+static jint netty_io_uring_native_ioringOpPollRemove(JNIEnv* env, jclass clazz) {
+    return IORING_OP_POLL_REMOVE;
+}
+
+static jint netty_io_uring_native_ioringOpTimeout(JNIEnv* env, jclass clazz) {
+    return IORING_OP_TIMEOUT;
+}
+
+static jint netty_io_uring_native_ioringOpTimeoutRemove(JNIEnv* env, jclass clazz) {
+    return IORING_OP_TIMEOUT_REMOVE;
+}
+
+static jint netty_io_uring_native_ioringOpAccept(JNIEnv* env, jclass clazz) {
+    return IORING_OP_ACCEPT;
+}
+
+static jint netty_io_uring_native_ioringOpAsyncCancel(JNIEnv* env, jclass clazz) {
+    return IORING_OP_ASYNC_CANCEL;
+}
+
+static jint netty_io_uring_native_ioringOpRead(JNIEnv* env, jclass clazz) {
+    return IORING_OP_READ;
+}
+
+static jint netty_io_uring_native_ioringOpWritev(JNIEnv* env, jclass clazz) {
+    return IORING_OP_WRITEV;
+}
+
+static jint netty_io_uring_native_ioringEnterGetevents(JNIEnv* env, jclass clazz) {
+    return IORING_ENTER_GETEVENTS;
+}
+
+static jint netty_io_uring_native_ioringFeatNodrop(JNIEnv* env, jclass clazz) {
+    return IORING_FEAT_NODROP;
+}
+
+static jint netty_io_uring_native_ioringFeatFastPoll(JNIEnv* env, jclass clazz) {
+    return IORING_FEAT_FAST_POLL;
+}
+
+static jint netty_io_uring_native_pollin(JNIEnv* env, jclass clazz) {
+    return POLLIN;
+}
+
+static jint netty_io_uring_native_pollout(JNIEnv* env, jclass clazz) {
+    return POLLOUT;
+}
+
+static jint netty_io_uring_native_pollrdhup(JNIEnv* env, jclass clazz) {
+    return POLLRDHUP;
+}
+
+static jint netty_io_uring_native_sockNonblock(JNIEnv* env, jclass clazz) {
+    return SOCK_NONBLOCK;
+}
+
+static jint netty_io_uring_native_sockCloexec(JNIEnv* env, jclass clazz) {
+    return SOCK_CLOEXEC;
+}
+
+static jint netty_io_uring_native_afInet(JNIEnv* env, jclass clazz) {
+    return AF_INET;
+}
+
+static jint netty_io_uring_native_afInet6(JNIEnv* env, jclass clazz) {
+    return AF_INET6;
+}
+
+static jint netty_io_uring_native_ecanceled(JNIEnv* env, jclass clazz) {
+    return ECANCELED;
+}
+
+static jint netty_io_uring_native_etime(JNIEnv* env, jclass clazz) {
+    return ETIME;
+}
+
+static jint netty_io_uring_native_registerUnix(JNIEnv* env, jclass clazz) {
+    register_unix_called = 1;
+    return netty_unix_register(env, staticPackagePrefix);
+}
+
+// JNI Registered Methods End
+
+// JNI Method Registration Table Begin
+static const JNINativeMethod statically_referenced_fixed_method_table[] = {
+  { "sizeofSqe", "()I", (void *) netty_io_uring_native_sizeofSqe },
+  { "sizeofCqe", "()I", (void *) netty_io_uring_native_sizeofCqe },
+  { "ioringOpPollAdd", "()I", (void *) netty_io_uring_native_ioringOpPollAdd },
+  { "ioringOpPollRemove", "()I", (void *) netty_io_uring_native_ioringOpPollRemove },
+  { "ioringOpTimeout", "()I", (void *) netty_io_uring_native_ioringOpTimeout },
+  { "ioringOpTimeoutRemove", "()I", (void *) netty_io_uring_native_ioringOpTimeoutRemove },
+  { "ioringOpAccept", "()I", (void *) netty_io_uring_native_ioringOpAccept },
+  { "ioringOpAsyncCancel", "()I", (void *) netty_io_uring_native_ioringOpAsyncCancel },
+  { "ioringOpRead", "()I", (void *) netty_io_uring_native_ioringOpRead },
+  { "ioringOpWritev", "()I", (void *) netty_io_uring_native_ioringOpWritev },
+  { "ioringEnterGetevents", "()I", (void *) netty_io_uring_native_ioringEnterGetevents },
+  { "ioringFeatNodrop", "()I", (void *) netty_io_uring_native_ioringFeatNodrop },
+  { "ioringFeatFastPoll", "()I", (void *) netty_io_uring_native_ioringFeatFastPoll },
+  { "pollin", "()I", (void *) netty_io_uring_native_pollin },
+  { "pollout", "()I", (void *) netty_io_uring_native_pollout },
+  { "pollrdhup", "()I", (void *) netty_io_uring_native_pollrdhup },
+  { "sockNonblock", "()I", (void *) netty_io_uring_native_sockNonblock },
+  { "sockCloexec", "()I", (void *) netty_io_uring_native_sockCloexec },
+  { "afInet", "()I", (void *) netty_io_uring_native_afInet },
+  { "afInet6", "()I", (void *) netty_io_uring_native_afInet6 },
+  { "ecanceled", "()I", (void *) netty_io_uring_native_ecanceled },
+  { "etime", "()I", (void *) netty_io_uring_native_etime },
+  { "kernelVersion", "()Ljava/lang/String;", (void *) netty_io_uring_native_kernelVersion }
+};
+static const jint statically_referenced_fixed_method_table_size = sizeof(statically_referenced_fixed_method_table) / sizeof(statically_referenced_fixed_method_table[0]);
+static const JNINativeMethod fixed_method_table[] = {
+  { "ioUringSetup", "(I)[J", (void *) netty_io_uring_native_ioUringSetup },
+  { "ioUringExit", "(JIJIJII)V", (void *) netty_io_uring_native_ioUringExit },
+  { "ioUringEnter0", "(IIII)I", (void *) netty_io_uring_native_ioUringEnter0 },
+  { "eventFd", "()I", (void *) netty_io_uring_native_eventFd },
+  { "eventFdWrite", "(IJ)V", (void *) netty_io_uring_native_eventFdWrite },
+  { "registerUnix", "()I", (void *) netty_io_uring_native_registerUnix }
+};
+static const jint fixed_method_table_size = sizeof(fixed_method_table) / sizeof(fixed_method_table[0]);
+// JNI Method Registration Table End
+
+// IMPORTANT: If you add any NETTY_JNI_UTIL_LOAD_CLASS or NETTY_JNI_UTIL_FIND_CLASS calls you also need to update
+//            Native to reflect that.
+static jint netty_io_uring_native_JNI_OnLoad(JNIEnv* env, const char* packagePrefix) {
+    int staticallyRegistered = 0;
+
+    // We must register the statically referenced methods first!
+    if (netty_jni_util_register_natives(env,
+            packagePrefix,
+            STATICALLY_CLASSNAME,
+            statically_referenced_fixed_method_table,
+            statically_referenced_fixed_method_table_size) != 0) {
+        goto error;
+    }
+    staticallyRegistered = 1;
+
+    if (netty_jni_util_register_natives(env,
+            packagePrefix,
+            NATIVE_CLASSNAME,
+            fixed_method_table,
+            fixed_method_table_size) != 0) {
+        goto error;
+    }
+
+    if (packagePrefix != NULL) {
+        staticPackagePrefix = strdup(packagePrefix);
+    }
+    return NETTY_JNI_UTIL_JNI_VERSION;
+error:
+    if (staticallyRegistered == 1) {
+        netty_jni_util_unregister_natives(env, packagePrefix, STATICALLY_CLASSNAME);
+    }
+    return JNI_ERR;
+}
+
+static void netty_io_uring_native_JNI_OnUnload(JNIEnv* env) {
+    if (register_unix_called == 1) {
+        register_unix_called = 0;
+        netty_unix_unregister(env, staticPackagePrefix);
+    }
+
+    netty_jni_util_unregister_natives(env, staticPackagePrefix, STATICALLY_CLASSNAME);
+    netty_jni_util_unregister_natives(env, staticPackagePrefix, NATIVE_CLASSNAME);
+
+    if (staticPackagePrefix != NULL) {
+        free((void *) staticPackagePrefix);
+        staticPackagePrefix = NULL;
+    }
+}
+
+// We build with -fvisibility=hidden so ensure we mark everything that needs to be visible with JNIEXPORT
+// https://mail.openjdk.java.net/pipermail/core-libs-dev/2013-February/014549.html
+
+// Invoked by the JVM when statically linked
+JNIEXPORT jint JNI_OnLoad_netty_transport_native_io_uring(JavaVM* vm, void* reserved) {
+    return netty_jni_util_JNI_OnLoad(vm, reserved, "netty_transport_native_io_uring",
+            netty_io_uring_native_JNI_OnLoad);
+}
+
+// Invoked by the JVM when statically linked
+JNIEXPORT void JNI_OnUnload_netty_transport_native_io_uring(JavaVM* vm, void* reserved) {
+    netty_jni_util_JNI_OnUnload(vm, reserved, netty_io_uring_native_JNI_OnUnload);
+}
+
+#ifndef NETTY_BUILD_STATIC
+JNIEXPORT jint JNI_OnLoad(JavaVM* vm, void* reserved) {
+    return netty_jni_util_JNI_OnLoad(vm, reserved, "netty_transport_native_io_uring",
+            netty_io_uring_native_JNI_OnLoad);
+}
+
+JNIEXPORT void JNI_OnUnload(JavaVM* vm, void* reserved) {
+    netty_jni_util_JNI_OnUnload(vm, reserved, netty_io_uring_native_JNI_OnUnload);
+}
+#endif /* NETTY_BUILD_STATIC */
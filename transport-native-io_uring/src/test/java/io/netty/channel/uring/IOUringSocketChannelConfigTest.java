@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.github.artsok.RepeatedIfExceptionsTest;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IOUringSocketChannelConfigTest {
+
+    private static EventLoopGroup group;
+    private static IOUringSocketChannel ch;
+
+    @BeforeAll
+    public static void beforeClass() {
+        group = new IOUringEventLoopGroup(1);
+    }
+
+    @AfterAll
+    public static void afterClass() {
+        group.shutdownGracefully();
+    }
+
+    @BeforeEach
+    public void setup() {
+        Bootstrap bootstrap = new Bootstrap();
+        ch = (IOUringSocketChannel) bootstrap.group(group)
+                .channel(IOUringSocketChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .bind(new InetSocketAddress(0)).syncUninterruptibly().channel();
+    }
+
+    @AfterEach
+    public void teardown() {
+        ch.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testTcpNoDelay() {
+        ch.config().setTcpNoDelay(false);
+        assertFalse(ch.config().isTcpNoDelay());
+        ch.config().setTcpNoDelay(true);
+        assertTrue(ch.config().isTcpNoDelay());
+    }
+
+    @Test
+    public void testKeepAlive() {
+        ch.config().setKeepAlive(true);
+        assertTrue(ch.config().isKeepAlive());
+        ch.config().setKeepAlive(false);
+        assertFalse(ch.config().isKeepAlive());
+    }
+
+    @Test
+    public void testSoLinger() {
+        ch.config().setOption(ChannelOption.SO_LINGER, 10);
+        assertEquals(10, (int) ch.config().getOption(ChannelOption.SO_LINGER));
+    }
+
+    // For this test to pass, we are relying on the sockets file descriptor not being reused after the socket is closed.
+    // This is inherently racy, so we allow getSoLinger to throw ChannelException a few of times, but eventually we do
+    // want to see a ClosedChannelException for the test to pass.
+    @RepeatedIfExceptionsTest(repeats = 4)
+    public void testSetOptionWhenClosed() {
+        ch.close().syncUninterruptibly();
+        ChannelException e = assertThrows(ChannelException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                ch.config().setSoLinger(0);
+            }
+        });
+        assertThat(e).hasCauseInstanceOf(ClosedChannelException.class);
+    }
+
+    // For this test to pass, we are relying on the sockets file descriptor not being reused after the socket is closed.
+    // This is inherently racy, so we allow getSoLinger to throw ChannelException a few of times, but eventually we do
+    // want to see a ClosedChannelException for the test to pass.
+    @RepeatedIfExceptionsTest(repeats = 4)
+    public void testGetOptionWhenClosed() {
+        ch.close().syncUninterruptibly();
+        ChannelException e = assertThrows(ChannelException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                ch.config().getSoLinger();
+            }
+        });
+        assertThat(e).hasCauseInstanceOf(ClosedChannelException.class);
+    }
+
+    @Test
+    public void getGetOptions() {
+        Map<ChannelOption<?>, Object> map = ch.config().getOptions();
+        assertFalse(map.isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.unix.FileDescriptor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IOUringTest {
+
+    @Test
+    public void testIsAvailable() {
+        assertTrue(IOUring.isAvailable());
+    }
+
+    @Test
+    public void testPollEventFd() throws Exception {
+        RingBuffer ringBuffer = Native.createRingBuffer(8);
+        FileDescriptor eventFd = Native.newEventFd();
+        try {
+            IOUringSubmissionQueue submissionQueue = ringBuffer.ioUringSubmissionQueue();
+            IOUringCompletionQueue completionQueue = ringBuffer.ioUringCompletionQueue();
+
+            submissionQueue.addPoll(eventFd.intValue(), Native.POLLIN,
+                    UserData.encode(1, Native.IORING_OP_POLL_ADD, (short) 7));
+            assertEquals(1, submissionQueue.submit());
+
+            Native.eventFdWrite(eventFd.intValue(), 1L);
+            submissionQueue.submitAndWait();
+
+            final long[] received = new long[3];
+            int processed = completionQueue.process(new IOUringCompletionQueueCallback() {
+                @Override
+                public void handle(int res, int flags, long userData) {
+                    received[0] = UserData.decodeId(userData);
+                    received[1] = UserData.decodeOp(userData);
+                    received[2] = UserData.decodeData(userData);
+                }
+            });
+            assertEquals(1, processed);
+            assertEquals(1, received[0]);
+            assertEquals(Native.IORING_OP_POLL_ADD, received[1]);
+            assertEquals(7, received[2]);
+        } finally {
+            eventFd.close();
+            ringBuffer.close();
+        }
+    }
+}
@@ -88,6 +88,14 @@ public class ChannelOption<T> extends AbstractConstant<ChannelOption<T>> {
     public static final ChannelOption<Integer> MAX_MESSAGES_PER_READ = valueOf("MAX_MESSAGES_PER_READ");
     public static final ChannelOption<Integer> MAX_MESSAGES_PER_WRITE = valueOf("MAX_MESSAGES_PER_WRITE");
 
+    /**
+     * {@link io.netty.buffer.ByteBuf}s with at most this number of readable bytes are copied into one aggregation
+     * buffer per flush when they are written, so they need only a single entry when written to the socket. Larger
+     * buffers are written as they are. The default value is {@code 0}, which disables the copying. A change of the
+     * value applies to the writes after the next flush.
+     */
+    public static final ChannelOption<Integer> WRITE_COALESCING_THRESHOLD = valueOf("WRITE_COALESCING_THRESHOLD");
+
     public static final ChannelOption<Integer> WRITE_SPIN_COUNT = valueOf("WRITE_SPIN_COUNT");
     /**
      * @deprecated Use {@link #WRITE_BUFFER_WATER_MARK}
@@ -30,6 +30,7 @@ import io.netty.util.internal.ObjectPool.ObjectCreator;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.PromiseNotificationUtil;
 import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.UnstableApi;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import java.nio.ByteBuffer;
@@ -90,6 +91,12 @@ public final class ChannelOutboundBuffer {
     private long nioBufferSize;
 
     private boolean inFail;
+    // Only created once a write was coalesced, see ChannelOption.WRITE_COALESCING_THRESHOLD.
+    private WriteCoalescingQueue coalescingQueue;
+    // The threshold of ChannelOption.WRITE_COALESCING_THRESHOLD, read once after every flush and -1 if disabled.
+    private int coalescingThreshold = COALESCING_THRESHOLD_UNKNOWN;
+
+    private static final int COALESCING_THRESHOLD_UNKNOWN = Integer.MIN_VALUE;
 
     private static final AtomicLongFieldUpdater<ChannelOutboundBuffer> TOTAL_PENDING_SIZE_UPDATER =
             AtomicLongFieldUpdater.newUpdater(ChannelOutboundBuffer.class, "totalPendingSize");
@@ -118,6 +125,24 @@ public final class ChannelOutboundBuffer {
      * the message was written.
      */
     public void addMessage(Object msg, int size, ChannelPromise promise) {
+        int threshold = coalescingThreshold;
+        if (threshold == COALESCING_THRESHOLD_UNKNOWN) {
+            coalescingThreshold = threshold = writeCoalescingThreshold();
+        }
+        if (threshold < 0) {
+            // Coalescing is disabled since the last flush, so nothing was coalesced that must be added first.
+            addMessage0(msg, size, promise);
+            return;
+        }
+        if (msg instanceof ByteBuf && ((ByteBuf) msg).readableBytes() <= threshold) {
+            coalesce((ByteBuf) msg, size, promise);
+            return;
+        }
+        addCoalesced();
+        addMessage0(msg, size, promise);
+    }
+
+    private void addMessage0(Object msg, int size, ChannelPromise promise) {
         // 创建Entry对象来封装待发送数据
         Entry entry = Entry.newInstance(msg, size, total(msg), promise);
         if (tailEntry == null) {
@@ -147,6 +172,10 @@ public final class ChannelOutboundBuffer {
      * 与 tailEntry 之间的 Entry 节点即为本次 flush 操作需要发送的数据范围。
      */
     public void addFlush() {
+        addCoalesced();
+        // Pick up changes of the threshold with the next write.
+        coalescingThreshold = COALESCING_THRESHOLD_UNKNOWN;
+
         // There is no need to process all entries if there was already a flush before and no new messages
         // where added in the meantime.
         //
@@ -173,6 +202,54 @@ public final class ChannelOutboundBuffer {
         }
     }
 
+    private int writeCoalescingThreshold() {
+        ChannelConfig config = channel.config();
+        if (config instanceof DefaultChannelConfig) {
+            int threshold = ((DefaultChannelConfig) config).getWriteCoalescingThreshold();
+            if (threshold > 0) {
+                return threshold;
+            }
+        }
+        // Disables coalescing, as empty buffers must not be coalesced either then.
+        return -1;
+    }
+
+    /**
+     * Queues a small buffer, which is copied into an aggregation buffer together with the other small buffers that
+     * are written until the next flush.
+     */
+    private void coalesce(ByteBuf buf, int size, ChannelPromise promise) {
+        if (!promise.setUncancellable()) {
+            // Was cancelled so the buffer is never written.
+            ReferenceCountUtil.safeRelease(buf);
+            return;
+        }
+        WriteCoalescingQueue queue = coalescingQueue;
+        if (queue == null) {
+            coalescingQueue = queue = new WriteCoalescingQueue();
+        } else if (queue.readableBytes() + buf.readableBytes() > WriteCoalescingQueue.MAX_AGGREGATION_BYTES) {
+            addCoalesced();
+        }
+        queue.add(buf, size, promise);
+        incrementPendingOutboundBytes(size, false);
+    }
+
+    /**
+     * Adds the buffers which were coalesced so far as one message.
+     */
+    private void addCoalesced() {
+        WriteCoalescingQueue queue = coalescingQueue;
+        if (queue == null || queue.isEmpty()) {
+            return;
+        }
+        int size = queue.pendingSize();
+        ChannelPromise promise = queue.hasPromises() ? channel.newPromise() : channel.voidPromise();
+        ByteBuf buf = queue.removeAll(channel.alloc(), promise);
+        // The pending bytes were incremented when the buffers were queued already.
+        decrementPendingOutboundBytes(size, false, false);
+        addMessage0(buf, size, promise);
+    }
+
     /**
      * Increment the pending bytes which will be written at some point.
      * This method is thread-safe!
@@ -255,6 +332,10 @@ public final class ChannelOutboundBuffer {
     public void progress(long amount) {
         Entry e = flushedEntry;
         assert e != null;
+        progress(e, amount);
+    }
+
+    private static void progress(Entry e, long amount) {
         ChannelPromise p = e.promise;
         long progress = e.progress + amount;
         e.progress = progress;
@@ -294,6 +375,39 @@ public final class ChannelOutboundBuffer {
         return true;
     }
 
+    /**
+     * Will remove the current message without releasing it or notifying its {@link ChannelPromise}, and return the
+     * {@link ChannelPromise}. The caller takes over the ownership of both, which is useful for transports that hand
+     * the memory of a message to the kernel and must keep it alive until the kernel is done with it. It is only
+     * meant to be used by transport implementations, like {@link #removeBytes(long)}.
+     *
+     * @return the {@link ChannelPromise} of the removed message, or {@code null} if no flushed message exists or the
+     * message was cancelled (and so already released) before.
+     */
+    @UnstableApi
+    public ChannelPromise detachCurrent() {
+        Entry e = flushedEntry;
+        if (e == null) {
+            clearNioBuffers();
+            return null;
+        }
+
+        ChannelPromise promise = e.promise;
+        int size = e.pendingSize;
+        boolean cancelled = e.cancelled;
+
+        removeEntry(e);
+
+        if (!cancelled) {
+            decrementPendingOutboundBytes(size, false, true);
+        }
+
+        // recycle the entry
+        e.recycle();
+
+        return cancelled ? null : promise;
+    }
+
     /**
      * Will remove the current message, mark its {@link ChannelPromise} as failure using the given {@link Throwable}
      * and return {@code true}. If no   flushed message exists at the time this method is called it will return
@@ -350,10 +464,20 @@ public final class ChannelOutboundBuffer {
     /**
      * Removes the fully written entries and update the reader index of the partially written entry.
      * This operation assumes all messages in this buffer is {@link ByteBuf}.
+     * <p>
+     * The fully written entries are completed in bulk: they are unlinked at once and, after their messages were
+     * released and their promises notified, the pending bytes are decremented only one time for all of them.
+     * Notifying {@link VoidChannelPromise}s is skipped completely. This makes a difference for channels which write
+     * many small messages per flush.
      */
     public void removeBytes(long writtenBytes) {
-        for (;;) {
-            Object msg = current();
+        Entry first = flushedEntry;
+        Entry last = null;
+        Entry e = first;
+        int completed = 0;
+        long completedSize = 0;
+        while (completed < flushed) {
+            Object msg = e.msg;
             if (!(msg instanceof ByteBuf)) {
                 assert writtenBytes == 0;
                 break;
@@ -366,21 +490,56 @@ public final class ChannelOutboundBuffer {
             // 已经写入的字节<= msg 可以被写入的大小 表示 Entry被全部写入
             if (readableBytes <= writtenBytes) {
                 if (writtenBytes != 0) {
-                    progress(readableBytes);
+                    progress(e, readableBytes);
                     writtenBytes -= readableBytes;
                 }
                 // 将Entry删除(因为其数据已经被全部写入到了socket缓存中)
-                remove();
+                if (!e.cancelled) {
+                    completedSize += e.pendingSize;
+                }
+                completed++;
+                last = e;
+                e = e.next;
             } else { // readableBytes > writtenBytes
                 // 还有一部分未被写入到socket缓存中
                 if (writtenBytes != 0) {
                     // 可读指针往前调整
                     buf.readerIndex(readerIndex + (int) writtenBytes);
-                    progress(writtenBytes);
+                    progress(e, writtenBytes);
                 }
                 break;
             }
         }
+
+        if (completed != 0) {
+            // Unlink all completed entries before notifying any promise, so listeners which write or close only see
+            // the entries which are left.
+            flushed -= completed;
+            if (flushed == 0) {
+                flushedEntry = null;
+                if (last == tailEntry) {
+                    tailEntry = null;
+                    unflushedEntry = null;
+                }
+            } else {
+                flushedEntry = e;
+            }
+
+            e = first;
+            for (int i = 0; i < completed; i++) {
+                if (!e.cancelled) {
+                    // only release message and notify if it was not canceled before.
+                    ReferenceCountUtil.safeRelease(e.msg);
+                    ChannelPromise promise = e.promise;
+                    if (!(promise instanceof VoidChannelPromise)) {
+                        safeSuccess(promise);
+                    }
+                }
+                e = e.recycleAndGetNext();
+            }
+            // Like remove(), the writability changes only after the promises were notified.
+            decrementPendingOutboundBytes(completedSize, false, true);
+        }
         clearNioBuffers();
     }
 
@@ -728,6 +887,12 @@ public final class ChannelOutboundBuffer {
                 }
                 e = e.recycleAndGetNext();
             }
+
+            WriteCoalescingQueue queue = coalescingQueue;
+            if (queue != null && !queue.isEmpty()) {
+                TOTAL_PENDING_SIZE_UPDATER.addAndGet(this, -queue.pendingSize());
+                queue.releaseAndFailAll(channel, cause);
+            }
         } finally {
             inFail = false;
         }
@@ -27,6 +27,7 @@ import static io.netty.channel.ChannelOption.SINGLE_EVENTEXECUTOR_PER_GROUP;
 import static io.netty.channel.ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK;
 import static io.netty.channel.ChannelOption.WRITE_BUFFER_LOW_WATER_MARK;
 import static io.netty.channel.ChannelOption.WRITE_BUFFER_WATER_MARK;
+import static io.netty.channel.ChannelOption.WRITE_COALESCING_THRESHOLD;
 import static io.netty.channel.ChannelOption.WRITE_SPIN_COUNT;
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
 import static io.netty.util.internal.ObjectUtil.checkPositive;
@@ -63,6 +64,7 @@ public class DefaultChannelConfig implements ChannelConfig {
     private volatile int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT;
     private volatile int writeSpinCount = 16;
     private volatile int maxMessagesPerWrite = Integer.MAX_VALUE;
+    private volatile int writeCoalescingThreshold;
 
     @SuppressWarnings("FieldMayBeFinal")
     private volatile int autoRead = 1;
@@ -88,7 +90,7 @@ public class DefaultChannelConfig implements ChannelConfig {
                 CONNECT_TIMEOUT_MILLIS, MAX_MESSAGES_PER_READ, WRITE_SPIN_COUNT,
                 ALLOCATOR, AUTO_READ, AUTO_CLOSE, RCVBUF_ALLOCATOR, WRITE_BUFFER_HIGH_WATER_MARK,
                 WRITE_BUFFER_LOW_WATER_MARK, WRITE_BUFFER_WATER_MARK, MESSAGE_SIZE_ESTIMATOR,
-                SINGLE_EVENTEXECUTOR_PER_GROUP, MAX_MESSAGES_PER_WRITE);
+                SINGLE_EVENTEXECUTOR_PER_GROUP, MAX_MESSAGES_PER_WRITE, WRITE_COALESCING_THRESHOLD);
     }
 
     protected Map<ChannelOption<?>, Object> getOptions(
@@ -161,6 +163,9 @@ public class DefaultChannelConfig implements ChannelConfig {
         if (option == MAX_MESSAGES_PER_WRITE) {
             return (T) Integer.valueOf(getMaxMessagesPerWrite());
         }
+        if (option == WRITE_COALESCING_THRESHOLD) {
+            return (T) Integer.valueOf(getWriteCoalescingThreshold());
+        }
         return null;
     }
 
@@ -195,6 +200,8 @@ public class DefaultChannelConfig implements ChannelConfig {
             setPinEventExecutorPerGroup((Boolean) value);
         } else if (option == MAX_MESSAGES_PER_WRITE) {
             setMaxMessagesPerWrite((Integer) value);
+        } else if (option == WRITE_COALESCING_THRESHOLD) {
+            setWriteCoalescingThreshold((Integer) value);
         } else {
             return false;
         }
@@ -272,6 +279,27 @@ public class DefaultChannelConfig implements ChannelConfig {
         return this;
     }
 
+    /**
+     * Get the maximum number of readable bytes of a {@link io.netty.buffer.ByteBuf} which is copied into an
+     * aggregation buffer when it is written, or {@code 0} if nothing is copied.
+     *
+     * @see ChannelOption#WRITE_COALESCING_THRESHOLD
+     */
+    public int getWriteCoalescingThreshold() {
+        return writeCoalescingThreshold;
+    }
+
+    /**
+     * Set the maximum number of readable bytes of a {@link io.netty.buffer.ByteBuf} which is copied into an
+     * aggregation buffer when it is written, {@code 0} disables the copying.
+     *
+     * @see ChannelOption#WRITE_COALESCING_THRESHOLD
+     */
+    public ChannelConfig setWriteCoalescingThreshold(int writeCoalescingThreshold) {
+        this.writeCoalescingThreshold = checkPositiveOrZero(writeCoalescingThreshold, "writeCoalescingThreshold");
+        return this;
+    }
+
     @Override
     public int getWriteSpinCount() {
         return writeSpinCount;
@@ -49,9 +49,17 @@ public class DefaultEventLoop extends SingleThreadEventLoop {
     @Override
     protected void run() {
         for (;;) {
+            beforeWait();
             Runnable task = takeTask();
+            afterWait();
             if (task != null) {
-                task.run();
+                if (isTaskMetricsEnabled()) {
+                    long start = System.nanoTime();
+                    task.run();
+                    recordTaskTime(System.nanoTime() - start);
+                } else {
+                    task.run();
+                }
                 updateLastExecutionTime();
             }
 
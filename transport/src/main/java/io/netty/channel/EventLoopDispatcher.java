@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility methods to dispatch work to many {@link Channel}s from outside of their {@link EventLoop}s with one task
+ * per {@link EventLoop} instead of one task per {@link Channel}.
+ */
+@UnstableApi
+public final class EventLoopDispatcher {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(EventLoopDispatcher.class);
+
+    /**
+     * Work that is done for a {@link Channel} on its {@link EventLoop}.
+     */
+    public interface ChannelTask {
+        /**
+         * Called from the {@link EventLoop} of the given {@link Channel}.
+         */
+        void run(Channel channel) throws Exception;
+    }
+
+    private EventLoopDispatcher() { }
+
+    /**
+     * Groups the given {@link Channel}s by their {@link Channel#eventLoop()}, keeping the iteration order of the
+     * {@link Channel}s within each group.
+     */
+    public static Map<EventLoop, List<Channel>> groupByEventLoop(Iterable<? extends Channel> channels) {
+        ObjectUtil.checkNotNull(channels, "channels");
+        Map<EventLoop, List<Channel>> channelsByLoop = new IdentityHashMap<EventLoop, List<Channel>>();
+        for (Channel channel : channels) {
+            EventLoop loop = channel.eventLoop();
+            List<Channel> loopChannels = channelsByLoop.get(loop);
+            if (loopChannels == null) {
+                loopChannels = new ArrayList<Channel>();
+                channelsByLoop.put(loop, loopChannels);
+            }
+            loopChannels.add(channel);
+        }
+        return channelsByLoop;
+    }
+
+    /**
+     * Runs the {@link ChannelTask} for every given {@link Channel} on its {@link EventLoop}. Only one task is
+     * submitted to every {@link EventLoop}, which then runs the {@link ChannelTask} for all of its {@link Channel}s.
+     * If the caller is already on one of the {@link EventLoop}s, the {@link ChannelTask} is run directly for the
+     * {@link Channel}s of that {@link EventLoop}.
+     */
+    public static void dispatch(Iterable<? extends Channel> channels, ChannelTask task) {
+        ObjectUtil.checkNotNull(task, "task");
+        for (Map.Entry<EventLoop, List<Channel>> entry : groupByEventLoop(channels).entrySet()) {
+            EventLoop loop = entry.getKey();
+            Runnable loopTask = new LoopTask(entry.getValue(), task);
+            if (loop.inEventLoop()) {
+                loopTask.run();
+            } else {
+                loop.execute(loopTask);
+            }
+        }
+    }
+
+    /**
+     * Submits all the given tasks to the {@link EventLoop}. If it is a {@link SingleThreadEventExecutor} this is
+     * done with a single publication to its task queue and at most one wakeup, see
+     * {@link SingleThreadEventExecutor#executeBatch(Collection)}, otherwise every task is submitted on its own.
+     */
+    public static void executeBatch(EventLoop loop, Collection<? extends Runnable> tasks) {
+        ObjectUtil.checkNotNull(loop, "loop");
+        if (loop instanceof SingleThreadEventExecutor) {
+            ((SingleThreadEventExecutor) loop).executeBatch(tasks);
+        } else {
+            for (Runnable task : ObjectUtil.checkNotNull(tasks, "tasks")) {
+                loop.execute(task);
+            }
+        }
+    }
+
+    private static final class LoopTask implements Runnable {
+        private final List<Channel> channels;
+        private final ChannelTask task;
+
+        LoopTask(List<Channel> channels, ChannelTask task) {
+            this.channels = channels;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < channels.size(); i++) {
+                Channel channel = channels.get(i);
+                try {
+                    task.run(channel);
+                } catch (Throwable t) {
+                    logger.warn("A task raised an exception for channel {}.", channel, t);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Metrics of an {@link EventLoop}. All times are in nanoseconds. The ones that are totals are accumulated since the
+ * metric was requested the first time, so the values for an interval can be calculated from two calls.
+ */
+@UnstableApi
+public interface EventLoopMetric {
+
+    /**
+     * Returns the total time the {@link EventLoop} spent blocked waiting for IO events or tasks, for example in
+     * {@code select} or {@code epoll_wait}.
+     */
+    long waitTime();
+
+    /**
+     * Returns the total time the {@link EventLoop} spent processing IO events, which is the time it spent neither
+     * waiting nor running tasks.
+     */
+    long ioTime();
+
+    /**
+     * Returns the total time the {@link EventLoop} spent running tasks.
+     */
+    long taskTime();
+
+    /**
+     * Returns the longest time a single task blocked the {@link EventLoop}.
+     */
+    long maxTaskTime();
+
+    /**
+     * Returns the number of tasks that are pending for processing.
+     */
+    int pendingTasks();
+
+    /**
+     * Returns how long the oldest task had to wait in the task queue before the {@link EventLoop} started to run
+     * the tasks the last time.
+     */
+    long taskQueueLatency();
+
+    /**
+     * Returns the number of {@link Channel}s registered with the {@link EventLoop} or {@code -1} if unknown.
+     */
+    int registeredChannels();
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorChooserFactory;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link EventExecutorChooserFactory} which chooses the least loaded {@link EventExecutor} instead of using
+ * round-robin, so that a few heavy {@link Channel}s do not saturate one {@link EventLoop} while others are idle.
+ * <p>
+ * The load of an {@link EventExecutor} is calculated as
+ * <pre>
+ * busyWeight * busyRatio + channelWeight * registeredChannels + taskWeight * pendingTasks
+ * </pre>
+ * where {@code busyRatio} is an exponentially weighted moving average of the fraction of time the
+ * {@link EventLoop} did not spend waiting (see {@link SingleThreadEventLoop#waitTime()}),
+ * {@code registeredChannels} is {@link SingleThreadEventLoop#registeredChannels()} and {@code pendingTasks} is
+ * {@link SingleThreadEventExecutor#pendingTasks()}. Values an {@link EventExecutor} does not provide count as
+ * {@code 0}.
+ * <p>
+ * {@link Channel}s stay on the {@link EventLoop} they were registered with, but idle ones can be moved to a less
+ * loaded {@link EventLoop} of the same group via {@link #migrate(Channel, double)}.
+ */
+@UnstableApi
+public final class LoadAwareEventLoopChooserFactory implements EventExecutorChooserFactory {
+
+    private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final double BUSY_TIME_CONSTANT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double busyWeight;
+    private final double channelWeight;
+    private final double taskWeight;
+    private final List<LoadAwareEventExecutorChooser> choosers =
+            new CopyOnWriteArrayList<LoadAwareEventExecutorChooser>();
+
+    /**
+     * Creates a new instance where being fully busy weighs as much as {@code 100} registered {@link Channel}s or
+     * pending tasks.
+     */
+    public LoadAwareEventLoopChooserFactory() {
+        this(100, 1, 1);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param busyWeight    the weight of the ratio ({@code 0..1}) of time the {@link EventLoop} was busy.
+     * @param channelWeight the weight of each {@link Channel} registered with the {@link EventLoop}.
+     * @param taskWeight    the weight of each task pending in the {@link EventLoop}.
+     */
+    public LoadAwareEventLoopChooserFactory(double busyWeight, double channelWeight, double taskWeight) {
+        this.busyWeight = checkWeight(busyWeight, "busyWeight");
+        this.channelWeight = checkWeight(channelWeight, "channelWeight");
+        this.taskWeight = checkWeight(taskWeight, "taskWeight");
+    }
+
+    private static double checkWeight(double weight, String name) {
+        if (!(weight >= 0)) {
+            throw new IllegalArgumentException(name + ": " + weight + " (expected: >= 0)");
+        }
+        return weight;
+    }
+
+    @Override
+    public EventExecutorChooser newChooser(EventExecutor[] executors) {
+        final LoadAwareEventExecutorChooser chooser = new LoadAwareEventExecutorChooser(executors);
+        choosers.add(chooser);
+
+        // Forget about the chooser once its group terminated, so the factory can be shared by many groups.
+        final AtomicInteger activeExecutors = new AtomicInteger(executors.length);
+        FutureListener<Object> terminationListener = new FutureListener<Object>() {
+            @Override
+            public void operationComplete(Future<Object> future) {
+                if (activeExecutors.decrementAndGet() == 0) {
+                    choosers.remove(chooser);
+                }
+            }
+        };
+        for (EventExecutor executor : executors) {
+            executor.terminationFuture().addListener(terminationListener);
+        }
+        return chooser;
+    }
+
+    /**
+     * Returns the number of choosers of groups which did not terminate yet.
+     * <p>
+     * This method is visible for testing!
+     */
+    int chooserCount() {
+        return choosers.size();
+    }
+
+    /**
+     * Moves the given {@link Channel} to the least loaded {@link EventLoop} of the group it is registered with, if
+     * the load of its current {@link EventLoop} exceeds the load of that one by more than {@code minLoadDifference}.
+     * The {@link Channel} is deregistered and registered again, so this should only be used for {@link Channel}s
+     * that are idle, for example once an {@code IdleStateEvent} was received.
+     *
+     * @return the {@link ChannelFuture} which is notified once the {@link Channel} was registered with its new
+     * {@link EventLoop}, or {@code null} if the {@link Channel} was not moved.
+     */
+    public ChannelFuture migrate(final Channel channel, double minLoadDifference) {
+        ObjectUtil.checkNotNull(channel, "channel");
+        if (!channel.isRegistered()) {
+            return null;
+        }
+        EventLoop current = channel.eventLoop();
+        for (LoadAwareEventExecutorChooser chooser : choosers) {
+            int idx = chooser.indexOf(current);
+            if (idx < 0) {
+                continue;
+            }
+            final EventLoop target = (EventLoop) chooser.lessLoaded(idx, minLoadDifference);
+            if (target == null) {
+                return null;
+            }
+            final ChannelPromise promise = new DefaultChannelPromise(channel, target);
+            channel.deregister().addListener(new FutureListener<Void>() {
+                @Override
+                public void operationComplete(Future<Void> future) {
+                    if (future.isSuccess()) {
+                        target.register(promise);
+                    } else {
+                        promise.setFailure(future.cause());
+                    }
+                }
+            });
+            return promise;
+        }
+        return null;
+    }
+
+    private final class LoadAwareEventExecutorChooser implements EventExecutorChooser {
+        private final AtomicInteger idx = new AtomicInteger();
+        private final EventExecutor[] executors;
+        private final AtomicReference<BusySample> busySample;
+
+        LoadAwareEventExecutorChooser(EventExecutor[] executors) {
+            this.executors = executors;
+            busySample = new AtomicReference<BusySample>(
+                    new BusySample(System.nanoTime(), new long[executors.length], new double[executors.length]));
+        }
+
+        @Override
+        public EventExecutor next() {
+            // Start at a different executor each time so equally loaded executors are used round-robin.
+            int start = idx.getAndIncrement() & Integer.MAX_VALUE;
+            // No lock is needed, as the busy ratios are an immutable snapshot and the other values are read from
+            // the executors directly.
+            double[] busyRatios = sampleBusyRatios();
+            int length = executors.length;
+            int best = start % length;
+            double bestLoad = load(best, busyRatios);
+            for (int i = 1; i < length; i++) {
+                int candidate = (start + i) % length;
+                double load = load(candidate, busyRatios);
+                if (load < bestLoad) {
+                    best = candidate;
+                    bestLoad = load;
+                }
+            }
+            return executors[best];
+        }
+
+        int indexOf(EventExecutor executor) {
+            for (int i = 0; i < executors.length; i++) {
+                if (executors[i] == executor) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        EventExecutor lessLoaded(int current, double minLoadDifference) {
+            double[] busyRatios = sampleBusyRatios();
+            // The channel to move counts towards the load of its current executor.
+            double maxLoad = load(current, busyRatios) - channelWeight - minLoadDifference;
+            int best = -1;
+            for (int i = 0; i < executors.length; i++) {
+                if (i == current || executors[i].isShuttingDown()) {
+                    continue;
+                }
+                double load = load(i, busyRatios);
+                if (load < maxLoad) {
+                    best = i;
+                    maxLoad = load;
+                }
+            }
+            return best < 0 ? null : executors[best];
+        }
+
+        private double load(int i, double[] busyRatios) {
+            EventExecutor executor = executors[i];
+            double load = busyWeight * busyRatios[i];
+            if (executor instanceof SingleThreadEventExecutor) {
+                load += taskWeight * ((SingleThreadEventExecutor) executor).pendingTasks();
+            }
+            if (executor instanceof SingleThreadEventLoop) {
+                load += channelWeight * Math.max(0, ((SingleThreadEventLoop) executor).registeredChannels());
+            }
+            return load;
+        }
+
+        /**
+         * Returns the current busy ratios, which are updated by one of the calling threads at most every
+         * {@link #SAMPLE_INTERVAL_NANOS}.
+         */
+        private double[] sampleBusyRatios() {
+            BusySample last = busySample.get();
+            long now = System.nanoTime();
+            long elapsed = now - last.nanos;
+            if (elapsed < SAMPLE_INTERVAL_NANOS) {
+                return last.busyRatios;
+            }
+            double alpha = 1 - Math.exp(-elapsed / BUSY_TIME_CONSTANT_NANOS);
+            long[] waitTimes = last.waitTimes.clone();
+            double[] busyRatios = last.busyRatios.clone();
+            for (int i = 0; i < executors.length; i++) {
+                EventExecutor executor = executors[i];
+                if (!(executor instanceof SingleThreadEventLoop)) {
+                    continue;
+                }
+                long waitTime = ((SingleThreadEventLoop) executor).waitTime();
+                long waited = waitTime - waitTimes[i];
+                waitTimes[i] = waitTime;
+                double busy = 1 - Math.min(1, Math.max(0, (double) waited / elapsed));
+                busyRatios[i] += alpha * (busy - busyRatios[i]);
+            }
+            // If another thread was faster its sample is as good as ours.
+            busySample.compareAndSet(last, new BusySample(now, waitTimes, busyRatios));
+            return busyRatios;
+        }
+    }
+
+    /**
+     * An immutable snapshot of the busy ratios of the executors of a chooser.
+     */
+    private static final class BusySample {
+        final long nanos;
+        final long[] waitTimes;
+        final double[] busyRatios;
+
+        BusySample(long nanos, long[] waitTimes, double[] busyRatios) {
+            this.nanos = nanos;
+            this.waitTimes = waitTimes;
+            this.busyRatios = busyRatios;
+        }
+    }
+}
@@ -19,24 +19,36 @@ import io.netty.util.concurrent.RejectedExecutionHandler;
 import io.netty.util.concurrent.RejectedExecutionHandlers;
 import io.netty.util.concurrent.SingleThreadEventExecutor;
 import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.StringUtil;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.UnstableApi;
 
 import java.util.Queue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Abstract base class for {@link EventLoop}s that execute all its submitted tasks in a single thread.
  *
  */
-public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor implements EventLoop {
+public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor
+        implements EventLoop, EventLoopMetricProvider {
 
     protected static final int DEFAULT_MAX_PENDING_TASKS = Math.max(16,
             SystemPropertyUtil.getInt("io.netty.eventLoop.maxPendingTasks", Integer.MAX_VALUE));
+    private static final AtomicReferenceFieldUpdater<SingleThreadEventLoop, EventLoopMetricImpl> METRIC_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(SingleThreadEventLoop.class, EventLoopMetricImpl.class, "metric");
     // 尾部队列
     private final Queue<Runnable> tailTasks;
 
+    // Only written by the EventLoop thread, volatile so waitTime() can be called from any thread. Until the thread
+    // was started the EventLoop counts as waiting.
+    private volatile long waitStartNanos = System.nanoTime();
+    private volatile long totalWaitNanos;
+    // Created on first use, as the task metrics are only collected from then on.
+    private volatile EventLoopMetricImpl metric;
+
     protected SingleThreadEventLoop(EventLoopGroup parent, ThreadFactory threadFactory, boolean addTaskWakesUp) {
         this(parent, threadFactory, addTaskWakesUp, DEFAULT_MAX_PENDING_TASKS, RejectedExecutionHandlers.reject());
     }
@@ -146,6 +158,65 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
         return super.pendingTasks() + tailTasks.size();
     }
 
+    /**
+     * Must be called by implementations from the {@link EventLoop} thread right before it blocks to wait for IO
+     * events or tasks, followed by a call to {@link #afterWait()} once it woke up again.
+     */
+    protected final void beforeWait() {
+        // Account for a wait that was not finished yet, like the one before the thread was started.
+        afterWait();
+        waitStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Must be called by implementations from the {@link EventLoop} thread once it woke up after a call to
+     * {@link #beforeWait()}.
+     */
+    protected final void afterWait() {
+        long start = waitStartNanos;
+        if (start != 0) {
+            // Clear the start first, so a concurrent waitTime() may miss the wait for a moment but never counts it
+            // twice.
+            waitStartNanos = 0;
+            totalWaitNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Returns the total time in nanoseconds this {@link EventLoop} spent blocked waiting for IO events or tasks,
+     * including a wait that is currently in progress. The time this {@link EventLoop} was busy during an interval
+     * can be calculated from two calls to this method. If the implementation does not call {@link #beforeWait()}
+     * and {@link #afterWait()} all the time since it was created counts as waiting.
+     */
+    @UnstableApi
+    public long waitTime() {
+        for (;;) {
+            long total = totalWaitNanos;
+            long start = waitStartNanos;
+            if (total == totalWaitNanos) {
+                return start == 0 ? total : total + Math.max(0, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Returns a {@link EventLoopMetric} for this {@link EventLoop}. Its values are collected from the first call of
+     * this method on, as measuring the tasks has a cost. They are cheap to read, so it can be polled periodically.
+     */
+    @UnstableApi
+    @Override
+    public EventLoopMetric metric() {
+        EventLoopMetricImpl metric = this.metric;
+        if (metric == null) {
+            enableTaskMetrics();
+            metric = new EventLoopMetricImpl(System.nanoTime(), waitTime());
+            if (!METRIC_UPDATER.compareAndSet(this, null, metric)) {
+                metric = this.metric;
+            }
+        }
+        return metric;
+    }
+
     /**
      * Returns the number of {@link Channel}s registered with this {@link EventLoop} or {@code -1}
      * if operation is not supported. The returned value is not guaranteed to be exact accurate and
@@ -155,4 +226,68 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
     public int registeredChannels() {
         return -1;
     }
+
+    private final class EventLoopMetricImpl implements EventLoopMetric {
+        private final long creationNanos;
+        private final long initialWaitTime;
+        private volatile long terminationNanos;
+
+        EventLoopMetricImpl(long creationNanos, long initialWaitTime) {
+            this.creationNanos = creationNanos;
+            this.initialWaitTime = initialWaitTime;
+        }
+
+        @Override
+        public long waitTime() {
+            return SingleThreadEventLoop.this.waitTime() - initialWaitTime;
+        }
+
+        @Override
+        public long ioTime() {
+            long end = terminationNanos;
+            if (end == 0) {
+                end = System.nanoTime();
+                if (isTerminated()) {
+                    // The EventLoop does not spend any time after it was terminated, so freeze the value once
+                    // the termination was observed.
+                    terminationNanos = end;
+                }
+            }
+            return Math.max(0, end - creationNanos - waitTime() - taskTime());
+        }
+
+        @Override
+        public long taskTime() {
+            return SingleThreadEventLoop.this.taskTime();
+        }
+
+        @Override
+        public long maxTaskTime() {
+            return SingleThreadEventLoop.this.maxTaskTime();
+        }
+
+        @Override
+        public int pendingTasks() {
+            return SingleThreadEventLoop.this.pendingTasks();
+        }
+
+        @Override
+        public long taskQueueLatency() {
+            return SingleThreadEventLoop.this.taskQueueLatency();
+        }
+
+        @Override
+        public int registeredChannels() {
+            return SingleThreadEventLoop.this.registeredChannels();
+        }
+
+        @Override
+        public String toString() {
+            return StringUtil.simpleClassName(SingleThreadEventLoop.this) +
+                    "(waitTime: " + waitTime() + "; ioTime: " + ioTime() + "; taskTime: " + taskTime() +
+                    "; maxTaskTime: " + maxTaskTime() + "; pendingTasks: " + pendingTasks() +
+                    "; taskQueueLatency: " + taskQueueLatency() + "; registeredChannels: " + registeredChannels() +
+                    ')';
+        }
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+import static io.netty.util.internal.PlatformDependent.throwException;
+
+/**
+ * Collects the small {@link ByteBuf}s which are written to a {@link Channel} until the next flush, and copies them
+ * into a single aggregation buffer when they are removed. Used by the {@link ChannelOutboundBuffer} if
+ * {@link ChannelOption#WRITE_COALESCING_THRESHOLD} is set.
+ * <p>
+ * This class is not thread-safe and must only be used from the {@link EventLoop} of the {@link Channel}.
+ */
+final class WriteCoalescingQueue extends AbstractCoalescingBufferQueue {
+    // The maximum number of bytes which are copied into one aggregation buffer.
+    static final int MAX_AGGREGATION_BYTES = 64 * 1024;
+
+    private int buffers;
+    private int pendingSize;
+    private boolean hasPromises;
+
+    WriteCoalescingQueue() {
+        // The ChannelOutboundBuffer takes care of the writability itself.
+        super(null, 16);
+    }
+
+    /**
+     * Add a buffer with the given pending size, see {@link MessageSizeEstimator}.
+     */
+    void add(ByteBuf buf, int size, ChannelPromise promise) {
+        add(buf, promise);
+        buffers++;
+        pendingSize += size;
+        if (!promise.isVoid()) {
+            hasPromises = true;
+        }
+    }
+
+    /**
+     * The sum of the pending sizes of all buffers in the queue.
+     */
+    int pendingSize() {
+        return pendingSize;
+    }
+
+    /**
+     * Returns {@code true} if a buffer was added with a promise that is not a {@link VoidChannelPromise}, and so
+     * {@link #removeAll(ByteBufAllocator, ChannelPromise)} needs a real promise.
+     */
+    boolean hasPromises() {
+        return hasPromises;
+    }
+
+    /**
+     * Remove all buffers, copied into one aggregation buffer unless there is only one.
+     */
+    ByteBuf removeAll(ByteBufAllocator alloc, ChannelPromise aggregatePromise) {
+        try {
+            return remove(alloc, readableBytes(), aggregatePromise);
+        } finally {
+            reset();
+        }
+    }
+
+    /**
+     * Release all buffers and fail their promises.
+     */
+    void releaseAndFailAll(Channel channel, Throwable cause) {
+        try {
+            releaseAndFailAll((ChannelOutboundInvoker) channel, cause);
+        } finally {
+            reset();
+        }
+    }
+
+    private void reset() {
+        buffers = 0;
+        pendingSize = 0;
+        hasPromises = false;
+    }
+
+    @Override
+    protected ByteBuf composeFirst(ByteBufAllocator allocator, ByteBuf first) {
+        if (buffers == 1) {
+            return first;
+        }
+        // readableBytes() is only decremented once everything was removed, so this is the size of the whole queue.
+        ByteBuf aggregation = allocator.ioBuffer(readableBytes());
+        try {
+            aggregation.writeBytes(first);
+        } catch (Throwable cause) {
+            // first is released by remove(...).
+            aggregation.release();
+            throwException(cause);
+        }
+        first.release();
+        return aggregation;
+    }
+
+    @Override
+    protected ByteBuf compose(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf next) {
+        // If this fails both buffers are released by remove(...).
+        cumulation.writeBytes(next);
+        next.release();
+        return cumulation;
+    }
+
+    @Override
+    protected ByteBuf removeEmptyValue() {
+        return Unpooled.EMPTY_BUFFER;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.group;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Encodes a message once into a {@link ByteBuf} which is then written to all the {@link io.netty.channel.Channel}s
+ * of a {@link DefaultChannelGroup}, see
+ * {@link DefaultChannelGroup#writeAndFlush(Object, ChannelGroupMessageEncoder, ChannelMatcher, boolean)}.
+ * <p>
+ * The produced {@link ByteBuf} must contain exactly the bytes that the encoders in the pipelines of the
+ * {@link io.netty.channel.Channel}s would have produced for the message, as it will pass these encoders untouched.
+ */
+@UnstableApi
+public interface ChannelGroupMessageEncoder<I> {
+
+    /**
+     * Encodes the given message into a {@link ByteBuf} allocated by the given {@link ByteBufAllocator}. The message
+     * is released by the {@link ChannelGroup} once this method returns and so must not be released here.
+     */
+    ByteBuf encode(ByteBufAllocator allocator, I msg) throws Exception;
+}
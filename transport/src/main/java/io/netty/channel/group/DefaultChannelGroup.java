@@ -21,18 +21,23 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelId;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.channel.ServerChannel;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
 
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -412,6 +417,110 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
         return future;
     }
 
+    /**
+     * Shortcut for calling {@link #writeAndFlush(Object, ChannelGroupMessageEncoder, ChannelMatcher)} with
+     * {@link ChannelMatchers#all()}.
+     */
+    @UnstableApi
+    public <T> ChannelGroupFuture writeAndFlush(T message, ChannelGroupMessageEncoder<? super T> encoder) {
+        return writeAndFlush(message, encoder, ChannelMatchers.all());
+    }
+
+    /**
+     * Shortcut for calling {@link #writeAndFlush(Object, ChannelGroupMessageEncoder, ChannelMatcher, boolean)}
+     * without using void promises.
+     */
+    @UnstableApi
+    public <T> ChannelGroupFuture writeAndFlush(T message, ChannelGroupMessageEncoder<? super T> encoder,
+                                                ChannelMatcher matcher) {
+        return writeAndFlush(message, encoder, matcher, false);
+    }
+
+    /**
+     * Broadcasts a message to all {@link Channel}s in this group that are matched by the {@link ChannelMatcher}.
+     * <p>
+     * Unlike {@link #writeAndFlush(Object, ChannelMatcher, boolean)}, which makes every {@link Channel} encode the
+     * message on its own, the message is encoded only once by the given {@link ChannelGroupMessageEncoder} into a
+     * read-only {@link ByteBuf}. Each {@link Channel} gets a retained duplicate of it, which passes the message
+     * encoders in its pipeline untouched. The writes are batched per {@link EventLoop}, so only one task is
+     * submitted to every {@link EventLoop} instead of one per {@link Channel}.
+     * <p>
+     * The message is released once it was encoded. If the encoding fails all the writes are failed with the cause.
+     */
+    @UnstableApi
+    public <T> ChannelGroupFuture writeAndFlush(T message, ChannelGroupMessageEncoder<? super T> encoder,
+                                                ChannelMatcher matcher, boolean voidPromise) {
+        ObjectUtil.checkNotNull(message, "message");
+        ObjectUtil.checkNotNull(encoder, "encoder");
+        ObjectUtil.checkNotNull(matcher, "matcher");
+
+        Map<EventLoop, List<Channel>> channelsByLoop = new IdentityHashMap<EventLoop, List<Channel>>();
+        Channel first = null;
+        int matched = 0;
+        for (Channel c: nonServerChannels.values()) {
+            if (matcher.matches(c)) {
+                List<Channel> channels = channelsByLoop.get(c.eventLoop());
+                if (channels == null) {
+                    channels = new ArrayList<Channel>();
+                    channelsByLoop.put(c.eventLoop(), channels);
+                }
+                channels.add(c);
+                if (first == null) {
+                    first = c;
+                }
+                matched++;
+            }
+        }
+
+        ByteBuf encoded = null;
+        Throwable cause = null;
+        if (first != null) {
+            try {
+                encoded = ObjectUtil.checkNotNull(encoder.encode(first.alloc(), message), "encoded").asReadOnly();
+            } catch (Throwable t) {
+                cause = t;
+            }
+        }
+        ReferenceCountUtil.release(message);
+
+        Map<Channel, ChannelFuture> futures = voidPromise ? null : new LinkedHashMap<Channel, ChannelFuture>(matched);
+        try {
+            for (Map.Entry<EventLoop, List<Channel>> entry: channelsByLoop.entrySet()) {
+                List<Channel> channels = entry.getValue();
+                ChannelPromise[] promises = new ChannelPromise[channels.size()];
+                for (int i = 0; i < promises.length; i++) {
+                    Channel c = channels.get(i);
+                    promises[i] = voidPromise ? c.voidPromise() : c.newPromise();
+                    if (futures != null) {
+                        futures.put(c, promises[i]);
+                    }
+                }
+                if (cause != null) {
+                    for (ChannelPromise promise: promises) {
+                        promise.tryFailure(cause);
+                    }
+                    continue;
+                }
+                BroadcastTask task = new BroadcastTask(encoded.retain(), channels, promises);
+                EventLoop loop = entry.getKey();
+                if (loop.inEventLoop()) {
+                    task.run();
+                } else {
+                    try {
+                        loop.execute(task);
+                    } catch (Throwable t) {
+                        task.fail(t);
+                    }
+                }
+            }
+        } finally {
+            if (encoded != null) {
+                encoded.release();
+            }
+        }
+        return voidPromise ? voidFuture : new DefaultChannelGroupFuture(this, futures, executor);
+    }
+
     @Override
     public ChannelGroupFuture newCloseFuture() {
         return newCloseFuture(ChannelMatchers.all());
@@ -460,4 +569,40 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
     public String toString() {
         return StringUtil.simpleClassName(this) + "(name: " + name() + ", size: " + size() + ')';
     }
+
+    /**
+     * Writes the duplicates of an encoded message to all the {@link Channel}s of one {@link EventLoop}.
+     */
+    private static final class BroadcastTask implements Runnable {
+        private final ByteBuf encoded;
+        private final List<Channel> channels;
+        private final ChannelPromise[] promises;
+
+        BroadcastTask(ByteBuf encoded, List<Channel> channels, ChannelPromise[] promises) {
+            this.encoded = encoded;
+            this.channels = channels;
+            this.promises = promises;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < promises.length; i++) {
+                    channels.get(i).writeAndFlush(encoded.retainedDuplicate(), promises[i]);
+                }
+            } finally {
+                encoded.release();
+            }
+        }
+
+        void fail(Throwable cause) {
+            try {
+                for (ChannelPromise promise: promises) {
+                    promise.tryFailure(cause);
+                }
+            } finally {
+                encoded.release();
+            }
+        }
+    }
 }
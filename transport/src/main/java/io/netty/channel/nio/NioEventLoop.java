@@ -475,9 +475,11 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                         try {
                             if (!hasTasks()) {
                                 // 没有任务则阻塞选择
+                                beforeWait();
                                 strategy = select(curDeadlineNanos);
                             }
                         } finally {
+                            afterWait();
                             // This update is just to help block unnecessary selector wakeups
                             // so use of lazySet is ok (no race condition)
                             nextWakeupNanos.lazySet(AWAKE);
@@ -36,8 +36,10 @@ import static io.netty.buffer.Unpooled.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ChannelOutboundBufferTest {
@@ -155,6 +157,182 @@ public class ChannelOutboundBufferTest {
         buf.release();
     }
 
+    @Test
+    public void testDetachCurrent() {
+        TestChannel channel = new TestChannel();
+
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        assertNull(buffer.detachCurrent());
+
+        ByteBuf buf = copiedBuffer("buf1", CharsetUtil.US_ASCII);
+        ChannelPromise promise = channel.newPromise();
+        buffer.addMessage(buf, buf.readableBytes(), promise);
+        buffer.addFlush();
+
+        assertSame(promise, buffer.detachCurrent());
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+        assertFalse(promise.isDone());
+        assertEquals(1, buf.refCnt());
+        assertTrue(buf.release());
+    }
+
+    @Test
+    public void testRemoveBytes() {
+        TestChannel channel = new TestChannel();
+
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        ByteBuf buf1 = copiedBuffer("buf1", CharsetUtil.US_ASCII);
+        ByteBuf buf2 = copiedBuffer("buf2", CharsetUtil.US_ASCII);
+        ByteBuf buf3 = copiedBuffer("buf3", CharsetUtil.US_ASCII);
+        ChannelPromise promise1 = channel.newPromise();
+        ChannelPromise promise3 = channel.newPromise();
+        buffer.addMessage(buf1, buf1.readableBytes(), promise1);
+        buffer.addMessage(buf2, buf2.readableBytes(), channel.voidPromise());
+        long pendingBytes = buffer.totalPendingWriteBytes();
+        buffer.addMessage(buf3, buf3.readableBytes(), promise3);
+        long pendingBytes3 = buffer.totalPendingWriteBytes() - pendingBytes;
+        buffer.addFlush();
+
+        // The first two messages are written completely and the third one partially.
+        buffer.removeBytes(buf1.readableBytes() + buf2.readableBytes() + 2);
+        assertTrue(promise1.isSuccess());
+        assertEquals(0, buf1.refCnt());
+        assertEquals(0, buf2.refCnt());
+        assertFalse(promise3.isDone());
+        assertSame(buf3, buffer.current());
+        assertEquals(2, buf3.readerIndex());
+        assertEquals(1, buffer.size());
+        assertEquals(pendingBytes3, buffer.totalPendingWriteBytes());
+
+        buffer.removeBytes(2);
+        assertTrue(promise3.isSuccess());
+        assertEquals(0, buf3.refCnt());
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+    }
+
+    @Test
+    public void testRemoveBytesNotifiesPromisesBeforeWritabilityChange() {
+        final StringBuilder events = new StringBuilder();
+        EmbeddedChannel ch = new EmbeddedChannel(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+                events.append(ctx.channel().isWritable());
+                events.append(' ');
+            }
+        });
+        ch.config().setWriteBufferLowWaterMark(128 + ChannelOutboundBuffer.CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD);
+        ch.config().setWriteBufferHighWaterMark(256 + ChannelOutboundBuffer.CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD);
+
+        ChannelFutureListener listener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                events.append("written ");
+            }
+        };
+        ch.write(buffer().writeZero(128)).addListener(listener);
+        ch.write(buffer().writeZero(129)).addListener(listener);
+        assertThat(events.toString(), is("false "));
+
+        ChannelOutboundBuffer buffer = ch.unsafe().outboundBuffer();
+        buffer.addFlush();
+        buffer.removeBytes(128 + 129);
+        assertThat(events.toString(), is("false written written true "));
+
+        safeClose(ch);
+    }
+
+    @Test
+    public void testRemoveBytesKeepsUnflushed() {
+        TestChannel channel = new TestChannel();
+
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        ByteBuf buf1 = copiedBuffer("buf1", CharsetUtil.US_ASCII);
+        ByteBuf buf2 = copiedBuffer("buf2", CharsetUtil.US_ASCII);
+        buffer.addMessage(buf1, buf1.readableBytes(), channel.voidPromise());
+        buffer.addFlush();
+        buffer.addMessage(buf2, buf2.readableBytes(), channel.voidPromise());
+
+        buffer.removeBytes(buf1.readableBytes());
+        assertEquals(0, buf1.refCnt());
+        assertNull(buffer.current());
+
+        buffer.addFlush();
+        assertSame(buf2, buffer.current());
+        release(buffer);
+    }
+
+    @Test
+    public void testWriteCoalescing() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.config().setOption(ChannelOption.WRITE_COALESCING_THRESHOLD, 4);
+
+        ChannelFuture future1 = channel.write(copiedBuffer("buf1", CharsetUtil.US_ASCII));
+        channel.write(copiedBuffer("buf2", CharsetUtil.US_ASCII), channel.voidPromise());
+        ChannelFuture future3 = channel.write(copiedBuffer("large", CharsetUtil.US_ASCII));
+        ChannelFuture future4 = channel.write(copiedBuffer("buf4", CharsetUtil.US_ASCII));
+        assertFalse(future1.isDone());
+        assertTrue(channel.unsafe().outboundBuffer().totalPendingWriteBytes() > 0);
+        channel.flush();
+
+        assertTrue(future1.isSuccess());
+        assertTrue(future3.isSuccess());
+        assertTrue(future4.isSuccess());
+        assertEquals(0, channel.unsafe().outboundBuffer().totalPendingWriteBytes());
+
+        ByteBuf buf = channel.readOutbound();
+        assertEquals("buf1buf2", buf.toString(CharsetUtil.US_ASCII));
+        buf.release();
+        buf = channel.readOutbound();
+        assertEquals("large", buf.toString(CharsetUtil.US_ASCII));
+        buf.release();
+        buf = channel.readOutbound();
+        assertEquals("buf4", buf.toString(CharsetUtil.US_ASCII));
+        buf.release();
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testWriteCoalescingFailsOnClose() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.config().setOption(ChannelOption.WRITE_COALESCING_THRESHOLD, 4);
+
+        ByteBuf buf = copiedBuffer("buf1", CharsetUtil.US_ASCII);
+        ChannelFuture future = channel.write(buf);
+        channel.close();
+
+        assertFalse(future.isSuccess());
+        assertEquals(0, buf.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testWriteCoalescingThresholdAppliesAfterFlush() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+
+        channel.write(copiedBuffer("buf1", CharsetUtil.US_ASCII));
+        channel.config().setOption(ChannelOption.WRITE_COALESCING_THRESHOLD, 4);
+        channel.write(copiedBuffer("buf2", CharsetUtil.US_ASCII));
+        channel.flush();
+        channel.write(copiedBuffer("buf3", CharsetUtil.US_ASCII));
+        channel.write(copiedBuffer("buf4", CharsetUtil.US_ASCII));
+        channel.flush();
+
+        ByteBuf buf = channel.readOutbound();
+        assertEquals("buf1", buf.toString(CharsetUtil.US_ASCII));
+        buf.release();
+        buf = channel.readOutbound();
+        assertEquals("buf2", buf.toString(CharsetUtil.US_ASCII));
+        buf.release();
+        buf = channel.readOutbound();
+        assertEquals("buf3buf4", buf.toString(CharsetUtil.US_ASCII));
+        buf.release();
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
     private static void release(ChannelOutboundBuffer buffer) {
         for (;;) {
             if (!buffer.remove()) {
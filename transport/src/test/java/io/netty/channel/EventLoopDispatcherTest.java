@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.channel.local.LocalChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventLoopDispatcherTest {
+
+    private EventLoopGroup group;
+    private List<Channel> channels;
+
+    @BeforeEach
+    public void setUp() {
+        group = new DefaultEventLoopGroup(2);
+        channels = new ArrayList<Channel>();
+        for (int i = 0; i < 6; i++) {
+            Channel channel = new LocalChannel();
+            group.register(channel).syncUninterruptibly();
+            channels.add(channel);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (Channel channel : channels) {
+            channel.close().syncUninterruptibly();
+        }
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+    }
+
+    @Test
+    public void testGroupByEventLoop() {
+        Map<EventLoop, List<Channel>> channelsByLoop = EventLoopDispatcher.groupByEventLoop(channels);
+        assertEquals(2, channelsByLoop.size());
+        int count = 0;
+        for (Map.Entry<EventLoop, List<Channel>> entry : channelsByLoop.entrySet()) {
+            for (Channel channel : entry.getValue()) {
+                assertSame(entry.getKey(), channel.eventLoop());
+                count++;
+            }
+        }
+        assertEquals(channels.size(), count);
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testDispatch() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(channels.size());
+        final AtomicInteger inEventLoop = new AtomicInteger();
+        EventLoopDispatcher.dispatch(channels, new EventLoopDispatcher.ChannelTask() {
+            @Override
+            public void run(Channel channel) {
+                if (channel.eventLoop().inEventLoop()) {
+                    inEventLoop.incrementAndGet();
+                }
+                latch.countDown();
+                if (latch.getCount() % 2 == 0) {
+                    throw new IllegalStateException("expected");
+                }
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(channels.size(), inEventLoop.get());
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2022 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.channel.local.LocalChannel;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorChooserFactory.EventExecutorChooser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class LoadAwareEventLoopChooserFactoryTest {
+
+    private LoadAwareEventLoopChooserFactory factory;
+    private MultithreadEventLoopGroup group;
+
+    @BeforeEach
+    public void setUp() {
+        factory = new LoadAwareEventLoopChooserFactory();
+        group = new MultithreadEventLoopGroup(3, (Executor) null, factory) {
+            @Override
+            protected EventLoop newChild(Executor executor, Object... args) {
+                return new DefaultEventLoop(this, executor);
+            }
+        };
+    }
+
+    @AfterEach
+    public void tearDown() {
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testAvoidsExecutorWithPendingTasks() throws Exception {
+        EventLoop blocked = group.next();
+        CountDownLatch latch = block(blocked);
+        try {
+            for (int i = 0; i < 10; i++) {
+                blocked.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        // NOOP
+                    }
+                });
+            }
+            for (int i = 0; i < 100; i++) {
+                assertNotSame(blocked, group.next());
+            }
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testAvoidsBusyExecutor() throws Exception {
+        EventLoop busy = group.next();
+        spin(busy, 300);
+        for (int i = 0; i < 10; i++) {
+            assertNotSame(busy, group.next());
+        }
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testRoundRobinWhenIdle() {
+        EventExecutorChooser chooser = new LoadAwareEventLoopChooserFactory().newChooser(new EventExecutor[] {
+                new DefaultEventLoop(), new DefaultEventLoop()
+        });
+        EventExecutor first = chooser.next();
+        EventExecutor second = chooser.next();
+        try {
+            assertNotSame(first, second);
+            assertSame(first, chooser.next());
+        } finally {
+            first.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+            second.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testChooserRemovedOnTermination() throws Exception {
+        LoadAwareEventLoopChooserFactory factory = new LoadAwareEventLoopChooserFactory();
+        EventLoop first = new DefaultEventLoop();
+        EventLoop second = new DefaultEventLoop();
+        factory.newChooser(new EventExecutor[] { first, second });
+        assertEquals(1, factory.chooserCount());
+
+        first.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        assertEquals(1, factory.chooserCount());
+        second.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        // The listeners may run after the termination future was notified.
+        while (factory.chooserCount() != 0) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testMigrate() throws Exception {
+        Channel channel = new LocalChannel();
+        group.register(channel).sync();
+        EventLoop loop = channel.eventLoop();
+        try {
+            // All loops are equally loaded.
+            assertNull(factory.migrate(channel, 1));
+
+            spin(loop, 300);
+            ChannelFuture future = factory.migrate(channel, 1);
+            assertNotNull(future);
+            future.sync();
+            assertNotSame(loop, channel.eventLoop());
+        } finally {
+            channel.close().sync();
+        }
+    }
+
+    private static CountDownLatch block(EventLoop loop) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        started.await();
+        return latch;
+    }
+
+    private static void spin(EventLoop loop, final long millis) throws Exception {
+        loop.submit(new Runnable() {
+            @Override
+            public void run() {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+                while (System.nanoTime() < deadline) {
+                    Thread.yield();
+                }
+            }
+        }).sync();
+    }
+}
@@ -20,6 +20,7 @@ import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Appender;
 import io.netty.channel.local.LocalChannel;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
 import org.hamcrest.MatcherAssert;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -137,6 +138,65 @@ public class SingleThreadEventLoopTest {
         }
     }
 
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testMetric() throws Exception {
+        DefaultEventLoop loop = new DefaultEventLoop();
+        try {
+            EventLoopMetric metric = loop.metric();
+            loop.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }).sync();
+            long waitTime = metric.waitTime();
+            Thread.sleep(100);
+
+            assertThat(metric.maxTaskTime(), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100)));
+            assertThat(metric.taskTime(), greaterThanOrEqualTo(metric.maxTaskTime()));
+            assertThat(metric.waitTime() - waitTime, greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100)));
+            assertThat(metric.ioTime(), greaterThanOrEqualTo(0L));
+            assertEquals(0, metric.pendingTasks());
+            assertEquals(-1, metric.registeredChannels());
+        } finally {
+            loop.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testMetricTaskQueueLatency() throws Exception {
+        DefaultEventLoop loop = new DefaultEventLoop();
+        try {
+            // The task metrics are only collected once requested.
+            EventLoopMetric metric = loop.metric();
+            final CountDownLatch latch = new CountDownLatch(1);
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            Future<?> future = loop.submit(NOOP);
+            Thread.sleep(150);
+            latch.countDown();
+            future.sync();
+
+            assertThat(metric.taskQueueLatency(), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100)));
+        } finally {
+            loop.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
     private static void assertRejection(EventExecutor loop) {
         try {
             loop.execute(NOOP);
@@ -16,15 +16,31 @@
 package io.netty.channel.group;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelId;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.CharsetUtil;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 public class DefaultChannelGroupTest {
 
     // Test for #1183
@@ -57,4 +73,69 @@ public class DefaultChannelGroupTest {
         bossGroup.terminationFuture().sync();
         workerGroup.terminationFuture().sync();
     }
+
+    @Test
+    public void testWriteAndFlushEncodesOnce() {
+        final AtomicInteger encoded = new AtomicInteger();
+        final AtomicInteger pipelineEncoded = new AtomicInteger();
+        DefaultChannelGroup group = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        EmbeddedChannel[] channels = new EmbeddedChannel[3];
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = new EmbeddedChannel(DefaultChannelId.newInstance(), new ChannelOutboundHandlerAdapter() {
+                @Override
+                public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                    if (msg instanceof StringBuilder) {
+                        pipelineEncoded.incrementAndGet();
+                        msg = Unpooled.copiedBuffer((StringBuilder) msg, CharsetUtil.US_ASCII);
+                    }
+                    ctx.write(msg, promise);
+                }
+            });
+            group.add(channels[i]);
+        }
+
+        ChannelGroupFuture future = group.writeAndFlush(new StringBuilder("broadcast"),
+                new ChannelGroupMessageEncoder<StringBuilder>() {
+                    @Override
+                    public ByteBuf encode(ByteBufAllocator allocator, StringBuilder msg) {
+                        encoded.incrementAndGet();
+                        return Unpooled.copiedBuffer(msg, CharsetUtil.US_ASCII);
+                    }
+                });
+        assertTrue(future.isSuccess());
+        assertEquals(1, encoded.get());
+        assertEquals(0, pipelineEncoded.get());
+
+        ByteBuf last = null;
+        for (EmbeddedChannel channel : channels) {
+            ByteBuf buf = channel.readOutbound();
+            assertTrue(buf.isReadOnly());
+            assertEquals("broadcast", buf.toString(CharsetUtil.US_ASCII));
+            buf.release();
+            last = buf;
+            assertFalse(channel.finish());
+        }
+        assertEquals(0, last.refCnt());
+    }
+
+    @Test
+    public void testWriteAndFlushEncoderFailure() {
+        final IllegalStateException cause = new IllegalStateException();
+        DefaultChannelGroup group = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        group.add(channel);
+        ByteBuf message = Unpooled.buffer().writeByte(1);
+
+        ChannelGroupFuture future = group.writeAndFlush(message, new ChannelGroupMessageEncoder<ByteBuf>() {
+            @Override
+            public ByteBuf encode(ByteBufAllocator allocator, ByteBuf msg) {
+                throw cause;
+            }
+        }, ChannelMatchers.all(), false);
+        assertFalse(future.isSuccess());
+        assertSame(cause, future.find(channel).cause());
+        assertEquals(0, message.refCnt());
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
 }